@@ -0,0 +1,62 @@
+package com.github.rccookie.math.benchmark;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.math.BigDecimalMath;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Transcendental functions at the given number of significant digits. The precision
+ * of the result is determined by the precision of the argument.
+ *
+ * <p>{@link BigDecimalMath} estimates errors using the ulp of the argument as a double,
+ * which underflows at around 300 digits: beyond that, exp fails and sin becomes very slow.
+ * Higher precisions can be measured using <code>-p digits=500,5000</code>.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class BigDecimalMathBenchmark {
+
+    @Param({ "50", "150", "250" })
+    public int digits;
+
+    private BigDecimal x;
+
+    @Setup
+    public void setup() {
+        // 0.7000...0123 with the given number of significant digits
+        x = new BigDecimal(BigInteger.TEN.pow(digits - 1).multiply(BigInteger.valueOf(7)).add(BigInteger.valueOf(123)), digits);
+    }
+
+    @Benchmark
+    public BigDecimal exp() {
+        return BigDecimalMath.exp(x);
+    }
+
+    @Benchmark
+    public BigDecimal ln() {
+        return BigDecimalMath.log(x);
+    }
+
+    @Benchmark
+    public BigDecimal sin() {
+        return BigDecimalMath.sin(x);
+    }
+}
@@ -0,0 +1,64 @@
+package com.github.rccookie.math.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.math.DoubleMatrix;
+import com.github.rccookie.math.DoubleVector;
+import com.github.rccookie.math.Number;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Primitive matrix and vector arithmetic. The fork adds the vector API module, so the
+ * SIMD kernels are measured; append <code>-Dcalculator.simd=false</code> to the JVM
+ * arguments to measure the plain loops.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "--enable-preview", "--add-modules=jdk.incubator.vector" })
+public class DoubleMatrixBenchmark {
+
+    @Param({ "64", "256", "1024" })
+    public int size;
+
+    private DoubleMatrix a, b;
+    private DoubleVector x, y;
+
+    @Setup
+    public void setup() {
+        Random random = Workloads.random();
+        a = new DoubleMatrix(size, size, random.doubles(size * size).toArray());
+        b = new DoubleMatrix(size, size, random.doubles(size * size).toArray());
+        x = new DoubleVector(random.doubles(size * size).toArray());
+        y = new DoubleVector(random.doubles(size * size).toArray());
+    }
+
+    @Benchmark
+    public DoubleMatrix multiply() {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public Number add() {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public double dot() {
+        return x.dot(y);
+    }
+}
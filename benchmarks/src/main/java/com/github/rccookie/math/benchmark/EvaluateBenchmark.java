@@ -0,0 +1,56 @@
+package com.github.rccookie.math.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.calculator.Calculator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End-to-end evaluation of typical calculator inputs using {@link Calculator#evaluate(String)},
+ * including the (cached) parsing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class EvaluateBenchmark {
+
+    @Param({ "arithmetic", "functions", "lambda", "sum", "vector" })
+    public String workload;
+
+    private Calculator calculator;
+    private String expression;
+
+    @Setup
+    public void setup() {
+        calculator = new Calculator();
+        calculator.evaluate("f := x -> x^3 - 2x");
+        expression = switch(workload) {
+            case "arithmetic" -> "2^100 / 3 + 7! - 5/7";
+            case "functions" -> "sin(1.2) + cos(0.3) * exp(2) - ln(5)";
+            case "lambda" -> "f(3) + f(4) + (y -> f(y) / 2)(5)";
+            case "sum" -> "sum(1, 1000, k -> 1/k^2)";
+            case "vector" -> "[1, 2, 3] * [4, 5, 6] + |[3, 4]|";
+            default -> throw new IllegalArgumentException(workload);
+        };
+    }
+
+    @Benchmark
+    public Number evaluate() {
+        return calculator.evaluate(expression);
+    }
+}
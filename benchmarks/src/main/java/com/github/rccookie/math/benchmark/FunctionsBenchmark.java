@@ -0,0 +1,58 @@
+package com.github.rccookie.math.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.math.calculator.Calculator;
+import com.github.rccookie.math.expr.Expression;
+import com.github.rccookie.math.expr.Functions;
+import com.github.rccookie.math.expr.SymbolLookup;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Sums over <code>1..n</code> and the factorial of <code>n</code>.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class FunctionsBenchmark {
+
+    @Param({ "100", "1000", "10000" })
+    public int n;
+
+    private SymbolLookup lookup;
+    private Number high;
+    private Number f;
+
+    @Setup
+    public void setup() {
+        lookup = new Calculator().variables();
+        high = new Rational(n);
+        f = Expression.parse("k -> k^2 - 3k").evaluate(lookup);
+    }
+
+    @Benchmark
+    public Number sum() {
+        return Functions.sum(lookup, Number.ONE(), high, f);
+    }
+
+    @Benchmark
+    public Number factorial() {
+        return Functions.factorial(high);
+    }
+}
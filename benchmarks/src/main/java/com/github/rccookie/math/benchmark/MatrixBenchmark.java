@@ -0,0 +1,61 @@
+package com.github.rccookie.math.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.math.Matrix;
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.solve.LinearEquationSystem;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Exact linear algebra on square matrices of small random fractions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class MatrixBenchmark {
+
+    @Param({ "4", "16", "32" })
+    public int size;
+
+    private Matrix a, b;
+    private LinearEquationSystem system;
+
+    @Setup
+    public void setup() {
+        Random random = Workloads.random();
+        a = Workloads.matrix(random, size);
+        b = Workloads.matrix(random, size);
+        system = new LinearEquationSystem(a, Matrix.columnVector(b.rows()[0]));
+    }
+
+    @Benchmark
+    public Matrix multiply() {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public Number determinant() {
+        return a.determinant();
+    }
+
+    @Benchmark
+    public LinearEquationSystem.Result solve() {
+        return system.solve();
+    }
+}
@@ -0,0 +1,44 @@
+package com.github.rccookie.math.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.math.Matrix;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Exact inversion of square matrices of small random fractions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class MatrixInvertBenchmark {
+
+    @Param({ "3", "8", "32" })
+    public int size;
+
+    private Matrix a;
+
+    @Setup
+    public void setup() {
+        a = Workloads.matrix(Workloads.random(), size);
+    }
+
+    @Benchmark
+    public Matrix invert() {
+        return a.invert();
+    }
+}
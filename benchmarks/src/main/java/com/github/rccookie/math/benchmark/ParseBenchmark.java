@@ -0,0 +1,52 @@
+package com.github.rccookie.math.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.math.expr.Expression;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of expressions of different shapes, without the calculator's parse cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class ParseBenchmark {
+
+    @Param({ "arithmetic", "functions", "definition", "vector", "long" })
+    public String workload;
+
+    private String expression;
+
+    @Setup
+    public void setup() {
+        expression = switch(workload) {
+            case "arithmetic" -> "2^100 / 3 + 7! - 5/7";
+            case "functions" -> "sin(1.2) + cos(0.3) * exp(2) - ln(5)";
+            case "definition" -> "f(x,y) := |x - y|\u00B2 / (1 + x\u00B2)";
+            case "vector" -> "[1, 2, 3] * [4, 5, 6] + |[x, 2x, 3x]|";
+            // 500 terms with mixed precedence
+            case "long" -> "1" + " + 2x*3 - 4/5^6".repeat(500);
+            default -> throw new IllegalArgumentException(workload);
+        };
+    }
+
+    @Benchmark
+    public Expression parse() {
+        return Expression.parse(expression);
+    }
+}
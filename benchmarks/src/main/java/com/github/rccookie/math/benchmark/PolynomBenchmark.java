@@ -0,0 +1,67 @@
+package com.github.rccookie.math.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.calculator.Calculator;
+import com.github.rccookie.math.expr.Expression;
+import com.github.rccookie.math.expr.SymbolLookup;
+import com.github.rccookie.math.solve.Polynom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Multiplication and division of polynoms with random integer coefficients.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class PolynomBenchmark {
+
+    @Param({ "16", "256", "2048" })
+    public int degree;
+
+    private Polynom p;
+    private Polynom q;
+    private Polynom product;
+
+    @Setup
+    public void setup() {
+        SymbolLookup lookup = new Calculator().variables();
+        Random random = Workloads.random();
+        p = polynom(lookup, random, degree);
+        q = polynom(lookup, random, degree / 2);
+        product = (Polynom) p.multiply(q);
+    }
+
+    @Benchmark
+    public Number multiply() {
+        return p.multiply(q);
+    }
+
+    @Benchmark
+    public Polynom[] divide() {
+        return product.divideWithRemainder(q);
+    }
+
+    private static Polynom polynom(SymbolLookup lookup, Random random, int degree) {
+        StringBuilder expr = new StringBuilder("x -> ").append(random.nextInt(99) + 1);
+        for(int i=1; i<=degree; i++)
+            expr.append(" + ").append(random.nextInt(99) + 1).append("x^").append(i);
+        return Polynom.parse(lookup, Expression.parse(expr.toString()).evaluate(lookup));
+    }
+}
@@ -0,0 +1,63 @@
+package com.github.rccookie.math.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.math.SimpleNumber;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Arithmetic on fractions whose numerator and denominator have the given number of digits.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class RationalBenchmark {
+
+    @Param({ "10", "100", "1000" })
+    public int digits;
+
+    private Rational a, b;
+
+    @Setup
+    public void setup() {
+        Random random = Workloads.random();
+        a = Workloads.rational(random, digits);
+        b = Workloads.rational(random, digits);
+    }
+
+    @Benchmark
+    public SimpleNumber add() {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public SimpleNumber multiply() {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public SimpleNumber divide() {
+        return a.divide(b);
+    }
+
+    @Benchmark
+    public SimpleNumber lessThan() {
+        return a.lessThan(b);
+    }
+}
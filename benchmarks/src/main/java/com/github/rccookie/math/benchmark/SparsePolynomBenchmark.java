@@ -0,0 +1,78 @@
+package com.github.rccookie.math.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.math.calculator.Calculator;
+import com.github.rccookie.math.expr.Expression;
+import com.github.rccookie.math.expr.SymbolLookup;
+import com.github.rccookie.math.solve.Polynom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Arithmetic on and evaluation of polynoms in three indeterminants, with random terms
+ * and integer coefficients.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class SparsePolynomBenchmark {
+
+    @Param({ "16", "128", "512" })
+    public int terms;
+
+    private SymbolLookup lookup;
+    private Polynom p;
+    private Polynom q;
+    private Number point;
+
+    @Setup
+    public void setup() {
+        lookup = new Calculator().variables();
+        Random random = Workloads.random();
+        p = polynom(lookup, random, terms);
+        q = polynom(lookup, random, terms);
+        point = Expression.Numbers.of(new Rational(3, 2), new Rational(-2), new Rational(1, 3));
+    }
+
+    @Benchmark
+    public Number add() {
+        return p.add(q);
+    }
+
+    @Benchmark
+    public Number multiply() {
+        return p.multiply(q);
+    }
+
+    @Benchmark
+    public Number evaluate() {
+        return p.evaluate(lookup, point);
+    }
+
+    private static Polynom polynom(SymbolLookup lookup, Random random, int terms) {
+        StringBuilder expr = new StringBuilder("(x,y,z) -> ").append(random.nextInt(99) + 1);
+        for(int i=0; i<terms; i++)
+            expr.append(" + ").append(random.nextInt(99) + 1)
+                    .append(" x^").append(random.nextInt(16))
+                    .append(" y^").append(random.nextInt(16))
+                    .append(" z^").append(random.nextInt(16));
+        return Polynom.parse(lookup, Expression.parse(expr.toString()).evaluate(lookup));
+    }
+}
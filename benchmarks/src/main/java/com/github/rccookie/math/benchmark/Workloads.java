@@ -0,0 +1,56 @@
+package com.github.rccookie.math.benchmark;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+import com.github.rccookie.math.Matrix;
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+
+/**
+ * Reproducible inputs for the benchmarks. All random values are generated with a
+ * fixed seed, so consecutive runs measure the same work.
+ */
+final class Workloads {
+
+    private Workloads() { }
+
+
+    /**
+     * Returns a new random number generator with a fixed seed.
+     */
+    static Random random() {
+        return new Random(42);
+    }
+
+    /**
+     * Returns a random positive integer with exactly the given number of decimal digits.
+     */
+    static BigInteger integer(Random random, int digits) {
+        BigInteger min = BigInteger.TEN.pow(digits - 1);
+        BigInteger range = BigInteger.TEN.pow(digits).subtract(min);
+        BigInteger x;
+        do {
+            x = new BigInteger(range.bitLength(), random);
+        } while(x.compareTo(range) >= 0);
+        return x.add(min);
+    }
+
+    /**
+     * Returns a random fraction whose numerator and denominator have the given number of digits.
+     */
+    static Rational rational(Random random, int digits) {
+        return new Rational(integer(random, digits), integer(random, digits));
+    }
+
+    /**
+     * Returns a random square matrix of small fractions. Such a matrix is invertible
+     * with overwhelming probability.
+     */
+    static Matrix matrix(Random random, int size) {
+        Number[][] rows = new Number[size][size];
+        for(int i=0; i<size; i++) for(int j=0; j<size; j++)
+            rows[i][j] = new Rational(random.nextInt(19) - 9, random.nextInt(9) + 1);
+        return Matrix.fromRows(rows);
+    }
+}
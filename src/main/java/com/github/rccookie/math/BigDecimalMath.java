@@ -7,6 +7,7 @@ import java.math.RoundingMode;
 import java.util.Collections;
 import java.util.Vector;
 
+import com.github.rccookie.math.expr.Budget;
 import com.github.rccookie.math.expr.UnsupportedMathOperationException;
 
 import org.jetbrains.annotations.Nullable;
@@ -433,6 +434,7 @@ public final class BigDecimalMath
                 MathContext mcTay = new MathContext( err2prec(1.,xUlpDbl/TAYLOR_NTERM) ) ;
                 for(int i=1 ; i <= TAYLOR_NTERM ; i++)
                 {
+                    Budget.checkpoint();
                     ifac = ifac.multiply(new BigInteger(""+i) ) ;
                     xpowi = xpowi.multiply(x) ;
                     final BigDecimal c= xpowi.divide(new BigDecimal(ifac),mcTay)  ;
@@ -529,6 +531,7 @@ public final class BigDecimalMath
             BigDecimal resul = z ;
             for(int k= 2;; k++)
             {
+                Budget.checkpoint();
                 zpown = multiplyRound(zpown,z) ;
                 BigDecimal c = divideRound(zpown,k) ;
                 if ( k % 2 == 0)
@@ -621,6 +624,7 @@ public final class BigDecimalMath
             Rational pk = new Rational(7153,524288) ;
             for(int k=1; ; k++)
             {
+                Budget.checkpoint();
                 Rational tmp = pk.divide(k) ;
                 if ( tmp.doubleValue() < eps)
                     break ;
@@ -658,6 +662,7 @@ public final class BigDecimalMath
             Rational pk = new Rational(759,16384) ;
             for(int k=1; ; k++)
             {
+                Budget.checkpoint();
                 Rational tmp = pk.divide(k) ;
                 if ( tmp.doubleValue() < eps)
                     break ;
@@ -690,6 +695,7 @@ public final class BigDecimalMath
             Rational pk = new Rational(1,8) ;
             for(int k=1; ; k++)
             {
+                Budget.checkpoint();
                 Rational tmp = pk.divide(k) ;
                 if ( tmp.doubleValue() < eps)
                     break ;
@@ -898,6 +904,7 @@ public final class BigDecimalMath
                 BigDecimal xpowa = powRound(x, qa) ;
                 for( ;; )
                 {
+                    Budget.checkpoint();
                     /* numerator and denominator of the Newton term.  The major
                      * disadvantage of this implementation is that the updates of the powers
                      * of the new estimate are done in full precision calling BigDecimal.pow(),
@@ -1024,6 +1031,7 @@ public final class BigDecimalMath
                     MathContext mcTay = new MathContext( err2prec(res.doubleValue(),xUlpDbl/k) ) ;
                     for(int i=1 ; ; i++)
                     {
+                        Budget.checkpoint();
                         /* TBD: at which precision will 2*i or 2*i+1 overflow?
                          */
                         ifac = ifac.multiply(new BigInteger(""+(2*i) ) ) ;
@@ -1447,6 +1455,7 @@ public final class BigDecimalMath
 
             for(int i= 1 ; ; i++)
             {
+                Budget.checkpoint();
                 xpowi = multiplyRound(xpowi,xhighprSq) ;
                 BigDecimal c = divideRound(xpowi,2*i+1) ;
 
@@ -1479,6 +1488,7 @@ public final class BigDecimalMath
 
             for(int i= 0 ; ; i++)
             {
+                Budget.checkpoint();
                 BigDecimal c = divideRound(xpowi,2*i+1) ;
 
                 resul = resul.add(c) ;
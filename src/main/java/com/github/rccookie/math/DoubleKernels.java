@@ -0,0 +1,123 @@
+package com.github.rccookie.math;
+
+/**
+ * Loops over arrays of doubles used by {@link DoubleMatrix} and {@link DoubleVector}.
+ * The implementation is chosen once when the class is loaded: if the SIMD loops were
+ * compiled (using the maven profile <code>simd</code>) and the incubating vector API
+ * is available (the JVM was started with <code>--add-modules jdk.incubator.vector</code>),
+ * the loops use SIMD instructions, otherwise plain loops are used. Setting the system
+ * property <code>calculator.simd</code> to <code>false</code> forces the plain loops.
+ */
+public abstract class DoubleKernels {
+
+    private static final DoubleKernels INSTANCE = load();
+
+    DoubleKernels() { }
+
+
+    /**
+     * Returns the kernels selected for this JVM.
+     *
+     * @return The kernels to use
+     */
+    public static DoubleKernels get() {
+        return INSTANCE;
+    }
+
+    private static DoubleKernels load() {
+        if(!"false".equals(System.getProperty("calculator.simd"))
+                && ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                // Loaded reflectively so that this class links without the module
+                return (DoubleKernels) Class.forName("com.github.rccookie.math.SimdKernels")
+                        .getDeclaredConstructor().newInstance();
+            } catch(ReflectiveOperationException | LinkageError ignored) { }
+        }
+        return new ScalarKernels();
+    }
+
+
+    /**
+     * Returns whether this implementation uses SIMD instructions.
+     *
+     * @return Whether the vector API is used
+     */
+    public abstract boolean isVectorized();
+
+    /**
+     * Returns the dot product of the given ranges of the two arrays.
+     *
+     * @param a The first array
+     * @param aOffset The index of the first element in a
+     * @param b The second array
+     * @param bOffset The index of the first element in b
+     * @param length The number of products to sum
+     * @return The sum of <code>a[aOffset+i] * b[bOffset+i]</code>
+     */
+    public abstract double dot(double[] a, int aOffset, double[] b, int bOffset, int length);
+
+    /**
+     * Adds a multiple of one range of an array to another, <code>y += alpha * x</code>.
+     *
+     * @param alpha The factor for x
+     * @param x The array to add
+     * @param xOffset The index of the first element in x
+     * @param y The array to add to
+     * @param yOffset The index of the first element in y
+     * @param length The number of elements
+     */
+    public abstract void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length);
+
+    /**
+     * Applies the given operation element-wise, <code>result[i] = op(a[i], b[i])</code>.
+     *
+     * @param op The operation
+     * @param a The first operands
+     * @param b The second operands
+     * @param result The array to store the results in, may be one of the operands
+     */
+    public abstract void apply(Operation op, double[] a, double[] b, double[] result);
+
+    /**
+     * Applies the given operation element-wise with a scalar as second operand,
+     * <code>result[i] = op(a[i], b)</code>.
+     *
+     * @param op The operation
+     * @param a The first operands
+     * @param b The second operand
+     * @param result The array to store the results in, may be the operands
+     */
+    public abstract void apply(Operation op, double[] a, double b, double[] result);
+
+
+    /**
+     * An element-wise arithmetic operation.
+     */
+    public enum Operation {
+        ADD,
+        SUBTRACT,
+        /**
+         * Subtracts the first operand from the second.
+         */
+        SUBTRACT_FROM,
+        MULTIPLY,
+        DIVIDE;
+
+        /**
+         * Applies this operation to the given operands.
+         *
+         * @param a The first operand
+         * @param b The second operand
+         * @return The result
+         */
+        public double apply(double a, double b) {
+            return switch(this) {
+                case ADD -> a + b;
+                case SUBTRACT -> a - b;
+                case SUBTRACT_FROM -> b - a;
+                case MULTIPLY -> a * b;
+                case DIVIDE -> a / b;
+            };
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package com.github.rccookie.math;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+import com.github.rccookie.math.DoubleKernels.Operation;
+import com.github.rccookie.math.expr.SymbolLookup;
+import com.github.rccookie.math.rendering.RenderableExpression;
+import com.github.rccookie.math.solve.MatrixMultiplication;
+import com.github.rccookie.util.Arguments;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A matrix of imprecise real numbers, stored row by row in a single array of doubles.
+ * Compared to a {@link Matrix} of imprecise rationals, which holds each entry as an
+ * object with two big integers, it needs 8 bytes per entry and computes with primitive
+ * loops, at the cost of being limited to the precision of doubles.
+ *
+ * <p>Matrices whose entries are all imprecise can be converted with
+ * {@link Matrix#compact()}. Other numbers used as operands are converted to doubles if
+ * they are real; otherwise, the operation is done on the equivalent {@link Matrix}.</p>
+ */
+public final class DoubleMatrix implements Number {
+
+    private final int rows, columns;
+    private final double[] values;
+
+    /**
+     * Creates a new matrix with the given entries.
+     *
+     * @param rows The number of rows
+     * @param columns The number of columns
+     * @param valuesRowByRow The entries of the matrix, row by row
+     */
+    public DoubleMatrix(int rows, int columns, double... valuesRowByRow) {
+        if(rows <= 0 || columns <= 0)
+            throw new IllegalArgumentException("Matrix requires at least one row and column");
+        if(Arguments.checkNull(valuesRowByRow, "valuesRowByRow").length != rows * columns)
+            throw new IllegalArgumentException("Expected " + rows * columns + " values, got " + valuesRowByRow.length);
+        this.rows = rows;
+        this.columns = columns;
+        this.values = valuesRowByRow.clone();
+    }
+
+    private DoubleMatrix(boolean ignored, int rows, int columns, double[] values) {
+        this.rows = rows;
+        this.columns = columns;
+        this.values = values;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DoubleMatrix m && rows == m.rows && columns == m.columns && Arrays.equals(values, m.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * rows + columns) + Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return toMatrix().toString();
+    }
+
+    @Override
+    public double toDouble(SymbolLookup lookup) {
+        if(values.length == 1)
+            return values[0];
+        throw new UnsupportedOperationException("Cannot convert multi-element matrix to double");
+    }
+
+    @Override
+    public RenderableExpression toRenderable() {
+        return toMatrix().toRenderable();
+    }
+
+    @Override
+    public Object toJson() {
+        return toMatrix().toJson();
+    }
+
+    public int rowCount() {
+        return rows;
+    }
+
+    public int columnCount() {
+        return columns;
+    }
+
+    /**
+     * Returns the entry at the given position.
+     *
+     * @param row The row index, starting at 0
+     * @param column The column index, starting at 0
+     * @return The entry as imprecise rational
+     */
+    public Number get(int row, int column) {
+        return toNumber(getDouble(row, column));
+    }
+
+    /**
+     * Returns the entry at the given position.
+     *
+     * @param row The row index, starting at 0
+     * @param column The column index, starting at 0
+     * @return The entry
+     */
+    public double getDouble(int row, int column) {
+        Arguments.checkRange(row, 0, rows);
+        Arguments.checkRange(column, 0, columns);
+        return values[row * columns + column];
+    }
+
+    /**
+     * Returns a copy of the entries of this matrix, row by row.
+     *
+     * @return The entries
+     */
+    public double[] toArray() {
+        return values.clone();
+    }
+
+    /**
+     * Returns this matrix as {@link Matrix} of imprecise rationals.
+     *
+     * @return An equivalent matrix
+     */
+    public Matrix toMatrix() {
+        Number[][] rows = new Number[this.rows][columns];
+        for(int i=0; i<this.rows; i++)
+            for(int j=0; j<columns; j++)
+                rows[i][j] = toNumber(values[i * columns + j]);
+        return Matrix.fromRows(rows);
+    }
+
+    /**
+     * Returns the identity matrix of the given size.
+     *
+     * @param size The number of rows and columns
+     * @return The identity matrix
+     */
+    public static DoubleMatrix identity(int size) {
+        double[] values = new double[size * size];
+        for(int i=0; i<size; i++)
+            values[i * size + i] = 1;
+        return new DoubleMatrix(size, size, values);
+    }
+
+    /**
+     * Returns a new matrix with the given operator applied to each entry.
+     *
+     * @param operator The operator to apply to each entry
+     * @return The derived matrix
+     */
+    public DoubleMatrix derive(DoubleUnaryOperator operator) {
+        double[] result = new double[values.length];
+        for(int i=0; i<result.length; i++)
+            result[i] = operator.applyAsDouble(values[i]);
+        return new DoubleMatrix(true, rows, columns, result);
+    }
+
+    /**
+     * Returns a new matrix with the given operator applied to the entries of this and
+     * the given matrix, which must have the same size.
+     *
+     * @param x The second operand
+     * @param operator The operator to apply to each pair of entries
+     * @return The derived matrix
+     */
+    public DoubleMatrix derive(DoubleMatrix x, DoubleBinaryOperator operator) {
+        if(rows != x.rows || columns != x.columns)
+            throw new ArithmeticException("Matrices of different size");
+        double[] result = new double[values.length];
+        for(int i=0; i<result.length; i++)
+            result[i] = operator.applyAsDouble(values[i], x.values[i]);
+        return new DoubleMatrix(true, rows, columns, result);
+    }
+
+    public DoubleMatrix transpose() {
+        double[] result = new double[values.length];
+        for(int i=0; i<rows; i++)
+            for(int j=0; j<columns; j++)
+                result[j * rows + i] = values[i * columns + j];
+        return new DoubleMatrix(true, columns, rows, result);
+    }
+
+    /**
+     * Multiplies this matrix with the given one.
+     *
+     * @param m The right factor, with as many rows as this matrix has columns
+     * @return The product
+     */
+    public DoubleMatrix multiply(DoubleMatrix m) {
+        if(columns != m.rows)
+            throw new ArithmeticException("Trying to multiply non-matching matrices");
+        return new DoubleMatrix(true, rows, m.columns, MatrixMultiplication.multiply(values, m.values, rows, columns, m.columns));
+    }
+
+    /**
+     * Multiplies this matrix with the given column vector.
+     *
+     * @param v The vector, with as many components as this matrix has columns
+     * @return The product
+     */
+    public DoubleVector multiply(DoubleVector v) {
+        if(columns != v.size())
+            throw new ArithmeticException("Trying to multiply non-matching matrix and vector");
+        double[] x = v.values(), result = new double[rows];
+        DoubleKernels kernels = DoubleKernels.get();
+        for(int i=0; i<rows; i++)
+            result[i] = kernels.dot(values, i * columns, x, 0, columns);
+        return new DoubleVector(true, result);
+    }
+
+    /**
+     * Computes the determinant with the LU decomposition with partial pivoting.
+     *
+     * @return The determinant
+     */
+    public double determinant() {
+        if(rows != columns)
+            throw new ArithmeticException("Non-square matrix does not have a determinant");
+        int n = rows;
+        double[] a = values.clone();
+        double det = 1;
+        DoubleKernels kernels = DoubleKernels.get();
+        for(int k=0; k<n; k++) {
+            int p = pivot(a, n, k);
+            if(a[p * n + k] == 0) return 0;
+            if(p != k) {
+                swapRows(a, n, p, k);
+                det = -det;
+            }
+            double pivot = a[k * n + k];
+            det *= pivot;
+            for(int i=k+1; i<n; i++) {
+                double factor = a[i * n + k] / pivot;
+                if(factor != 0)
+                    kernels.axpy(-factor, a, k * n + k+1, a, i * n + k+1, n - k-1);
+            }
+        }
+        return det;
+    }
+
+    /**
+     * Computes the inverse of this square matrix by Gauss-Jordan elimination with
+     * partial pivoting.
+     */
+    private DoubleMatrix invertSquare() {
+        int n = rows, w = 2 * n;
+        double[] a = new double[n * w];
+        for(int i=0; i<n; i++) {
+            System.arraycopy(values, i * n, a, i * w, n);
+            a[i * w + n + i] = 1;
+        }
+        DoubleKernels kernels = DoubleKernels.get();
+        for(int k=0; k<n; k++) {
+            int p = k;
+            for(int i=k+1; i<n; i++)
+                if(Math.abs(a[i * w + k]) > Math.abs(a[p * w + k])) p = i;
+            if(a[p * w + k] == 0)
+                throw new ArithmeticException("Matrix has no inverse");
+            swapRows(a, w, p, k);
+            double pivot = a[k * w + k];
+            for(int j=k; j<w; j++)
+                a[k * w + j] /= pivot;
+            for(int i=0; i<n; i++) {
+                double factor = a[i * w + k];
+                if(i != k && factor != 0)
+                    kernels.axpy(-factor, a, k * w + k, a, i * w + k, w - k);
+            }
+        }
+        double[] inverse = new double[n * n];
+        for(int i=0; i<n; i++)
+            System.arraycopy(a, i * w + n, inverse, i * n, n);
+        return new DoubleMatrix(true, n, n, inverse);
+    }
+
+    private DoubleMatrix apply(Operation op, DoubleMatrix x) {
+        double[] result = new double[values.length];
+        DoubleKernels.get().apply(op, values, x.values, result);
+        return new DoubleMatrix(true, rows, columns, result);
+    }
+
+    private DoubleMatrix apply(Operation op, double x) {
+        double[] result = new double[values.length];
+        DoubleKernels.get().apply(op, values, x, result);
+        return new DoubleMatrix(true, rows, columns, result);
+    }
+
+    private static int pivot(double[] a, int n, int k) {
+        int p = k;
+        for(int i=k+1; i<n; i++)
+            if(Math.abs(a[i * n + k]) > Math.abs(a[p * n + k])) p = i;
+        return p;
+    }
+
+    private static void swapRows(double[] a, int width, int p, int k) {
+        if(p == k) return;
+        for(int j=0; j<width; j++) {
+            double tmp = a[p * width + j];
+            a[p * width + j] = a[k * width + j];
+            a[k * width + j] = tmp;
+        }
+    }
+
+    /**
+     * Returns the given number as double, or NaN if it is not a real number in the
+     * range of doubles.
+     */
+    static double real(Number x) {
+        if(!(x instanceof Rational r)) return Double.NaN;
+        double d = r.toDouble();
+        return Double.isFinite(d) ? d : Double.NaN;
+    }
+
+    /**
+     * Converts the given double to an imprecise rational.
+     */
+    static Number toNumber(double x) {
+        if(!Double.isFinite(x))
+            throw new ArithmeticException("Value out of the range of doubles");
+        return new Rational(x, false);
+    }
+
+    /**
+     * Converts the given matrix to a double matrix, if it is one or all its entries
+     * are real.
+     */
+    private static DoubleMatrix asDoubleMatrix(Number x) {
+        if(x instanceof DoubleMatrix m) return m;
+        if(!(x instanceof Matrix m)) return null;
+        int rows = m.rowCount(), columns = m.columnCount();
+        double[] values = new double[rows * columns];
+        for(int i=0; i<rows; i++)
+            for(int j=0; j<columns; j++)
+                if(Double.isNaN(values[i * columns + j] = real(m.getIndex(i, j)))) return null;
+        return new DoubleMatrix(true, rows, columns, values);
+    }
+
+    @Override
+    public boolean isZero() {
+        for(double x : values)
+            if(x != 0) return false;
+        return true;
+    }
+
+    @Override
+    public boolean isOne() {
+        for(double x : values)
+            if(x != 1) return false;
+        return true;
+    }
+
+    @Override
+    public @NotNull Number add(Number x) {
+        DoubleMatrix m = asDoubleMatrix(x);
+        if(m != null && m.rows == rows && m.columns == columns) return apply(Operation.ADD, m);
+        double d = real(x);
+        if(!Double.isNaN(d)) return apply(Operation.ADD, d);
+        return Matrix.compact(toMatrix().add(x instanceof DoubleMatrix dm ? dm.toMatrix() : x));
+    }
+
+    @Override
+    public @NotNull Number subtract(Number x) {
+        DoubleMatrix m = asDoubleMatrix(x);
+        if(m != null && m.rows == rows && m.columns == columns) return apply(Operation.SUBTRACT, m);
+        double d = real(x);
+        if(!Double.isNaN(d)) return apply(Operation.SUBTRACT, d);
+        return Matrix.compact(toMatrix().subtract(x instanceof DoubleMatrix dm ? dm.toMatrix() : x));
+    }
+
+    @Override
+    public @NotNull Number subtractFrom(Number x) {
+        DoubleMatrix m = asDoubleMatrix(x);
+        if(m != null && m.rows == rows && m.columns == columns) return apply(Operation.SUBTRACT_FROM, m);
+        double d = real(x);
+        if(!Double.isNaN(d)) return apply(Operation.SUBTRACT_FROM, d);
+        return Matrix.compact(toMatrix().subtractFrom(x instanceof DoubleMatrix dm ? dm.toMatrix() : x));
+    }
+
+    @Override
+    public @NotNull Number multiply(Number x) {
+        double d = real(x);
+        if(!Double.isNaN(d)) return apply(Operation.MULTIPLY, d);
+        if(x instanceof DoubleVector v) return multiply(v);
+        DoubleMatrix m = asDoubleMatrix(x);
+        if(m != null) return multiply(m);
+        return Matrix.compact(toMatrix().multiply(x));
+    }
+
+    @Override
+    public @NotNull Number divide(Number x) {
+        double d = real(x);
+        if(!Double.isNaN(d)) {
+            if(d == 0) throw new ArithmeticException("Division by zero");
+            return apply(Operation.DIVIDE, d);
+        }
+        return Matrix.compact(toMatrix().divide(x instanceof DoubleMatrix dm ? dm.toMatrix() : x));
+    }
+
+    @Override
+    public @NotNull Number divideOther(Number x) {
+        return Matrix.compact(toMatrix().divideOther(x instanceof DoubleMatrix dm ? dm.toMatrix() : x));
+    }
+
+    @Override
+    public @NotNull Number raise(Number x) {
+        return Matrix.compact(toMatrix().raise(x));
+    }
+
+    @Override
+    public @NotNull Number raiseOther(Number x) {
+        return Matrix.compact(toMatrix().raiseOther(x));
+    }
+
+    @Override
+    public @NotNull Number abs() {
+        // Same as Matrix: euclidean length for vectors, otherwise the determinant
+        if(rows == 1 || columns == 1) {
+            return toNumber(Math.sqrt(DoubleKernels.get().dot(values, 0, values, 0, values.length)));
+        }
+        return toNumber(determinant());
+    }
+
+    @Override
+    public @NotNull DoubleMatrix negate() {
+        return apply(Operation.MULTIPLY, -1);
+    }
+
+    @Override
+    public @NotNull Number invert() {
+        if(rows == columns)
+            return invertSquare();
+        // Pseudo-inverse
+        return Matrix.compact(toMatrix().invert());
+    }
+
+    @Override
+    public @NotNull Number equalTo(Number x) {
+        return toMatrix().equalTo(x instanceof DoubleMatrix m ? m.toMatrix() : x);
+    }
+
+    @Override
+    public @NotNull Number lessThan(Number x) {
+        return toMatrix().lessThan(x instanceof DoubleMatrix m ? m.toMatrix() : x);
+    }
+
+    @Override
+    public @NotNull Number greaterThan(Number x) {
+        return toMatrix().greaterThan(x instanceof DoubleMatrix m ? m.toMatrix() : x);
+    }
+}
@@ -0,0 +1,324 @@
+package com.github.rccookie.math;
+
+import java.util.Arrays;
+import java.util.function.DoubleBinaryOperator;
+import java.util.function.DoubleUnaryOperator;
+
+import com.github.rccookie.math.DoubleKernels.Operation;
+import com.github.rccookie.math.expr.SymbolLookup;
+import com.github.rccookie.math.rendering.RenderableExpression;
+import com.github.rccookie.util.Arguments;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * A column vector of imprecise real numbers, stored as an array of doubles. Compared
+ * to a {@link Vector} of imprecise rationals, which holds each component as an object
+ * with two big integers, it needs 8 bytes per component and computes with primitive
+ * loops, at the cost of being limited to the precision of doubles.
+ *
+ * <p>Vectors whose components are all imprecise can be converted with
+ * {@link Vector#compact()}. Other numbers used as operands are converted to doubles if
+ * they are real; otherwise, the operation is done on the equivalent {@link Vector}.</p>
+ */
+public final class DoubleVector implements Number {
+
+    private final double[] values;
+
+    /**
+     * Creates a new vector with the given components.
+     *
+     * @param values The components of the vector
+     */
+    public DoubleVector(double... values) {
+        if(Arguments.checkNull(values, "values").length == 0)
+            throw new IllegalArgumentException("Vector requires at least one component");
+        this.values = values.clone();
+    }
+
+    DoubleVector(boolean ignored, double[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof DoubleVector v && Arrays.equals(values, v.values);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(values);
+    }
+
+    @Override
+    public String toString() {
+        return toVector().toString();
+    }
+
+    @Override
+    public double toDouble(SymbolLookup lookup) {
+        if(values.length == 1)
+            return values[0];
+        throw new UnsupportedOperationException("Cannot convert multi-component vector to double");
+    }
+
+    @Override
+    public RenderableExpression toRenderable() {
+        return toVector().toRenderable();
+    }
+
+    @Override
+    public Object toJson() {
+        return toVector().toJson();
+    }
+
+    /**
+     * Returns the number of components of this vector.
+     *
+     * @return The size of this vector
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * Returns the component at the given index.
+     *
+     * @param index The index of the component, starting at 0
+     * @return The component as imprecise rational
+     */
+    public Number get(int index) {
+        return DoubleMatrix.toNumber(values[Arguments.checkRange(index, 0, values.length)]);
+    }
+
+    /**
+     * Returns a copy of the components of this vector.
+     *
+     * @return The components
+     */
+    public double[] toArray() {
+        return values.clone();
+    }
+
+    /**
+     * Returns this vector as {@link Vector} of imprecise rationals.
+     *
+     * @return An equivalent vector
+     */
+    public Vector toVector() {
+        Number[] components = new Number[values.length];
+        for(int i=0; i<components.length; i++)
+            components[i] = DoubleMatrix.toNumber(values[i]);
+        return new Vector(components);
+    }
+
+    /**
+     * Returns the components as array, without copying. Must not be modified.
+     */
+    double[] values() {
+        return values;
+    }
+
+    /**
+     * Returns a new vector with the given operator applied to each component.
+     *
+     * @param operator The operator to apply to each component
+     * @return The derived vector
+     */
+    public DoubleVector derive(DoubleUnaryOperator operator) {
+        double[] result = new double[values.length];
+        for(int i=0; i<result.length; i++)
+            result[i] = operator.applyAsDouble(values[i]);
+        return new DoubleVector(true, result);
+    }
+
+    /**
+     * Returns a new vector with the given operator applied to the components of this
+     * and the given vector. Like for {@link Vector}, the shorter vector is padded with
+     * zeros.
+     *
+     * @param x The second operand
+     * @param operator The operator to apply to each pair of components
+     * @return The derived vector
+     */
+    public DoubleVector derive(DoubleVector x, DoubleBinaryOperator operator) {
+        double[] result = new double[Math.max(values.length, x.values.length)];
+        for(int i=0; i<result.length; i++)
+            result[i] = operator.applyAsDouble(i < values.length ? values[i] : 0, i < x.values.length ? x.values[i] : 0);
+        return new DoubleVector(true, result);
+    }
+
+    /**
+     * Returns the dot product of this and the given vector.
+     *
+     * @param x The other vector
+     * @return The sum of the products of the components
+     */
+    public double dot(DoubleVector x) {
+        return DoubleKernels.get().dot(values, 0, x.values, 0, Math.min(values.length, x.values.length));
+    }
+
+    /**
+     * Returns the euclidean length of this vector.
+     *
+     * @return The norm of this vector
+     */
+    public double norm() {
+        return Math.sqrt(dot(this));
+    }
+
+    /**
+     * Returns the cross product of this and the given vector.
+     *
+     * @param x The other vector
+     * @return The cross product
+     */
+    public DoubleVector cross(DoubleVector x) {
+        if(values.length != 3 || x.values.length != 3)
+            throw new ArithmeticException("Cross product only defined for 3d vectors");
+        double[] a = values, b = x.values;
+        return new DoubleVector(true, new double[] {
+                a[1] * b[2] - a[2] * b[1],
+                a[2] * b[0] - a[0] * b[2],
+                a[0] * b[1] - a[1] * b[0]
+        });
+    }
+
+    private DoubleVector apply(Operation op, DoubleVector x) {
+        if(values.length != x.values.length)
+            return derive(x, op::apply);
+        double[] result = new double[values.length];
+        DoubleKernels.get().apply(op, values, x.values, result);
+        return new DoubleVector(true, result);
+    }
+
+    private DoubleVector apply(Operation op, double x) {
+        double[] result = new double[values.length];
+        DoubleKernels.get().apply(op, values, x, result);
+        return new DoubleVector(true, result);
+    }
+
+    /**
+     * Converts the given vector to a double vector, if it is one or all its components
+     * are real.
+     */
+    private static DoubleVector asDoubleVector(Number x) {
+        if(x instanceof DoubleVector v) return v;
+        if(!(x instanceof Vector v) || !v.isColumn()) return null;
+        double[] values = new double[v.size()];
+        for(int i=0; i<values.length; i++)
+            if(Double.isNaN(values[i] = DoubleMatrix.real(v.get(i)))) return null;
+        return new DoubleVector(true, values);
+    }
+
+    @Override
+    public boolean isZero() {
+        for(double x : values)
+            if(x != 0) return false;
+        return true;
+    }
+
+    @Override
+    public boolean isOne() {
+        for(double x : values)
+            if(x != 1) return false;
+        return true;
+    }
+
+    @Override
+    public @NotNull Number add(Number x) {
+        DoubleVector v = asDoubleVector(x);
+        if(v != null) return apply(Operation.ADD, v);
+        double d = DoubleMatrix.real(x);
+        if(!Double.isNaN(d)) return apply(Operation.ADD, d);
+        return Vector.compact(toVector().add(x));
+    }
+
+    @Override
+    public @NotNull Number subtract(Number x) {
+        DoubleVector v = asDoubleVector(x);
+        if(v != null) return apply(Operation.SUBTRACT, v);
+        double d = DoubleMatrix.real(x);
+        if(!Double.isNaN(d)) return apply(Operation.SUBTRACT, d);
+        return Vector.compact(toVector().subtract(x));
+    }
+
+    @Override
+    public @NotNull Number subtractFrom(Number x) {
+        DoubleVector v = asDoubleVector(x);
+        if(v != null) return apply(Operation.SUBTRACT_FROM, v);
+        double d = DoubleMatrix.real(x);
+        if(!Double.isNaN(d)) return apply(Operation.SUBTRACT_FROM, d);
+        return Vector.compact(toVector().subtractFrom(x));
+    }
+
+    @Override
+    public @NotNull Number multiply(Number x) {
+        double d = DoubleMatrix.real(x);
+        if(!Double.isNaN(d)) return apply(Operation.MULTIPLY, d);
+        // Like for Vector, single component vectors scale the other vector, and two
+        // column vectors multiply to their dot product
+        DoubleVector v = asDoubleVector(x);
+        if(v != null) {
+            if(v.values.length == 1) return apply(Operation.MULTIPLY, v.values[0]);
+            if(values.length == 1) return v.apply(Operation.MULTIPLY, values[0]);
+            return DoubleMatrix.toNumber(dot(v));
+        }
+        return Vector.compact(toVector().multiply(x));
+    }
+
+    @Override
+    public @NotNull Number divide(Number x) {
+        double d = DoubleMatrix.real(x);
+        if(!Double.isNaN(d)) {
+            if(d == 0) throw new ArithmeticException("Division by zero");
+            return apply(Operation.DIVIDE, d);
+        }
+        return Vector.compact(toVector().divide(x));
+    }
+
+    @Override
+    public @NotNull Number divideOther(Number x) {
+        return Vector.compact(toVector().divideOther(x));
+    }
+
+    @Override
+    public @NotNull Number raise(Number x) {
+        return Vector.compact(toVector().raise(x));
+    }
+
+    @Override
+    public @NotNull Number raiseOther(Number x) {
+        return Vector.compact(toVector().raiseOther(x));
+    }
+
+    @Override
+    public @NotNull Number abs() {
+        return DoubleMatrix.toNumber(norm());
+    }
+
+    @Override
+    public @NotNull DoubleVector negate() {
+        return apply(Operation.MULTIPLY, -1);
+    }
+
+    @Override
+    public @NotNull Number invert() {
+        return Vector.compact(toVector().invert());
+    }
+
+    @Override
+    public @NotNull Number equalTo(Number x) {
+        return toVector().equalTo(x instanceof DoubleVector v ? v.toVector() : x);
+    }
+
+    @Override
+    public @NotNull Number lessThan(Number x) {
+        return toVector().lessThan(x instanceof DoubleVector v ? v.toVector() : x);
+    }
+
+    @Override
+    public @NotNull Number greaterThan(Number x) {
+        return toVector().greaterThan(x instanceof DoubleVector v ? v.toVector() : x);
+    }
+}
@@ -0,0 +1,239 @@
+package com.github.rccookie.math;
+
+import java.util.function.UnaryOperator;
+
+import com.github.rccookie.json.JsonDeserialization;
+import com.github.rccookie.json.JsonObject;
+import com.github.rccookie.math.expr.Functions;
+import com.github.rccookie.math.expr.SymbolLookup;
+import com.github.rccookie.math.rendering.RenderableExpression;
+
+import org.jetbrains.annotations.NotNull;
+
+import static com.github.rccookie.math.rendering.RenderableExpression.*;
+
+/**
+ * A dual number <code>a + bε</code> with <code>ε² = 0</code>, used for forward mode
+ * automatic differentiation. Evaluating a function with <code>x + 1ε</code> results
+ * in <code>f(x) + f'(x)ε</code>: every arithmetic operation and every function in
+ * {@link Functions} applies the chain rule to the derivative part, so the exact
+ * derivative is obtained in a single evaluation, without a symbolic derivative or
+ * finite differences.
+ *
+ * <p>The derivative part may also be a vector. Seeding each of n parameters with
+ * the respective unit vector results in the gradient after a single evaluation.</p>
+ */
+public final class Dual implements Number {
+
+    static {
+        JsonDeserialization.register(Dual.class, json -> new Dual(
+                json.get("value").as(Number.class),
+                json.get("derivative").as(Number.class)
+        ));
+    }
+
+
+    /**
+     * The value, a real or complex number.
+     */
+    public final Number value;
+    /**
+     * The derivative of the value, a number or a vector of partial derivatives.
+     */
+    public final Number derivative;
+
+    public Dual(Number value, Number derivative) {
+        if(!(value instanceof SimpleNumber || value instanceof Complex))
+            throw new IllegalArgumentException("Value of dual number must be real or complex");
+        this.value = value;
+        this.derivative = derivative;
+    }
+
+
+    @Override
+    public String toString() {
+        return value + (derivative.toString().startsWith("-") ? "" : "+") + derivative + "\u03B5";
+    }
+
+    @Override
+    public Object toJson() {
+        return new JsonObject("value", value, "derivative", derivative);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj instanceof Dual d)
+            return value.equals(d.value) && derivative.equals(d.derivative);
+        return derivative.isZero() && value.equals(obj);
+    }
+
+    @Override
+    public int hashCode() {
+        if(derivative.isZero())
+            return value.hashCode();
+        return value.hashCode() ^ derivative.hashCode();
+    }
+
+    @Override
+    public boolean isZero() {
+        return value.isZero() && derivative.isZero();
+    }
+
+    @Override
+    public boolean isOne() {
+        return value.isOne() && derivative.isZero();
+    }
+
+    /**
+     * Applies a differentiable function to this dual number.
+     *
+     * @param function The function to apply
+     * @param derivative The derivative of the function
+     * @return <code>f(a) + f'(a)bε</code>
+     */
+    public Dual derive(UnaryOperator<Number> function, UnaryOperator<Number> derivative) {
+        return new Dual(function.apply(value), derivative.apply(value).multiply(this.derivative));
+    }
+
+    @Override
+    public @NotNull Number add(Number x) {
+        return switch(x) {
+            case Dual d -> new Dual(value.add(d.value), derivative.add(d.derivative));
+            default -> isScalar(x) ? new Dual(value.add(x), derivative) : x.add(this);
+        };
+    }
+
+    @Override
+    public @NotNull Number subtract(Number x) {
+        return switch(x) {
+            case Dual d -> new Dual(value.subtract(d.value), derivative.subtract(d.derivative));
+            default -> isScalar(x) ? new Dual(value.subtract(x), derivative) : x.subtractFrom(this);
+        };
+    }
+
+    @Override
+    public @NotNull Number subtractFrom(Number x) {
+        return switch(x) {
+            case Dual d -> d.subtract(this);
+            default -> isScalar(x) ? new Dual(value.subtractFrom(x), derivative.negate()) : x.subtract(this);
+        };
+    }
+
+    @Override
+    public @NotNull Number multiply(Number x) {
+        // (a+bε)(c+dε) = ac + (ad+bc)ε
+        return switch(x) {
+            case Dual d -> new Dual(value.multiply(d.value), d.derivative.multiply(value).add(derivative.multiply(d.value)));
+            default -> isScalar(x) ? new Dual(value.multiply(x), derivative.multiply(x)) : x.multiply(this);
+        };
+    }
+
+    @Override
+    public @NotNull Number divide(Number x) {
+        // (a+bε)/(c+dε) = a/c + (bc-ad)/c² ε
+        return switch(x) {
+            case Dual d -> new Dual(value.divide(d.value),
+                    derivative.multiply(d.value).subtract(d.derivative.multiply(value)).divide(d.value.multiply(d.value)));
+            default -> isScalar(x) ? new Dual(value.divide(x), derivative.divide(x)) : x.divideOther(this);
+        };
+    }
+
+    @Override
+    public @NotNull Number divideOther(Number x) {
+        return switch(x) {
+            case Dual d -> d.divide(this);
+            default -> isScalar(x) ? new Dual(x.divide(value), derivative.multiply(x.negate()).divide(value.multiply(value))) : x.divide(this);
+        };
+    }
+
+    @Override
+    public @NotNull Number raise(Number x) {
+        return switch(x) {
+            case Dual d -> {
+                // (a^c)' = a^c * (d ln a + cb/a)
+                Number pow = value.raise(d.value);
+                yield new Dual(pow, pow.multiply(d.derivative.multiply(Functions.ln(value)).add(derivative.multiply(d.value).divide(value))));
+            }
+            default -> {
+                if(!isScalar(x))
+                    yield x.raiseOther(this);
+                if(x.isZero())
+                    yield new Dual(value.raise(x), derivative.multiply(x));
+                yield new Dual(value.raise(x), derivative.multiply(x.multiply(value.raise(x.subtract(Number.ONE())))));
+            }
+        };
+    }
+
+    @Override
+    public @NotNull Number raiseOther(Number base) {
+        return switch(base) {
+            case Dual d -> d.raise(this);
+            default -> {
+                if(!isScalar(base))
+                    yield base.raise(this);
+                Number pow = base.raise(value);
+                if(base.isZero())
+                    yield new Dual(pow, derivative.multiply(base));
+                yield new Dual(pow, derivative.multiply(pow.multiply(Functions.ln(base))));
+            }
+        };
+    }
+
+    @Override
+    public @NotNull Number abs() {
+        if(value.isZero())
+            throw new ArithmeticException("abs is not differentiable at 0");
+        return value.lessThan(Number.ZERO()).isOne() ? negate() : this;
+    }
+
+    @Override
+    public @NotNull Dual negate() {
+        return new Dual(value.negate(), derivative.negate());
+    }
+
+    @Override
+    public @NotNull Number invert() {
+        return new Dual(value.invert(), derivative.negate().divide(value.multiply(value)));
+    }
+
+    @Override
+    public @NotNull Number equalTo(Number x) {
+        return value.equalTo(valueOf(x));
+    }
+
+    @Override
+    public @NotNull Number lessThan(Number x) {
+        return value.lessThan(valueOf(x));
+    }
+
+    @Override
+    public @NotNull Number greaterThan(Number x) {
+        return value.greaterThan(valueOf(x));
+    }
+
+    @Override
+    public double toDouble(SymbolLookup lookup) {
+        return value.toDouble(lookup);
+    }
+
+    @Override
+    public RenderableExpression toRenderable() {
+        RenderableExpression der = concat(derivative.toRenderable(), num("\u03B5"));
+        return derivative.toString().startsWith("-") ? concat(value.toRenderable(), der) : plus(value.toRenderable(), der);
+    }
+
+
+    /**
+     * Returns the value of the given number if it is a dual number.
+     *
+     * @param x The number
+     * @return The value of x if x is a dual number, otherwise x
+     */
+    public static Number valueOf(Number x) {
+        return x instanceof Dual d ? d.value : x;
+    }
+
+    private static boolean isScalar(Number x) {
+        return x instanceof SimpleNumber || x instanceof Complex;
+    }
+}
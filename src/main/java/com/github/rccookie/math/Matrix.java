@@ -9,6 +9,10 @@ import com.github.rccookie.math.expr.MathEvaluationException;
 import com.github.rccookie.math.expr.SymbolLookup;
 import com.github.rccookie.math.expr.UnsupportedMathOperationException;
 import com.github.rccookie.math.rendering.RenderableExpression;
+import com.github.rccookie.math.solve.Bareiss;
+import com.github.rccookie.math.solve.LUDecomposition;
+import com.github.rccookie.math.solve.MatrixMultiplication;
+import com.github.rccookie.math.solve.QRDecomposition;
 import com.github.rccookie.util.Arguments;
 
 import org.jetbrains.annotations.NotNull;
@@ -22,24 +26,24 @@ public class Matrix implements Number {
     }
 
     private Matrix(Matrix src, UnaryOperator<Number> operation) {
-        this.rows = new Number[src.rows.length][src.rows[0].length];
-        for(int i=0; i<rows.length; i++)
-            for(int j=0; j<rows[0].length; j++)
-                rows[i][j] = operation.apply(src.rows[i][j]);
+        this(src.rows.length, src.rows[0].length, (i,j) -> operation.apply(src.rows[i][j]));
     }
 
     private Matrix(Matrix src, MatrixOperation operation) {
-        this.rows = new Number[src.rows.length][src.rows[0].length];
-        for(int i=0; i<rows.length; i++)
-            for(int j=0; j<rows[0].length; j++)
-                rows[i][j] = operation.apply(i, j, src.rows[i][j]);
+        this(src.rows.length, src.rows[0].length, (i,j) -> operation.apply(i, j, src.rows[i][j]));
     }
 
     private Matrix(Matrix a, Matrix b, BinaryOperator<Number> operation) {
-        this.rows = new Number[Math.max(a.rows.length, b.rows.length)][Math.max(a.rows[0].length, b.rows[0].length)];
-        for(int i=0; i<rows.length; i++)
-            for(int j=0; j<rows[0].length; j++)
-                rows[i][j] = operation.apply(b.getIndex(i,j), a.getIndex(i,j));
+        this(Math.max(a.rows.length, b.rows.length), Math.max(a.rows[0].length, b.rows[0].length),
+                (i,j) -> operation.apply(b.getIndex(i,j), a.getIndex(i,j)));
+    }
+
+    private Matrix(int m, int n, IndexOperation operation) {
+        this.rows = new Number[m][n];
+        Number[] flat = new Number[m * n];
+        ParallelComponents.fill(flat, flat.length, k -> operation.apply(k / n, k % n));
+        for(int i=0; i<m; i++)
+            System.arraycopy(flat, i * n, rows[i], 0, n);
     }
 
     @Override
@@ -99,6 +103,36 @@ public class Matrix implements Number {
         return new JsonArray((Object[]) rows);
     }
 
+    /**
+     * Returns this matrix as {@link DoubleMatrix} if all entries are imprecise real
+     * numbers and the current precision is at most
+     * {@link MatrixMultiplication#DOUBLE_PRECISION}, which takes a fraction of the memory
+     * and computes with primitive loops. Otherwise, returns this matrix.
+     *
+     * @return An equivalent, possibly more compact matrix
+     */
+    public Number compact() {
+        if(Rational.getPrecision() > MatrixMultiplication.DOUBLE_PRECISION) return this;
+        int columns = rows[0].length;
+        double[] values = new double[rows.length * columns];
+        for(int i=0; i<rows.length; i++) {
+            for(int j=0; j<columns; j++) {
+                if(!(rows[i][j] instanceof Rational r) || r.precise) return this;
+                double x = r.toDouble();
+                if(!Double.isFinite(x)) return this;
+                values[i * columns + j] = x;
+            }
+        }
+        return new DoubleMatrix(rows.length, columns, values);
+    }
+
+    /**
+     * Returns the given number {@link #compact() compacted} if it is a matrix.
+     */
+    static Number compact(Number x) {
+        return x instanceof Matrix m ? m.compact() : x;
+    }
+
     public Matrix.Size size() {
         return new Size(rows.length, rows[0].length);
     }
@@ -259,7 +293,7 @@ public class Matrix implements Number {
 
     public Number[][] rows() {
         Number[][] rows = new Number[this.rows.length][];
-        for(int i=0; i<this.rows[0].length; i++)
+        for(int i=0; i<rows.length; i++)
             rows[i] = this.rows[i].clone();
         return rows;
     }
@@ -331,7 +365,10 @@ public class Matrix implements Number {
                     .subtract(b.multiply(d).multiply(i))
                     .subtract(a.multiply(f).multiply(h));
         }
-        return null; // TODO
+        // Elimination in O(n³): fraction-free for exact entries, otherwise with partial pivoting
+        if(Bareiss.isExact(rows))
+            return Bareiss.determinant(rows);
+        return new LUDecomposition(rows).determinant();
     }
 
     @Override
@@ -417,31 +454,54 @@ public class Matrix implements Number {
     @Override
     public @NotNull Matrix invert() {
         if(!isQuadratic()) {
-            Matrix transposition = transpose();
-            if(rows.length < rows[0].length)
-                return transposition.multiply(multiply(transposition).invert()); // right inverse
-            return transposition.multiply(this).invert().multiply(transposition); // left inverse
+            // Moore-Penrose pseudo-inverse of a matrix with full rank, via the QR
+            // decomposition instead of inverting A·Aᵀ or Aᵀ·A, which squares the condition
+            try {
+                if(rows.length < rows[0].length) // right inverse
+                    return new Matrix(new QRDecomposition(columns()).pseudoInverse()).transpose();
+                return new Matrix(new QRDecomposition(rows).pseudoInverse()); // left inverse
+            } catch(ArithmeticException e) {
+                throw new ArithmeticException("Matrix has no inverse");
+            }
         }
         if(rows.length == 1)
             return new Matrix(new Number[][] {{ rows[0][0].invert() }});
 
-        Number d = determinant();
-        if(d.equals(Number.ZERO()))
-            throw new ArithmeticException("Matrix has no inverse");
-        d = d.invert();
-
-        if(rows.length == 2)
+        if(rows.length == 2) {
+            Number d = determinant();
+            if(d.equals(Number.ZERO()))
+                throw new ArithmeticException("Matrix has no inverse");
+            d = d.invert();
             return new2x2(a22().multiply(d), a12().negate().multiply(d), a21().negate().multiply(d), a11().multiply(d));
-//        if(columns.length == 3)
-//            return adjugate().scale(d);
-        return adjugate().scale(d);
+        }
+
+        return new Matrix(invert(rows));
+    }
+
+    /**
+     * Inverts the given square matrix in O(n³): exact matrices by fraction-free
+     * Gauss-Jordan elimination of <code>[A | I]</code>, others by solving with the
+     * LU decomposition with partial pivoting.
+     *
+     * @param rows The rows of the matrix
+     * @return The rows of the inverse
+     * @throws ArithmeticException If the matrix is singular
+     */
+    static Number[][] invert(Number[][] rows) {
+        if(Bareiss.isExact(rows))
+            return Bareiss.inverse(rows);
+        LUDecomposition lu = new LUDecomposition(rows);
+        if(lu.isSingular())
+            throw new ArithmeticException("Matrix has no inverse");
+        return lu.inverse();
     }
 
     @Override
     public @NotNull Number equalTo(Number x) {
-        if(x instanceof Matrix m)
+        Number y = Number.expand(x);
+        if(y instanceof Matrix m)
             return equalTo(m);
-        return isScalar() ? rows[0][0].equalTo(x) : Number.FALSE();
+        return isScalar() ? rows[0][0].equalTo(y) : Number.FALSE();
     }
 
     public @NotNull Number equalTo(Matrix m) {
@@ -466,16 +526,18 @@ public class Matrix implements Number {
 
     @Override
     public @NotNull Matrix lessThan(Number x) {
-        return x instanceof Matrix m ?
+        Number y = Number.expand(x);
+        return y instanceof Matrix m ?
                 derive(m, Number::lessThan) :
-                derive(c -> c.lessThan(x));
+                derive(c -> c.lessThan(y));
     }
 
     @Override
     public @NotNull Matrix greaterThan(Number x) {
-        return x instanceof Matrix m ?
+        Number y = Number.expand(x);
+        return y instanceof Matrix m ?
                 derive(m, Number::greaterThan) :
-                derive(c -> c.greaterThan(x));
+                derive(c -> c.greaterThan(y));
     }
 
     public @NotNull Matrix transpose() {
@@ -484,28 +546,32 @@ public class Matrix implements Number {
 
     @Override
     public @NotNull Number add(Number x) {
-        return x instanceof Matrix m ?
+        Number y = Number.expand(x);
+        return y instanceof Matrix m ?
                 derive(m, Number::add) :
-                derive(c -> c.add(x));
+                derive(c -> c.add(y));
     }
 
     @Override
     public @NotNull Number subtract(Number x) {
-        return x instanceof Matrix m ?
+        Number y = Number.expand(x);
+        return y instanceof Matrix m ?
                 derive(m, Number::subtract):
-                derive(c -> c.add(x));
+                derive(c -> c.add(y));
     }
 
     @Override
     public @NotNull Number subtractFrom(Number x) {
-        return x instanceof Matrix m ?
+        Number y = Number.expand(x);
+        return y instanceof Matrix m ?
                 derive(m, Number::subtractFrom):
-                derive(c -> c.subtractFrom(x));
+                derive(c -> c.subtractFrom(y));
     }
 
     @Override
     public @NotNull Number multiply(Number x) {
-        return x instanceof Matrix m ? multiply(m) : scale(x);
+        Number y = Number.expand(x);
+        return y instanceof Matrix m ? multiply(m) : scale(y);
     }
 
     public @NotNull Matrix scale(Number x) {
@@ -513,17 +579,16 @@ public class Matrix implements Number {
     }
 
     public @NotNull Matrix multiplyUnsafe(Matrix m) {
-        Number[][] result = new Number[rows.length][m.rows[0].length];
         int sumSize = Math.min(rows[0].length, m.rows.length);
-        for(int i=0; i<result.length; i++) {
-            for(int j=0; j<result[0].length; j++) {
-                Number ij = Number.ZERO();
-                for(int k=0; k<sumSize; k++)
-                    ij.add(rows[i][k].multiply(m.rows[k][j]));
-                result[i][j] = ij;
-            }
+        Number[][] left = rows, right = m.rows;
+        if(left[0].length != sumSize) {
+            left = new Number[rows.length][sumSize];
+            for(int i=0; i<left.length; i++)
+                System.arraycopy(rows[i], 0, left[i], 0, sumSize);
         }
-        return new Matrix(result);
+        else if(right.length != sumSize)
+            right = Arrays.copyOf(right, sumSize);
+        return new Matrix(MatrixMultiplication.multiply(left, right));
     }
 
     public @NotNull Matrix multiply(Matrix m) {
@@ -538,7 +603,7 @@ public class Matrix implements Number {
         Number result = Number.ZERO();
         for(int i=0; i<r; i++)
             for(int j=0; j<c; j++)
-                result.add(rows[i][j].multiply(other.rows[i][j]));
+                result = result.add(rows[i][j].multiply(other.rows[i][j]));
         return result;
     }
 
@@ -562,14 +627,39 @@ public class Matrix implements Number {
         return null;
     }
 
+    /**
+     * Returns a new matrix with the given operator applied to each component. For
+     * large matrices the components are computed in parallel, thus the operator must
+     * be safe to be invoked concurrently.
+     *
+     * @param componentOperator The operator to apply to each component
+     * @return The derived matrix
+     */
     public Matrix derive(UnaryOperator<Number> componentOperator) {
         return new Matrix(this, componentOperator);
     }
 
+    /**
+     * Returns a new matrix with the given operator applied to each component and its
+     * position. For large matrices the components are computed in parallel, thus the
+     * operator must be safe to be invoked concurrently.
+     *
+     * @param componentOperator The operator to apply to each component
+     * @return The derived matrix
+     */
     public Matrix derive(MatrixOperation componentOperator) {
         return new Matrix(this, componentOperator);
     }
 
+    /**
+     * Returns a new matrix with the given operator applied to each pair of components
+     * of this and the given matrix. For large matrices the components are computed in
+     * parallel, thus the operator must be safe to be invoked concurrently.
+     *
+     * @param other The matrix to get the other operands from
+     * @param componentOperator The operator to apply to each pair of components
+     * @return The derived matrix
+     */
     public Matrix derive(Matrix other, BinaryOperator<Number> componentOperator) {
         return new Matrix(this, other, componentOperator);
     }
@@ -753,4 +843,9 @@ public class Matrix implements Number {
     public interface MatrixOperation {
         Number apply(int row, int column, Number element);
     }
+
+    @FunctionalInterface
+    private interface IndexOperation {
+        Number apply(int row, int column);
+    }
 }
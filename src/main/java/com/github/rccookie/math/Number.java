@@ -245,6 +245,36 @@ public interface Number extends JsonSerializable {
     RenderableExpression toRenderable();
 
 
+    /**
+     * Returns the given number as {@link DoubleVector} or {@link DoubleMatrix} if it is
+     * a vector or matrix that can be {@link Vector#compact() compacted}, otherwise the
+     * number itself. Values are compacted when they are the result of an evaluation or
+     * stored in a variable.
+     *
+     * @param x The number to compact
+     * @return An equivalent, possibly more compact number
+     */
+    @NotNull
+    static Number compact(Number x) {
+        return Matrix.compact(Vector.compact(x));
+    }
+
+    /**
+     * Returns the given number as {@link Vector} or {@link Matrix} if it is a
+     * {@link DoubleVector} or {@link DoubleMatrix}, otherwise the number itself. This
+     * is the inverse of {@link #compact(Number)}, for code that handles vectors and
+     * matrices only in their general form.
+     *
+     * @param x The number to expand
+     * @return An equivalent number which is not a double vector or matrix
+     */
+    @NotNull
+    static Number expand(Number x) {
+        if(x instanceof DoubleVector v) return v.toVector();
+        if(x instanceof DoubleMatrix m) return m.toMatrix();
+        return x;
+    }
+
     @NotNull
     static SimpleNumber bool(boolean oneOrZero) {
         return oneOrZero ? TRUE() : FALSE();
@@ -0,0 +1,51 @@
+package com.github.rccookie.math;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntFunction;
+
+import com.github.rccookie.math.expr.Parallel;
+
+/**
+ * Fills the components of vectors and matrices, on the common fork/join pool
+ * if there are enough of them. Each component is computed independently and
+ * stored at its own index, so the result is the same as when filled sequentially.
+ */
+final class ParallelComponents {
+
+    /**
+     * Minimum number of scalar components for which parallel computation is used.
+     */
+    static final int THRESHOLD = 2048;
+
+    private ParallelComponents() { }
+
+
+    /**
+     * Sets <code>components[i] = generator.apply(i)</code> for every index. The
+     * generator may be invoked concurrently from different threads.
+     *
+     * @param components The array to fill
+     * @param cost The total number of scalar components that will be computed, which
+     *             may be more than the array length if each component is a vector
+     * @param generator Computes the component at the given index
+     */
+    static void fill(Number[] components, long cost, IntFunction<Number> generator) {
+        if(cost < THRESHOLD || components.length < 2 || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            for(int i=0; i<components.length; i++)
+                components[i] = generator.apply(i);
+            return;
+        }
+        Parallel.forEach(0, components.length, i -> components[i] = generator.apply(i));
+    }
+
+    /**
+     * Returns the total number of scalar components in the given vector,
+     * assuming all its components have the same size as the first one.
+     *
+     * @param v The vector to count the components of
+     * @return The (approximate) number of scalar components
+     */
+    static long cost(Vector v) {
+        return v.get(0) instanceof Vector c ? (long) v.size() * cost(c) : v.size();
+    }
+}
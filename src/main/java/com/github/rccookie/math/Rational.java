@@ -8,6 +8,7 @@ import java.util.function.Function;
 
 import com.github.rccookie.json.JsonDeserialization;
 import com.github.rccookie.json.JsonObject;
+import com.github.rccookie.math.expr.Budget;
 import com.github.rccookie.math.expr.SymbolLookup;
 import com.github.rccookie.math.rendering.RenderableExpression;
 import com.github.rccookie.util.Arguments;
@@ -269,17 +270,20 @@ public class Rational implements SimpleNumber {
         if(n.signum() < 0 && !r.d.equals(BigInteger.ONE)) // (-x)^(y/z) = i*(x^(y/z))  |  z > 1
             return new Complex(ZERO, (Rational) negate().raise(x));
 
-        if(r.n.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) <= 0) {
+        // Imprecise exponents usually have huge denominators, raising to the numerator first would be far too expensive
+        if(r.n.compareTo(BigInteger.valueOf(Integer.MAX_VALUE)) <= 0 && (r.precise || r.d.bitLength() < 32)) {
             Rational res = precise == r.precise ? this : new Rational(n, d, false);
-            if(!r.n.equals(BigInteger.ONE))
+            if(!r.n.equals(BigInteger.ONE)) {
+                Budget.checkSize((long) Math.max(n.bitLength(), d.bitLength()) * r.n.intValue());
                 res = new Rational(res.n.pow(r.n.intValueExact()), res.d.pow(r.n.intValue()), res.precise, false);
+            }
             if(!r.d.equals(BigInteger.ONE)) {
                 BigInteger[] tmpN, tmpD;
-                if(r.d.equals(BigInteger.TWO) && (tmpN = n.sqrtAndRemainder())[1].equals(BigInteger.ZERO) &&
-                        (tmpD = d.sqrtAndRemainder())[1].equals(BigInteger.ZERO)) {
+                if(r.d.equals(BigInteger.TWO) && (tmpN = res.n.sqrtAndRemainder())[1].equals(BigInteger.ZERO) &&
+                        (tmpD = res.d.sqrtAndRemainder())[1].equals(BigInteger.ZERO)) {
                     res = new Rational(tmpN[0], tmpD[0], res.precise, false);
                 } else {
-                    res = new Rational(BigDecimalMath.pow(toBigDecimal(), new Rational(BigInteger.ONE, r.d).toBigDecimal()), false);
+                    res = new Rational(BigDecimalMath.pow(res.toBigDecimal(), new Rational(BigInteger.ONE, r.d).toBigDecimal()), false);
                 }
             }
             return res;
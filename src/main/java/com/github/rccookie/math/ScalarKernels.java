@@ -0,0 +1,38 @@
+package com.github.rccookie.math;
+
+/**
+ * Plain loops, used if the vector API is not available.
+ */
+final class ScalarKernels extends DoubleKernels {
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    public double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double sum = 0;
+        for(int i=0; i<length; i++)
+            sum += a[aOffset + i] * b[bOffset + i];
+        return sum;
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        for(int i=0; i<length; i++)
+            y[yOffset + i] += alpha * x[xOffset + i];
+    }
+
+    @Override
+    public void apply(Operation op, double[] a, double[] b, double[] result) {
+        for(int i=0; i<result.length; i++)
+            result[i] = op.apply(a[i], b[i]);
+    }
+
+    @Override
+    public void apply(Operation op, double[] a, double b, double[] result) {
+        for(int i=0; i<result.length; i++)
+            result[i] = op.apply(a[i], b);
+    }
+}
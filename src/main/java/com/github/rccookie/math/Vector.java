@@ -3,6 +3,7 @@ package com.github.rccookie.math;
 import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.function.BinaryOperator;
+import java.util.function.IntFunction;
 import java.util.function.UnaryOperator;
 
 import com.github.rccookie.json.JsonArray;
@@ -12,7 +13,7 @@ import com.github.rccookie.math.expr.MathEvaluationException;
 import com.github.rccookie.math.expr.MathExpressionSyntaxException;
 import com.github.rccookie.math.expr.SymbolLookup;
 import com.github.rccookie.math.rendering.RenderableExpression;
-import com.github.rccookie.math.solve.LinearEquationSystem;
+import com.github.rccookie.math.solve.MatrixMultiplication;
 import com.github.rccookie.primitive.int2;
 import com.github.rccookie.util.Arguments;
 
@@ -44,14 +45,13 @@ public class Vector implements Number {
 
     private Vector(Vector v, UnaryOperator<Number> operator) {
         this.components = new Number[v.components.length];
-        for(int i=0; i<components.length; i++)
-            components[i] = operator.apply(v.components[i]);
+        ParallelComponents.fill(components, ParallelComponents.cost(v), i -> operator.apply(v.components[i]));
     }
 
     private Vector(Vector a, Vector b, BinaryOperator<Number> operator) {
         this.components = new Number[Math.max(a.components.length, b.components.length)];
-        for(int i=0; i<components.length; i++)
-            components[i] = operator.apply(a.get(i), b.get(i));
+        long cost = Math.max(ParallelComponents.cost(a), ParallelComponents.cost(b));
+        ParallelComponents.fill(components, cost, i -> operator.apply(a.get(i), b.get(i)));
     }
 
     @Override
@@ -112,12 +112,13 @@ public class Vector implements Number {
 
     @Override
     public @NotNull Number equalTo(Number x) {
-        if(isScalar()) return components[0].equalTo(x);
+        Number y = Number.expand(x);
+        if(isScalar()) return components[0].equalTo(y);
         do {
-            if(!(x instanceof Vector)) return Number.FALSE();
-        } while(((Vector) x).isScalar());
+            if(!(y instanceof Vector)) return Number.FALSE();
+        } while(((Vector) y).isScalar());
 
-        Vector v = (Vector) x;
+        Vector v = (Vector) y;
         if(v.components.length != components.length) return Number.FALSE();
 
         Number equality = Number.TRUE();
@@ -130,7 +131,8 @@ public class Vector implements Number {
 
     @Override
     public @NotNull Vector lessThan(Number x) {
-        return x instanceof Vector v ? lessThan(v) : derive(c -> c.lessThan(x));
+        Number y = Number.expand(x);
+        return y instanceof Vector v ? lessThan(v) : derive(c -> c.lessThan(y));
     }
 
     public Vector lessThan(Vector x) {
@@ -139,7 +141,8 @@ public class Vector implements Number {
 
     @Override
     public @NotNull Vector greaterThan(Number x) {
-        return x instanceof Vector v ? greaterThan(v) : derive(c -> c.greaterThan(x));
+        Number y = Number.expand(x);
+        return y instanceof Vector v ? greaterThan(v) : derive(c -> c.greaterThan(y));
     }
 
     public Vector greaterThan(Vector x) {
@@ -218,6 +221,34 @@ public class Vector implements Number {
         return columns;
     }
 
+    /**
+     * Returns this vector as {@link DoubleVector} if all components are imprecise real
+     * numbers and the current precision is at most
+     * {@link MatrixMultiplication#DOUBLE_PRECISION}, which takes a fraction of the memory
+     * and computes with primitive loops. Otherwise, including for matrices, returns
+     * this vector.
+     *
+     * @return An equivalent, possibly more compact vector
+     */
+    public Number compact() {
+        if(Rational.getPrecision() > MatrixMultiplication.DOUBLE_PRECISION) return this;
+        double[] values = new double[components.length];
+        for(int i=0; i<values.length; i++) {
+            if(!(components[i] instanceof Rational r) || r.precise) return this;
+            double x = r.toDouble();
+            if(!Double.isFinite(x)) return this;
+            values[i] = x;
+        }
+        return new DoubleVector(true, values);
+    }
+
+    /**
+     * Returns the given number {@link #compact() compacted} if it is a vector.
+     */
+    static Number compact(Number x) {
+        return x instanceof Vector v ? v.compact() : x;
+    }
+
     public int size() {
         return components.length;
     }
@@ -300,7 +331,8 @@ public class Vector implements Number {
 
     @Override
     public @NotNull Vector add(Number x) {
-        return x instanceof Vector v ? add(v) : derive(c -> c.add(x));
+        Number y = Number.expand(x);
+        return y instanceof Vector v ? add(v) : derive(c -> c.add(y));
     }
 
     @NotNull
@@ -310,7 +342,8 @@ public class Vector implements Number {
 
     @Override
     public @NotNull Vector subtract(Number x) {
-        return x instanceof Vector v ? subtract(v) : derive(c -> c.subtract(x));
+        Number y = Number.expand(x);
+        return y instanceof Vector v ? subtract(v) : derive(c -> c.subtract(y));
     }
 
     @NotNull
@@ -320,7 +353,8 @@ public class Vector implements Number {
 
     @Override
     public @NotNull Vector subtractFrom(Number x) {
-        return x instanceof Vector v ? subtractFrom(v) : derive(c -> c.subtractFrom(x));
+        Number y = Number.expand(x);
+        return y instanceof Vector v ? subtractFrom(v) : derive(c -> c.subtractFrom(y));
     }
 
     @NotNull
@@ -331,7 +365,8 @@ public class Vector implements Number {
     @Override
     @NotNull
     public Number multiply(Number x) {
-        if(!(x instanceof Vector v) || !isMatrix() || !v.isMatrix()) return derive(c -> c.multiply(x));
+        Number y = Number.expand(x);
+        if(!(y instanceof Vector v) || !isMatrix() || !v.isMatrix()) return derive(c -> c.multiply(y));
         if(v.isScalar()) return derive(c -> c.multiply(v.getScalarValue()));
         if(isScalar()) return v.derive(c -> c.multiply(getScalarValue()));
         if((isColumn() && v.isColumn()) || (isRow() && v.isRow())) return dot(v);
@@ -344,17 +379,16 @@ public class Vector implements Number {
         int m = size.x, n = size.y, otherM = otherSize.x, otherN = otherSize.y;
         if(n != otherM) throw new MathEvaluationException("Trying to multiply incompatible matrices");
 
+        Number[][] a = new Number[m][n], b = new Number[n][otherN];
+        for(int i=0; i<m; i++) for(int k=0; k<n; k++)
+            a[i][k] = get(i,k);
+        for(int k=0; k<n; k++) for(int j=0; j<otherN; j++)
+            b[k][j] = matrix.get(k,j);
+
+        Number[][] product = MatrixMultiplication.multiply(a, b);
         Vector result = new Vector(true, new Number[m]);
-        for(int i=0; i<m; i++) {
-            Vector row = new Vector(true, new Number[otherN]);
-            for(int j=0; j<otherN; j++) {
-                Number sum = Number.ZERO();
-                for(int k=0; k<n; k++)
-                    sum = sum.add(get(i,k).multiply(matrix.get(k,j)));
-                row.components[j] = sum;
-            }
-            result.components[i] = row;
-        }
+        for(int i=0; i<m; i++)
+            result.components[i] = new Vector(true, product[i]);
         return result;
     }
 
@@ -384,7 +418,8 @@ public class Vector implements Number {
 
     @Override
     public @NotNull Vector divide(Number x) {
-        return x instanceof Vector v ? divide(v) : derive(c -> c.divide(x));
+        Number y = Number.expand(x);
+        return y instanceof Vector v ? divide(v) : derive(c -> c.divide(y));
     }
 
     @NotNull
@@ -394,7 +429,8 @@ public class Vector implements Number {
 
     @Override
     public @NotNull Vector divideOther(Number x) {
-        return x instanceof Vector v ? divideOther(v) : derive(c -> c.divideOther(x));
+        Number y = Number.expand(x);
+        return y instanceof Vector v ? divideOther(v) : derive(c -> c.divideOther(y));
     }
 
     @NotNull
@@ -404,22 +440,23 @@ public class Vector implements Number {
 
     @Override
     public @NotNull Number raise(Number x) {
+        Number y = Number.expand(x);
 //            return x instanceof Vector v ? raise(v) : derive(c -> c.raise(x)
         if(!isMatrix())
             throw new MathEvaluationException("Trying to raise non-matrix vector");
         if(!isQuadratic())
             throw new MathEvaluationException("Trying to raise non-square matrix");
 
-        if(x instanceof Expression)
-            return x.raiseOther(this);
-        while(!(x instanceof Rational r)) {
-            if(x instanceof Complex c) {
+        if(y instanceof Expression)
+            return y.raiseOther(this);
+        while(!(y instanceof Rational r)) {
+            if(y instanceof Complex c) {
                 if(!c.isReal()) throw new MathEvaluationException("Trying to raise matrix to complex number");
-                x = c.re;
+                y = c.re;
             }
-            else if(x instanceof Vector v) {
+            else if(y instanceof Vector v) {
                 if(!v.isScalar()) throw new MathEvaluationException("Trying to raise matrix to vector");
-                x = v.components[0];
+                y = v.components[0];
             }
             else throw new MathEvaluationException("Trying to raise matrix to non-integer");
         }
@@ -453,7 +490,8 @@ public class Vector implements Number {
 
     @Override
     public @NotNull Number raiseOther(Number x) {
-        return x instanceof Vector v ? raiseOther(v) : derive(c -> c.raiseOther(x));
+        Number y = Number.expand(x);
+        return y instanceof Vector v ? raiseOther(v) : derive(c -> c.raiseOther(y));
     }
 
 //    @NotNull
@@ -485,22 +523,19 @@ public class Vector implements Number {
 
     private @NotNull Vector invert0() {
         int size = components.length;
-        Number[][] rows = new Number[size][2 * size];
-        for(int i=0; i<size; i++) for(int j=0; j<size; j++) {
+        Number[][] rows = new Number[size][size];
+        for(int i=0; i<size; i++) for(int j=0; j<size; j++)
             rows[i][j] = get(i,j);
-            rows[i][j+size] = i == j ? Number.ONE() : Number.ZERO();
-        }
 
-        Number[][] invRows = new LinearEquationSystem(size, rows).solve().rows();
-        Vector[] rowVecs = new Vector[size];
-        for(int i=0; i<size; i++) {
-            Number[] row = new Number[size];
-            for(int j=0; j<size; j++) {
-                if(invRows[i][j] == null) throw new MathEvaluationException("Matrix has no inverse");
-                row[j] = invRows[i][j];
-            }
-            rowVecs[i] = new Vector(true, row);
+        Number[][] invRows;
+        try {
+            invRows = Matrix.invert(rows);
+        } catch(ArithmeticException e) {
+            throw new MathEvaluationException("Matrix has no inverse");
         }
+        Vector[] rowVecs = new Vector[size];
+        for(int i=0; i<size; i++)
+            rowVecs[i] = new Vector(true, invRows[i]);
         return new Vector(true, rowVecs);
     }
 
@@ -510,10 +545,27 @@ public class Vector implements Number {
     }
 
 
+    /**
+     * Returns a new vector with the given operator applied to each component.
+     * For large vectors the components are computed in parallel, thus the operator
+     * must be safe to be invoked concurrently.
+     *
+     * @param operator The operator to apply to each component
+     * @return The derived vector
+     */
     public Vector derive(UnaryOperator<Number> operator) {
         return new Vector(this, operator);
     }
 
+    /**
+     * Returns a new vector with the given operator applied to each pair of components
+     * of this and the given vector. For large vectors the components are computed in
+     * parallel, thus the operator must be safe to be invoked concurrently.
+     *
+     * @param x The vector to get the second operands from
+     * @param operator The operator to apply to each pair of components
+     * @return The derived vector
+     */
     public Vector derive(Vector x, BinaryOperator<Number> operator) {
         return new Vector(this, x, operator);
     }
@@ -524,6 +576,45 @@ public class Vector implements Number {
         return x instanceof Vector v ? v : new Vector(x);
     }
 
+    /**
+     * Creates a new vector with the components computed by the given generator. For
+     * large sizes the components are computed in parallel, thus the generator must be
+     * safe to be invoked concurrently.
+     *
+     * @param size The number of components, at least 1
+     * @param generator Computes the component for the given (0-based) index
+     * @return The generated vector
+     */
+    public static Vector generate(int size, IntFunction<Number> generator) {
+        Arguments.checkRange(size, 1, null);
+        Arguments.checkNull(generator, "generator");
+        Number[] components = new Number[size];
+        ParallelComponents.fill(components, size, generator);
+        return new Vector(true, components);
+    }
+
+    /**
+     * Creates a new matrix with the components computed by the given generator. For
+     * large matrices the components are computed in parallel, thus the generator must be
+     * safe to be invoked concurrently.
+     *
+     * @param rows The number of rows, at least 1
+     * @param columns The number of columns, at least 1
+     * @param generator Computes the component for the given (0-based) row and column
+     * @return The generated matrix
+     */
+    public static Vector generateMatrix(int rows, int columns, MatrixGenerator generator) {
+        Arguments.checkRange(rows, 1, null);
+        Arguments.checkRange(columns, 1, null);
+        Arguments.checkNull(generator, "generator");
+        Number[] components = new Number[rows * columns];
+        ParallelComponents.fill(components, components.length, k -> generator.apply(k / columns, k % columns));
+        Vector[] rowVectors = new Vector[rows];
+        for(int i=0; i<rows; i++)
+            rowVectors[i] = new Vector(true, Arrays.copyOfRange(components, i * columns, (i+1) * columns));
+        return new Vector(true, rowVectors);
+    }
+
     public static Vector matrix(int rows, int columns, Number... componentsRowByRow) {
         Arguments.checkRange(rows, 1, null);
         Arguments.checkRange(columns, 1, null);
@@ -577,4 +668,10 @@ public class Vector implements Number {
         }
         return matrix;
     }
+
+
+    @FunctionalInterface
+    public interface MatrixGenerator {
+        Number apply(int row, int column);
+    }
 }
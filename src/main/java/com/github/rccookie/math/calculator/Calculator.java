@@ -3,6 +3,7 @@ package com.github.rccookie.math.calculator;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.lang.reflect.Proxy;
 import java.nio.charset.Charset;
 import java.nio.file.Files;
 import java.nio.file.Path;
@@ -17,11 +18,14 @@ import com.github.rccookie.json.JsonObject;
 import com.github.rccookie.json.JsonSerializable;
 import com.github.rccookie.math.Number;
 import com.github.rccookie.math.Rational;
+import com.github.rccookie.math.expr.Budget;
+import com.github.rccookie.math.expr.BudgetExceededException;
 import com.github.rccookie.math.expr.DefaultSymbolLookup;
 import com.github.rccookie.math.expr.Expression;
 import com.github.rccookie.math.expr.Functions;
 import com.github.rccookie.math.expr.MathEvaluationException;
 import com.github.rccookie.math.expr.MathExpressionSyntaxException;
+import com.github.rccookie.math.expr.Profiler;
 import com.github.rccookie.math.expr.SymbolLookup;
 import com.github.rccookie.math.rendering.CharacterSet;
 import com.github.rccookie.math.rendering.RenderableExpression;
@@ -122,11 +126,18 @@ public class Calculator implements JsonSerializable {
             "poly", Functions.POLYNOM,
             "der", Functions.DERIVATIVE,
             "antiDer", Functions.ANTIDERIVATIVE,
+            "polyDiv", Functions.POLYNOM_DIVIDE,
             "int", Functions.INTEGRATE,
+            "root", Functions.ROOT,
+            "roots", Functions.ROOTS,
+            "diff", Functions.DIFF,
+            "grad", Functions.GRADIENT,
 
             "reduce", Functions.REDUCE,
             "gauss", Functions.GAUSS,
-            "rank", Functions.RANK
+            "rank", Functions.RANK,
+
+            "memo", Functions.MEMO
     ));
     private static final Map<String, Number> OPTIONAL_DEFAULT_VARS = Utils.map(
             "precision", new Rational(Rational.getPrecision()),
@@ -164,9 +175,17 @@ public class Calculator implements JsonSerializable {
         cmds.put("unicode", Commands.UNICODE);
         cmds.put("latex", Commands.LATEX);
         cmds.put("mathml", Commands.MATHML);
+        cmds.put("memo", Commands.MEMO);
+        cmds.put("table", Commands.TABLE);
+        cmds.put("profile", Commands.PROFILE);
         DEFAULT_COMMANDS = Utils.view(cmds);
     }
 
+    /**
+     * Parsed expressions shared by all calculators.
+     */
+    private static final ParseCache PARSE_CACHE = new ParseCache();
+
     private static final char ABOUT_EQUAL = Charset.defaultCharset().newEncoder().canEncode('\u2248') ? '\u2248' : '~';
 
     private final Lookup lookup = new Lookup();
@@ -174,6 +193,11 @@ public class Calculator implements JsonSerializable {
     private int precision = 50;
     private boolean scientificNotation = true;
     int moreCount = 0;
+    /**
+     * The budget of the input currently evaluated by {@link #evalInput(String)}.
+     */
+    @Nullable
+    private volatile Budget running = null;
 
 
     private final Map<String, Command> commands = new LinkedHashMap<>(DEFAULT_COMMANDS);
@@ -192,6 +216,17 @@ public class Calculator implements JsonSerializable {
     }
 
 
+    /**
+     * Returns the cache of parsed expressions used by {@link #evaluate(String)}. The
+     * cache is shared by all calculators.
+     *
+     * @return The parse cache of all calculators
+     */
+    public static ParseCache parseCache() {
+        return PARSE_CACHE;
+    }
+
+
     /**
      * Registers the specified command under the given name. If there was a different command
      * registered for that name, it will be replaced.
@@ -295,21 +330,66 @@ public class Calculator implements JsonSerializable {
      */
     public Number evaluate(String expression) throws MathExpressionSyntaxException, MathEvaluationException {
         return runWithSettings(() -> {
-            Expression expr = Expression.parse(expression);
-            Console.debug("Expression:");
-            Console.debug(expr);
-            Console.debug(expr.toTreeString());
+            Expression expr = PARSE_CACHE.parse(expression);
+            boolean debug = Console.getFilter().isEnabled("debug");
+            if(debug) {
+                Console.debug("Expression:");
+                Console.debug(expr);
+                Console.debug(expr.toTreeString());
+            }
             Number ans = expr.evaluate(lookup);
             if(ans instanceof Expression e)
                 ans = e.simplify();
-            Console.debug("Result:");
-            Console.debug(Expression.of(ans).toTreeString());
+            ans = Number.compact(ans);
+            if(debug) {
+                Console.debug("Result:");
+                Console.debug(Expression.of(ans).toTreeString());
+            }
             lastExpr = expression;
             lookup.setAns(ans);
             return ans;
         });
     }
 
+    /**
+     * Parses and evaluates the given math expression and returns the result, aborting
+     * if the evaluation exceeds the given budget. This may use or modify the variables
+     * in this calculator. Variables modified before the evaluation was aborted keep
+     * their new values.
+     *
+     * @param expression The expression to evaluate
+     * @param budget The limits for the evaluation
+     * @return The value of the expression
+     * @throws BudgetExceededException If the evaluation exceeds the budget or is cancelled
+     */
+    public Number evaluate(String expression, Budget budget) throws MathExpressionSyntaxException, MathEvaluationException {
+        return Arguments.checkNull(budget, "budget").run(() -> evaluate(expression));
+    }
+
+    /**
+     * Parses, evaluates and renders the given math expression like {@link #evaluate(String)}
+     * and {@link #printRes(Number, RenderableExpression.RenderOptions.DecimalMode, OutputMode)},
+     * measuring the time spent in each step and in each function call made on the
+     * current thread. The expression is always parsed, even if it is in the parse
+     * cache. The result is stored in 'ans'.
+     *
+     * @param expression The expression to profile
+     * @return The rendered result and the measurements
+     */
+    public Profile profile(String expression) throws MathExpressionSyntaxException, MathEvaluationException {
+        Profiler profiler = new Profiler();
+        String rendered = runWithSettings(() -> profiler.run(() -> {
+            Expression expr = profiler.phase("parse", () -> Expression.parse(expression));
+            Number result = profiler.phase("evaluate", () -> expr.evaluate(lookup));
+            Number ans = Number.compact(result instanceof Expression e ? profiler.phase("simplify", e::simplify) : result);
+            String str = profiler.phase("render", () -> render(ans, null, null));
+            lastExpr = expression;
+            lookup.setAns(ans);
+            return str;
+        }));
+        return new Profile(rendered, profiler.report());
+    }
+
     /**
      * Loads the exact state (variables, history) of the specified calculator,
      * discarding the current state of this calculator.
@@ -350,13 +430,18 @@ public class Calculator implements JsonSerializable {
             return;
         }
         for(String expr : expressions.split(";")) try {
-            if(expr.startsWith("\\"))
-                evalCommand(expr.substring(1));
-            else {
-                moreCount = 0;
-                Number res = evaluateSmart(expr);
-                printRes(res, null, null);
-            }
+            Budget budget = new Budget();
+            running = budget;
+            budget.run(() -> {
+                if(expr.startsWith("\\"))
+                    evalCommand(expr.substring(1));
+                else {
+                    moreCount = 0;
+                    Number res = evaluateSmart(expr);
+                    printRes(res, null, null);
+                }
+                return null;
+            });
         } catch(MathExpressionSyntaxException e) {
             System.err.println("Illegal expression: " + e.getMessage());
             if(Console.getFilter().isEnabled("debug"))
@@ -370,9 +455,24 @@ public class Calculator implements JsonSerializable {
             System.err.println(msg != null ? msg : "Internal error");
             if(Console.getFilter().isEnabled("debug"))
                 t.printStackTrace();
+        } finally {
+            running = null;
         }
     }
 
+    /**
+     * Cancels the input currently evaluated by {@link #evalInput(String)}, if any.
+     * This method may be called from any thread.
+     *
+     * @return Whether an input was being evaluated
+     */
+    public boolean cancel() {
+        Budget budget = running;
+        if(budget == null) return false;
+        budget.cancel();
+        return true;
+    }
+
 
     public void evalCommand(String cmd) {
         Console.mapDebug("Received command", cmd);
@@ -544,6 +644,8 @@ public class Calculator implements JsonSerializable {
         // Remove unused restore state saves
         calculator.getLatestRestoreStateAndClean();
 
+        cancelOnInterrupt(calculator);
+
         //noinspection InfiniteLoopStatement
         while(true) {
             System.out.print("> ");
@@ -552,6 +654,34 @@ public class Calculator implements JsonSerializable {
         }
     }
 
+    /**
+     * Makes Ctrl+C cancel the current evaluation instead of exiting, if an input is
+     * being evaluated.
+     */
+    private static void cancelOnInterrupt(Calculator calculator) {
+        try {
+            // sun.misc.Signal is loaded reflectively, as it is internal API
+            Class<?> signal = Class.forName("sun.misc.Signal");
+            Class<?> handler = Class.forName("sun.misc.SignalHandler");
+            Object onInterrupt = Proxy.newProxyInstance(handler.getClassLoader(), new Class<?>[] { handler }, (proxy, method, args) -> {
+                switch(method.getName()) {
+                    case "equals": return proxy == args[0];
+                    case "hashCode": return System.identityHashCode(proxy);
+                    case "toString": return "Interrupt handler";
+                }
+                if(!calculator.cancel())
+                    System.exit(130); // Default exit code when terminated by SIGINT
+                return null;
+            });
+            signal.getMethod("handle", signal, handler)
+                    .invoke(null, signal.getConstructor(String.class).newInstance("INT"), onInterrupt);
+        } catch(Throwable t) { // Signal not supported on this platform / JVM
+            Console.debug("Failed to install interrupt handler");
+            if(Console.getFilter().isEnabled("debug"))
+                Console.error(t);
+        }
+    }
+
     private static String getTitleString(boolean withBar) {
         String title = "Java math interpreter - version " + VERSION.a() + "." + VERSION.b();
         title += "\nBy RcCookie";
@@ -567,7 +697,19 @@ public class Calculator implements JsonSerializable {
      * @param mode A display mode override, or <code>null</code> to use the default
      */
     protected void printRes(Number res, RenderableExpression.RenderOptions.DecimalMode mode, OutputMode renderMode) {
-        runWithSettings(() -> {
+        System.out.println(render(res, mode, renderMode));
+    }
+
+    /**
+     * Renders a number formatted as result.
+     *
+     * @param res The number to render
+     * @param mode A display mode override, or <code>null</code> to use the default
+     * @param renderMode The output format, or <code>null</code> to use the default
+     * @return The rendered number
+     */
+    protected String render(Number res, RenderableExpression.RenderOptions.DecimalMode mode, OutputMode renderMode) {
+        return runWithSettings(() -> {
             Number n = res;
             while (n instanceof Expression.Function f && f.paramCount() == 0) try {
                 Number val = f.evaluate(lookup, Expression.Numbers.EMPTY);
@@ -601,11 +743,11 @@ public class Calculator implements JsonSerializable {
                 case SMART, SMART_SCIENTIFIC -> RenderableExpression.RenderOptions.DecimalMode.SMART;
                 default -> RenderableExpression.RenderOptions.DecimalMode.DECIMAL_IF_POSSIBLE;
             };
-            System.out.println((renderMode != null ? renderMode : OutputMode.SUPPORTED_UNICODE).renderToString(res.toRenderable(), new RenderableExpression.RenderOptions(
+            return (renderMode != null ? renderMode : OutputMode.SUPPORTED_UNICODE).renderToString(res.toRenderable(), new RenderableExpression.RenderOptions(
                     precision,
                     m,
                     scientificNotation
-            )));
+            ));
         });
     }
 
@@ -712,6 +854,15 @@ public class Calculator implements JsonSerializable {
     }
 
 
+
+    /**
+     * The outcome of {@link #profile(String)}.
+     *
+     * @param result The result, rendered as by {@link #printRes(Number, RenderableExpression.RenderOptions.DecimalMode, OutputMode)}
+     * @param report The measurements
+     */
+    public record Profile(String result, Profiler.Report report) { }
+
     private class Lookup extends DefaultSymbolLookup {
 
         {
@@ -732,6 +883,19 @@ public class Calculator implements JsonSerializable {
             super.put(name, var);
         }
 
+        @Override
+        public Number define(String name, Expression expr) {
+            if(DEFAULT_VARS.containsKey(name))
+                throw new MathEvaluationException("Cannot override variable '"+name+"'");
+            return super.define(name, expr);
+        }
+
+        @Override
+        protected boolean isTracked(String name) {
+            // ans changes with every input and default variables cannot change
+            return !name.equals("ans") && !DEFAULT_VARS.containsKey(name);
+        }
+
         void setAns(Number ans) {
             super.put("ans", ans);
         }
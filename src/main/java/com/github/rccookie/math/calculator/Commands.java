@@ -3,6 +3,7 @@ package com.github.rccookie.math.calculator;
 import java.io.File;
 import java.math.BigInteger;
 import java.nio.file.Path;
+import java.util.List;
 import java.util.Map;
 
 import com.github.rccookie.json.Json;
@@ -10,8 +11,11 @@ import com.github.rccookie.math.Complex;
 import com.github.rccookie.math.Number;
 import com.github.rccookie.math.Rational;
 import com.github.rccookie.math.expr.Expression;
+import com.github.rccookie.math.expr.Functions;
 import com.github.rccookie.math.expr.MathEvaluationException;
 import com.github.rccookie.math.expr.MathExpressionSyntaxException;
+import com.github.rccookie.math.expr.MemoizedFunction;
+import com.github.rccookie.math.expr.SymbolLookup;
 import com.github.rccookie.math.rendering.RenderableExpression;
 import com.github.rccookie.util.Arguments;
 import com.github.rccookie.util.Console;
@@ -22,6 +26,8 @@ import com.github.rccookie.util.Utils;
  */
 public final class Commands {
 
+    private static final int TABLE_BATCH_SIZE = 256;
+
     /**
      * Exits using System.exit() with the value of the exit variable.
      */
@@ -286,6 +292,101 @@ public final class Commands {
                 System.out.println("Calculator state restored.");
             }
     );
+    /**
+     * Enables, disables or clears result caching for a function, or shows the cache
+     * statistics of all memoized functions.
+     */
+    public static final Command MEMO = new LambdaCommand(
+            "Cache the results of a function, or show cache statistics",
+            (c,args) -> {
+                if(args.length == 1) {
+                    List<Map.Entry<String, Number>> memoized = c.variables().entrySet().stream()
+                            .filter(e -> e.getValue() instanceof MemoizedFunction)
+                            .sorted(Map.Entry.comparingByKey())
+                            .toList();
+                    if(memoized.isEmpty())
+                        System.out.println("No memoized functions.");
+                    memoized.forEach(e -> System.out.println(e.getKey() + ": " + ((MemoizedFunction) e.getValue()).stats()));
+                    return;
+                }
+                if(args.length > 3 || (args.length == 3 && !args[2].equals("off") && !args[2].equals("clear")))
+                    throw new IllegalCommandException("Usage: \\"+args[0]+" <function?> <off/clear?>");
+                if(!c.variables().contains(args[1]) || !(c.variables().get(args[1]) instanceof Expression.Function f))
+                    throw new IllegalCommandException("Unknown function: '"+args[1]+"'");
+                if(args.length == 3) {
+                    if(!(f instanceof MemoizedFunction m))
+                        throw new IllegalCommandException("'"+args[1]+"' is not memoized");
+                    if(args[2].equals("clear")) {
+                        m.clear();
+                        System.out.println("Cache cleared.");
+                    } else {
+                        c.variables().put(args[1], m.function());
+                        System.out.println("Memoization disabled.");
+                    }
+                }
+                else if(f instanceof MemoizedFunction m)
+                    System.out.println(m.stats());
+                else {
+                    c.variables().put(args[1], Functions.memo(f, SymbolLookup.UNSPECIFIED));
+                    System.out.println("Memoization enabled.");
+                }
+            }
+    );
+    /**
+     * Evaluates an expression and prints how long parsing, evaluation, simplification
+     * and rendering took, and how much time was spent in which function.
+     */
+    public static final Command PROFILE = new LambdaCommand(
+            "Evaluate an expression and show where the time was spent",
+            (c,args) -> {
+                if(args.length == 1)
+                    throw new IllegalCommandException("Usage: \\"+args[0]+" <expression>");
+                Calculator.Profile profile = c.profile(String.join(" ", List.of(args).subList(1, args.length)));
+                // Print the result rendered in the profiled run instead of rendering it again
+                System.out.println(profile.result());
+                System.out.println(profile.report());
+            }
+    );
+    /**
+     * Prints a table of the values of a function for evenly spaced inputs. The rows
+     * are evaluated in batches and printed as soon as each batch is done.
+     */
+    public static final Command TABLE = new LambdaCommand(
+            "Print the values of a function in a range, i.e. \\table f 0 10 0.5",
+            (c,args) -> {
+                if(args.length != 4 && args.length != 5)
+                    throw new IllegalCommandException("Usage: \\"+args[0]+" <function> <from> <to> <step?>");
+                SymbolLookup vars = c.variables();
+                if(!(Expression.parse(args[1]).evaluate(vars) instanceof Expression.Function f) || f.paramCount() == 0)
+                    throw new IllegalCommandException("'"+args[1]+"' is not a function");
+                Number from = Expression.parse(args[2]).evaluate(vars);
+                Number to = Expression.parse(args[3]).evaluate(vars);
+                Number step = args.length == 5 ? Expression.parse(args[4]).evaluate(vars) : Number.ONE();
+
+                if(step.isZero())
+                    throw new IllegalCommandException("Step must not be zero");
+                Number steps = to.subtract(from).divide(step);
+                if(steps.toDouble(vars) < 0)
+                    throw new IllegalCommandException("Step must lead from <from> to <to>");
+                long count = (long) Functions.floor(steps).toDouble(vars) + 1;
+
+                String param = f.paramNames()[0];
+                System.out.println(param + "\t" + (args[1].matches("\\w+") ? args[1] : "f") + "(" + param + ")");
+                Number[] inputs = new Number[(int) Math.min(count, TABLE_BATCH_SIZE)];
+                for(long i=0; i<count; i+=inputs.length) {
+                    if(count - i < inputs.length)
+                        inputs = new Number[(int) (count - i)];
+                    for(int j=0; j<inputs.length; j++)
+                        inputs[j] = from.add(step.multiply(new Rational(i + j)));
+                    Number[] results = f.evaluateAll(vars, inputs);
+                    StringBuilder rows = new StringBuilder();
+                    for(int j=0; j<inputs.length; j++)
+                        rows.append(inputs[j]).append('\t').append(results[j]).append('\n');
+                    System.out.print(rows);
+                    System.out.flush();
+                }
+            }
+    );
 
 
 
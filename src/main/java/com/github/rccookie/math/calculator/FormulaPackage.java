@@ -4,6 +4,8 @@ import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.function.BiConsumer;
 
 import com.github.rccookie.json.Json;
@@ -11,6 +13,7 @@ import com.github.rccookie.json.JsonDeserialization;
 import com.github.rccookie.json.JsonObject;
 import com.github.rccookie.json.JsonSerializable;
 import com.github.rccookie.math.Number;
+import com.github.rccookie.math.expr.Expression;
 import com.github.rccookie.math.expr.SymbolLookup;
 import com.github.rccookie.util.Console;
 import com.github.rccookie.util.UncheckedException;
@@ -33,8 +36,37 @@ public interface FormulaPackage extends JsonSerializable {
     int size();
 
 
+    /**
+     * Adds all constants and formulas of this package to the given lookup. Formulas
+     * which are not functions are defined using {@link SymbolLookup#define(String, Expression)},
+     * so that their values are only computed once (and again when something they depend
+     * on changes). Formulas which cannot be evaluated, e.g. because they depend on
+     * variables not present yet, are added as parameterless functions instead.
+     *
+     * @param lookup The lookup to add the package's contents to
+     */
     default void addTo(SymbolLookup lookup) {
-        forEach(lookup::put);
+        Map<String, Expression> formulas = new HashMap<>();
+        forEach((n,v) -> {
+            if(v instanceof Expression e && !(e instanceof Expression.Function))
+                formulas.put(n, e);
+            else lookup.put(n, v);
+        });
+
+        // Formulas may depend on each other, so retry failed ones until none can be defined anymore
+        int size;
+        do {
+            size = formulas.size();
+            formulas.entrySet().removeIf(f -> {
+                try {
+                    lookup.define(f.getKey(), f.getValue());
+                    return true;
+                } catch(RuntimeException e) {
+                    return false;
+                }
+            });
+        } while(!formulas.isEmpty() && formulas.size() < size);
+        formulas.forEach((n,e) -> lookup.put(n, Expression.Function.of(e)));
     }
 
     @Override
@@ -0,0 +1,119 @@
+package com.github.rccookie.math.calculator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.math.expr.Expression;
+import com.github.rccookie.math.expr.MathExpressionSyntaxException;
+import com.github.rccookie.util.Arguments;
+
+/**
+ * A bounded cache of parsed expressions, keyed by their source string. When
+ * full, the least recently used expression is removed. Parsed expressions are
+ * immutable and do not depend on any variables, so a cache can be shared between
+ * calculators and is safe to use from multiple threads.
+ *
+ * <p>Decimal literals are rounded to the precision set when parsing, so the
+ * precision is part of the key. Expressions that fail to parse are not cached.</p>
+ */
+public final class ParseCache {
+
+    /**
+     * Default maximum number of cached expressions.
+     */
+    public static final int DEFAULT_CAPACITY = 256;
+
+
+    private final int capacity;
+    private final Map<Key, Expression> cache;
+
+    private long hits = 0;
+    private long misses = 0;
+
+
+    /**
+     * Creates a new parse cache with the default capacity.
+     */
+    public ParseCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates a new parse cache.
+     *
+     * @param capacity The maximum number of cached expressions, at least 1
+     */
+    public ParseCache(int capacity) {
+        this.capacity = Arguments.checkRange(capacity, 1, null);
+        cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Expression> eldest) {
+                return size() > ParseCache.this.capacity;
+            }
+        };
+    }
+
+
+    /**
+     * Returns the parsed expression for the given source string, parsing it
+     * only if it is not already cached.
+     *
+     * @param expression The math expression to parse
+     * @return The parsed expression
+     * @throws MathExpressionSyntaxException If the expression is invalid
+     */
+    public Expression parse(String expression) throws MathExpressionSyntaxException {
+        Key key = new Key(Arguments.checkNull(expression, "expression"), Rational.getPrecision());
+        synchronized(this) {
+            Expression expr = cache.get(key);
+            if(expr != null) {
+                hits++;
+                return expr;
+            }
+            misses++;
+        }
+        // Parse outside the lock, parsing the same string twice concurrently is harmless
+        Expression expr = Expression.parse(expression);
+        synchronized(this) {
+            cache.put(key, expr);
+        }
+        return expr;
+    }
+
+    /**
+     * Returns the current statistics of the cache.
+     *
+     * @return The cache statistics
+     */
+    public synchronized Stats stats() {
+        return new Stats(hits, misses, cache.size(), capacity);
+    }
+
+    /**
+     * Removes all cached expressions. The statistics are not reset.
+     */
+    public synchronized void clear() {
+        cache.clear();
+    }
+
+
+    /**
+     * Statistics of a parse cache.
+     *
+     * @param hits Number of expressions returned from the cache
+     * @param misses Number of expressions that had to be parsed
+     * @param size Current number of cached expressions
+     * @param capacity Maximum number of cached expressions
+     */
+    public record Stats(long hits, long misses, int size, int capacity) {
+        @Override
+        public String toString() {
+            long total = hits + misses;
+            return "hits: " + hits + ", misses: " + misses + ", hit rate: " + (total == 0 ? 0 : 100 * hits / total) + "%, "
+                    + "size: " + size + "/" + capacity;
+        }
+    }
+
+    private record Key(String expression, int precision) { }
+}
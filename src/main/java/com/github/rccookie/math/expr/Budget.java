@@ -0,0 +1,275 @@
+package com.github.rccookie.math.expr;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import com.github.rccookie.math.Complex;
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.util.Arguments;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Limits the resources an evaluation may use: the time it may take, the number of
+ * evaluation steps and the size of the (intermediate) results. A budget can also be
+ * cancelled at any time from a different thread.
+ *
+ * <p>The limits are checked cooperatively: code that runs a budget using {@link #run(Supplier)}
+ * is aborted with a {@link BudgetExceededException} the next time it reaches a
+ * {@link #checkpoint()} or {@link #checkSize(long)} after a limit has been exceeded.
+ * Such checks are placed in the expression evaluator and in the loops of long-running
+ * functions. While no budget is running, a check costs a single read of a static field.</p>
+ *
+ * <p>Evaluation steps are counted roughly: each evaluated operation, function call and
+ * loop iteration counts as one step. Each thread running a budget counts its steps
+ * on its own and checks the clock every few steps. Only if the budget limits the
+ * number of steps are these counts added to the shared total, in small batches, so
+ * parallel evaluations exceed the step limit by at most a batch per thread.</p>
+ */
+public final class Budget {
+
+    /**
+     * Value for limits that should not be enforced.
+     */
+    public static final long UNLIMITED = Long.MAX_VALUE;
+
+    /**
+     * Number of steps between two checks of the clock.
+     */
+    private static final int TIME_CHECK_INTERVAL = 64;
+
+    private static final ThreadLocal<Counter> CURRENT = new ThreadLocal<>();
+    /**
+     * Number of threads currently running a budget. Checks are skipped completely
+     * if this is zero.
+     */
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+
+
+    @Nullable
+    private final Duration timeLimit;
+    private final long deadline;
+    private final long maxSteps;
+    private final long maxResultBits;
+    /**
+     * Number of steps a thread counts before it checks the clock and, if the steps are
+     * limited, adds them to the total.
+     */
+    private final int checkInterval;
+
+    /**
+     * The steps of all threads running this budget, added in batches.
+     */
+    private final AtomicLong steps = new AtomicLong();
+    private volatile boolean cancelled = false;
+
+
+    /**
+     * Creates a new budget without limits, which can only be cancelled.
+     */
+    public Budget() {
+        this(null, UNLIMITED, UNLIMITED);
+    }
+
+    /**
+     * Creates a new budget. The time limit starts counting immediately.
+     *
+     * @param timeLimit The maximum time the evaluation may take, or <code>null</code> for no limit
+     * @param maxSteps The maximum number of evaluation steps, or {@link #UNLIMITED}
+     * @param maxResultBits The maximum size of a single (intermediate) result in bits,
+     *                      or {@link #UNLIMITED}
+     */
+    public Budget(@Nullable Duration timeLimit, long maxSteps, long maxResultBits) {
+        if(timeLimit != null && timeLimit.isNegative())
+            throw new IllegalArgumentException("Negative time limit");
+        this.timeLimit = timeLimit;
+        long limitNanos = timeLimit == null ? UNLIMITED : timeLimit.toNanos();
+        long now = System.nanoTime();
+        deadline = limitNanos > UNLIMITED - now ? UNLIMITED : now + limitNanos;
+        this.maxSteps = Arguments.checkRange(maxSteps, 0L, null);
+        this.maxResultBits = Arguments.checkRange(maxResultBits, 0L, null);
+        // Small step limits are checked in smaller batches, so they are not exceeded by much
+        checkInterval = (int) Math.max(1, Math.min(TIME_CHECK_INTERVAL, maxSteps / 1024));
+    }
+
+
+    /**
+     * Runs the given action under this budget on the current thread.
+     *
+     * @param action The action to run
+     * @return The result of the action
+     * @throws BudgetExceededException If the action exceeds this budget
+     */
+    public <T> T run(Supplier<T> action) throws BudgetExceededException {
+        Counter outer = CURRENT.get();
+        Counter counter = new Counter(this);
+        CURRENT.set(counter);
+        ACTIVE.incrementAndGet();
+        try {
+            check();
+            return action.get();
+        } finally {
+            ACTIVE.decrementAndGet();
+            steps.addAndGet(counter.uncounted);
+            if(outer == null)
+                CURRENT.remove();
+            else CURRENT.set(outer);
+        }
+    }
+
+    /**
+     * Cancels the evaluation running under this budget. It will be aborted with a
+     * {@link BudgetExceededException} the next time it checks its budget. This method
+     * may be called from any thread.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Returns whether this budget has been cancelled.
+     *
+     * @return Whether {@link #cancel()} has been called
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Returns the (approximate) number of steps evaluated under this budget so far.
+     * Steps of evaluations that are still running may not be included yet.
+     *
+     * @return The number of steps used
+     */
+    public long steps() {
+        return steps.get();
+    }
+
+    private void check() {
+        if(cancelled)
+            throw new BudgetExceededException(BudgetExceededException.Reason.CANCELLED, "Evaluation cancelled");
+        if(deadline != UNLIMITED && System.nanoTime() - deadline > 0)
+            throw new BudgetExceededException(BudgetExceededException.Reason.TIME, "Time limit of " + timeLimit.toMillis() / 1000.0 + "s exceeded");
+    }
+
+    private void checkBits(long bits) {
+        if(bits > maxResultBits)
+            throw new BudgetExceededException(BudgetExceededException.Reason.SIZE, "Result too large (about " + bits + " bits, at most " + maxResultBits + " allowed)");
+        check();
+    }
+
+
+    /**
+     * Returns the budget running on the current thread, if any.
+     *
+     * @return The current budget, or <code>null</code>
+     */
+    @Nullable
+    public static Budget current() {
+        Counter counter = ACTIVE.get() != 0 ? CURRENT.get() : null;
+        return counter != null ? counter.budget : null;
+    }
+
+    /**
+     * Runs the given action under the given budget, which the thread that started a
+     * parallel computation obtained using {@link #current()}. Steps of the worker
+     * threads are thus counted against the same budget, and a cancellation of it
+     * aborts them as well.
+     *
+     * @param budget The budget to run under, or <code>null</code> to run without one
+     * @param action The action to run
+     * @return The result of the action
+     * @throws BudgetExceededException If the action exceeds the budget
+     */
+    public static <T> T runInherited(@Nullable Budget budget, Supplier<T> action) throws BudgetExceededException {
+        return budget != null ? budget.run(action) : action.get();
+    }
+
+    /**
+     * Counts an evaluation step against the current budget, if any, and aborts the
+     * evaluation if the budget is exceeded.
+     *
+     * @throws BudgetExceededException If the current budget is exceeded
+     */
+    public static void checkpoint() throws BudgetExceededException {
+        if(ACTIVE.get() != 0) {
+            Counter counter = CURRENT.get();
+            if(counter != null)
+                counter.step();
+        }
+    }
+
+    /**
+     * Aborts the evaluation if a result of the given size would exceed the current
+     * budget, if any. This should be called before the result is computed, if the
+     * size can be estimated.
+     *
+     * @param bits The (estimated) size of the result in bits
+     * @throws BudgetExceededException If the current budget is exceeded
+     */
+    public static void checkSize(long bits) throws BudgetExceededException {
+        if(ACTIVE.get() != 0) {
+            Counter counter = CURRENT.get();
+            if(counter != null)
+                counter.budget.checkBits(bits);
+        }
+    }
+
+    /**
+     * Aborts the evaluation if the given (intermediate) result exceeds the current
+     * budget, if any. Only the exact numerators and denominators of rational and
+     * complex numbers are taken into account.
+     *
+     * @param x The result to check
+     * @throws BudgetExceededException If the current budget is exceeded
+     */
+    public static void checkSize(Number x) throws BudgetExceededException {
+        if(ACTIVE.get() != 0)
+            checkSize(bits(x));
+    }
+
+    private static long bits(Number x) {
+        if(x instanceof Rational r)
+            return (long) r.n.bitLength() + r.d.bitLength();
+        if(x instanceof Complex c)
+            return bits(c.re) + bits(c.im);
+        return 0;
+    }
+
+
+    /**
+     * Counts the steps of a single thread running a budget, so that the shared total
+     * is only updated every few steps, and only if the steps are limited.
+     */
+    private static final class Counter {
+
+        final Budget budget;
+        /**
+         * Steps not yet added to the total of the budget.
+         */
+        long uncounted = 0;
+        private int sinceCheck = 0;
+
+        Counter(Budget budget) {
+            this.budget = budget;
+        }
+
+        void step() {
+            if(budget.cancelled)
+                throw new BudgetExceededException(BudgetExceededException.Reason.CANCELLED, "Evaluation cancelled");
+            uncounted++;
+            if(++sinceCheck < budget.checkInterval) return;
+            sinceCheck = 0;
+            if(budget.maxSteps != UNLIMITED) {
+                long steps = budget.steps.addAndGet(uncounted);
+                uncounted = 0;
+                if(steps > budget.maxSteps)
+                    throw new BudgetExceededException(BudgetExceededException.Reason.STEPS, "Step limit of " + budget.maxSteps + " exceeded");
+            }
+            budget.check();
+        }
+    }
+}
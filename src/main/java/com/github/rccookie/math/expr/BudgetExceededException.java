@@ -0,0 +1,47 @@
+package com.github.rccookie.math.expr;
+
+/**
+ * Thrown to indicate that an evaluation was aborted because it exceeded its
+ * {@link Budget}, or because it was cancelled.
+ */
+public class BudgetExceededException extends MathEvaluationException {
+
+    private final Reason reason;
+
+    public BudgetExceededException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    /**
+     * Returns which limit was exceeded.
+     *
+     * @return The reason the evaluation was aborted
+     */
+    public Reason reason() {
+        return reason;
+    }
+
+
+    /**
+     * The limits of a budget.
+     */
+    public enum Reason {
+        /**
+         * The time limit was exceeded.
+         */
+        TIME,
+        /**
+         * The maximum number of evaluation steps was exceeded.
+         */
+        STEPS,
+        /**
+         * A (intermediate) result would have gotten too large.
+         */
+        SIZE,
+        /**
+         * The evaluation was cancelled using {@link Budget#cancel()}.
+         */
+        CANCELLED
+    }
+}
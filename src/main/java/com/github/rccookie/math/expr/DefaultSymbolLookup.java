@@ -1,8 +1,13 @@
 package com.github.rccookie.math.expr;
 
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
 import java.util.Stack;
 
@@ -11,11 +16,30 @@ import com.github.rccookie.util.Arguments;
 
 import org.jetbrains.annotations.Nullable;
 
+/**
+ * A symbol lookup backed by hash maps. Variables set using {@link #define(String, Expression)}
+ * behave like cells in a spreadsheet: the lookup records which symbols the defining
+ * expression depends on, and whenever one of them changes, the affected definitions
+ * (and only those) are re-evaluated, in dependency order.
+ */
 public class DefaultSymbolLookup implements SymbolLookup {
 
     private final Map<String, Number> variables = new HashMap<>();
     private final Map<String, Stack<Number>> localVariables = new HashMap<>();
 
+    /**
+     * Definitions of variables that are kept up to date.
+     */
+    private final Map<String, Definition> definitions = new HashMap<>();
+    /**
+     * For each symbol the names of the definitions that depend on it.
+     */
+    private final Map<String, Set<String>> dependents = new HashMap<>();
+    /**
+     * Error messages of definitions that failed to evaluate after a dependency changed.
+     */
+    private final Map<String, String> failed = new HashMap<>();
+
 
     @Override
     public Number get(String name) {
@@ -23,8 +47,12 @@ public class DefaultSymbolLookup implements SymbolLookup {
         if(localVars != null) return localVars.peek();
 
         Number var = variables.get(name);
-        if(var == null)
+        if(var == null) {
+            String error = failed.get(name);
+            if(error != null)
+                throw new MathEvaluationException("Cannot evaluate '" + name + "': " + error);
             throw new MathEvaluationException("Unknown variable or function: '" + name + "'");
+        }
         return var;
     }
 
@@ -49,13 +77,193 @@ public class DefaultSymbolLookup implements SymbolLookup {
     @Override
     public void put(String name, @Nullable Number var) {
         Arguments.checkNull(name, "name");
-        if(var == null)
-            variables.remove(name);
-        else variables.put(name, var);
+        removeDefinition(name);
+        set(name, var);
+        update(name);
+    }
+
+    /**
+     * Evaluates the expression and stores the result under the given name. If the
+     * expression only depends on global symbols, the definition is remembered and
+     * the value is re-evaluated whenever one of these symbols changes. Definitions
+     * which depend on themselves (directly or through other definitions), on local
+     * variables or which define other symbols are evaluated only once, like
+     * {@link #put(String, Number)}.
+     *
+     * @param name The name of the variable to define
+     * @param expr The expression defining the variable
+     * @return The current value of the variable
+     */
+    @Override
+    public Number define(String name, Expression expr) {
+        Arguments.checkNull(name, "name");
+        Number value = Expression.evaluate(expr, this);
+
+        Set<String> dependencies = dependencies(expr);
+        if(!isReactive(name, expr, dependencies)) {
+            put(name, value);
+            return value;
+        }
+        removeDefinition(name);
+        addDefinition(name, new Definition(expr, dependencies));
+        set(name, value);
+        update(name);
+        return value;
+    }
+
+    /**
+     * Returns the expression the given variable is defined by, if it is kept up to
+     * date with the symbols it depends on.
+     *
+     * @param name The name of the variable
+     * @return The defining expression, or <code>null</code> if the variable was not
+     *         set using {@link #define(String, Expression)} or is not tracked
+     */
+    @Nullable
+    public Expression getDefinition(String name) {
+        Definition definition = definitions.get(name);
+        return definition != null ? definition.expr : null;
     }
 
     @Override
     public Set<Map.Entry<String, Number>> entrySet() {
         return variables.entrySet();
     }
+
+    /**
+     * Returns whether definitions should be updated when the given symbol changes.
+     * Symbols which never change or which change all the time can be excluded here.
+     * Definitions read the current value of untracked symbols when they are evaluated.
+     *
+     * @param name The name of the symbol
+     * @return Whether to track the symbol as a dependency
+     */
+    protected boolean isTracked(String name) {
+        return true;
+    }
+
+
+    private void set(String name, @Nullable Number var) {
+        failed.remove(name);
+        if(var == null)
+            variables.remove(name);
+        else variables.put(name, Number.compact(var));
+    }
+
+    private boolean isReactive(String name, Expression expr, Set<String> dependencies) {
+        if(dependencies.isEmpty() || containsDefinition(expr)) return false;
+        for(String d : dependencies)
+            if(localVariables.containsKey(d)) return false;
+
+        // Check for cycles
+        Set<String> visited = new HashSet<>();
+        Queue<String> queue = new ArrayDeque<>(dependencies);
+        while(!queue.isEmpty()) {
+            String d = queue.remove();
+            if(d.equals(name)) return false;
+            Definition definition = definitions.get(d);
+            if(definition != null && visited.add(d))
+                queue.addAll(definition.dependencies);
+        }
+        return true;
+    }
+
+    private static boolean containsDefinition(Expression expr) {
+        if(expr instanceof VariableDefinition || expr instanceof FunctionDefinition)
+            return true;
+        for(Expression operand : expr.operands())
+            if(containsDefinition(operand)) return true;
+        return false;
+    }
+
+    /**
+     * Returns the tracked global symbols read when evaluating the given expression,
+     * including those read by functions the expression refers to.
+     */
+    private Set<String> dependencies(Expression expr) {
+        Set<String> symbols = new HashSet<>();
+        MemoizedFunction.collectFreeSymbols(expr, symbols);
+
+        Set<String> dependencies = new HashSet<>();
+        Queue<String> queue = new ArrayDeque<>(symbols);
+        while(!queue.isEmpty()) {
+            String name = queue.remove();
+            if(!isTracked(name) || !dependencies.add(name)) continue;
+            if(variables.get(name) instanceof Expression.Function f) {
+                symbols.clear();
+                MemoizedFunction.collectFreeSymbols(f, symbols);
+                queue.addAll(symbols);
+            }
+        }
+        return dependencies;
+    }
+
+    private void addDefinition(String name, Definition definition) {
+        definitions.put(name, definition);
+        for(String d : definition.dependencies)
+            dependents.computeIfAbsent(d, n -> new HashSet<>()).add(name);
+    }
+
+    private void removeDefinition(String name) {
+        Definition definition = definitions.remove(name);
+        if(definition == null) return;
+        for(String d : definition.dependencies) {
+            Set<String> ds = dependents.get(d);
+            ds.remove(name);
+            if(ds.isEmpty())
+                dependents.remove(d);
+        }
+    }
+
+    /**
+     * Re-evaluates all definitions that (transitively) depend on the given symbol.
+     */
+    private void update(String changed) {
+        if(!dependents.containsKey(changed)) return;
+
+        // Find all affected definitions and, for each, how many of its dependencies are affected
+        Map<String, Integer> pending = new HashMap<>();
+        Queue<String> queue = new ArrayDeque<>(List.of(changed));
+        while(!queue.isEmpty()) {
+            for(String d : dependents.getOrDefault(queue.remove(), Set.of()))
+                if(pending.merge(d, 1, Integer::sum) == 1)
+                    queue.add(d);
+        }
+
+        // Evaluate each definition after all its affected dependencies
+        queue.add(changed);
+        List<String> ready = new ArrayList<>();
+        while(!queue.isEmpty()) {
+            ready.clear();
+            for(String d : dependents.getOrDefault(queue.remove(), Set.of()))
+                if(pending.merge(d, -1, Integer::sum) == 0)
+                    ready.add(d);
+            for(String d : ready) {
+                pending.remove(d);
+                reevaluate(d);
+                queue.add(d);
+            }
+        }
+    }
+
+    private void reevaluate(String name) {
+        Definition definition = definitions.get(name);
+        Profiler.trace(() -> "Re-evaluating " + name + " := " + definition.expr);
+        try {
+            set(name, Expression.evaluate(definition.expr, this));
+        } catch(RuntimeException e) {
+            variables.remove(name);
+            failed.put(name, e.getMessage());
+        }
+
+        // Functions used by the definition may have been redefined
+        Set<String> dependencies = dependencies(definition.expr);
+        if(dependencies.equals(definition.dependencies)) return;
+        removeDefinition(name);
+        if(isReactive(name, definition.expr, dependencies))
+            addDefinition(name, new Definition(definition.expr, dependencies));
+    }
+
+
+    private record Definition(Expression expr, Set<String> dependencies) { }
 }
@@ -0,0 +1,69 @@
+package com.github.rccookie.math.expr;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.util.Arguments;
+
+/**
+ * The global symbols some expressions depend on, for caching values computed from
+ * the expressions. A {@link #snapshot(SymbolLookup) snapshot} holds the current values
+ * of these symbols and the current precision; as long as the snapshot stays equal, so
+ * does the cached value.
+ */
+public final class Dependencies {
+
+    private final String[] names;
+
+    /**
+     * Collects the symbols the given expressions depend on.
+     *
+     * @param expressions The expressions to search
+     */
+    public Dependencies(Expression... expressions) {
+        Set<String> names = new TreeSet<>();
+        for(Expression expr : Arguments.deepCheckNull(expressions, "expressions"))
+            MemoizedFunction.collectFreeSymbols(expr, names);
+        this.names = names.toArray(new String[0]);
+    }
+
+
+    /**
+     * Returns the names of the symbols.
+     *
+     * @return The symbols the expressions depend on
+     */
+    public String[] names() {
+        return names.clone();
+    }
+
+    /**
+     * Returns the current values of the symbols and the current precision. Two
+     * snapshots are equal if all values and the precision are equal.
+     *
+     * @param lookup The lookup to read the symbols from
+     * @return A snapshot of the values
+     */
+    public Object snapshot(SymbolLookup lookup) {
+        Object[] values = new Object[names.length];
+        for(int i=0; i<values.length; i++)
+            values[i] = lookup.contains(names[i]) ? lookup.get(names[i]) : null;
+        return new Snapshot(values, Rational.getPrecision());
+    }
+
+
+    private record Snapshot(Object[] values, int precision) {
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Snapshot s && precision == s.precision && Arrays.equals(values, s.values);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(Arrays.hashCode(values), precision);
+        }
+    }
+}
@@ -1,8 +1,6 @@
 package com.github.rccookie.math.expr;
 
-import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collection;
 import java.util.List;
 import java.util.function.BinaryOperator;
 import java.util.function.UnaryOperator;
@@ -119,13 +117,13 @@ public interface Expression extends Number {
 
     @Override
     default @NotNull BinaryOperation add(Number x) {
-        return new SimpleBinaryOperation("+", "$1 + $2", RenderableExpression::plus, true, this, x, Token.PLUS.precedence(), Number::add);
+        return OperationChain.flatten(new SimpleBinaryOperation("+", "$1 + $2", RenderableExpression::plus, true, this, x, Token.PLUS.precedence(), Number::add));
     }
 
     @Override
     @NotNull
     default BinaryOperation subtract(Number x) {
-        return new SimpleBinaryOperation("-", "$1 - $2", RenderableExpression::minus, true, this, x, Token.MINUS.precedence(), Number::subtract);
+        return OperationChain.flatten(new SimpleBinaryOperation("-", "$1 - $2", RenderableExpression::minus, true, this, x, Token.MINUS.precedence(), Number::subtract));
     }
 
     @Override
@@ -137,16 +135,16 @@ public interface Expression extends Number {
     @Override
     @NotNull
     default BinaryOperation multiply(Number x) {
-        return new OptimizedBinaryOperation(
+        return OperationChain.flatten(new OptimizedBinaryOperation(
                 new SimpleBinaryOperation("*", "$1\u00B7$2", RenderableExpression::mult, true, this, x, Token.MULTIPLY.precedence(), Number::multiply),
                 Number.ZERO()
-        );
+        ));
     }
 
     @Override
     @NotNull
     default BinaryOperation divide(Number x) {
-        return new SimpleBinaryOperation("/", "$1 / $2", RenderableExpression::frac, null, this, x, Token.DIVIDE.precedence(), Number::divide);
+        return OperationChain.flatten(new SimpleBinaryOperation("/", "$1 / $2", RenderableExpression::frac, null, this, x, Token.DIVIDE.precedence(), Number::divide));
     }
 
     @Override
@@ -158,10 +156,10 @@ public interface Expression extends Number {
     @Override
     @NotNull
     default BinaryOperation raise(Number x) {
-        return new OptimizedBinaryOperation(
+        return OperationChain.flatten(new OptimizedBinaryOperation(
                 new SimpleBinaryOperation("^", "$1^$2", RenderableExpression::pow, null, this, x, Token.POWER.precedence(), Number::raise),
                 Number.ZERO()
-        );
+        ));
     }
 
     @Override
@@ -256,19 +254,12 @@ public interface Expression extends Number {
      * @return The parsed expression
      */
     static Expression parse(String expression) {
-        if(!Console.getFilter().isEnabled("debug"))
-            return new Parser().parse(new InfixConverter(new Lexer(expression)).toPostfix());
-
-        List<Token> tokens = new ArrayList<>();
-        for(Token t : new Lexer(expression)) tokens.add(t);
-        Console.debug("Tokens:");
-        Console.debug(tokens);
-        Console.debug(tokens.toArray());
-        Iterable<Token> postfix = new InfixConverter(tokens).toPostfix();
-        Console.debug("Postfix:");
-        Console.debug(postfix);
-        Console.debug(((Collection<?>) postfix).toArray());
-        return new Parser().parse(postfix);
+        Expression expr = new Parser(expression).parse();
+        if(Console.getFilter().isEnabled("debug")) {
+            Console.debug("Expression tree:");
+            Console.debug(expr.toTreeString());
+        }
+        return expr;
     }
 
 
@@ -439,6 +430,7 @@ public interface Expression extends Number {
 
         @Override
         default Number evaluate(SymbolLookup lookup) {
+            Budget.checkpoint();
             return evaluateHalf(lookup, a().evaluate(lookup));
         }
 
@@ -637,6 +629,47 @@ public interface Expression extends Number {
          */
         Number evaluate(SymbolLookup lookup, Number params);
 
+        /**
+         * Evaluates the function once for every value in the given column. Each value
+         * is treated exactly like by {@link #evaluate(SymbolLookup, Number)}: a plain value
+         * is passed as first parameter with all other parameters unspecified, a tuple is
+         * spread over the parameters. Implementations
+         * may do any setup work only once for the whole batch, so this should be preferred
+         * over calling {@link #evaluate(SymbolLookup, Number)} in a loop.
+         *
+         * @param lookup The lookup context to use
+         * @param inputs The (evaluated) values to pass as first parameter
+         * @return The result for each input, at the same index as the input
+         */
+        default Number[] evaluateAll(SymbolLookup lookup, Number[] inputs) {
+            Number[] results = new Number[inputs.length];
+            for(int i=0; i<inputs.length; i++)
+                results[i] = evaluate(lookup, inputs[i]);
+            return results;
+        }
+
+        /**
+         * Evaluates the function once for every value in the given column and converts
+         * the results to doubles. See {@link #evaluateAll(SymbolLookup, Number[])}.
+         * The default implementation converts each input to a number, as there is no
+         * way to evaluate an arbitrary function on doubles; functions that can, like
+         * polynoms with real coefficients, override this.
+         *
+         * @param lookup The lookup context to use
+         * @param inputs The values to pass as first parameter
+         * @return The result for each input, at the same index as the input
+         */
+        default double[] evaluateAll(SymbolLookup lookup, double[] inputs) {
+            Number[] params = new Number[inputs.length];
+            for(int i=0; i<inputs.length; i++)
+                params[i] = new Rational(inputs[i]);
+            Number[] results = evaluateAll(lookup, params);
+            double[] doubles = new double[results.length];
+            for(int i=0; i<results.length; i++)
+                doubles[i] = results[i].toDouble(lookup);
+            return doubles;
+        }
+
         @Override
         Function simplify();
 
@@ -8,22 +8,27 @@ record FunctionCall(Expression function, Expression params)
 
     @Override
     public String toString() {
-        return format("$x(" + params + ")", function);
+        return IterativeTraversal.toString(this);
     }
 
     @Override
     public RenderableExpression toRenderable() {
-        return toRenderable(f -> RenderableExpression.call(f, params.toRenderable()), function);
+        return IterativeTraversal.toRenderable(this);
+    }
+
+    @Override
+    public Number evaluate(SymbolLookup lookup) {
+        return IterativeTraversal.evaluate(this, lookup);
     }
 
     @Override
     public Number evaluateHalf(SymbolLookup lookup, Number ea) {
-        return ((Expression.Function) ea).evaluate(lookup, params.evaluate(lookup));
+        return Profiler.call(function, (Expression.Function) ea, lookup, params.evaluate(lookup));
     }
 
     @Override
     public Expression simplify() {
-        return new FunctionCall(function.simplify(), params.simplify());
+        return IterativeTraversal.simplify(this);
     }
 
     @Override
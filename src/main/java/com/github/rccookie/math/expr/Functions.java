@@ -10,6 +10,7 @@ import java.util.function.BinaryOperator;
 
 import com.github.rccookie.math.BigDecimalMath;
 import com.github.rccookie.math.Complex;
+import com.github.rccookie.math.Dual;
 import com.github.rccookie.math.Number;
 import com.github.rccookie.math.Rational;
 import com.github.rccookie.math.SimpleNumber;
@@ -17,6 +18,8 @@ import com.github.rccookie.math.Vector;
 import com.github.rccookie.math.rendering.RenderableExpression;
 import com.github.rccookie.math.solve.LinearEquationSystem;
 import com.github.rccookie.math.solve.Polynom;
+import com.github.rccookie.math.solve.PolynomRoots;
+import com.github.rccookie.math.solve.RootFinder;
 
 import org.jetbrains.annotations.Contract;
 
@@ -75,12 +78,19 @@ public final class Functions {
     public static final Expression.Function POLYNOM = new HardcodedFunction("poly", (l,p) -> polynom(l,p[0]), "p");
     public static final Expression.Function DERIVATIVE = new HardcodedFunction("der", (l,p) -> derivative(l,p[0],p[1],p[2]), "p", "deg", "ind");
     public static final Expression.Function ANTIDERIVATIVE = new HardcodedFunction("antiDer", (l,p) -> antiderivative(l,p[0],p[1],p[2]), "p", "deg", "ind");
+    public static final Expression.Function POLYNOM_DIVIDE = new HardcodedFunction("polyDiv", (l,p) -> polynomDivide(l,p[0],p[1]), "p", "q");
+    public static final Expression.Function ROOT = new HardcodedFunction("root", (l,p) -> root(l,p[0],p[1],p[2]), "f", "a", "b");
+    public static final Expression.Function ROOTS = new HardcodedFunction("roots", (l,p) -> roots(l,p[0]), "p");
+    public static final Expression.Function DIFF = new HardcodedFunction("diff", (l,p) -> diff(l,p[0],p[1]), "f", "x");
+    public static final Expression.Function GRADIENT = new HardcodedFunction("grad", (l,p) -> grad(l,p[0],p[1]), "f", "point");
     public static final Expression.Function INTEGRATE = new HardcodedFunction("int", (l,p) -> integrate(l,p[0],p[1],p[2],p[3]), "p", "a", "b", "ind");
 
     public static final Expression.Function REDUCE = new HardcodedFunction("reduce", Functions::gaussReduction);
     public static final Expression.Function GAUSS = new HardcodedFunction("gauss", Functions::gauss);
     public static final Expression.Function RANK = new HardcodedFunction("rank", Functions::rank);
 
+    public static final Expression.Function MEMO = new HardcodedFunction("memo", (l,p) -> memo(p[0], p[1]), "f", "size");
+
     private static final Number LN_2 = ln(new Rational(2));
 
     private static final int PRE = Precedence.FUNCTION_CALL;
@@ -140,6 +150,7 @@ public final class Functions {
             case SimpleNumber n -> new Rational(n.toBigDecimal().setScale(0, RoundingMode.FLOOR));
             case Complex c -> new Complex((SimpleNumber) floor(c.re), (SimpleNumber) floor(c.im));
             case Vector v -> v.derive(Functions::floor);
+            case Dual d -> d.derive(Functions::floor, x1 -> ZERO());
             case Expression.Function f -> f.derive("floor", "floor($x)", RenderableExpression::floor, PRE, Functions::floor);
             default -> throw new UnsupportedMathOperationException("floor", x);
         };
@@ -152,6 +163,7 @@ public final class Functions {
             case SimpleNumber n -> new Rational(n.toBigDecimal().setScale(0, RoundingMode.CEILING));
             case Complex c -> new Complex((SimpleNumber) ceil(c.re), (SimpleNumber) ceil(c.im));
             case Vector v -> v.derive(Functions::ceil);
+            case Dual d -> d.derive(Functions::ceil, x1 -> ZERO());
             case Expression.Function f -> f.derive("ceil", "ceil($x)", RenderableExpression::ceil, PRE, Functions::ceil);
             default -> throw new UnsupportedMathOperationException("ceil", x);
         };
@@ -163,6 +175,7 @@ public final class Functions {
             case SimpleNumber n -> new Rational(n.toBigDecimal().setScale(0, RoundingMode.HALF_UP));
             case Complex c -> new Complex((SimpleNumber) round(c.re), (SimpleNumber) round(c.im));
             case Vector v -> v.derive(Functions::round);
+            case Dual d -> d.derive(Functions::round, x1 -> ZERO());
             case Expression.Function f -> f.derive("round", "round($x)", x1 -> call("round", x1), PRE, Functions::round);
             default -> throw new UnsupportedMathOperationException("round", x);
         };
@@ -176,6 +189,7 @@ public final class Functions {
             case SimpleNumber n -> sin(n);
             case Complex c -> sin(c);
             case Vector v -> v.derive(Functions::sin);
+            case Dual d -> d.derive(Functions::sin, Functions::cos);
             case Expression.Function f -> f.derive("sin", "sin($x)", x1 -> call("sin", x1), PRE, Functions::sin);
             default -> throw new UnsupportedMathOperationException("sin", x);
         };
@@ -199,6 +213,7 @@ public final class Functions {
             case SimpleNumber n -> cos(n);
             case Complex c -> cos(c);
             case Vector v -> v.derive(Functions::cos);
+            case Dual d -> d.derive(Functions::cos, x1 -> sin(x1).negate());
             case Expression.Function f -> f.derive("cos", "cos($x)", x1 -> call("cos", x1), PRE, Functions::cos);
             default -> throw new UnsupportedMathOperationException("cos", x);
         };
@@ -228,6 +243,7 @@ public final class Functions {
             case SimpleNumber n -> asin(n);
             case Complex c -> asin(c);
             case Vector v -> v.derive(Functions::asin);
+            case Dual d -> d.derive(Functions::asin, x1 -> ONE().subtract(square(x1)).sqrt().invert());
             case Expression.Function f -> f.derive("asin", "asin($x)", x1 -> call("asin", x1), PRE, Functions::asin);
             default -> throw new UnsupportedMathOperationException("asin", x);
         };
@@ -258,6 +274,7 @@ public final class Functions {
             case SimpleNumber r -> acos(r);
             case Complex c -> acos(c);
             case Vector v -> v.derive(Functions::acos);
+            case Dual d -> d.derive(Functions::acos, x1 -> ONE().subtract(square(x1)).sqrt().invert().negate());
             case Expression.Function f -> f.derive("acos", "acos($x)", x1 -> call("acos", x1), PRE, Functions::acos);
             default -> throw new UnsupportedMathOperationException("acos", x);
         };
@@ -289,6 +306,7 @@ public final class Functions {
             case SimpleNumber n -> atan(n);
             case Complex c -> atan(c);
             case Vector v -> v.derive(Functions::atan);
+            case Dual d -> d.derive(Functions::atan, x1 -> ONE().add(square(x1)).invert());
             case Expression.Function f -> f.derive("atan", "atan($x)", x1 -> call("atan", x1), PRE, Functions::atan);
             default -> throw new UnsupportedMathOperationException("atan", x);
         };
@@ -319,6 +337,15 @@ public final class Functions {
         }
         if(_x instanceof Vector vx)
             return vx.derive(xc -> atan2(_y, xc));
+        if(_y instanceof Dual || _x instanceof Dual) {
+            // d/dt atan2(y,x) = (x dy - y dx) / (x^2 + y^2)
+            Number y0 = Dual.valueOf(_y), x0 = Dual.valueOf(_x), der = null;
+            if(_y instanceof Dual dy)
+                der = dy.derivative.multiply(x0);
+            if(_x instanceof Dual dx)
+                der = der == null ? dx.derivative.multiply(y0).negate() : der.subtract(dx.derivative.multiply(y0));
+            return new Dual(atan2(y0, x0), der.divide(square(x0).add(square(y0))));
+        }
         if(!(_x instanceof SimpleNumber && _y instanceof SimpleNumber))
             throw new UnsupportedMathOperationException("atan", _y, _x);
 
@@ -345,6 +372,7 @@ public final class Functions {
             case SimpleNumber n -> exp(n);
             case Complex c -> exp(c);
             case Vector v -> v.derive(Functions::exp);
+            case Dual d -> d.derive(Functions::exp, Functions::exp);
             case Expression.Function f -> f.derive("exp", "exp($x)", RenderableExpression::exp, PRE, Functions::exp);
             default -> throw new UnsupportedMathOperationException("exp", x);
         };
@@ -369,6 +397,7 @@ public final class Functions {
             case SimpleNumber r -> ln(r);
             case Complex c -> ln(c);
             case Vector v -> v.derive(Functions::ln);
+            case Dual d -> d.derive(Functions::ln, Number::invert);
             case Expression.Function f -> f.derive("ln", "ln($x)", x1 -> call("ln", x1), PRE, Functions::ln);
             default -> throw new UnsupportedMathOperationException("ln", x);
         };
@@ -462,11 +491,10 @@ public final class Functions {
             return f.derive("vec", "vec($1,$2)", (s,cf) -> call("vec", cf, s), null, componentF, PRE, (s,cf) -> vector(l,s,cf));
         int s = (int) size.toDouble(l);
         if(s < 1) throw new MathEvaluationException("Non-positive vector size");
-        Number[] c = new Number[s];
         if(_componentF instanceof Expression.Function f)
-            for(int i=0; i<s; i++)
-                c[i] = f.evaluate(l, new Rational(i+1));
-        else Arrays.fill(c, _componentF);
+            return ParallelEvaluation.sequentialIfDefining(l, f, () -> Vector.generate(s, i -> f.evaluate(frame(l), new Rational(i+1))));
+        Number[] c = new Number[s];
+        Arrays.fill(c, _componentF);
         return new Vector(c);
     }
 
@@ -482,12 +510,10 @@ public final class Functions {
         int mm = (int) _m.toDouble(l), nn = (int) _n.toDouble(l);
         if(mm < 1) throw new MathEvaluationException("Non-positive matrix row count");
         if(nn < 1) throw new MathEvaluationException("Non-positive matrix columns count");
-        Number[][] c = new Number[mm][nn];
         if(_componentF instanceof Expression.Function f)
-            for(int i=0; i<mm; i++)
-                for(int j=0; j<nn; j++)
-                    c[i][j] = f.evaluate(l, Expression.Numbers.of(new Rational(i+1), new Rational(j+1)));
-        else for(int i=0; i<mm; i++)
+            return ParallelEvaluation.sequentialIfDefining(l, f, () -> Vector.generateMatrix(mm, nn, (i,j) -> f.evaluate(frame(l), Expression.Numbers.of(new Rational(i+1), new Rational(j+1)))));
+        Number[][] c = new Number[mm][nn];
+        for(int i=0; i<mm; i++)
             Arrays.fill(c[i], _componentF);
 
         Vector[] rows = new Vector[mm];
@@ -783,14 +809,19 @@ public final class Functions {
         x = value(x);
         if(x instanceof Vector v)
             return v.derive(Functions::factorial);
+        if(x instanceof Dual) // Only defined for integers, no derivative
+            throw new UnsupportedMathOperationException("factorial", x);
         double xd = x.toDouble();
         if(xd != (long) xd)
             throw new ArithmeticException("Factorial on non-integer");
         if(xd < 0)
             throw new ArithmeticException("Factorial on negative number");
         Number res = ONE();
-        for(; x.toDouble() > 0; x = x.subtract(ONE()))
+        for(; x.toDouble() > 0; x = x.subtract(ONE())) {
+            Budget.checkpoint();
             res = res.multiply(x);
+            Budget.checkSize(res);
+        }
         return res;
     }
 
@@ -810,21 +841,28 @@ public final class Functions {
             return lowF.derive(SIGMA, "sum($x,"+_high+","+_f+")", l -> RenderableExpression.sum(l, _high.toRenderable(), _f.toRenderable()), PRE, l -> sum(c, l, _high, _f));
         if(_high instanceof Expression.Function highF)
             return highF.derive(SIGMA, "sum("+_low+",$x,"+_f+")", h -> RenderableExpression.sum(_low.toRenderable(), h, _f.toRenderable()), PRE, h -> sum(c, _low, h, _f));
-        if(_low instanceof Vector lowV) {
+        return ParallelEvaluation.sequentialIfDefining(c, _f, () -> {
+            if(_low instanceof Vector lowV) {
+                if(_high instanceof Vector highV)
+                    return lowV.derive(highV, (l, h) -> sum(frame(c),l,h,_f));
+                return lowV.derive(l -> sum(frame(c), l, _high, _f));
+            }
             if(_high instanceof Vector highV)
-                return lowV.derive(highV, (l, h) -> sum(c,l,h,_f));
-            return lowV.derive(l -> sum(c, l, _high, _f));
-        }
-        if(_high instanceof Vector highV)
-            return highV.derive(h -> sum(c, _low, h, _f));
-        return sum(c, _low, _high, _f instanceof Expression.Function ff ? ff : new HardcodedFunction("_f", "_", l -> _f));
+                return highV.derive(h -> sum(frame(c), _low, h, _f));
+            return sum(c, _low, _high, _f instanceof Expression.Function ff ? ff : new HardcodedFunction("_f", "_", l -> _f));
+        });
     }
 
     private static Number sum(SymbolLookup c, Number low, Number high, Expression.Function f) {
+        double lowD = low.toDouble(c), highD = high.toDouble(c);
+        if(ParallelEvaluation.isWorthIt(rangeSize(lowD, highD)))
+            return ParallelEvaluation.reduce(c, low, rangeSize(lowD, highD), f, ZERO(), Number::add);
         Number res = ZERO();
         Number i = low;
-        for(double iD=low.toDouble(c), highD=high.toDouble(c); iD<=highD; iD++, i = i.add(ONE()))
+        for(double iD=lowD; iD<=highD; iD++, i = i.add(ONE())) {
+            Budget.checkpoint();
             res = res.add(f.evaluate(c, i));
+        }
         return res;
     }
 
@@ -838,30 +876,57 @@ public final class Functions {
             return lowF.derive(PI, "product($x,"+_high+","+f+")", l -> prod(l, _high.toRenderable(), _f.toRenderable()), PRE, l -> product(e, l, _high, _f));
         if(_high instanceof Expression.Function highF)
             return highF.derive(PI, "product("+_low+",$x,"+_f+")", h -> prod(_low.toRenderable(), h, _f.toRenderable()), PRE, h -> product(e, _low, h, _f));
-        if(_low instanceof Vector lowV) {
+        return ParallelEvaluation.sequentialIfDefining(e, _f, () -> {
+            if(_low instanceof Vector lowV) {
+                if(_high instanceof Vector highV)
+                    return lowV.derive(highV, (l, h) -> product(frame(e),l,h,_f));
+                return lowV.derive(l -> product(frame(e), l, _high, _f));
+            }
             if(_high instanceof Vector highV)
-                return lowV.derive(highV, (l, h) -> product(e,l,h,_f));
-            return lowV.derive(l -> product(e, l, _high, _f));
-        }
-        if(_high instanceof Vector highV)
-            return highV.derive(h -> product(e, _low, h, _f));
-        return product(e, _low, _high, _f instanceof Expression.Function ff ? ff : new HardcodedFunction("_f", "_", l -> _f));
+                return highV.derive(h -> product(frame(e), _low, h, _f));
+            return product(e, _low, _high, _f instanceof Expression.Function ff ? ff : new HardcodedFunction("_f", "_", l -> _f));
+        });
     }
 
     private static Number product(SymbolLookup c, Number low, Number high, Expression.Function f) {
+        double lowD = low.toDouble(c), highD = high.toDouble(c);
+        if(ParallelEvaluation.isWorthIt(rangeSize(lowD, highD)))
+            return ParallelEvaluation.reduce(c, low, rangeSize(lowD, highD), f, ONE(), Number::multiply);
         Number res = ONE();
         Number i = low;
-        for(double iD=low.toDouble(c), highD=high.toDouble(c); iD<=highD; iD++, i = i.add(ONE()))
+        for(double iD=lowD; iD<=highD; iD++, i = i.add(ONE())) {
+            Budget.checkpoint();
             res = res.multiply(f.evaluate(c, i));
+            Budget.checkSize(res);
+        }
         return res;
     }
 
+    /**
+     * Returns the number of iterations of <code>for(i=low; i<=high; i++)</code>.
+     */
+    private static long rangeSize(double low, double high) {
+        return high >= low ? (long) Math.floor(high - low) + 1 : 0;
+    }
+
 
 
     public static Polynom polynom(SymbolLookup lookup, Number expr) {
         return Polynom.parse(lookup, expr);
     }
 
+    public static Number roots(SymbolLookup lookup, Number polynom) {
+        Number[] roots = PolynomRoots.roots(Polynom.parse(lookup, polynom).compile(lookup));
+        if(roots.length == 0)
+            throw new ArithmeticException("roots: a constant polynom has no roots");
+        return new Vector(roots);
+    }
+
+    public static Number polynomDivide(SymbolLookup lookup, Number p, Number q) {
+        Polynom[] result = Polynom.parse(lookup, p).divideWithRemainder(Polynom.parse(lookup, q));
+        return new Vector(result[0].simplify(), result[1].simplify());
+    }
+
     public static Number derivative(SymbolLookup lookup, Number polynom, Number degree, Number indeterminant) {
         return derivative(lookup, Polynom.parse(lookup, polynom), degree, indeterminant);
     }
@@ -870,9 +935,9 @@ public final class Functions {
         Number deg = value(degree);
         Number ind = value(indeterminant);
         if(degree instanceof Vector v)
-            return v.derive(c -> derivative(lookup, polynom, c, ind));
+            return v.derive(c -> derivative(frame(lookup), polynom, c, ind));
         if(ind instanceof Vector v)
-            return v.derive(c -> derivative(lookup, polynom, deg, c));
+            return v.derive(c -> derivative(frame(lookup), polynom, deg, c));
         if(deg instanceof Expression.Function f)
             return f.derive("derivative", "($x)/d("+ind+")", c -> null, PRE, c -> derivative(lookup, polynom, c, ind));
         if(ind instanceof Expression.Function f)
@@ -885,7 +950,7 @@ public final class Functions {
                 throw new ArithmeticException("Non-integer derivative degree");
             n = (int) dn;
         }
-        return polynom.derivative(0,n).simplify();
+        return polynom.derivative(indeterminant(lookup, polynom, ind), n).simplify();
     }
 
     public static Number antiderivative(SymbolLookup lookup, Number polynom, Number degree, Number indeterminant) {
@@ -894,9 +959,9 @@ public final class Functions {
 
     private static Number antiderivative(SymbolLookup lookup, Polynom polynom, Number degree, Number indeterminant) {
         if(degree instanceof Vector v)
-            return v.derive(c -> antiderivative(lookup, polynom, c, indeterminant));
+            return v.derive(c -> antiderivative(frame(lookup), polynom, c, indeterminant));
         if(indeterminant instanceof Vector v)
-            return v.derive(c -> antiderivative(lookup, polynom, degree, c));
+            return v.derive(c -> antiderivative(frame(lookup), polynom, degree, c));
         if(degree instanceof Expression.Function f)
             return f.derive("antiderivative", "($x)d("+indeterminant+")", c -> null, PRE, c -> antiderivative(lookup, polynom, c, indeterminant));
         if(indeterminant instanceof Expression.Function f)
@@ -909,32 +974,206 @@ public final class Functions {
                 throw new ArithmeticException("Non-integer antiderivative degree");
             n = (int) dn;
         }
-        return polynom.antiderivative(0,n).simplify();
+        return polynom.antiderivative(indeterminant(lookup, polynom, indeterminant), n).simplify();
+    }
+
+    /**
+     * Returns the index of the indeterminant specified by the given number, the first
+     * one if unspecified.
+     */
+    private static int indeterminant(SymbolLookup lookup, Polynom polynom, Number indeterminant) {
+        double dInd = indeterminant.toDouble(lookup);
+        if(dInd != (int) dInd) throw new ArithmeticException("Non-integer indeterminant");
+        if(dInd < 0 || dInd >= polynom.indeterminantCount())
+            throw new ArithmeticException("Indeterminant index out of bounds: " + (int) dInd);
+        return (int) dInd;
     }
 
     public static Number integrate(SymbolLookup lookup, Number polynom, Number a, Number b, Number indeterminant) {
-        return integrate(lookup, Polynom.parse(lookup, polynom), a, b, indeterminant);
+        Number f = value(polynom);
+        if(f instanceof HardcodedFunction h && indeterminant == SymbolLookup.UNSPECIFIED)
+            return integrate(lookup, h, a, b);
+        Polynom p;
+        try {
+            p = Polynom.parse(lookup, polynom);
+        } catch(MathExpressionSyntaxException | MathEvaluationException e) {
+            // Not a polynom, integrate numerically
+            if(!(f instanceof Expression.Function function) || function.paramCount() != 1 || indeterminant != SymbolLookup.UNSPECIFIED)
+                throw e;
+            return integrate(lookup, function, a, b);
+        }
+        return integrate(lookup, p, a, b, indeterminant);
+    }
+
+    private static Number integrate(SymbolLookup lookup, Expression.Function function, Number a, Number b) {
+        if(a instanceof Vector v)
+            return ParallelEvaluation.sequentialIfDefining(lookup, function, () -> v.derive(c -> integrate(frame(lookup), function, c, b)));
+        if(b instanceof Vector v)
+            return ParallelEvaluation.sequentialIfDefining(lookup, function, () -> v.derive(c -> integrate(frame(lookup), function, a, c)));
+        String ind = function.paramNames()[0];
+        if(a instanceof Expression.Function f)
+            return f.derive("integral", "int($x)d"+ind, c -> integral(c, b.toRenderable(), function.toRenderable(), name(ind)), PRE, c -> integrate(lookup, function, c, b));
+        if(b instanceof Expression.Function f)
+            return f.derive("integral", "int($x)d"+ind, c -> integral(a.toRenderable(), c, function.toRenderable(), name(ind)), PRE, c -> integrate(lookup, function, a, c));
+        return ParallelEvaluation.sequentialIfDefining(lookup, function, () -> Quadrature.integrate(lookup, function, value(a), value(b)));
     }
 
     private static Number integrate(SymbolLookup lookup, Polynom polynom, Number a, Number b, Number indeterminant) {
         if(a instanceof Vector v)
-            return v.derive(c -> integrate(lookup, polynom, c, b, indeterminant));
+            return v.derive(c -> integrate(frame(lookup), polynom, c, b, indeterminant));
         if(b instanceof Vector v)
-            return v.derive(c -> integrate(lookup, polynom, a, c, indeterminant));
+            return v.derive(c -> integrate(frame(lookup), polynom, a, c, indeterminant));
         if(indeterminant instanceof Vector v)
-            return v.derive(c -> integrate(lookup, polynom, a, b, c));
+            return v.derive(c -> integrate(frame(lookup), polynom, a, b, c));
         if(a instanceof Expression.Function f)
             return f.derive("integral", "int($x)d"+polynom.indeterminants()[0], c -> integral(c, b.toRenderable(), polynom.toRenderable(), indeterminant.toRenderable()), PRE, c -> integrate(lookup, polynom, c, b, indeterminant));
         if(b instanceof Expression.Function f)
             return f.derive("integral", "int($x)d"+polynom.indeterminants()[0], c -> integral(a.toRenderable(), c, polynom.toRenderable(), indeterminant.toRenderable()), PRE, c -> integrate(lookup, polynom, a, c, indeterminant));
         if(indeterminant instanceof Expression.Function f)
             return f.derive("integral", "int($x)d("+f+")", c -> integral(a.toRenderable(), b.toRenderable(), polynom.toRenderable(), c), PRE, c -> integrate(lookup, polynom, a, b, c));
-        double dInd = indeterminant.toDouble(lookup);
-        if(dInd != (int) dInd) throw new ArithmeticException("Non-integer indeterminant");
-        return polynom.integrate((int) dInd, lookup, a, b);
+        return polynom.integrate(indeterminant(lookup, polynom, indeterminant), lookup, a, b);
+    }
+
+
+    /**
+     * Finds a root of the given function. If both a and b are specified, a root
+     * between a and b is found using Brent's method, which requires f(a) and f(b)
+     * to have different signs. Otherwise, Newton's method is used starting at a.
+     * Either way the root is refined to the current precision. If a or b are
+     * vectors, a root is found for each component, in parallel.
+     *
+     * @param lookup The lookup to evaluate the function with
+     * @param f The function to find a root of
+     * @param a The lower bound or the start position
+     * @param b The upper bound, or {@link SymbolLookup#UNSPECIFIED}
+     * @return A root of f
+     */
+    public static Number root(SymbolLookup lookup, Number f, Number a, Number b) {
+        Number _f = value(f);
+        Number _a = value(a);
+        Number _b = value(b);
+        if(_a instanceof Expression.Function af)
+            return af.derive("root", "root("+_f+",$x,"+_b+")", a1 -> call("root", _f.toRenderable(), a1, _b.toRenderable()), PRE, a1 -> root(lookup, _f, a1, _b));
+        if(_b instanceof Expression.Function bf)
+            return bf.derive("root", "root("+_f+","+_a+",$x)", b1 -> call("root", _f.toRenderable(), _a.toRenderable(), b1), PRE, b1 -> root(lookup, _f, _a, b1));
+        if(!(_f instanceof Expression.Function func))
+            throw new UnsupportedMathOperationException("root", _f);
+
+        if(_a instanceof Vector || _b instanceof Vector) {
+            int size = Math.max(_a instanceof Vector va ? va.size() : 1, _b instanceof Vector vb ? vb.size() : 1);
+            return ParallelEvaluation.sequentialIfDefining(lookup, func, () -> new Vector(ParallelEvaluation.map(lookup, size, (l,i) -> root(l, func, component(_a, i), component(_b, i)))));
+        }
+        if(_b == SymbolLookup.UNSPECIFIED)
+            return RootFinder.root(lookup, func, _a);
+        return RootFinder.root(lookup, func, _a, _b);
+    }
+
+    private static Number component(Number x, int index) {
+        return x instanceof Vector v ? v.get(index) : x;
+    }
+
+    /**
+     * Returns the derivative of the given function at the given position, using
+     * automatic differentiation. The function is evaluated only once, with a
+     * {@link Dual dual number}. Vector valued functions result in the vector of
+     * the component derivatives.
+     *
+     * @param lookup The lookup to evaluate the function with
+     * @param f The function to differentiate
+     * @param x The position to differentiate at
+     * @return The exact value of <code>f'(x)</code>
+     */
+    public static Number diff(SymbolLookup lookup, Number f, Number x) {
+        Number _f = value(f);
+        Number _x = value(x);
+        if(_x instanceof Expression.Function xf)
+            return xf.derive("diff", "diff("+_f+",$x)", x1 -> call("diff", _f.toRenderable(), x1), PRE, x1 -> diff(lookup, _f, x1));
+        if(_x instanceof Vector v)
+            return ParallelEvaluation.sequentialIfDefining(lookup, _f, () -> v.derive(c -> diff(frame(lookup), _f, c)));
+        if(!(_f instanceof Expression.Function func))
+            return ZERO();
+        return dualDerivative(func.evaluate(lookup, new Dual(_x, ONE())), ZERO());
+    }
+
+    /**
+     * Returns the gradient of the given function at the given point, using automatic
+     * differentiation. The function is evaluated only once, with each parameter
+     * being a {@link Dual dual number} whose derivative is the respective unit vector.
+     * Functions with a single parameter are passed the point as vector. Vector valued
+     * functions result in the Jacobian matrix.
+     *
+     * @param lookup The lookup to evaluate the function with
+     * @param f The function to differentiate
+     * @param point The point to differentiate at
+     * @return The exact gradient of f at the point
+     */
+    public static Number grad(SymbolLookup lookup, Number f, Number point) {
+        Number _f = value(f);
+        Number _point = value(point);
+        if(_point instanceof Expression.Function pf)
+            return pf.derive("grad", "grad("+_f+",$x)", p1 -> call("grad", _f.toRenderable(), p1), PRE, p1 -> grad(lookup, _f, p1));
+        if(!(_point instanceof Vector p))
+            return diff(lookup, _f, _point);
+
+        int n = p.size();
+        Vector zero = Vector.generate(n, i -> ZERO());
+        if(!(_f instanceof Expression.Function func))
+            return zero;
+        Number[] params = new Number[n];
+        for(int i=0; i<n; i++) {
+            int _i = i;
+            params[i] = new Dual(value(p.get(i)), Vector.generate(n, j -> bool(j == _i)));
+        }
+        Number result = func.paramCount() == 1 && n != 1 ? func.evaluate(lookup, new Vector(params)) : func.evaluate(lookup, Expression.Numbers.of(params));
+        return dualDerivative(result, zero);
+    }
+
+    /**
+     * Returns the derivative part of the result of a function evaluated with dual numbers.
+     *
+     * @param result The result of the function
+     * @param zero The derivative if the result does not depend on the parameters
+     */
+    private static Number dualDerivative(Number result, Number zero) {
+        result = value(result);
+        return switch(result) {
+            case Dual d -> d.derivative;
+            case Vector v -> v.derive(c -> dualDerivative(c, zero));
+            case SimpleNumber n -> zero;
+            case Complex c -> zero;
+            default -> throw new UnsupportedMathOperationException("diff", result);
+        };
     }
 
 
+    public static Number memo(Number f, Number capacity) {
+        f = value(f);
+        capacity = value(capacity);
+        if(!(f instanceof Expression.Function func))
+            throw new UnsupportedMathOperationException("memo", f);
+        int size = MemoizedFunction.DEFAULT_CAPACITY;
+        if(capacity != SymbolLookup.UNSPECIFIED) {
+            double sizeD = capacity.toDouble();
+            if(sizeD != (int) sizeD || sizeD < 1) throw new ArithmeticException("Cache size must be a positive integer");
+            size = (int) sizeD;
+        }
+        if(func instanceof MemoizedFunction m) {
+            if(capacity == SymbolLookup.UNSPECIFIED) return m;
+            func = m.function();
+        }
+        return new MemoizedFunction(func, size);
+    }
+
+
+
+    /**
+     * Returns a lookup with separate local variables on top of the given one, so that
+     * operators passed to {@link Vector#derive(java.util.function.UnaryOperator)}, which
+     * may run concurrently, don't share local variables.
+     */
+    private static SymbolLookup frame(SymbolLookup lookup) {
+        return ParallelEvaluation.frame(lookup);
+    }
 
     @Contract(pure = true)
     private static Number value(Number x) {
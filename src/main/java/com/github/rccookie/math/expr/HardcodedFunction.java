@@ -61,13 +61,13 @@ record HardcodedFunction(String name, BiFunction<SymbolLookup,Number[],Number> f
         if(!(params instanceof Numbers l)) {
             Number[] paramsArr = new Number[paramCount()];
             Arrays.fill(paramsArr, SymbolLookup.UNSPECIFIED);
-            paramsArr[0] = params;
+            paramsArr[0] = Number.expand(params);
             return function.apply(lookup, paramsArr);
         }
         if(l.size() <= paramCount()) {
             Number[] paramsArr = new Number[paramCount()];
             for(int i=0; i<l.size(); i++)
-                paramsArr[i] = l.evaluate(i, lookup);
+                paramsArr[i] = Number.expand(l.evaluate(i, lookup));
             for(int i=l.size(); i<paramsArr.length; i++)
                 paramsArr[i] = SymbolLookup.UNSPECIFIED;
             return function.apply(lookup, paramsArr);
@@ -75,7 +75,7 @@ record HardcodedFunction(String name, BiFunction<SymbolLookup,Number[],Number> f
         if(paramCount() == 1) {
             Expression[] results = new Expression[l.size()];
             for (int i = 0; i < results.length; i++)
-                results[i] = Expression.of(function.apply(lookup, new Number[] { l.evaluate(i, lookup) }));
+                results[i] = Expression.of(function.apply(lookup, new Number[] { Number.expand(l.evaluate(i, lookup)) }));
             return new NumbersImpl(results);
         }
         throw new MathEvaluationException("Too many arguments (" + l.size() + ") applied to operation "+name+", expected "+paramCount());
@@ -25,50 +25,46 @@ record ImplicitOperationImpl(Expression a, Expression b)
 
     @Override
     public String toString() {
-        if(a instanceof Constant || a instanceof Builder.VectorExpression) {
-            String as = a.toString(precedence(), true), bs = b.toString(precedence(), false);
-            if(endIsClear(as) || startIsClear(bs))
-                return as + bs;
-            return as + '\u00B7' + bs;
-        }
-        return format("$x(" + b + ")", a);
+        return IterativeTraversal.toString(this);
     }
 
     @Override
     public RenderableExpression toRenderable() {
-        if(a instanceof Constant || a instanceof Builder.VectorExpression) {
-            RenderableExpression ae = a.toRenderable(precedence(), true), be = b.toRenderable(precedence(), false);
-            if(endIsClear(ae.renderInline(RenderOptions.DEFAULT)) || startIsClear(be.renderInline(RenderOptions.DEFAULT)))
-                return concat(ae, be);
-            return mult(ae, be);
-        }
-        return toRenderable(n -> call(n, par(b.toRenderable())), a);
+        return IterativeTraversal.toRenderable(this);
     }
 
-    private static boolean endIsClear(String x) {
+    /**
+     * Returns whether the printed first operand ends such that the second operand
+     * can follow without a multiplication sign.
+     */
+    static boolean endIsClear(String x) {
         return x.endsWith("]");
     }
 
-    private static boolean startIsClear(String x) {
+    /**
+     * Returns whether the printed second operand starts such that it can follow the
+     * first operand without a multiplication sign.
+     */
+    static boolean startIsClear(String x) {
         char c = x.charAt(0);
         return c < '0' || c > '9';
     }
 
+    @Override
+    public Number evaluate(SymbolLookup lookup) {
+        return IterativeTraversal.evaluate(this, lookup);
+    }
+
     @Override
     public Number evaluateHalf(SymbolLookup lookup, Number ea) {
         if(ea instanceof Expression.Function f)
-            return f.evaluate(lookup, b.evaluate(lookup));
+            return Profiler.call(a, f, lookup, b.evaluate(lookup));
         return ea.multiply(b.evaluate(lookup));
     }
 
     @Override
     public Expression simplify() {
-        Expression sa = a.simplify(), sb = b.simplify();
-        if(sa instanceof Function fa)
-            return new FunctionCall(fa, sb);
-        if(!(sa instanceof Constant na && sb instanceof Constant nb))
-            return new ImplicitOperationImpl(sa, sb);
-        return Expression.of(na.value().multiply(nb.value()));
+        return IterativeTraversal.simplify(this);
     }
 
     @Override
@@ -0,0 +1,397 @@
+package com.github.rccookie.math.expr;
+
+import java.util.Arrays;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.rendering.RenderableExpression;
+
+import static com.github.rccookie.math.rendering.RenderableExpression.*;
+
+/**
+ * Evaluates, simplifies, prints and renders trees of the structural expressions
+ * (simple unary and binary operations, operation chains, implicit operations and
+ * function calls) using an explicit stack instead of recursion. All operands of
+ * these expressions are traversed this way, not only the first one, so deeply nested
+ * operations like <code>-(-(-x)!)!</code>, right nested ones like <code>a^(b^(c^...))</code>
+ * and nested calls like <code>f(g(h(...)))</code> do not overflow the stack. Other
+ * expressions, like lists of parameters or vectors, are handled by their own methods.
+ *
+ * <p>Each structural expression on the stack remembers the index of the operand
+ * currently being traversed and the result accumulated from the previous operands.
+ * Operands are traversed from the first to the last, exactly in the order the
+ * recursive implementation would, and operands that do not have to be evaluated
+ * (e.g. the second operand of <code>0·x</code>) are skipped.</p>
+ */
+final class IterativeTraversal {
+
+    private IterativeTraversal() { }
+
+
+    /**
+     * Evaluates the given structural expression.
+     *
+     * @param expr The expression to evaluate
+     * @param lookup The lookup to evaluate with
+     * @return The result of the expression
+     */
+    static Number evaluate(Expression expr, SymbolLookup lookup) {
+        return new Evaluation(lookup).run(expr);
+    }
+
+    /**
+     * Simplifies the given structural expression.
+     *
+     * @param expr The expression to simplify
+     * @return The simplified expression
+     */
+    static Expression simplify(Expression expr) {
+        return SIMPLIFICATION.run(expr);
+    }
+
+    /**
+     * Returns the string representation of the given structural expression.
+     *
+     * @param expr The expression to print
+     * @return The expression as string
+     */
+    static String toString(Expression expr) {
+        return PRINTING.run(expr).toString();
+    }
+
+    /**
+     * Returns the renderable form of the given structural expression.
+     *
+     * @param expr The expression to render
+     * @return The expression as renderable expression
+     */
+    static RenderableExpression toRenderable(Expression expr) {
+        return RENDERING.run(expr);
+    }
+
+
+    /**
+     * Returns whether the given expression is traversed iteratively.
+     */
+    private static boolean isStructural(Expression x) {
+        return x instanceof SimpleUnaryOperation || x instanceof SimpleBinaryOperation
+                || x instanceof OperationChain || x instanceof ImplicitOperationImpl || x instanceof FunctionCall
+                || (x instanceof OptimizedBinaryOperation o && o.base() instanceof SimpleBinaryOperation);
+    }
+
+    private static int operandCount(Expression op) {
+        return op instanceof SimpleUnaryOperation ? 1 : op instanceof OperationChain c ? c.operandCount() : 2;
+    }
+
+    private static Expression operand(Expression op, int index) {
+        if(op instanceof SimpleUnaryOperation u)
+            return u.x();
+        if(op instanceof OperationChain c)
+            return c.operand(index);
+        Expression.BinaryOperation b = (Expression.BinaryOperation) op;
+        return index == 0 ? b.a() : b.b();
+    }
+
+    /**
+     * Returns the simple operation of a structural binary operation or chain link.
+     */
+    private static SimpleBinaryOperation simple(Expression op) {
+        return (SimpleBinaryOperation) (op instanceof OptimizedBinaryOperation o ? o.base() : op);
+    }
+
+    /**
+     * Returns the traversed chain link that appends the operand with the given index.
+     */
+    private static SimpleBinaryOperation link(OperationChain chain, int index) {
+        return simple(chain.link(index - 1));
+    }
+
+
+    /**
+     * Traversal of the structural expressions, computing a result of type T for each
+     * of them from the results of their operands.
+     */
+    private static abstract class Walk<T> {
+
+        /**
+         * Computes the result for an expression that is not structural.
+         */
+        abstract T leaf(Expression x);
+
+        /**
+         * Computes the result accumulated after the first operand has been traversed.
+         */
+        abstract T start(Expression op, T first);
+
+        /**
+         * Computes the result accumulated after the operand with the given index
+         * (greater than 0) has been traversed.
+         */
+        abstract T combine(Expression op, int index, T acc, T operand);
+
+        /**
+         * Returns whether the operand with the given index does not have to be
+         * traversed, in which case the accumulated result is kept as is.
+         */
+        boolean skip(Expression op, int index, T acc) {
+            return false;
+        }
+
+        @SuppressWarnings("unchecked")
+        final T run(Expression root) {
+            Expression[] ops = new Expression[16];
+            int[] steps = new int[16];
+            Object[] results = new Object[16];
+            int size = 0;
+
+            Expression x = root;
+            while(true) {
+                while(isStructural(x)) {
+                    if(size == ops.length) {
+                        ops = Arrays.copyOf(ops, 2 * size);
+                        steps = Arrays.copyOf(steps, 2 * size);
+                        results = Arrays.copyOf(results, 2 * size);
+                    }
+                    ops[size] = x;
+                    steps[size] = 0;
+                    results[size++] = null;
+                    x = operand(x, 0);
+                }
+
+                T value = leaf(x);
+                while(true) {
+                    if(size == 0)
+                        return value;
+                    Expression op = ops[size-1];
+                    int index = steps[size-1];
+                    T acc = index == 0 ? start(op, value) : combine(op, index, (T) results[size-1], value);
+
+                    int count = operandCount(op), next = index + 1;
+                    while(next < count && skip(op, next, acc)) next++;
+                    if(next < count) {
+                        steps[size-1] = next;
+                        results[size-1] = acc;
+                        x = operand(op, next);
+                        break;
+                    }
+                    results[--size] = null;
+                    value = acc;
+                }
+            }
+        }
+    }
+
+
+    private static final class Evaluation extends Walk<Number> {
+
+        private final SymbolLookup lookup;
+
+        Evaluation(SymbolLookup lookup) {
+            this.lookup = lookup;
+        }
+
+        @Override
+        Number leaf(Expression x) {
+            return x.evaluate(lookup);
+        }
+
+        @Override
+        Number start(Expression op, Number first) {
+            if(op instanceof SimpleUnaryOperation u)
+                return u.function().apply(first);
+            return first;
+        }
+
+        @Override
+        boolean skip(Expression op, int index, Number acc) {
+            if(op instanceof OperationChain c)
+                return c.link(index - 1) instanceof OptimizedBinaryOperation o && acc.equals(o.optimize());
+            return op instanceof OptimizedBinaryOperation o && acc.equals(o.optimize());
+        }
+
+        @Override
+        Number combine(Expression op, int index, Number acc, Number operand) {
+            Budget.checkpoint();
+            if(op instanceof OperationChain c)
+                return link(c, index).function().apply(acc, operand);
+            if(op instanceof ImplicitOperationImpl i)
+                return acc instanceof Expression.Function f ? Profiler.call(i.a(), f, lookup, operand) : acc.multiply(operand);
+            if(op instanceof FunctionCall f)
+                return Profiler.call(f.function(), (Expression.Function) acc, lookup, operand);
+            return simple(op).function().apply(acc, operand);
+        }
+    }
+
+    private static final Walk<Expression> SIMPLIFICATION = new Walk<>() {
+        @Override
+        Expression leaf(Expression x) {
+            return x.simplify();
+        }
+
+        @Override
+        Expression start(Expression op, Expression first) {
+            if(op instanceof SimpleUnaryOperation u) {
+                if(first instanceof Expression.Constant n)
+                    return Expression.of(u.function().apply(n.value()));
+                return new SimpleUnaryOperation(u.name(), u.format(), u.renderer(), first, u.precedence(), u.function());
+            }
+            return first;
+        }
+
+        @Override
+        boolean skip(Expression op, int index, Expression acc) {
+            if(op instanceof OperationChain c)
+                return c.link(index - 1) instanceof OptimizedBinaryOperation o && acc.equals(o.optimize());
+            return op instanceof OptimizedBinaryOperation o && acc.equals(o.optimize());
+        }
+
+        @Override
+        Expression combine(Expression op, int index, Expression acc, Expression operand) {
+            if(op instanceof OperationChain c) {
+                SimpleBinaryOperation s = link(c, index);
+                if(acc instanceof Expression.Constant an && operand instanceof Expression.Constant bn)
+                    return Expression.of(s.function().apply(an.value(), bn.value()));
+                return OperationChain.flatten(OperationChain.withOperands(c.link(index - 1), acc, operand));
+            }
+            if(op instanceof ImplicitOperationImpl) {
+                if(acc instanceof Expression.Function fa)
+                    return new FunctionCall(fa, operand);
+                if(!(acc instanceof Expression.Constant na && operand instanceof Expression.Constant nb))
+                    return new ImplicitOperationImpl(acc, operand);
+                return Expression.of(na.value().multiply(nb.value()));
+            }
+            if(op instanceof FunctionCall)
+                return new FunctionCall(acc, operand);
+
+            SimpleBinaryOperation s = simple(op);
+            Expression result;
+            if(acc instanceof Expression.Constant an && operand instanceof Expression.Constant bn)
+                result = Expression.of(s.function().apply(an.value(), bn.value()));
+            else result = new SimpleBinaryOperation(s.name(), s.format(), s.renderer(), s.aIsLeft(), acc, operand, s.precedence(), s.function());
+            if(op instanceof OptimizedBinaryOperation o && result instanceof Expression.BinaryOperation b)
+                return new OptimizedBinaryOperation(b, o.optimize());
+            return result;
+        }
+    };
+
+    /**
+     * Results are the strings of the expressions without parentheses, or <code>null</code>
+     * for expressions that are not structural. These are printed by the expression they
+     * are an operand of, because they may print themselves differently depending on
+     * where they appear.
+     */
+    private static final Walk<CharSequence> PRINTING = new Walk<>() {
+        @Override
+        CharSequence leaf(Expression x) {
+            return null;
+        }
+
+        @Override
+        CharSequence start(Expression op, CharSequence first) {
+            int precedence = op.precedence();
+            Expression x = operand(op, 0);
+            if(op instanceof SimpleUnaryOperation u)
+                return u.format().replace("$x", inContext(x, first, precedence, false));
+            if(op instanceof OperationChain)
+                return new StringBuilder(inContext(x, first, precedence, true));
+            if(op instanceof ImplicitOperationImpl i && (i.a() instanceof Expression.Constant || i.a() instanceof VectorExpression))
+                return inContext(x, first, precedence, true);
+            if(op instanceof Expression.ImplicitOperation)
+                return inContext(x, first, precedence, false);
+            String format = simple(op).format();
+            return inContext(x, first, precedence, format.indexOf("$1") < format.indexOf("$2"));
+        }
+
+        @Override
+        CharSequence combine(Expression op, int index, CharSequence acc, CharSequence operand) {
+            int precedence = op.precedence();
+            Expression x = operand(op, index);
+            if(op instanceof OperationChain c) {
+                String format = link(c, index).format();
+                return ((StringBuilder) acc).append(format, 2, format.length() - 2).append(inContext(x, operand, precedence, false));
+            }
+            if(op instanceof ImplicitOperationImpl i && (i.a() instanceof Expression.Constant || i.a() instanceof VectorExpression)) {
+                String as = acc.toString(), bs = inContext(x, operand, precedence, false);
+                if(ImplicitOperationImpl.endIsClear(as) || ImplicitOperationImpl.startIsClear(bs))
+                    return as + bs;
+                return as + '\u00B7' + bs;
+            }
+            if(op instanceof Expression.ImplicitOperation)
+                return ("$x(" + (isStructural(x) ? operand : x) + ")").replace("$x", acc);
+            String format = simple(op).format();
+            boolean leftIs1 = format.indexOf("$1") < format.indexOf("$2");
+            return format.replace("$1", acc).replace("$2", inContext(x, operand, precedence, !leftIs1));
+        }
+
+        /**
+         * Returns the operand as it is printed as operand of an expression with the
+         * given precedence.
+         */
+        private String inContext(Expression x, CharSequence str, int parentPrecedence, boolean left) {
+            if(!isStructural(x))
+                return x.toString(parentPrecedence, left);
+            int precedence = x.precedence();
+            return parentPrecedence < precedence || (left & parentPrecedence == precedence) ? str.toString() : "("+str+")";
+        }
+    };
+
+    /**
+     * Like for printing, results are <code>null</code> for expressions that are not
+     * structural and rendered by the expression they are an operand of.
+     */
+    private static final Walk<RenderableExpression> RENDERING = new Walk<>() {
+        @Override
+        RenderableExpression leaf(Expression x) {
+            return null;
+        }
+
+        @Override
+        RenderableExpression start(Expression op, RenderableExpression first) {
+            int precedence = op.precedence();
+            Expression x = operand(op, 0);
+            if(op instanceof SimpleUnaryOperation u)
+                return u.renderer().apply(inContext(x, first, precedence, false));
+            if(op instanceof OperationChain c) {
+                Boolean aIsLeft = link(c, 1).aIsLeft();
+                return inContext(x, first, precedence, aIsLeft != null && aIsLeft);
+            }
+            if(op instanceof ImplicitOperationImpl i && (i.a() instanceof Expression.Constant || i.a() instanceof VectorExpression))
+                return inContext(x, first, precedence, true);
+            if(op instanceof Expression.ImplicitOperation)
+                return inContext(x, first, precedence, false);
+            Boolean aIsLeft = simple(op).aIsLeft();
+            return inContext(x, first, precedence, aIsLeft != null && aIsLeft);
+        }
+
+        @Override
+        RenderableExpression combine(Expression op, int index, RenderableExpression acc, RenderableExpression operand) {
+            int precedence = op.precedence();
+            Expression x = operand(op, index);
+            if(op instanceof ImplicitOperationImpl i) {
+                if(!(i.a() instanceof Expression.Constant || i.a() instanceof VectorExpression))
+                    return call(acc, par(isStructural(x) ? operand : x.toRenderable()));
+                RenderableExpression be = inContext(x, operand, precedence, false);
+                if(ImplicitOperationImpl.endIsClear(acc.renderInline(RenderOptions.DEFAULT)) || ImplicitOperationImpl.startIsClear(be.renderInline(RenderOptions.DEFAULT)))
+                    return concat(acc, be);
+                return mult(acc, be);
+            }
+            if(op instanceof FunctionCall)
+                return call(acc, isStructural(x) ? operand : x.toRenderable());
+
+            SimpleBinaryOperation s = op instanceof OperationChain c ? link(c, index) : simple(op);
+            boolean aIsLeft = s.aIsLeft() != null && s.aIsLeft(), bIsLeft = s.aIsLeft() != null && !s.aIsLeft();
+            RenderableExpression a = op instanceof OperationChain && index != 1 && !aIsLeft ? par(acc) : acc;
+            return s.renderer().apply(a, inContext(x, operand, precedence, bIsLeft));
+        }
+
+        /**
+         * Returns the operand as it is rendered as operand of an expression with the
+         * given precedence.
+         */
+        private RenderableExpression inContext(Expression x, RenderableExpression rendered, int parentPrecedence, boolean left) {
+            if(!isStructural(x))
+                return x.toRenderable(parentPrecedence, left);
+            int precedence = x.precedence();
+            return parentPrecedence < precedence || (left & parentPrecedence == precedence) ? rendered : par(rendered);
+        }
+    };
+}
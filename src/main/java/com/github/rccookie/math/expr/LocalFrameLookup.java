@@ -0,0 +1,63 @@
+package com.github.rccookie.math.expr;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.Stack;
+
+import com.github.rccookie.math.Number;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A lookup with its own local variables on top of a parent lookup. Used to
+ * evaluate on multiple threads at once: each thread pushes and pops its
+ * local variables in its own frame, while all frames read the same (unchanged)
+ * parent lookup. The parent is never written through a frame: defining a
+ * variable in a frame fails, so functions that define variables are evaluated
+ * sequentially instead (see {@link ParallelEvaluation#sequentialIfDefining(SymbolLookup, Number, java.util.function.Supplier)}).
+ */
+final class LocalFrameLookup implements SymbolLookup {
+
+    private final SymbolLookup parent;
+    private final Map<String, Stack<Number>> localVariables = new HashMap<>();
+
+    LocalFrameLookup(SymbolLookup parent) {
+        this.parent = parent;
+    }
+
+    @Override
+    public Number get(String name) {
+        Stack<Number> localVars = localVariables.get(name);
+        if(localVars != null) return localVars.peek();
+        return parent.get(name);
+    }
+
+    @Override
+    public boolean contains(String name) {
+        return localVariables.containsKey(name) || parent.contains(name);
+    }
+
+    @Override
+    public void put(String name, @Nullable Number value) {
+        throw new MathEvaluationException("Cannot define '" + name + "' while evaluating in parallel");
+    }
+
+    @Override
+    public void pushLocal(String name, Number value) {
+        localVariables.computeIfAbsent(name, n -> new Stack<>()).push(value);
+    }
+
+    @Override
+    public void popLocal(String name) {
+        Stack<Number> localVars = localVariables.get(name);
+        localVars.pop();
+        if(localVars.isEmpty())
+            localVariables.remove(name);
+    }
+
+    @Override
+    public Set<Map.Entry<String, Number>> entrySet() {
+        return parent.entrySet();
+    }
+}
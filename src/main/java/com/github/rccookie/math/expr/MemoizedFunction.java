@@ -0,0 +1,297 @@
+package com.github.rccookie.math.expr;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.rendering.RenderableExpression;
+import com.github.rccookie.util.Arguments;
+
+/**
+ * A function that caches the results of another function, keyed by the
+ * evaluated parameter values. The cache is bounded and safe to use from
+ * multiple threads. It is cleared automatically whenever a global symbol
+ * the body of the function depends on (or the session precision) changes.
+ *
+ * <p>When the cache is full, results are evicted using the clock (second chance)
+ * algorithm: a result that was used since the clock hand last passed it is kept
+ * for another round. Results that are used over and over again, like the base
+ * cases of a recursion, thus stay cached, while results that were only computed
+ * once are evicted first. Cache hits do not take a lock.</p>
+ *
+ * <p>Only use this with pure functions. Parameters that are themselves
+ * expressions (i.e. functions) are never cached.</p>
+ */
+public final class MemoizedFunction implements Expression.Function {
+
+    /**
+     * Default maximum number of cached results.
+     */
+    public static final int DEFAULT_CAPACITY = 4096;
+
+
+    private final Function function;
+    private final int capacity;
+    private final Dependencies dependencies;
+
+    private final Map<Object, Entry> cache = new ConcurrentHashMap<>();
+    /**
+     * The cached keys in the order the clock hand passes them. Guarded by this.
+     */
+    private final Object[] clock;
+    private int clockSize = 0, hand = 0;
+    private volatile Object snapshot = null;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+
+    MemoizedFunction(Function function, int capacity) {
+        this.function = Arguments.checkNull(function, "function");
+        this.capacity = Arguments.checkRange(capacity, 1, null);
+        this.clock = new Object[capacity];
+        this.dependencies = new Dependencies(function);
+    }
+
+
+    /**
+     * Returns the function whose results are cached.
+     *
+     * @return The memoized function
+     */
+    public Function function() {
+        return function;
+    }
+
+    /**
+     * Returns the names of the global symbols this function depends on. Redefining
+     * any of these invalidates the cache.
+     *
+     * @return The symbols this function depends on
+     */
+    public String[] dependencies() {
+        return dependencies.names();
+    }
+
+    /**
+     * Returns the current statistics of the cache.
+     *
+     * @return The cache statistics
+     */
+    public Stats stats() {
+        return new Stats(hits.sum(), misses.sum(), invalidations.sum(), evictions.sum(), cache.size(), capacity);
+    }
+
+    /**
+     * Removes all cached results.
+     */
+    public synchronized void clear() {
+        cache.clear();
+        Arrays.fill(clock, 0, clockSize, null);
+        clockSize = hand = 0;
+    }
+
+    @Override
+    public String name() {
+        return "memo";
+    }
+
+    @Override
+    public int paramCount() {
+        return function.paramCount();
+    }
+
+    @Override
+    public String[] paramNames() {
+        return function.paramNames();
+    }
+
+    @Override
+    public Expression expr() {
+        return function.expr();
+    }
+
+    @Override
+    public Number evaluate(SymbolLookup lookup, Number params) {
+        validate(lookup);
+        if(!(params instanceof Numbers l))
+            return evaluateCached(lookup, params);
+        if(l.size() <= paramCount()) {
+            Number[] paramsArr = new Number[paramCount()];
+            for(int i=0; i<l.size(); i++)
+                paramsArr[i] = l.evaluate(i, lookup);
+            for(int i=l.size(); i<paramsArr.length; i++)
+                paramsArr[i] = SymbolLookup.UNSPECIFIED;
+            return evaluateCached(lookup, paramsArr);
+        }
+        if(paramCount() == 1) {
+            Expression[] results = new Expression[l.size()];
+            for(int i=0; i<results.length; i++)
+                results[i] = Expression.of(evaluateCached(lookup, l.evaluate(i, lookup)));
+            return new NumbersImpl(results);
+        }
+        throw new MathEvaluationException("Too many arguments (" + l.size() + ") applied to operation, expected " + paramCount());
+    }
+
+    @Override
+    public Number[] evaluateAll(SymbolLookup lookup, Number[] inputs) {
+        validate(lookup);
+        Number[] results = new Number[inputs.length];
+        for(int i=0; i<inputs.length; i++)
+            results[i] = inputs[i] instanceof Numbers ? evaluate(lookup, inputs[i]) : evaluateCached(lookup, inputs[i]);
+        return results;
+    }
+
+    private Number evaluateCached(SymbolLookup lookup, Number... params) {
+        for(Number p : params) if(p instanceof Expression)
+            return function.evaluate(lookup, params.length == 1 ? params[0] : Numbers.of(params));
+
+        Object key = params.length == 1 ? params[0] : Arrays.asList(params);
+        Entry entry = cache.get(key);
+        if(entry != null) {
+            hits.increment();
+            if(!entry.referenced)
+                entry.referenced = true;
+            return entry.value;
+        }
+        misses.increment();
+        // No computeIfAbsent(): recursive calls would modify the map during the computation
+        Number result = function.evaluate(lookup, params.length == 1 ? params[0] : Numbers.of(params));
+        insert(key, result);
+        return result;
+    }
+
+    /**
+     * Adds the given result to the cache, evicting the first result the clock hand
+     * reaches that has not been used since the hand last passed it.
+     */
+    private synchronized void insert(Object key, Number result) {
+        if(cache.containsKey(key)) return; // Computed concurrently by another thread
+        if(clockSize < capacity)
+            clock[clockSize++] = key;
+        else {
+            Entry entry;
+            while((entry = cache.get(clock[hand])) != null && entry.referenced) {
+                entry.referenced = false;
+                hand = (hand + 1) % capacity;
+            }
+            cache.remove(clock[hand]);
+            evictions.increment();
+            clock[hand] = key;
+            hand = (hand + 1) % capacity;
+        }
+        cache.put(key, new Entry(result));
+    }
+
+    private void validate(SymbolLookup lookup) {
+        Object current = dependencies.snapshot(lookup);
+
+        Object snapshot = this.snapshot;
+        if(current.equals(snapshot)) return;
+        synchronized(this) {
+            if(current.equals(this.snapshot)) return;
+            if(this.snapshot != null && !cache.isEmpty())
+                invalidations.increment();
+            clear();
+            this.snapshot = current;
+        }
+    }
+
+    @Override
+    public Function simplify() {
+        return this; // Keep the cache
+    }
+
+    @Override
+    public int operandCount() {
+        return 1;
+    }
+
+    @Override
+    public Expression[] operands() {
+        return new Expression[] { function };
+    }
+
+    @Override
+    public int precedence() {
+        return Integer.MAX_VALUE;
+    }
+
+    @Override
+    public String toString() {
+        return "memo(" + function + ")";
+    }
+
+    @Override
+    public RenderableExpression toRenderable() {
+        return RenderableExpression.call("memo", function.toRenderable());
+    }
+
+    @Override
+    public Object toJson() {
+        return function.toJson(); // Cache is not persisted
+    }
+
+
+    /**
+     * Adds the names of all symbols in the given expression that are not bound
+     * as parameters of a lambda within the expression.
+     *
+     * @param expr The expression to search
+     * @param out The set to add the symbol names to
+     */
+    static void collectFreeSymbols(Expression expr, Set<String> out) {
+        if(expr instanceof Symbol s)
+            out.add(s.name());
+        else if(expr instanceof RuntimeFunction f) { // Parameters of lambdas are bound, not global
+            Set<String> inner = new TreeSet<>();
+            collectFreeSymbols(f.expr(), inner);
+            Arrays.asList(f.paramNames()).forEach(inner::remove);
+            out.addAll(inner);
+        }
+        else if(expr instanceof MemoizedFunction m)
+            collectFreeSymbols(m.function, out);
+        else for(Expression operand : expr.operands())
+            collectFreeSymbols(operand, out);
+    }
+
+
+    /**
+     * Statistics of a memoized function's cache.
+     *
+     * @param hits Number of calls answered from the cache
+     * @param misses Number of calls that had to be evaluated
+     * @param invalidations Number of times the cache was cleared because a dependency changed
+     * @param evictions Number of results removed to make room for new ones
+     * @param size Current number of cached results
+     * @param capacity Maximum number of cached results
+     */
+    public record Stats(long hits, long misses, long invalidations, long evictions, int size, int capacity) {
+        @Override
+        public String toString() {
+            long total = hits + misses;
+            return "hits: " + hits + ", misses: " + misses + ", hit rate: " + (total == 0 ? 0 : 100 * hits / total) + "%, "
+                    + "invalidations: " + invalidations + ", evictions: " + evictions + ", size: " + size + "/" + capacity;
+        }
+    }
+
+
+    /**
+     * A cached result and whether it was used since the clock hand last passed it.
+     */
+    private static final class Entry {
+
+        final Number value;
+        volatile boolean referenced = false;
+
+        Entry(Number value) {
+            this.value = value;
+        }
+    }
+}
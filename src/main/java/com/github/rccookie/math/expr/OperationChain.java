@@ -0,0 +1,217 @@
+package com.github.rccookie.math.expr;
+
+import java.util.Arrays;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.rendering.RenderableExpression;
+
+/**
+ * A chain of left associative binary operations of the same precedence, for example
+ * <code>a + b - c + d</code>, stored as a flat list instead of a deep tree. Long
+ * sums and products (i.e. generated by a script) can thus be evaluated, simplified
+ * and printed without recursing once per operand. The operations are still applied
+ * from left to right, exactly like in the equivalent tree.
+ *
+ * <p>Each link of the chain is the binary operation that appended it, of which
+ * only the operator and the second operand are used. Chains are created by
+ * {@link #flatten(BinaryOperation)}. Chains share their links with the chain
+ * they were appended to where possible, so building a chain of n operands one
+ * operation at a time takes linear time.</p>
+ *
+ * <p>Otherwise, a chain behaves like the equivalent tree: {@link #a()} is the chain
+ * without its last link, and {@link #b()} is the last operand.</p>
+ */
+final class OperationChain implements Expression.BinaryOperation {
+
+    private final Expression first;
+    private final Links links;
+    /**
+     * Number of links of this chain, the shared links may contain more.
+     */
+    private final int size;
+
+    private OperationChain(Expression first, Links links, int size) {
+        this.first = first;
+        this.links = links;
+        this.size = size;
+    }
+
+
+    /**
+     * Appends the given operation to its first operand if that is a chain or an
+     * operation of the same precedence, for operations of the form <code>$1 op $2</code>.
+     *
+     * @param op The operation to flatten
+     * @return The resulting chain, or the operation itself
+     */
+    static BinaryOperation flatten(BinaryOperation op) {
+        SimpleBinaryOperation base = base(op);
+        if(base == null) return op;
+        if(base.a() instanceof OperationChain c)
+            return c.precedence() == base.precedence() ? c.append(op) : op;
+        if(base.a() instanceof BinaryOperation a) {
+            SimpleBinaryOperation aBase = base(a);
+            if(aBase != null && aBase.precedence() == base.precedence())
+                return new OperationChain(aBase.a(), new Links(a), 1).append(op);
+        }
+        return op;
+    }
+
+    private OperationChain append(BinaryOperation op) {
+        return new OperationChain(first, links.append(size, op), size + 1);
+    }
+
+    /**
+     * Returns the simple operation the given operation is based on, if it can be
+     * part of a chain.
+     */
+    static SimpleBinaryOperation base(BinaryOperation op) {
+        if(op instanceof OptimizedBinaryOperation o)
+            op = o.base();
+        return op instanceof SimpleBinaryOperation s && s.format().startsWith("$1") && s.format().endsWith("$2") ? s : null;
+    }
+
+    /**
+     * Returns a copy of the given link with the given operands.
+     */
+    static BinaryOperation withOperands(BinaryOperation link, Expression a, Expression b) {
+        SimpleBinaryOperation s = base(link);
+        BinaryOperation op = new SimpleBinaryOperation(s.name(), s.format(), s.renderer(), s.aIsLeft(), a, b, s.precedence(), s.function());
+        return link instanceof OptimizedBinaryOperation o ? new OptimizedBinaryOperation(op, o.optimize()) : op;
+    }
+
+
+    /**
+     * Returns the operand with the given index, 0 being the first operand.
+     */
+    Expression operand(int index) {
+        return index == 0 ? first : links.get(index - 1).b();
+    }
+
+    /**
+     * Returns the link with the given index, which appends the operand with the
+     * next index.
+     */
+    BinaryOperation link(int index) {
+        return links.get(index);
+    }
+
+
+    @Override
+    public Number evaluate(SymbolLookup lookup) {
+        return IterativeTraversal.evaluate(this, lookup);
+    }
+
+    @Override
+    public Number evaluateHalf(SymbolLookup lookup, Number ea) {
+        return links.get(size - 1).evaluateHalf(lookup, ea);
+    }
+
+    @Override
+    public Expression simplify() {
+        return IterativeTraversal.simplify(this);
+    }
+
+    @Override
+    public String name() {
+        return links.get(size - 1).name();
+    }
+
+    @Override
+    public int precedence() {
+        return links.get(0).precedence();
+    }
+
+    @Override
+    public Expression a() {
+        return size == 1 ? first : new OperationChain(first, links, size - 1);
+    }
+
+    @Override
+    public Expression b() {
+        return links.get(size - 1).b();
+    }
+
+    @Override
+    public Expression[] operands() {
+        Expression[] operands = new Expression[size + 1];
+        operands[0] = first;
+        for(int i=0; i<size; i++)
+            operands[i+1] = links.get(i).b();
+        return operands;
+    }
+
+    @Override
+    public int operandCount() {
+        return size + 1;
+    }
+
+    @Override
+    public String toString() {
+        return IterativeTraversal.toString(this);
+    }
+
+    @Override
+    public RenderableExpression toRenderable() {
+        return IterativeTraversal.toRenderable(this);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if(obj == this) return true;
+        if(!(obj instanceof OperationChain c) || c.size != size || !c.first.equals(first)) return false;
+        for(int i=0; i<size; i++) {
+            SimpleBinaryOperation x = base(links.get(i)), y = base(c.links.get(i));
+            if(!x.name().equals(y.name()) || !x.function().equals(y.function()) || !x.b().equals(y.b()))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = first.hashCode();
+        for(int i=0; i<size; i++) {
+            BinaryOperation link = links.get(i);
+            hash = 31 * (31 * hash + link.name().hashCode()) + link.b().hashCode();
+        }
+        return hash;
+    }
+
+
+    /**
+     * Append-only list of links, shared by a chain and the chains appended to it.
+     * Appending to a chain that does not end at the end of the list copies it.
+     */
+    private static final class Links {
+
+        /**
+         * Replaced when growing. Entries are only ever written once, and before a
+         * chain containing them exists.
+         */
+        private volatile BinaryOperation[] ops;
+        private int count;
+
+        Links(BinaryOperation first) {
+            this(new BinaryOperation[] { first, null, null, null }, 1);
+        }
+
+        private Links(BinaryOperation[] ops, int count) {
+            this.ops = ops;
+            this.count = count;
+        }
+
+        BinaryOperation get(int index) {
+            return ops[index];
+        }
+
+        synchronized Links append(int size, BinaryOperation op) {
+            if(size != count)
+                return new Links(Arrays.copyOf(ops, 2 * size), size).append(size, op);
+            if(count == ops.length)
+                ops = Arrays.copyOf(ops, 2 * count);
+            ops[count++] = op;
+            return this;
+        }
+    }
+}
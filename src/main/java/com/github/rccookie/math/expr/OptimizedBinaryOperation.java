@@ -14,6 +14,13 @@ import com.github.rccookie.math.rendering.RenderableExpression;
 record OptimizedBinaryOperation(BinaryOperation base, Number optimize)
         implements Expression.BinaryOperation {
 
+    @Override
+    public Number evaluate(SymbolLookup lookup) {
+        if(base instanceof SimpleBinaryOperation)
+            return IterativeTraversal.evaluate(this, lookup);
+        return BinaryOperation.super.evaluate(lookup);
+    }
+
     @Override
     public Number evaluateHalf(SymbolLookup lookup, Number ea) {
         if(ea.equals(optimize)) return ea;
@@ -22,6 +29,8 @@ record OptimizedBinaryOperation(BinaryOperation base, Number optimize)
 
     @Override
     public Expression simplify() {
+        if(base instanceof SimpleBinaryOperation)
+            return IterativeTraversal.simplify(this);
         Expression sa = a().simplify();
         if(sa.equals(optimize)) return sa;
         Expression sBase = base.simplify();
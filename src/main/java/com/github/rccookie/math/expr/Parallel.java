@@ -0,0 +1,138 @@
+package com.github.rccookie.math.expr;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+import com.github.rccookie.util.Arguments;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Runs work on the common fork/join pool. The leaves of the work run under the
+ * {@link Budget} of the thread that started it, and exceptions are rethrown as they
+ * were thrown on the worker threads. Used for evaluation (see {@link ParallelEvaluation})
+ * as well as for the components of vectors and matrices and the rows of linear
+ * systems.
+ *
+ * <p>Work can be forced to run sequentially on the calling thread using
+ * {@link #sequential(Supplier)}, e.g. for evaluations that write to their lookup.</p>
+ */
+public final class Parallel {
+
+    private static final ThreadLocal<Boolean> SEQUENTIAL = new ThreadLocal<>();
+
+    private Parallel() { }
+
+
+    /**
+     * Runs the given computation on the current thread, with all work it would run
+     * in parallel running sequentially on the current thread instead.
+     *
+     * @param computation The computation to run
+     * @return The result of the computation
+     */
+    public static <T> T sequential(Supplier<T> computation) {
+        if(isSequential())
+            return computation.get();
+        SEQUENTIAL.set(true);
+        try {
+            return computation.get();
+        } finally {
+            SEQUENTIAL.remove();
+        }
+    }
+
+    /**
+     * Returns whether the current thread runs within {@link #sequential(Supplier)}.
+     * Code that decides between a sequential and a parallel implementation itself
+     * must use the sequential one if so.
+     *
+     * @return Whether parallel work has to run sequentially
+     */
+    public static boolean isSequential() {
+        return SEQUENTIAL.get() != null;
+    }
+
+
+    /**
+     * Runs the given action for every index in the given range in parallel. The action
+     * may be invoked concurrently from different threads, so each index should only
+     * write its own results.
+     *
+     * <p>Callers should only use this if there is enough work to be worth splitting
+     * up; it always uses the pool, unless running {@link #sequential(Supplier) sequentially}.</p>
+     *
+     * @param from The first index, inclusive
+     * @param to The last index, exclusive
+     * @param action The action to run for each index
+     * @throws BudgetExceededException If the current budget is exceeded
+     */
+    public static void forEach(int from, int to, IntConsumer action) throws BudgetExceededException {
+        Arguments.checkNull(action, "action");
+        if(from >= to) return;
+        if(isSequential()) {
+            for(int i=from; i<to; i++)
+                action.accept(i);
+            return;
+        }
+        int leafSize = Math.max(1, (to - from) / (ForkJoinPool.getCommonPoolParallelism() * 8));
+        invoke(new ForEach(action, Budget.current(), from, to, leafSize));
+    }
+
+    /**
+     * Runs the given task in the common pool. Exceptions thrown by a task are
+     * rethrown as they were thrown, rather than as the copy created by the fork/join
+     * framework when the exception was thrown on a different thread.
+     *
+     * @param task The task to run
+     * @return The result of the task
+     */
+    static <T> T invoke(ForkJoinTask<T> task) {
+        try {
+            return ForkJoinPool.commonPool().invoke(task);
+        } catch(RuntimeException e) {
+            while(e.getCause() instanceof RuntimeException cause && cause.getClass() == e.getClass())
+                e = cause;
+            throw e;
+        }
+    }
+
+
+    /**
+     * Splits an index range until it is small enough, and runs the leaves under the
+     * budget of the thread that started it.
+     */
+    private static final class ForEach extends RecursiveAction {
+
+        private final IntConsumer action;
+        @Nullable
+        private final Budget budget;
+        private final int start, end, leafSize;
+
+        ForEach(IntConsumer action, @Nullable Budget budget, int start, int end, int leafSize) {
+            this.action = action;
+            this.budget = budget;
+            this.start = start;
+            this.end = end;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected void compute() {
+            if(end - start <= leafSize) {
+                Budget.runInherited(budget, () -> {
+                    for(int i=start; i<end; i++)
+                        action.accept(i);
+                    return null;
+                });
+                return;
+            }
+            int mid = start + (end - start) / 2;
+            invokeAll(new ForEach(action, budget, start, mid, leafSize),
+                      new ForEach(action, budget, mid, end, leafSize));
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.github.rccookie.math.expr;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Helpers to evaluate functions on the common fork/join pool. Every leaf task
+ * evaluates in its own {@link LocalFrameLookup}, so the parent lookup is only
+ * ever read while the tasks run. Functions that define variables are thus
+ * evaluated sequentially, see {@link #sequentialIfDefining(SymbolLookup, Number, Supplier)}.
+ */
+final class ParallelEvaluation {
+
+    /**
+     * Minimum number of function evaluations for which parallel evaluation is used.
+     */
+    static final int THRESHOLD = 4096;
+
+    /**
+     * Minimum number of function evaluations per leaf task.
+     */
+    private static final int MIN_LEAF_SIZE = 256;
+
+    private ParallelEvaluation() { }
+
+
+    /**
+     * Returns whether a workload of the given size should be evaluated in parallel.
+     * This does not depend on the number of available cores: even on a single core,
+     * combining partial results as a balanced tree keeps the intermediate fractions of
+     * exact sums and products much smaller than a left fold does.
+     *
+     * @param count The number of function evaluations
+     * @return Whether to evaluate in parallel
+     */
+    static boolean isWorthIt(long count) {
+        return count >= THRESHOLD && !Parallel.isSequential();
+    }
+
+    /**
+     * Runs the given computation, which evaluates the given function, possibly in
+     * parallel. If the function may define variables, the computation runs
+     * {@link Parallel#sequential(Supplier) sequentially} instead, with all
+     * {@link #frame(SymbolLookup) frames} being the lookup itself.
+     *
+     * @param lookup The lookup the function will be evaluated in
+     * @param f The function that will be evaluated
+     * @param computation The computation to run
+     * @return The result of the computation
+     */
+    static <T> T sequentialIfDefining(SymbolLookup lookup, Number f, Supplier<T> computation) {
+        if(!Parallel.isSequential() && defines(f, lookup))
+            return Parallel.sequential(computation);
+        return computation.get();
+    }
+
+    /**
+     * Returns a lookup with its own local variables on top of the given one, to
+     * evaluate with on one of multiple threads. When running sequentially, this is
+     * the lookup itself.
+     *
+     * @param lookup The lookup to evaluate in
+     * @return A lookup for a single thread
+     */
+    static SymbolLookup frame(SymbolLookup lookup) {
+        return Parallel.isSequential() ? lookup : new LocalFrameLookup(lookup);
+    }
+
+    /**
+     * Returns whether evaluating the given function may define a variable, either
+     * directly or through a function it refers to. Such functions cannot be evaluated
+     * in a {@link LocalFrameLookup} and have to be evaluated sequentially.
+     *
+     * @param f The function or expression to check
+     * @param lookup The lookup the function will be evaluated in, to resolve the
+     *               functions it refers to
+     * @return Whether the function may define a variable
+     */
+    private static boolean defines(Number f, SymbolLookup lookup) {
+        Set<Number> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        Deque<Number> pending = new ArrayDeque<>();
+        pending.push(f);
+        while(!pending.isEmpty()) {
+            Number x = pending.pop();
+            if(!(x instanceof Expression expr) || !visited.add(expr)) continue;
+            if(expr instanceof VariableDefinition || expr instanceof FunctionDefinition)
+                return true;
+            if(expr instanceof Expression.Constant c)
+                pending.push(c.value());
+            else if(expr instanceof Expression.Symbol s) {
+                if(lookup.contains(s.name()))
+                    pending.push(lookup.get(s.name()));
+            }
+            else for(Expression operand : expr.operands())
+                pending.push(operand);
+        }
+        return false;
+    }
+
+    /**
+     * Combines <code>f(low), f(low+1), ..., f(low+count-1)</code> using the given
+     * operator. The operator is only applied between neighbouring partial results
+     * (in index order), so for an associative operator the result is the same as
+     * for the sequential left fold starting with <code>identity</code>.
+     *
+     * @param lookup The lookup to evaluate in. Must not be modified during the call
+     * @param low The first index
+     * @param count The number of indices
+     * @param f The function to evaluate for each index
+     * @param identity Identity element of the operator
+     * @param operator The reduction operator
+     * @return The reduced result
+     */
+    static Number reduce(SymbolLookup lookup, Number low, long count, Expression.Function f, Number identity, BinaryOperator<Number> operator) {
+        long leafSize = Math.max(MIN_LEAF_SIZE, count / (ForkJoinPool.getCommonPoolParallelism() * 8L));
+        Profiler.trace(() -> "Parallel reduction of " + count + " values in chunks of " + leafSize);
+        return Parallel.invoke(new RangeReduction(lookup, Budget.current(), low, 0, count, leafSize, f, identity, operator));
+    }
+
+    /**
+     * Computes <code>operation(i)</code> for each index below the given count. Unlike
+     * vector components, each result is expected to be expensive to compute (e.g. a
+     * whole iterative solve), so even few results are computed in parallel, each in
+     * its own task.
+     *
+     * @param lookup The lookup to evaluate in. Must not be modified during the call
+     * @param count The number of results
+     * @param operation Computes the result for an index, with a separate local frame
+     * @return The results, in index order
+     */
+    static Number[] map(SymbolLookup lookup, int count, BiFunction<SymbolLookup, Integer, Number> operation) {
+        Number[] results = new Number[count];
+        if(count < 2 || ForkJoinPool.getCommonPoolParallelism() < 2 || Parallel.isSequential()) {
+            for(int i=0; i<count; i++)
+                results[i] = operation.apply(frame(lookup), i);
+            return results;
+        }
+        Profiler.trace(() -> "Parallel evaluation of " + count + " independent values");
+        Parallel.invoke(new IndexMap(lookup, Budget.current(), results, 0, count, operation));
+        return results;
+    }
+
+
+    private static final class RangeReduction extends RecursiveTask<Number> {
+
+        private final SymbolLookup lookup;
+        @Nullable
+        private final Budget budget;
+        private final Number low;
+        private final long start, end, leafSize;
+        private final Expression.Function f;
+        private final Number identity;
+        private final BinaryOperator<Number> operator;
+
+        RangeReduction(SymbolLookup lookup, @Nullable Budget budget, Number low, long start, long end, long leafSize, Expression.Function f, Number identity, BinaryOperator<Number> operator) {
+            this.lookup = lookup;
+            this.budget = budget;
+            this.low = low;
+            this.start = start;
+            this.end = end;
+            this.leafSize = leafSize;
+            this.f = f;
+            this.identity = identity;
+            this.operator = operator;
+        }
+
+        @Override
+        protected Number compute() {
+            if(end - start <= leafSize)
+                return Budget.runInherited(budget, this::computeLeaf);
+            long mid = start + (end - start) / 2;
+            RangeReduction right = new RangeReduction(lookup, budget, low, mid, end, leafSize, f, identity, operator);
+            right.fork();
+            Number left = new RangeReduction(lookup, budget, low, start, mid, leafSize, f, identity, operator).compute();
+            Budget.checkpoint();
+            return operator.apply(left, right.join());
+        }
+
+        private Number computeLeaf() {
+            SymbolLookup frame = new LocalFrameLookup(lookup);
+            Number res = identity;
+            Number i = start == 0 ? low : low.add(new Rational(start));
+            for(long k=start; k<end; k++, i = i.add(Number.ONE())) {
+                Budget.checkpoint();
+                res = operator.apply(res, f.evaluate(frame, i));
+            }
+            return res;
+        }
+    }
+
+    private static final class IndexMap extends RecursiveAction {
+
+        private final SymbolLookup lookup;
+        @Nullable
+        private final Budget budget;
+        private final Number[] results;
+        private final int start, end;
+        private final BiFunction<SymbolLookup, Integer, Number> operation;
+
+        IndexMap(SymbolLookup lookup, @Nullable Budget budget, Number[] results, int start, int end, BiFunction<SymbolLookup, Integer, Number> operation) {
+            this.lookup = lookup;
+            this.budget = budget;
+            this.results = results;
+            this.start = start;
+            this.end = end;
+            this.operation = operation;
+        }
+
+        @Override
+        protected void compute() {
+            if(end - start == 1) {
+                results[start] = Budget.runInherited(budget, this::computeLeaf);
+                return;
+            }
+            int mid = start + (end - start) / 2;
+            invokeAll(new IndexMap(lookup, budget, results, start, mid, operation),
+                      new IndexMap(lookup, budget, results, mid, end, operation));
+        }
+
+        private Number computeLeaf() {
+            return operation.apply(new LocalFrameLookup(lookup), start);
+        }
+    }
+}
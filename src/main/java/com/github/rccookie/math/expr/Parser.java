@@ -1,35 +1,325 @@
 package com.github.rccookie.math.expr;
 
-import java.util.Stack;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
 
+import com.github.rccookie.math.Rational;
+
+/**
+ * Single pass precedence climbing parser for math expressions. The characters
+ * are scanned directly while parsing, one token ahead, and the expression tree
+ * is built as the input is read.
+ *
+ * <p>All binary operators are left associative. Adjacent operands (e.g. <code>2x</code>
+ * or <code>f(x)</code>) are joined with an implicit operation, <code>|x|</code>
+ * denotes the absolute value and parentheses and brackets that are still open at the
+ * end of the input (or when an enclosing one is closed) are closed implicitly.
+ * A minus sign where an operand is expected negates the operand, including the
+ * following multiplications and divisions (<code>-a*b</code> is <code>-(a*b)</code>),
+ * but never more than the operand spans without it, so <code>a/-b/c</code> is
+ * <code>(a/(-b))/c</code> and <code>1+2/-3</code> is <code>1+(2/(-3))</code>.
+ * Directly after <code>^</code> it only negates the next value, so <code>2^-x!</code>
+ * is <code>2^((-x)!)</code>.</p>
+ */
 final class Parser {
 
-    public Expression parse(Iterable<Token> postfix) {
-        Stack<Expression> stack = new MathStack();
-        for(Token t : postfix) stack.push(switch(t) {
-            case Token.NumberToken n -> new ConstantExpression(n.value());
-            case Token.Symbol v -> v;
-            case Token.Operator o -> o.apply(stack);
-        });
-        if(stack.size() > 1 || stack.peek() instanceof Builder) //throw new AssertionError();
-            throw new MathExpressionSyntaxException("Mismatched parenthesis / brackets");
-        return Expression.of(stack.pop());
+    private final char[] src;
+
+    /**
+     * Index of the first character after the current token.
+     */
+    private int end = 0;
+    /**
+     * The current token, either an operator or a value. Both are <code>null</code>
+     * at the end of the input.
+     */
+    private Token.Operator operator;
+    private Expression value;
+
+    /**
+     * Whether an absolute value is open at the current parenthesis / bracket level.
+     * A <code>|</code> closes it if so, otherwise it opens a new one.
+     */
+    private boolean absOpen = false;
+    /**
+     * Number of currently open parentheses and brackets.
+     */
+    private int parentheses = 0, brackets = 0;
+
+    /**
+     * Postfix operators following the current operand which have not been applied
+     * yet, in increasing order of precedence. Operators with a higher precedence
+     * are applied first, i.e. <code>x²!</code> is <code>(x!)²</code>.
+     */
+    private final Token.Operator[] postfix = new Token.Operator[3];
+    private int postfixCount = 0;
+
+    Parser(String expression) {
+        src = expression.toCharArray();
+    }
+
+
+    /**
+     * Parses the whole input. Multiple comma separated expressions result in a list.
+     *
+     * @return The parsed expression
+     */
+    Expression parse() {
+        next();
+        return list(null);
+    }
+
+    /**
+     * Parses a comma separated list up to the given closing token.
+     *
+     * @param closing The token that closes the list, or <code>null</code> for the end of the input
+     * @return The single element, the list or the vector
+     */
+    private Expression list(Token.Operator closing) {
+        if(isListEnd()) {
+            close(closing);
+            if(closing == Token.RIGHT_BRACKET)
+                throw new MathExpressionSyntaxException("Vector requires at least one component");
+            return Expression.Numbers.EMPTY;
+        }
+
+        Expression first = expression(Precedence.COMMA + 1);
+        List<Expression> elements = null;
+        while(operator == Token.COMMA) {
+            next();
+            if(isListEnd())
+                throw new MathExpressionSyntaxException("Trailing comma in " + (closing == Token.RIGHT_BRACKET ? "vector" : "list"));
+            if(elements == null) {
+                elements = new ArrayList<>();
+                elements.add(first);
+            }
+            elements.add(expression(Precedence.COMMA + 1));
+        }
+        close(closing);
+
+        if(closing == Token.RIGHT_BRACKET)
+            return new VectorExpression(elements == null ? new Expression[] { first } : elements.toArray(Expression[]::new));
+        return elements == null ? first : new NumbersImpl(elements.toArray(Expression[]::new));
+    }
+
+    private boolean isListEnd() {
+        return (operator == null && value == null) ||
+               operator == Token.RIGHT_PARENTHESIS ||
+               operator == Token.RIGHT_BRACKET ||
+               (operator == Token.ABS && absOpen);
+    }
+
+    private void close(Token.Operator closing) {
+        if(operator == Token.RIGHT_PARENTHESIS || operator == Token.RIGHT_BRACKET) {
+            if(operator == Token.RIGHT_PARENTHESIS ? parentheses == 0 : brackets == 0) {
+                if(operator == Token.RIGHT_PARENTHESIS)
+                    throw new MathExpressionSyntaxException("Mismatched parenthesis (too many closing or trying to close bracket with parenthesis)");
+                throw new MathExpressionSyntaxException("Mismatched brackets (too many closing or trying to close parenthesis with bracket)");
+            }
+            if(closing == Token.ABS)
+                throw new MathExpressionSyntaxException("Mismatched abs");
+            // Otherwise this closes an enclosing parenthesis / bracket, and this one implicitly
+            if(operator == closing) next();
+        }
+        else if(operator == Token.ABS) next();
+        else if(closing == Token.ABS) // End of input
+            throw new MathExpressionSyntaxException("Mismatched abs");
+    }
+
+    /**
+     * Parses an expression containing only operators with at least the given precedence.
+     */
+    private Expression expression(int minPrecedence) {
+        return infix(operand(false, minPrecedence), minPrecedence);
+    }
+
+    private Expression infix(Expression left, int minPrecedence) {
+        while(true) {
+            Token.Operator o = operator;
+            if(o != null && o.isUnary() && o != Token.ABS) { // Postfix operator
+                if(o.precedence() < minPrecedence) break;
+                while(postfixCount != 0 && postfix[postfixCount - 1].precedence() >= o.precedence())
+                    left = postfix[--postfixCount].apply(left);
+                postfix[postfixCount++] = o;
+                next();
+                continue;
+            }
+            left = applyPostfix(left);
+
+            if(o != null && o.isBinary()) {
+                if(o.precedence() < minPrecedence) break;
+                next();
+                Expression b = o == Token.POWER ? infix(operand(true, o.precedence() + 1), o.precedence() + 1) : expression(o.precedence() + 1);
+                left = o.apply(left, b);
+            }
+            else if(isOperandStart()) {
+                if(Precedence.IMPLICIT < minPrecedence) break;
+                left = Token.IMPLICIT_OPERATION.apply(left, expression(Precedence.IMPLICIT + 1));
+            }
+            else break;
+        }
+        return applyPostfix(left);
+    }
+
+    private Expression applyPostfix(Expression x) {
+        while(postfixCount != 0)
+            x = postfix[--postfixCount].apply(x);
+        return x;
     }
 
+    private boolean isOperandStart() {
+        return value != null ||
+               operator == Token.LEFT_PARENTHESIS ||
+               operator == Token.LEFT_BRACKET ||
+               (operator == Token.ABS && !absOpen);
+    }
+
+    /**
+     * Parses an operand, which may be negated. A negation applies to the following
+     * operators of higher precedence than negation, but never to more than the operand
+     * would span without it, so <code>a/-b/c</code> is <code>(a/(-b))/c</code>.
+     *
+     * @param exponent Whether the operand is an exponent, in which case a negation
+     *                 only applies to the next value
+     * @param minPrecedence The minimum precedence of operators within the operand
+     */
+    private Expression operand(boolean exponent, int minPrecedence) {
+        if(operator != Token.MINUS)
+            return value();
+        next();
+        return Token.NEGATE.apply(exponent ? value() : expression(Math.max(Precedence.NEGATE + 1, minPrecedence)));
+    }
 
-    static class MathStack extends Stack<Expression> {
-        @Override
-        public synchronized Expression peek() {
-            if(isEmpty())
-                throw new MathExpressionSyntaxException("Expression expected");
-            return super.peek();
+    /**
+     * Parses a number, symbol, parenthesized list, vector or absolute value.
+     */
+    private Expression value() {
+        if(value != null) {
+            Expression x = value;
+            next();
+            return x;
+        }
+        if(operator == Token.LEFT_PARENTHESIS || operator == Token.LEFT_BRACKET) {
+            boolean parenthesis = operator == Token.LEFT_PARENTHESIS;
+            boolean outerAbsOpen = absOpen;
+            absOpen = false;
+            if(parenthesis) parentheses++;
+            else brackets++;
+            next();
+
+            Expression x = list(parenthesis ? Token.RIGHT_PARENTHESIS : Token.RIGHT_BRACKET);
+
+            if(parenthesis) parentheses--;
+            else brackets--;
+            absOpen = outerAbsOpen;
+            return x;
+        }
+        if(operator == Token.ABS && !absOpen) {
+            absOpen = true;
+            next();
+            Expression x = list(Token.ABS);
+            absOpen = false;
+            return Token.ABS.apply(x);
         }
+        throw new MathExpressionSyntaxException("Expression expected");
+    }
+
 
-        @Override
-        public synchronized Expression pop() {
-            if(isEmpty())
-                throw new MathExpressionSyntaxException("Expression expected");
-            return super.pop();
+    /**
+     * Reads the next token.
+     */
+    private void next() {
+        while(end < src.length && Character.isWhitespace(src[end])) end++;
+        value = null;
+        if(end == src.length) {
+            operator = null;
+            return;
         }
+
+        int start = end;
+        operator = switch(src[end++]) {
+            case ',' -> Token.COMMA;
+            case '(' -> Token.LEFT_PARENTHESIS;
+            case '[' -> Token.LEFT_BRACKET;
+            case ')' -> Token.RIGHT_PARENTHESIS;
+            case ']' -> Token.RIGHT_BRACKET;
+
+            case '+' -> Token.PLUS;
+            case '-' -> skip('>') ? Token.LAMBDA_DEFINE : Token.MINUS;
+            case '*', '·' -> Token.MULTIPLY;
+            case '/' -> Token.DIVIDE;
+            case '^' -> Token.POWER;
+            case '!' -> Token.FACTORIAL;
+            case '|' -> Token.ABS;
+
+            case '°' -> Token.DEGREE;
+            case '%' -> Token.PERCENT;
+            case '²' -> Token.SQUARE;
+            case '³' -> Token.CUBE;
+
+            case '=' -> skip(':') ? Token.DEFINE_REVERSE : Token.EQUALS;
+            case ':' -> skip('=') ? Token.DEFINE : Token.DIVIDE;
+            case '<' -> skip('=') ? Token.LESS_OR_EQUAL : Token.LESS;
+            case '>' -> skip('=') ? Token.GREATER_OR_EQUAL : Token.GREATER;
+
+            case '.', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> {
+                value = number(start);
+                yield null;
+            }
+            default -> {
+                value = symbol(start);
+                yield null;
+            }
+        };
+    }
+
+    private boolean skip(char c) {
+        if(end == src.length || src[end] != c) return false;
+        end++;
+        return true;
+    }
+
+    private Expression number(int start) {
+        boolean decimal = src[start] == '.';
+        if(decimal && (end == src.length || !isDigit(src[end])))
+            throw new MathExpressionSyntaxException("Number expected");
+        while(end < src.length && isDigit(src[end])) end++;
+        if(!decimal && skip('.')) {
+            decimal = true;
+            while(end < src.length && isDigit(src[end])) end++;
+        }
+
+        if(decimal)
+            return new ConstantExpression(new Rational(new BigDecimal(src, start, end - start)));
+        if(end - start <= 18) {
+            long n = 0;
+            for(int i=start; i<end; i++)
+                n = 10 * n + (src[i] - '0');
+            return new ConstantExpression(new Rational(n));
+        }
+        return new ConstantExpression(new Rational(new BigInteger(new String(src, start, end - start))));
+    }
+
+    private Expression symbol(int start) {
+        if(!isIdentifierChar(src[start]))
+            throw new MathExpressionSyntaxException("Unexpected character '" + src[start] + "'");
+        while(end < src.length && isIdentifierChar(src[end])) end++;
+        return new Token.Symbol(new String(src, start, end - start));
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierChar(char c) {
+        return (c >= 'a' && c <= 'z') ||
+                (c >= 'A' && c <= 'Z') ||
+                (c >= '0' && c <= '9') ||
+                c == '$' || c == '#' || c == '\'' || c == '_' ||
+                c == 'ä' || c == 'ö' || c == 'ü' || c == 'ß' || //ae, oe, ue, ss
+                c == 'Ä' || c == 'Ö' || c == 'Ü' || // AE, OE, UE
+                c == 'Σ' || c == 'Π' || c == 'µ'; // ^2, ^3, my
     }
 }
@@ -0,0 +1,227 @@
+package com.github.rccookie.math.expr;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.util.Arguments;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Measures where time is spent while processing an expression. The phases of
+ * processing (parsing, evaluation, simplification, rendering) are timed explicitly
+ * using {@link #phase(String, Supplier)}, and while a profiler is {@link #run(Supplier) running},
+ * every function call is timed individually and grouped by the function's name.
+ * Where supported by the JVM, the number of bytes allocated is counted, too.
+ *
+ * <p>A profiler only records the calls made on the thread that runs it, so that
+ * other threads and other calculators evaluating at the same time do not show up in
+ * its report. Calls made by workers of a parallel evaluation are not recorded
+ * individually; their time is part of the recorded call that started them.</p>
+ *
+ * <p>While no profiler is running, the instrumentation costs a single thread local
+ * lookup per function call. Trace messages are passed as suppliers and are only
+ * created if they are actually recorded.</p>
+ */
+public final class Profiler {
+
+    /**
+     * The profiler running on each thread, if any. At most one profiler runs on a
+     * thread at a time.
+     */
+    private static final ThreadLocal<Profiler> RUNNING = new ThreadLocal<>();
+
+    @Nullable
+    private static final com.sun.management.ThreadMXBean THREADS =
+            ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+            && t.isThreadAllocatedMemorySupported() && t.isThreadAllocatedMemoryEnabled() ? t : null;
+
+
+    private final List<Entry> phases = new ArrayList<>();
+    private final Map<String, Counter> calls = new HashMap<>();
+    private final List<String> trace = new ArrayList<>();
+    /**
+     * The innermost function call currently timed, or <code>null</code>.
+     */
+    private Frame frame = null;
+
+
+    /**
+     * Runs the given action with this profiler recording the function calls made
+     * on the current thread.
+     *
+     * @param action The action to profile
+     * @return The result of the action
+     * @throws IllegalStateException If another profiler is already running on this thread
+     */
+    public <T> T run(Supplier<T> action) {
+        if(RUNNING.get() != null)
+            throw new IllegalStateException("Another profiler is already running");
+        RUNNING.set(this);
+        try {
+            return action.get();
+        } finally {
+            RUNNING.remove();
+        }
+    }
+
+    /**
+     * Runs the given action and records its time and allocations as a phase.
+     *
+     * @param name The name of the phase, i.e. "parse"
+     * @param action The action to run
+     * @return The result of the action
+     */
+    public <T> T phase(String name, Supplier<T> action) {
+        Arguments.checkNull(name, "name");
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            long nanos = System.nanoTime() - start;
+            bytes = allocatedBytes() - bytes;
+            phases.add(new Entry(name, 1, nanos, nanos, bytes));
+        }
+    }
+
+    /**
+     * Returns the recorded measurements.
+     *
+     * @return A report of all phases and function calls recorded so far
+     */
+    public Report report() {
+        List<Entry> callEntries = new ArrayList<>();
+        calls.forEach((n,c) -> callEntries.add(new Entry(n, c.calls, c.nanos, c.selfNanos, c.bytes)));
+        callEntries.sort(Comparator.comparingLong(Entry::selfNanos).reversed());
+        return new Report(List.copyOf(phases), List.copyOf(callEntries), List.copyOf(trace));
+    }
+
+
+    /**
+     * Records a trace message, if a profiler is running on the current thread. The
+     * message is only created in that case.
+     *
+     * @param message Supplies the message to record
+     */
+    public static void trace(Supplier<String> message) {
+        Profiler profiler = RUNNING.get();
+        if(profiler != null)
+            profiler.trace.add(message.get());
+    }
+
+    /**
+     * Calls the given function, timing the call if a profiler is running on the
+     * current thread.
+     *
+     * @param site The expression the function was obtained from, used to name it
+     * @param function The function to call
+     * @param lookup The lookup to evaluate the function with
+     * @param params The parameters to pass
+     * @return The result of the function call
+     */
+    static Number call(Expression site, Expression.Function function, SymbolLookup lookup, Number params) {
+        Profiler profiler = RUNNING.get();
+        if(profiler == null)
+            return function.evaluate(lookup, params);
+        return profiler.time(site instanceof Expression.Symbol s ? s.name() : function.toString(), function, lookup, params);
+    }
+
+    private Number time(String name, Expression.Function function, SymbolLookup lookup, Number params) {
+        Frame parent = frame;
+        Frame current = new Frame();
+        frame = current;
+        long bytes = allocatedBytes();
+        long start = System.nanoTime();
+        try {
+            return function.evaluate(lookup, params);
+        } finally {
+            long nanos = System.nanoTime() - start;
+            bytes = allocatedBytes() - bytes;
+            frame = parent;
+            if(parent != null)
+                parent.childNanos += nanos;
+
+            Counter counter = calls.computeIfAbsent(name, n -> new Counter());
+            counter.calls++;
+            counter.nanos += nanos;
+            counter.selfNanos += nanos - current.childNanos;
+            counter.bytes += bytes;
+        }
+    }
+
+    private static long allocatedBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+
+    /**
+     * Measurements of a phase or a function.
+     *
+     * @param name The name of the phase or function
+     * @param count The number of times the phase ran or the function was called
+     * @param nanos Total time spent, in nanoseconds
+     * @param selfNanos Time spent not in other (profiled) function calls, in nanoseconds
+     * @param bytes Approximate number of bytes allocated on the profiled thread, including
+     *              allocations in other function calls, or 0 if not supported by the JVM
+     */
+    public record Entry(String name, long count, long nanos, long selfNanos, long bytes) {
+        @Override
+        public String toString() {
+            String str = name + ": " + count + (count == 1 ? " call, " : " calls, ") + millis(nanos);
+            if(selfNanos != nanos)
+                str += " (self " + millis(selfNanos) + ")";
+            if(THREADS != null)
+                str += ", " + bytes / 1024 + " KiB allocated";
+            return str;
+        }
+
+        private static String millis(long nanos) {
+            return String.format("%.3fms", nanos / 1_000_000.0);
+        }
+    }
+
+    /**
+     * The measurements recorded by a profiler.
+     *
+     * @param phases The phases, in the order they ran
+     * @param calls The called functions, by descending self time
+     * @param trace The recorded trace messages
+     */
+    public record Report(List<Entry> phases, List<Entry> calls, List<String> trace) {
+        @NotNull
+        @Override
+        public String toString() {
+            StringBuilder str = new StringBuilder();
+            for(Entry phase : phases)
+                str.append(phase.name).append(": ").append(Entry.millis(phase.nanos))
+                        .append(THREADS != null ? ", " + phase.bytes / 1024 + " KiB allocated" : "").append('\n');
+            if(!calls.isEmpty()) {
+                str.append("Function calls:\n");
+                for(Entry call : calls)
+                    str.append("  ").append(call).append('\n');
+            }
+            for(String t : trace)
+                str.append(t).append('\n');
+            return str.toString().stripTrailing();
+        }
+    }
+
+    private static final class Counter {
+        long calls = 0;
+        long nanos = 0;
+        long selfNanos = 0;
+        long bytes = 0;
+    }
+
+    private static final class Frame {
+        long childNanos = 0;
+    }
+}
@@ -0,0 +1,448 @@
+package com.github.rccookie.math.expr;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.rccookie.math.BigDecimalMath;
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.math.SimpleNumber;
+
+/**
+ * Numeric integration of arbitrary real functions. If the current {@link Rational#getPrecision()
+ * precision} does not exceed double precision, the integral is computed with double
+ * precision using adaptive Gauss-Kronrod quadrature, which only needs few function
+ * evaluations for smooth functions and refines the subintervals with the largest
+ * errors where the function is not smooth. For higher precisions, the double
+ * exponential (tanh-sinh) quadrature is used, which doubles the number of correct
+ * digits with every level for analytic functions, even with singularities at the
+ * interval bounds.
+ *
+ * <p>Subintervals and nodes are evaluated in parallel. Results are cached per function,
+ * interval and precision, and also depend on the values of the global symbols the
+ * function refers to, so redefining any of them does not return stale results.</p>
+ */
+final class Quadrature {
+
+    /**
+     * Maximum precision for which double precision is sufficient.
+     */
+    private static final int DOUBLE_DIGITS = 15;
+
+    /**
+     * Maximum number of subintervals of the Gauss-Kronrod quadrature.
+     */
+    private static final int MAX_INTERVALS = 1024;
+
+    /**
+     * Maximum level of the tanh-sinh quadrature, the step size is <code>2^-level</code>.
+     */
+    private static final int MAX_LEVEL = 10;
+
+    /**
+     * Minimum number of tanh-sinh nodes evaluated by a single task.
+     */
+    private static final int NODES_PER_TASK = 16;
+
+    /**
+     * Maximum number of cached integrals.
+     */
+    private static final int CACHE_CAPACITY = 256;
+
+    /**
+     * Nodes of the 15 point Kronrod rule on [-1,1], the odd indices are the nodes of
+     * the 7 point Gauss rule. Only the non-negative half is stored.
+     */
+    private static final double[] KRONROD_NODES = {
+            0.991455371120812639206854697526329,
+            0.949107912342758524526189684047851,
+            0.864864423359769072789712788640926,
+            0.741531185599394439863864773280788,
+            0.586087235467691130294144845693013,
+            0.405845151377397166906606412076961,
+            0.207784955007898467600689403773245,
+            0.000000000000000000000000000000000
+    };
+    private static final double[] KRONROD_WEIGHTS = {
+            0.022935322010529224963732008058970,
+            0.063092092629978553290700663189204,
+            0.104790010322250183839876322541518,
+            0.140653259715525918745189590510238,
+            0.169004726639267902826583426598550,
+            0.190350578064785409913256402421014,
+            0.204432940075298892414161999234649,
+            0.209482141084727828012999174891714
+    };
+    private static final double[] GAUSS_WEIGHTS = {
+            0.129484966168869693270611432679082,
+            0.279705391489276667901467771423780,
+            0.381830050505118944950369775488975,
+            0.417959183673469387755102040816327
+    };
+
+    private static final Map<Key, Number> CACHE = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Number> eldest) {
+            return size() > CACHE_CAPACITY;
+        }
+    });
+
+    private Quadrature() { }
+
+
+    /**
+     * Integrates the given function from a to b.
+     *
+     * @param lookup The lookup to evaluate the function with
+     * @param f The function to integrate, with a single parameter
+     * @param a The lower bound
+     * @param b The upper bound
+     * @return The integral of f from a to b, to the current precision
+     * @throws ArithmeticException If the function is not real valued or not finite
+     *                             within the interval
+     */
+    static Number integrate(SymbolLookup lookup, Expression.Function f, Number a, Number b) {
+        if(!(a instanceof SimpleNumber sa) || !(b instanceof SimpleNumber sb))
+            throw new ArithmeticException("int: bounds must be real");
+        if(sa.equals(sb))
+            return Number.ZERO();
+
+        int precision = Rational.getPrecision();
+        Key key = new Key(functionKey(f), sa, sb, new Dependencies(f).snapshot(lookup));
+        Number result = CACHE.get(key);
+        if(result != null) {
+            Profiler.trace(() -> "Integral of " + f + " from " + a + " to " + b + " found in cache");
+            return result;
+        }
+
+        if(precision <= DOUBLE_DIGITS)
+            result = new Rational(new BigDecimal(gaussKronrod(lookup, f, sa.toDouble(), sb.toDouble(), precision)).round(new MathContext(precision)), false);
+        else result = tanhSinh(lookup, f, sa, sb, precision);
+        CACHE.put(key, result);
+        return result;
+    }
+
+
+    /**
+     * Integrates using the adaptive 7/15 point Gauss-Kronrod rule. Each round, the
+     * subintervals with the largest errors are bisected, as many as needed for the
+     * remaining ones to be within the tolerance, and the halves are evaluated in
+     * parallel.
+     */
+    private static double gaussKronrod(SymbolLookup lookup, Expression.Function f, double a, double b, int precision) {
+        List<double[]> intervals = new ArrayList<>(List.of(new double[] { a, b }));
+        List<double[]> results = new ArrayList<>(evaluateIntervals(lookup, f, intervals));
+        double relTolerance = Math.max(Math.pow(10, -precision), 100 * Math.ulp(1.0));
+        // Smaller numbers would be rounded to zero by the function
+        double minWidth = Math.pow(10, -precision);
+        while(true) {
+            Budget.checkpoint();
+            // Errors of intervals that cannot be refined any further at this precision are
+            // accepted, there is no point in making the others much more accurate
+            double integral = 0, error = 0, accepted = 0;
+            List<Integer> refinable = new ArrayList<>();
+            for(int i=0; i<results.size(); i++) {
+                integral += results.get(i)[0];
+                double[] interval = intervals.get(i);
+                double mid = (interval[0] + interval[1]) / 2;
+                if(mid != interval[0] && mid != interval[1] && Math.abs(interval[1] - interval[0]) >= minWidth) {
+                    error += results.get(i)[1];
+                    refinable.add(i);
+                }
+                else accepted += results.get(i)[1];
+            }
+            double tolerance = Math.max(Math.max(relTolerance * Math.abs(integral), accepted), Double.MIN_NORMAL);
+            if(error <= tolerance || results.size() >= MAX_INTERVALS)
+                return integral;
+
+            List<double[]> r0 = results;
+            refinable.sort((i,j) -> Double.compare(r0.get(j)[1], r0.get(i)[1]));
+            List<double[]> split = new ArrayList<>();
+            boolean[] isSplit = new boolean[results.size()];
+            for(int i=0; i<refinable.size() && error > tolerance; i++) {
+                int index = refinable.get(i);
+                double[] interval = intervals.get(index);
+                double mid = (interval[0] + interval[1]) / 2;
+                split.add(new double[] { interval[0], mid });
+                split.add(new double[] { mid, interval[1] });
+                isSplit[index] = true;
+                error -= results.get(index)[1];
+            }
+            List<double[]> keptIntervals = new ArrayList<>(), keptResults = new ArrayList<>();
+            for(int i=0; i<isSplit.length; i++) {
+                if(isSplit[i]) continue;
+                keptIntervals.add(intervals.get(i));
+                keptResults.add(results.get(i));
+            }
+            keptResults.addAll(evaluateIntervals(lookup, f, split));
+            keptIntervals.addAll(split);
+            intervals = keptIntervals;
+            results = keptResults;
+        }
+    }
+
+    /**
+     * Applies the Gauss-Kronrod rule to each of the given intervals in parallel.
+     *
+     * @return For each interval the integral and its error estimate
+     */
+    private static List<double[]> evaluateIntervals(SymbolLookup lookup, Expression.Function f, List<double[]> intervals) {
+        double[][] results = new double[intervals.size()][];
+        ParallelEvaluation.map(lookup, intervals.size(), (l,i) -> {
+            double[] interval = intervals.get(i);
+            results[i] = applyRule(l, f, interval[0], interval[1]);
+            return null;
+        });
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Applies the 7/15 point Gauss-Kronrod rule to a single interval.
+     *
+     * @return The integral and its error estimate
+     */
+    private static double[] applyRule(SymbolLookup lookup, Expression.Function f, double a, double b) {
+        double center = (a + b) / 2, halfLength = (b - a) / 2;
+        double[] left = new double[8], right = new double[8];
+        left[7] = right[7] = evaluate(lookup, f, center);
+        double kronrod = left[7] * KRONROD_WEIGHTS[7], gauss = left[7] * GAUSS_WEIGHTS[3];
+        for(int i=0; i<7; i++) {
+            Budget.checkpoint();
+            double dx = halfLength * KRONROD_NODES[i];
+            left[i] = evaluate(lookup, f, center - dx);
+            right[i] = evaluate(lookup, f, center + dx);
+            kronrod += KRONROD_WEIGHTS[i] * (left[i] + right[i]);
+            if(i % 2 == 1)
+                gauss += GAUSS_WEIGHTS[i / 2] * (left[i] + right[i]);
+        }
+        // Error estimate used by QUADPACK: the difference to the Gauss rule is usually
+        // far too pessimistic, so it is scaled relative to the variation of f
+        double mean = kronrod / 2, variation = KRONROD_WEIGHTS[7] * Math.abs(left[7] - mean);
+        for(int i=0; i<7; i++)
+            variation += KRONROD_WEIGHTS[i] * (Math.abs(left[i] - mean) + Math.abs(right[i] - mean));
+        variation *= Math.abs(halfLength);
+        double error = Math.abs((kronrod - gauss) * halfLength);
+        if(variation != 0 && error != 0)
+            error = variation * Math.min(1, Math.pow(200 * error / variation, 1.5));
+        return new double[] { kronrod * halfLength, Math.max(error, 50 * Math.ulp(kronrod * halfLength)) };
+    }
+
+    private static double evaluate(SymbolLookup lookup, Expression.Function f, double x) {
+        Number fx = value(f.evaluate(lookup, new Rational(x, 0, false, false)));
+        if(!(fx instanceof SimpleNumber n))
+            throw new ArithmeticException("int: function is not real valued at " + x);
+        double dfx = n.toDouble();
+        if(!Double.isFinite(dfx))
+            throw new ArithmeticException("int: function is not finite at " + x);
+        return dfx;
+    }
+
+
+    /**
+     * Integrates using the tanh-sinh quadrature. The substitution
+     * <code>x = tanh(π/2 sinh(t))</code> maps the interval to the whole real line,
+     * and the transformed integrand decays double exponentially, so the trapezoidal
+     * rule with step size h converges very quickly. Each level halves h, which only
+     * requires evaluating the new nodes in between the previous ones. The sums are
+     * accumulated as decimals rounded to the precision, exact fractions would grow
+     * with every node.
+     */
+    private static Number tanhSinh(SymbolLookup lookup, Expression.Function f, SimpleNumber a, SimpleNumber b, int precision) {
+        MathContext context = new MathContext(precision + 10);
+        double tMax = maxNode(precision);
+        BigDecimal bigA = a.toBigDecimal(), bigB = b.toBigDecimal();
+        BigDecimal pi = BigDecimalMath.pi(context);
+
+        // Level 0: t = 0 and all integer t. The weight at t = 0 is π/2, times half the interval length
+        BigDecimal length = bigB.subtract(bigA);
+        BigDecimal center = evaluate(lookup, f, bigA.add(length.divide(BigDecimal.valueOf(2), context)))
+                .multiply(length).multiply(pi).divide(BigDecimal.valueOf(4), context);
+        BigDecimal[] sums = evaluateNodes(lookup, f, bigA, bigB, 0, 1, (int) tMax, pi, context);
+        BigDecimal sum = sums[0].add(center, context), absSum = sums[1].add(center.abs(), context);
+        BigDecimal integral = sum, lastDiff = null;
+
+        BigDecimal h = BigDecimal.ONE;
+        int level = 1;
+        for(; level<=MAX_LEVEL; level++) {
+            Budget.checkpoint();
+            h = h.divide(BigDecimal.valueOf(2));
+            // New nodes are the odd multiples of h
+            sums = evaluateNodes(lookup, f, bigA, bigB, level, 2, (int) Math.scalb(tMax, level), pi, context);
+            sum = sum.add(sums[0], context);
+            absSum = absSum.add(sums[1], context);
+
+            BigDecimal next = sum.multiply(h, context);
+            BigDecimal diff = next.subtract(integral).abs();
+            integral = next;
+            if(level >= 3 && isConverged(diff, lastDiff, absSum.multiply(h, context), precision))
+                break;
+            // With singularities at the bounds, the nodes closest to the bounds limit the accuracy
+            if(level >= 4 && diff.compareTo(lastDiff.divide(BigDecimal.valueOf(2), context)) >= 0)
+                break;
+            lastDiff = diff;
+        }
+        int levels = Math.min(level, MAX_LEVEL);
+        Profiler.trace(() -> "tanh-sinh quadrature of " + f + " with precision " + precision + " used " + levels + " levels");
+        return new Rational(integral, false);
+    }
+
+    /**
+     * Estimates the error of the last level from the differences to the previous
+     * levels, assuming that the number of correct digits doubles with each level.
+     */
+    private static boolean isConverged(BigDecimal diff, BigDecimal lastDiff, BigDecimal scale, int precision) {
+        if(diff.signum() == 0 || scale.signum() == 0) return true;
+        double d1 = log10(diff.divide(scale, MathContext.DECIMAL64));
+        double d2 = lastDiff.signum() == 0 ? d1 : log10(lastDiff.divide(scale, MathContext.DECIMAL64));
+        double error = d2 >= 0 ? 0 : Math.max(d1 * d1 / d2, 2 * d1);
+        return error < -precision;
+    }
+
+    /**
+     * Returns the decimal logarithm of a positive number, which may be out of the
+     * range of doubles.
+     */
+    private static double log10(BigDecimal x) {
+        // x = m·10^digits with 0.1 <= m < 1
+        int digits = x.precision() - x.scale();
+        return digits + Math.log10(x.movePointLeft(digits).doubleValue());
+    }
+
+    /**
+     * Returns the value of t beyond which the weights are negligible at the given
+     * precision.
+     */
+    private static double maxNode(int precision) {
+        double t = 1;
+        // log10 of the weight is about log10(π cosh t) - π/2 sinh t · 2/ln(10)
+        while(Math.PI * Math.sinh(t) / Math.log(10) - Math.log10(Math.PI * Math.cosh(t)) < precision + 5)
+            t += 0.125;
+        return t;
+    }
+
+    /**
+     * Evaluates the integrand at the nodes <code>t = ±k·2^-level</code> for k in
+     * <code>stride, 2·stride, ..., count</code> (or only the odd k if the stride is 2).
+     * Nodes that are too close to the bounds to be distinguished from them at the
+     * current precision are skipped.
+     *
+     * @return The weighted sum and the weighted sum of the absolute values
+     */
+    private static BigDecimal[] evaluateNodes(SymbolLookup lookup, Expression.Function f, BigDecimal a, BigDecimal b, int level, int stride, int count, BigDecimal pi, MathContext context) {
+        BigDecimal length = b.subtract(a);
+        int nodes = stride == 1 ? count : (count + 1) / 2;
+        int tasks = Math.max(1, Math.min(nodes / NODES_PER_TASK, 8 * ForkJoinPool.getCommonPoolParallelism()));
+        BigDecimal[][] partial = new BigDecimal[tasks][];
+        ParallelEvaluation.map(lookup, tasks, (l,task) -> {
+            BigDecimal sum = BigDecimal.ZERO, absSum = BigDecimal.ZERO;
+            for(int i=task; i<nodes; i+=tasks) {
+                Budget.checkpoint();
+                BigDecimal[] node = node(stride == 1 ? i + 1 : 2 * i + 1, level, pi, context);
+                BigDecimal dx = length.multiply(node[0], context);
+                BigDecimal weight = length.multiply(node[1], context);
+                if(isDistinct(a.add(dx), a)) {
+                    BigDecimal y = evaluate(l, f, a.add(dx)).multiply(weight, context);
+                    sum = sum.add(y, context);
+                    absSum = absSum.add(y.abs(), context);
+                }
+                if(isDistinct(b.subtract(dx), b)) {
+                    BigDecimal y = evaluate(l, f, b.subtract(dx)).multiply(weight, context);
+                    sum = sum.add(y, context);
+                    absSum = absSum.add(y.abs(), context);
+                }
+            }
+            partial[task] = new BigDecimal[] { sum, absSum };
+            return null;
+        });
+        BigDecimal sum = BigDecimal.ZERO, absSum = BigDecimal.ZERO;
+        for(BigDecimal[] p : partial) {
+            sum = sum.add(p[0], context);
+            absSum = absSum.add(p[1], context);
+        }
+        return new BigDecimal[] { sum, absSum };
+    }
+
+    /**
+     * Returns the distance of the node <code>t = k·2^-level</code> from the interval
+     * bound and its weight, for the interval [0,1]. With <code>E = exp(π sinh t)</code>
+     * the node is at <code>1/(E+1)</code>, and its weight is <code>π cosh(t) E/(E+1)²</code>.
+     */
+    private static BigDecimal[] node(int k, int level, BigDecimal pi, MathContext context) {
+        BigDecimal t = BigDecimal.valueOf(k).divide(BigDecimal.valueOf(2).pow(level));
+        BigDecimal et = exp(t, context), inverse = BigDecimal.ONE.divide(et, context);
+        BigDecimal sinh = et.subtract(inverse).divide(BigDecimal.valueOf(2), context);
+        BigDecimal cosh = et.add(inverse).divide(BigDecimal.valueOf(2), context);
+        BigDecimal e = exp(pi.multiply(sinh, context), context);
+        BigDecimal e1 = e.add(BigDecimal.ONE);
+        return new BigDecimal[] {
+                BigDecimal.ONE.divide(e1, context),
+                pi.multiply(cosh).multiply(e).divide(e1.multiply(e1), context)
+        };
+    }
+
+    /**
+     * Returns <code>e^x</code> to the given precision. {@link BigDecimalMath#exp(BigDecimal)}
+     * derives the precision from the ulp of the argument as double, which underflows
+     * for arguments with more than about 300 digits.
+     */
+    private static BigDecimal exp(BigDecimal x, MathContext context) {
+        if(x.signum() < 0)
+            return BigDecimal.ONE.divide(exp(x.negate(), context), context);
+        // Sum the series for x/2^s, then square s times. Each squaring doubles the
+        // relative error, which is compensated by the additional digits.
+        int s = (int) Math.sqrt(context.getPrecision()) + 4 * Math.max(0, x.precision() - x.scale());
+        MathContext work = new MathContext(context.getPrecision() + s / 3 + 5);
+        BigDecimal r = x.divide(BigDecimal.valueOf(2).pow(s), work);
+        BigDecimal eps = BigDecimal.ONE.movePointLeft(work.getPrecision());
+        BigDecimal sum = BigDecimal.ONE, term = BigDecimal.ONE;
+        for(int i=1; term.compareTo(eps) > 0; i++) {
+            Budget.checkpoint();
+            term = term.multiply(r, work).divide(BigDecimal.valueOf(i), work);
+            sum = sum.add(term, work);
+        }
+        for(int i=0; i<s; i++)
+            sum = sum.multiply(sum, work);
+        return sum.round(context);
+    }
+
+    private static boolean isDistinct(BigDecimal x, BigDecimal bound) {
+        return !new Rational(x, false).equals(new Rational(bound, false));
+    }
+
+    private static BigDecimal evaluate(SymbolLookup lookup, Expression.Function f, BigDecimal x) {
+        Number fx = value(f.evaluate(lookup, new Rational(x, false)));
+        if(!(fx instanceof SimpleNumber n))
+            throw new ArithmeticException("int: function is not real valued at " + x);
+        return n.toBigDecimal();
+    }
+
+
+    private static Number value(Number x) {
+        while(x instanceof Expression.Constant c)
+            x = c.value();
+        return x;
+    }
+
+    /**
+     * Returns an object that is equal for equal functions. Lambdas are records, but
+     * their parameter names are stored in an array, which is compared by identity.
+     */
+    private static Object functionKey(Expression.Function f) {
+        if(f instanceof RuntimeFunction r)
+            return List.of(r.expr(), List.of(r.paramNames()));
+        return f;
+    }
+
+    /**
+     * @param dependencies Snapshot of the {@link Dependencies} of the function, which
+     *                     includes the precision
+     */
+    private record Key(Object function, SimpleNumber a, SimpleNumber b, Object dependencies) { }
+}
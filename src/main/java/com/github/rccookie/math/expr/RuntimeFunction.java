@@ -68,6 +68,38 @@ record RuntimeFunction(Expression expr, String... paramNames)
         return result;
     }
 
+    @Override
+    public Number[] evaluateAll(SymbolLookup lookup, Number[] inputs) {
+        if(paramNames.length == 0)
+            return Function.super.evaluateAll(lookup, inputs);
+
+        // Only push the unspecified parameters once for the whole batch. The body is
+        // evaluated as is, like in evaluate(), so that both give the same results.
+        // Tuples are spread over the parameters (or mapped over, with a single
+        // parameter) by evaluate() itself, whose parameters shadow the ones pushed here
+        for(int i=1; i<paramNames.length; i++)
+            lookup.pushLocal(paramNames[i], SymbolLookup.UNSPECIFIED);
+        try {
+            Number[] results = new Number[inputs.length];
+            for(int i=0; i<inputs.length; i++) {
+                if(inputs[i] instanceof Numbers) {
+                    results[i] = evaluate(lookup, inputs[i]);
+                    continue;
+                }
+                lookup.pushLocal(paramNames[0], inputs[i]);
+                try {
+                    results[i] = expr.evaluate(lookup);
+                } finally {
+                    lookup.popLocal(paramNames[0]);
+                }
+            }
+            return results;
+        } finally {
+            for(int i=1; i<paramNames.length; i++)
+                lookup.popLocal(paramNames[i]);
+        }
+    }
+
     @Override
     public Function simplify() {
         return new RuntimeFunction(expr.simplify(), paramNames); // Function should stay function, even if expression is constant
@@ -12,6 +12,11 @@ record SimpleBinaryOperation(String name, String format, BinaryOperator<Renderab
         this(name, format, renderer, aIsLeft, Expression.of(a), Expression.of(b), precedence, function);
     }
 
+    @Override
+    public Number evaluate(SymbolLookup lookup) {
+        return IterativeTraversal.evaluate(this, lookup);
+    }
+
     @Override
     public Number evaluateHalf(SymbolLookup lookup, Number ea) {
         return function.apply(ea, Expression.evaluate(b,lookup));
@@ -19,19 +24,16 @@ record SimpleBinaryOperation(String name, String format, BinaryOperator<Renderab
 
     @Override
     public Expression simplify() {
-        Expression as = a.simplify(), bs = b.simplify();
-        if(as instanceof Constant an && bs instanceof Constant bn)
-            return Expression.of(function.apply(an.value(), bn.value()));
-        return new SimpleBinaryOperation(name, format, renderer, aIsLeft, as, bs, precedence, function);
+        return IterativeTraversal.simplify(this);
     }
 
     @Override
     public String toString() {
-        return format(format, a, b);
+        return IterativeTraversal.toString(this);
     }
 
     @Override
     public RenderableExpression toRenderable() {
-        return toRenderable(renderer, aIsLeft, a, b);
+        return IterativeTraversal.toRenderable(this);
     }
 }
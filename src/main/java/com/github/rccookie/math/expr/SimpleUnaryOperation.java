@@ -9,24 +9,21 @@ record SimpleUnaryOperation(String name, String format, UnaryOperator<Renderable
         implements Expression.UnaryOperation {
     @Override
     public Number evaluate(SymbolLookup l) {
-        return function.apply(x.evaluate(l));
+        return IterativeTraversal.evaluate(this, l);
     }
 
     @Override
     public Expression simplify() {
-        Expression simplified = x.simplify();
-        if(simplified instanceof Constant n)
-            return Expression.of(function.apply(n.value()));
-        return new SimpleUnaryOperation(name, format, renderer, simplified, precedence, function);
+        return IterativeTraversal.simplify(this);
     }
 
     @Override
     public String toString() {
-        return format(format, x);
+        return IterativeTraversal.toString(this);
     }
 
     @Override
     public RenderableExpression toRenderable() {
-        return toRenderable(renderer, x);
+        return IterativeTraversal.toRenderable(this);
     }
 }
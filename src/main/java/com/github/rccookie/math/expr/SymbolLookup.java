@@ -64,6 +64,21 @@ public interface SymbolLookup {
         put(name, null);
     }
 
+    /**
+     * Evaluates the given expression and stores the result under the given name.
+     * Implementations may remember the expression and re-evaluate it when the
+     * symbols it depends on change.
+     *
+     * @param name The name of the variable to define
+     * @param expr The expression defining the variable
+     * @return The value of the variable
+     */
+    default Number define(String name, Expression expr) {
+        Number value = Expression.evaluate(expr, this);
+        put(name, value);
+        return value;
+    }
+
     void pushLocal(String name, Number value);
 
     void popLocal(String name);
@@ -1,21 +1,21 @@
 package com.github.rccookie.math.expr;
 
-import java.util.Stack;
 import java.util.function.BinaryOperator;
-import java.util.function.Function;
 import java.util.function.UnaryOperator;
 
 import com.github.rccookie.math.Number;
 import com.github.rccookie.math.Rational;
 import com.github.rccookie.math.rendering.RenderableExpression;
 
+import org.jetbrains.annotations.Nullable;
+
 sealed interface Token {
 
-    Operator COMMA             = Operator.noFunction(",", Precedence.COMMA, Builder::append);
-    Operator LEFT_PARENTHESIS  = Operator.noFunction("(", Precedence.LEFT_PARENTHESIS, Builder::createEmpty);
-    Operator RIGHT_PARENTHESIS = Operator.noFunction(")", Precedence.RIGHT_PARENTHESIS, Builder::buildList);
-    Operator LEFT_BRACKET      = Operator.noFunction("[", Precedence.LEFT_BRACKET, Builder::createEmpty);
-    Operator RIGHT_BRACKET     = Operator.noFunction("]", Precedence.RIGHT_BRACKET, Builder::buildVector);
+    Operator COMMA             = Operator.tokenOnly(",", Precedence.COMMA);
+    Operator LEFT_PARENTHESIS  = Operator.tokenOnly("(", Precedence.LEFT_PARENTHESIS);
+    Operator RIGHT_PARENTHESIS = Operator.tokenOnly(")", Precedence.RIGHT_PARENTHESIS);
+    Operator LEFT_BRACKET      = Operator.tokenOnly("[", Precedence.LEFT_BRACKET);
+    Operator RIGHT_BRACKET     = Operator.tokenOnly("]", Precedence.RIGHT_BRACKET);
 
     Operator PLUS      = new Operator("+", Precedence.PLUS, Expression::add);
     Operator MINUS     = new Operator("-", Precedence.MINUS, Expression::subtract);
@@ -24,7 +24,7 @@ sealed interface Token {
     Operator NEGATE    = new Operator("~", Precedence.NEGATE, Expression::negate);
     Operator POWER     = new Operator("^", Precedence.POWER, Expression::raise);
     Operator FACTORIAL = new Operator("!", Precedence.FACTORIAL, x -> new SimpleUnaryOperation("!", "$x!", RenderableExpression::factorial, x, 40, Functions::factorial));
-    Operator ABS       = new Operator("abs", -10, true, s -> new Abs(s.pop()));
+    Operator ABS       = new Operator("abs", -10, Abs::new);
 
     Operator DEGREE  = new Operator("\u00B0", Precedence.DEGREE, x -> x.multiply(Number.DEG_TO_RAD()));
     Operator PERCENT = new Operator("%", Precedence.PERCENT, x -> (Expression) x.divide(100));
@@ -42,48 +42,50 @@ sealed interface Token {
 
     Operator IMPLICIT_OPERATION = new Operator("", Precedence.IMPLICIT, ImplicitOperationImpl::new);
 
-    NumberToken I = new NumberToken(Number.I());
-
 
-    record Operator(String literal, int precedence, boolean isFunction,
-                    Function<Stack<? extends Expression>, Expression> function) implements Token {
+    /**
+     * An operator token. Unary operators are prefix (negate) or postfix operators
+     * applied to a single operand, binary operators are infix operators. Brackets
+     * and commas are only tokens, they are handled by the parser directly.
+     */
+    record Operator(String literal, int precedence,
+                    @Nullable UnaryOperator<Expression> unary,
+                    @Nullable BinaryOperator<Expression> binary) implements Token {
 
         public Operator(String literal, int precedence, BinaryOperator<Expression> function) {
-            this(literal, precedence, false, stack -> {
-                Expression b = stack.pop(), a = stack.pop();
-                return function.apply(a,b);
-            });
+            this(literal, precedence, null, function);
         }
         public Operator(String literal, int precedence, UnaryOperator<Expression> function) {
-            this(literal, precedence, false, stack -> function.apply(stack.pop()));
+            this(literal, precedence, function, null);
         }
 
         @Override
         public String toString() {
-            return (isFunction ? "~" : "") + literal;
+            return literal;
         }
 
-        public Expression apply(Stack<? extends Expression> stack) {
-            return function.apply(stack);
+        public boolean isUnary() {
+            return unary != null;
         }
 
-        public static Operator noFunction(String literal, int precedence, Function<Stack<? extends Expression>, Expression> function) {
-            return new Operator(literal, precedence, false, function);
+        public boolean isBinary() {
+            return binary != null;
         }
 
-        public static Operator functionCall(String functionName) {
-            return new Operator(functionName, -10, true,
-                    s -> new FunctionCall(new Symbol(functionName), s.pop()));
+        public Expression apply(Expression x) {
+            return unary.apply(x);
+        }
+
+        public Expression apply(Expression a, Expression b) {
+            return binary.apply(a,b);
         }
 
         public static Operator tokenOnly(String literal, int precedence) {
-            return new Operator(literal, precedence, false, null);
+            return new Operator(literal, precedence, null, null);
         }
     }
 
-    sealed interface Value extends Token { }
-
-    record Symbol(String name) implements Value, Expression.Symbol {
+    record Symbol(String name) implements Token, Expression.Symbol {
         @Override
         public String toString() {
             return name;
@@ -99,11 +101,4 @@ sealed interface Token {
             return lookup.get(name);
         }
     }
-
-    record NumberToken(Number value) implements Value {
-        @Override
-        public String toString() {
-            return value.toString();
-        }
-    }
 }
@@ -16,9 +16,7 @@ record VariableDefinition(Expression nameExpr, String name, Expression expr) imp
 
     @Override
     public Number evaluateHalf(SymbolLookup lookup, Number ignored) {
-        Number value = Expression.evaluate(expr, lookup);
-        lookup.put(name, value);
-        return value;
+        return lookup.define(name, expr);
     }
 
     @Override
@@ -0,0 +1,74 @@
+package com.github.rccookie.math.expr;
+
+import java.util.Arrays;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Vector;
+import com.github.rccookie.math.rendering.RenderableExpression;
+
+import org.jetbrains.annotations.Nullable;
+
+record VectorExpression(Expression[] elements) implements Expression {
+    @Override
+    public Number evaluate(SymbolLookup lookup) {
+        Number[] evaluated = new Number[elements.length];
+        Arrays.setAll(evaluated, i -> Number.expand(elements[i].evaluate(lookup)));
+
+        Expression es = toVectorExpressionIfNeeded(evaluated);
+        if(es != null) return es;
+        return new Vector(evaluated);
+    }
+
+    @Override
+    public Expression simplify() {
+        Number[] simplified = new Number[elements.length];
+        Arrays.setAll(simplified, i -> elements[i].simplify());
+
+        Expression es = toVectorExpressionIfNeeded(simplified);
+        if(es != null) return es;
+        return Expression.of(new Vector(simplified));
+    }
+
+    @Nullable
+    private Expression toVectorExpressionIfNeeded(Number[] simplified) {
+        for(int i=0; i<simplified.length; i++) {
+            if(simplified[i] instanceof Expression) {
+                Expression[] es = new Expression[simplified.length];
+                for(int j=0; j<es.length; j++)
+                    es[i] = Expression.of(simplified[i]);
+                return new VectorExpression(es);
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(elements);
+    }
+
+    @Override
+    public RenderableExpression toRenderable() {
+        return new Vector(elements).toRenderable();
+    }
+
+    @Override
+    public int operandCount() {
+        return elements.length;
+    }
+
+    @Override
+    public Expression[] operands() {
+        return elements.clone();
+    }
+
+    @Override
+    public String name() {
+        return "Vector";
+    }
+
+    @Override
+    public int precedence() {
+        return Integer.MIN_VALUE;
+    }
+}
@@ -0,0 +1,203 @@
+package com.github.rccookie.math.solve;
+
+import java.math.BigInteger;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.math.expr.Budget;
+
+/**
+ * Fraction-free gaussian elimination on integer matrices, as described by Bareiss.
+ * Eliminating with the pivot p of step k replaces every entry by
+ * <code>(p * a[i][j] - a[i][k] * a[k][j]) / p'</code>, where p' is the pivot of the
+ * previous step. The division is always exact, and every entry after step k is a
+ * minor of size k+1 of the original matrix, so the entries grow only linearly in
+ * size, instead of exponentially like the numerators and denominators when
+ * eliminating with fractions.
+ *
+ * <p>Exact rational matrices are first scaled row by row to integer matrices, which
+ * does not change the solutions or the echelon form, only the determinant by the
+ * product of the scale factors.</p>
+ */
+public final class Bareiss {
+
+    private Bareiss() { }
+
+
+    /**
+     * Returns whether all given entries are precise rational numbers, such that the
+     * fraction-free elimination can be used.
+     */
+    public static boolean isExact(Number[][] rows) {
+        for(Number[] row : rows)
+            for(Number x : row)
+                if(!(x instanceof Rational r) || !r.precise) return false;
+        return true;
+    }
+
+    /**
+     * Computes the determinant of the given square matrix, whose entries must all be
+     * precise rationals.
+     *
+     * @param matrix The rows of the matrix
+     * @return The exact determinant
+     * @see #isExact(Number[][])
+     */
+    public static Number determinant(Number[][] matrix) {
+        BigInteger[] scales = new BigInteger[matrix.length];
+        BigInteger[][] a = toIntegerRows(matrix, scales);
+        int[] swaps = new int[1];
+        int n = a.length;
+        if(eliminate(a, n, false, swaps) != n)
+            return Number.ZERO();
+        // The last pivot is the determinant of the scaled matrix
+        BigInteger denominator = BigInteger.ONE;
+        for(BigInteger scale : scales)
+            denominator = denominator.multiply(scale);
+        BigInteger numerator = a[n-1][n-1];
+        return new Rational((swaps[0] & 1) == 0 ? numerator : numerator.negate(), denominator);
+    }
+
+    /**
+     * Computes the inverse of the given square matrix, whose entries must all be
+     * precise rationals, by reducing <code>[A | I]</code> to <code>[I | A⁻¹]</code>.
+     *
+     * @param matrix The rows of the matrix
+     * @return The rows of the exact inverse
+     * @throws ArithmeticException If the matrix is singular
+     * @see #isExact(Number[][])
+     */
+    public static Number[][] inverse(Number[][] matrix) {
+        int n = matrix.length;
+        Number[][] augmented = new Number[n][2*n];
+        for(int i=0; i<n; i++) {
+            System.arraycopy(matrix[i], 0, augmented[i], 0, n);
+            for(int j=0; j<n; j++)
+                augmented[i][n+j] = i == j ? Number.ONE() : Number.ZERO();
+        }
+        // Scaling a row of [A | I] scales the same row of I, so the result is still A⁻¹
+        BigInteger[][] a = toIntegerRows(augmented);
+        if(eliminate(a, n, true) != n)
+            throw new ArithmeticException("Matrix has no inverse");
+        Number[][] reduced = toRationalRows(a, n, true);
+        Number[][] inverse = new Number[n][n];
+        for(int i=0; i<n; i++)
+            System.arraycopy(reduced[i], n, inverse[i], 0, n);
+        return inverse;
+    }
+
+    /**
+     * Scales each row with the least common multiple of its denominators.
+     *
+     * @param rows The exact rational rows
+     * @return The integer rows
+     */
+    static BigInteger[][] toIntegerRows(Number[][] rows) {
+        return toIntegerRows(rows, new BigInteger[rows.length]);
+    }
+
+    private static BigInteger[][] toIntegerRows(Number[][] rows, BigInteger[] scales) {
+        BigInteger[][] ints = new BigInteger[rows.length][];
+        for(int i=0; i<rows.length; i++) {
+            BigInteger lcm = BigInteger.ONE;
+            for(Number x : rows[i]) {
+                BigInteger d = ((Rational) x).d;
+                lcm = lcm.divide(lcm.gcd(d)).multiply(d);
+            }
+            scales[i] = lcm;
+            ints[i] = new BigInteger[rows[i].length];
+            for(int j=0; j<ints[i].length; j++) {
+                Rational x = (Rational) rows[i][j];
+                ints[i][j] = x.n.multiply(lcm.divide(x.d));
+            }
+        }
+        return ints;
+    }
+
+    /**
+     * Transforms the given integer matrix to echelon form in place.
+     *
+     * @param a The integer matrix
+     * @param pivotColumns The number of leading columns which may contain pivots. All
+     *                     further columns are only transformed
+     * @param reduce Whether to also eliminate the entries above each pivot, so that the
+     *               pivots are the only non-zero entries in their column. All pivots
+     *               then have the same value
+     * @return The rank of the matrix in the pivot columns
+     */
+    static int eliminate(BigInteger[][] a, int pivotColumns, boolean reduce) {
+        return eliminate(a, pivotColumns, reduce, new int[1]);
+    }
+
+    /**
+     * Same as {@link #eliminate(BigInteger[][], int, boolean)}, and counts the number
+     * of row swaps in <code>swaps[0]</code>.
+     */
+    private static int eliminate(BigInteger[][] a, int pivotColumns, boolean reduce, int[] swaps) {
+        int m = a.length, n = a[0].length;
+        BigInteger previous = BigInteger.ONE;
+        int row = 0;
+        for(int col=0; col<pivotColumns && row<m; col++) {
+            Budget.checkpoint();
+
+            // Choose the smallest non-zero pivot, which keeps the products small
+            int p = -1;
+            for(int i=row; i<m; i++)
+                if(a[i][col].signum() != 0 && (p < 0 || a[i][col].bitLength() < a[p][col].bitLength()))
+                    p = i;
+            if(p < 0) continue;
+            if(p != row) {
+                BigInteger[] tmp = a[p];
+                a[p] = a[row];
+                a[row] = tmp;
+                swaps[0]++;
+            }
+
+            BigInteger[] pivotRow = a[row];
+            BigInteger pivot = pivotRow[col], divisor = previous;
+            int pivotIndex = row, pivotColumn = col;
+            ParallelRows.forEach(reduce ? 0 : row+1, m, n - col, i -> {
+                if(i == pivotIndex) return;
+                BigInteger[] r = a[i];
+                BigInteger factor = r[pivotColumn];
+                // The pivot row is zero left of the pivot, so rows below are too.
+                // Entries left of the pivot in rows above are only scaled
+                for(int j=i<pivotIndex ? 0 : pivotColumn+1; j<n; j++) {
+                    if(j == pivotColumn) continue;
+                    BigInteger x = r[j].multiply(pivot);
+                    if(factor.signum() != 0 && pivotRow[j].signum() != 0)
+                        x = x.subtract(factor.multiply(pivotRow[j]));
+                    r[j] = x.divide(divisor);
+                }
+                r[pivotColumn] = BigInteger.ZERO;
+            });
+            previous = pivot;
+            row++;
+        }
+        return row;
+    }
+
+    /**
+     * Converts the given integer matrix back to rationals.
+     *
+     * @param a The integer matrix
+     * @param pivotColumns The number of leading columns which may contain pivots
+     * @param normalize Whether to divide each row by its pivot
+     * @return The rational matrix
+     */
+    static Number[][] toRationalRows(BigInteger[][] a, int pivotColumns, boolean normalize) {
+        Number[][] rows = new Number[a.length][a[0].length];
+        for(int i=0; i<a.length; i++) {
+            BigInteger pivot = BigInteger.ONE;
+            if(normalize)
+                for(int j=0; j<pivotColumns; j++)
+                    if(a[i][j].signum() != 0) {
+                        pivot = a[i][j];
+                        break;
+                    }
+            for(int j=0; j<rows[i].length; j++)
+                rows[i][j] = new Rational(a[i][j], pivot);
+        }
+        return rows;
+    }
+}
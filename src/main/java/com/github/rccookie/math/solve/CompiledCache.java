@@ -0,0 +1,61 @@
+package com.github.rccookie.math.solve;
+
+import java.util.function.Function;
+
+import com.github.rccookie.math.expr.Dependencies;
+import com.github.rccookie.math.expr.Expression;
+import com.github.rccookie.math.expr.SymbolLookup;
+
+/**
+ * Holds the compiled form of a polynom, so that evaluating it repeatedly does not
+ * evaluate its coefficients again each time. The compiled form is reused as long as
+ * the symbols the coefficients depend on and the precision do not change.
+ *
+ * @param <T> The type of the compiled form
+ */
+final class CompiledCache<T> {
+
+    private final Expression[] coefficients;
+    private final Function<SymbolLookup, T> compiler;
+
+    /**
+     * Collected on first use, most polynoms are only intermediate results.
+     */
+    private Dependencies dependencies = null;
+    private volatile Entry<T> entry = null;
+
+    /**
+     * Creates a new, empty cache.
+     *
+     * @param coefficients The coefficients the compiled form is computed from
+     * @param compiler Compiles the polynom with the given lookup
+     */
+    CompiledCache(Expression[] coefficients, Function<SymbolLookup, T> compiler) {
+        this.coefficients = coefficients;
+        this.compiler = compiler;
+    }
+
+
+    /**
+     * Returns the compiled form for the given lookup, compiling it if it has not been
+     * compiled yet or may have changed since.
+     *
+     * @param lookup The lookup to evaluate the coefficients with
+     * @return The compiled form
+     */
+    T get(SymbolLookup lookup) {
+        Dependencies dependencies = this.dependencies;
+        if(dependencies == null)
+            this.dependencies = dependencies = new Dependencies(coefficients);
+        Object snapshot = dependencies.snapshot(lookup);
+        Entry<T> entry = this.entry;
+        if(entry != null && entry.snapshot.equals(snapshot))
+            return entry.compiled;
+        T compiled = compiler.apply(lookup);
+        this.entry = new Entry<>(snapshot, compiled);
+        return compiled;
+    }
+
+
+    private record Entry<T>(Object snapshot, T compiled) { }
+}
@@ -0,0 +1,208 @@
+package com.github.rccookie.math.solve;
+
+import com.github.rccookie.math.Complex;
+import com.github.rccookie.math.Dual;
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.SimpleNumber;
+import com.github.rccookie.math.expr.Budget;
+import com.github.rccookie.math.expr.Expression;
+import com.github.rccookie.math.expr.UnsupportedMathOperationException;
+import com.github.rccookie.util.Arguments;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * A polynom in a single indeterminant whose coefficients have already been evaluated,
+ * for evaluating the polynom many times. The polynom is evaluated using Horner's
+ * scheme, <code>c0 + x(c1 + x(c2 + ...))</code>, which takes one multiplication and
+ * one addition per coefficient, instead of raising x to the power of each term.
+ *
+ * <p>If all coefficients are real, the polynom can also be evaluated on doubles
+ * directly, without converting each value to a number and back.</p>
+ */
+public final class CompiledPolynom {
+
+    /**
+     * The coefficients, in order of ascending power. Never empty.
+     */
+    private final Number[] coefficients;
+    /**
+     * The coefficients as doubles, or <code>null</code> if not all coefficients are real.
+     */
+    @Nullable
+    private final double[] doubleCoefficients;
+
+    /**
+     * Creates a new compiled polynom.
+     *
+     * @param coefficients The evaluated coefficients, in order of ascending power
+     */
+    public CompiledPolynom(Number... coefficients) {
+        Arguments.deepCheckNull(coefficients);
+        this.coefficients = coefficients.length == 0 ? new Number[] { Number.ZERO() } : coefficients.clone();
+        this.doubleCoefficients = toDoubles(this.coefficients);
+    }
+
+    @Nullable
+    private static double[] toDoubles(Number[] coefficients) {
+        double[] doubles = new double[coefficients.length];
+        for(int i=0; i<doubles.length; i++) {
+            if(!(coefficients[i] instanceof SimpleNumber c))
+                return null;
+            doubles[i] = c.toDouble();
+        }
+        return doubles;
+    }
+
+
+    @Override
+    public String toString() {
+        return new SimplePolynom(coefficientExpressions()).toString();
+    }
+
+    /**
+     * Returns the degree of the polynom, assuming that the highest coefficient is not zero.
+     *
+     * @return The degree of the polynom
+     */
+    public int degree() {
+        return coefficients.length - 1;
+    }
+
+    /**
+     * Returns the coefficient of the given power of the indeterminant.
+     *
+     * @param n The power
+     * @return The coefficient of <code>x^n</code>
+     */
+    public Number coefficient(int n) {
+        Arguments.checkRange(n, 0, null);
+        return n < coefficients.length ? coefficients[n] : Number.ZERO();
+    }
+
+    /**
+     * Evaluates the polynom at the given position.
+     *
+     * @param x The value of the indeterminant
+     * @return The value of the polynom at x
+     */
+    public Number evaluate(Number x) {
+        if(!(x instanceof SimpleNumber || x instanceof Complex || x instanceof Dual)) {
+            // Horner's scheme needs x(c + ...) = cx + ..., which does not hold for i.e. vectors
+            Number res = coefficients[0];
+            for(int i=1; i<coefficients.length; i++)
+                res = res.add(coefficients[i].multiply(x.raise(i)));
+            return res;
+        }
+        Number res = coefficients[coefficients.length - 1];
+        for(int i=coefficients.length-2; i>=0; i--)
+            res = res.multiply(x).add(coefficients[i]);
+        return res;
+    }
+
+    /**
+     * Evaluates the polynom at each of the given positions.
+     *
+     * @param xs The values of the indeterminant
+     * @return The value of the polynom at each position, at the same index
+     */
+    public Number[] evaluateAll(Number[] xs) {
+        Number[] results = new Number[xs.length];
+        for(int i=0; i<xs.length; i++) {
+            Budget.checkpoint();
+            results[i] = evaluate(xs[i]);
+        }
+        return results;
+    }
+
+    /**
+     * Returns whether all coefficients of this polynom are real, so that it can be
+     * evaluated on doubles using {@link #evaluate(double)}.
+     *
+     * @return Whether the polynom has only real coefficients
+     */
+    public boolean isReal() {
+        return doubleCoefficients != null;
+    }
+
+    /**
+     * Evaluates the polynom at the given position, in double precision.
+     *
+     * @param x The value of the indeterminant
+     * @return The value of the polynom at x
+     * @throws UnsupportedMathOperationException If the polynom is not {@link #isReal() real}
+     */
+    public double evaluate(double x) {
+        double[] coefficients = doubleCoefficients();
+        double res = coefficients[coefficients.length - 1];
+        for(int i=coefficients.length-2; i>=0; i--)
+            res = res * x + coefficients[i];
+        return res;
+    }
+
+    /**
+     * Evaluates the polynom at each of the given positions, in double precision.
+     *
+     * @param xs The values of the indeterminant
+     * @return The value of the polynom at each position, at the same index
+     * @throws UnsupportedMathOperationException If the polynom is not {@link #isReal() real}
+     */
+    public double[] evaluateAll(double[] xs) {
+        double[] coefficients = doubleCoefficients();
+        double[] results = new double[xs.length];
+        for(int i=0; i<xs.length; i++) {
+            Budget.checkpoint();
+            double res = coefficients[coefficients.length - 1];
+            for(int j=coefficients.length-2; j>=0; j--)
+                res = res * xs[i] + coefficients[j];
+            results[i] = res;
+        }
+        return results;
+    }
+
+    private double[] doubleCoefficients() {
+        if(doubleCoefficients == null)
+            throw new UnsupportedMathOperationException("Polynoms with non-real coefficients cannot be evaluated on doubles");
+        return doubleCoefficients;
+    }
+
+    /**
+     * Evaluates the polynom and its first n derivatives at the given position, in a
+     * single pass of Horner's scheme. Each derivative is updated from the next lower
+     * one while the coefficients are processed, which takes about <code>n+1</code>
+     * times as long as evaluating the polynom only, instead of evaluating n derivative
+     * polynoms separately.
+     *
+     * @param x The value of the indeterminant
+     * @param n The number of derivatives to compute
+     * @return The value of the polynom at x, followed by the values of its derivatives
+     */
+    public Number[] evaluateWithDerivatives(Number x, int n) {
+        Arguments.checkRange(n, 0, null);
+        Number[] results = new Number[n + 1];
+        results[0] = coefficients[coefficients.length - 1];
+        for(int j=1; j<=n; j++)
+            results[j] = Number.ZERO();
+
+        for(int i=coefficients.length-2; i>=0; i--) {
+            // The j-th entry is the j-th derivative divided by j!
+            for(int j=Math.min(n, coefficients.length-1-i); j>=1; j--)
+                results[j] = results[j].multiply(x).add(results[j-1]);
+            results[0] = results[0].multiply(x).add(coefficients[i]);
+        }
+
+        Number factorial = Number.ONE();
+        for(int j=2; j<=n; j++) {
+            factorial = factorial.multiply(j);
+            results[j] = results[j].multiply(factorial);
+        }
+        return results;
+    }
+
+    private Expression[] coefficientExpressions() {
+        Expression[] expressions = new Expression[coefficients.length];
+        for(int i=0; i<expressions.length; i++)
+            expressions[i] = Expression.of(coefficients[i]);
+        return expressions;
+    }
+}
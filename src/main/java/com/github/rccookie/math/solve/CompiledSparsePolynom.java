@@ -0,0 +1,86 @@
+package com.github.rccookie.math.solve;
+
+import com.github.rccookie.math.Complex;
+import com.github.rccookie.math.Dual;
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.SimpleNumber;
+
+/**
+ * A {@link SparsePolynom} whose coefficients have already been evaluated, for
+ * evaluating the polynom many times. The polynom is evaluated with a recursive
+ * Horner's scheme: the terms are sorted lexicographically, so the terms with the
+ * same exponents in the first i indeterminants are adjacent and grouped by their
+ * exponent of the next indeterminant, which is factored out like in the single
+ * indeterminant case.
+ */
+final class CompiledSparsePolynom {
+
+    private final int indeterminantCount;
+    private final int bits;
+    private final long[] monomials;
+    private final Number[] coefficients;
+
+    CompiledSparsePolynom(int indeterminantCount, int bits, long[] monomials, Number[] coefficients) {
+        this.indeterminantCount = indeterminantCount;
+        this.bits = bits;
+        this.monomials = monomials;
+        this.coefficients = coefficients;
+    }
+
+
+    /**
+     * Evaluates the polynom at the given position.
+     *
+     * @param x The value of each indeterminant
+     * @return The value of the polynom at x
+     */
+    Number evaluate(Number[] x) {
+        if(monomials.length == 0)
+            return Number.ZERO();
+        for(Number v : x) {
+            if(!(v instanceof SimpleNumber || v instanceof Complex || v instanceof Dual)) {
+                // Horner's scheme needs commutative multiplication, see CompiledPolynom
+                Number res = null;
+                for(int i=0; i<monomials.length; i++) {
+                    Number term = coefficients[i];
+                    for(int j=0; j<indeterminantCount; j++) {
+                        int exp = exponent(monomials[i], j);
+                        if(exp != 0) term = term.multiply(x[j].raise(exp));
+                    }
+                    res = res == null ? term : res.add(term);
+                }
+                return res;
+            }
+        }
+        return evaluate(x, 0, monomials.length, 0);
+    }
+
+    /**
+     * Evaluates the terms in the given range, which have the same exponents for all
+     * indeterminants before the given one.
+     */
+    private Number evaluate(Number[] x, int from, int to, int indeterminant) {
+        if(indeterminant == indeterminantCount)
+            return coefficients[from]; // All exponents equal, so there is only one term
+        Number res = null;
+        int last = 0;
+        for(int i=from; i<to;) {
+            int exp = exponent(monomials[i], indeterminant);
+            int j = i + 1;
+            while(j < to && exponent(monomials[j], indeterminant) == exp) j++;
+            Number group = evaluate(x, i, j, indeterminant + 1);
+            res = res == null ? group : res.multiply(power(x[indeterminant], last - exp)).add(group);
+            last = exp;
+            i = j;
+        }
+        return last == 0 ? res : res.multiply(power(x[indeterminant], last));
+    }
+
+    private static Number power(Number x, int exp) {
+        return exp == 1 ? x : x.raise(exp);
+    }
+
+    private int exponent(long monomial, int indeterminant) {
+        return (int) ((monomial >>> (bits * (indeterminantCount - 1 - indeterminant))) & SparsePolynom.mask(bits));
+    }
+}
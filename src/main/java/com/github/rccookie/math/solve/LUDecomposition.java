@@ -0,0 +1,340 @@
+package com.github.rccookie.math.solve;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+import com.github.rccookie.math.Complex;
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.math.SimpleNumber;
+import com.github.rccookie.math.expr.Budget;
+import com.github.rccookie.util.Arguments;
+
+/**
+ * The LU decomposition <code>PA = LU</code> of a square matrix, with a permutation
+ * matrix P, a lower triangular matrix L with ones on the diagonal, and an upper
+ * triangular matrix U. The rows are exchanged such that the pivot of each step has
+ * the largest absolute value in its column (partial pivoting), which bounds the
+ * factors in L by 1 and keeps the rounding errors of imprecise entries small. If
+ * the entries are not real or complex numbers (i.e. symbolic), any non-zero pivot
+ * is used.
+ *
+ * <p>Imprecise rationals are exact fractions internally, whose numerators and
+ * denominators would grow with every step like for precise ones. Therefore, if all
+ * entries are real and any of them is imprecise, the decomposition is computed with
+ * decimals rounded to a few digits more than the current
+ * {@link Rational#getPrecision() precision}, like floating point numbers.</p>
+ *
+ * <p>The decomposition takes <code>n³/3</code> multiplications. Each step updates
+ * the remaining rows independently, in parallel for large matrices.</p>
+ */
+public final class LUDecomposition {
+
+    /**
+     * L below the diagonal, U on and above the diagonal. <code>null</code> until needed
+     * if the decomposition was computed with decimals.
+     */
+    private Number[][] lu;
+    /**
+     * L and U as decimals, or <code>null</code> if the entries are not imprecise real numbers.
+     */
+    private final BigDecimal[][] decimals;
+    /**
+     * The context to compute with decimals.
+     */
+    private final MathContext context;
+    /**
+     * The row of the input matrix at each row of the decomposition.
+     */
+    private final int[] permutation;
+    /**
+     * Whether the permutation consists of an odd number of swaps.
+     */
+    private boolean oddPermutation = false;
+    /**
+     * Whether a column without non-zero pivot was found.
+     */
+    private boolean singular = false;
+
+    /**
+     * Decomposes the given square matrix.
+     *
+     * @param matrix The rows of the matrix
+     */
+    public LUDecomposition(Number[][] matrix) {
+        int n = Arguments.checkNull(matrix, "matrix").length;
+        for(Number[] row : matrix)
+            if(row.length != n)
+                throw new IllegalArgumentException("Square matrix expected");
+        permutation = new int[n];
+        for(int i=0; i<n; i++) permutation[i] = i;
+        context = new MathContext(Rational.getPrecision() + 10);
+
+        if(isImpreciseReal(matrix)) {
+            lu = null;
+            decimals = new BigDecimal[n][n];
+            for(int i=0; i<n; i++) for(int j=0; j<n; j++)
+                decimals[i][j] = toDecimal((Rational) matrix[i][j]);
+            decomposeDecimals();
+        }
+        else {
+            decimals = null;
+            lu = new Number[n][];
+            for(int i=0; i<n; i++)
+                lu[i] = matrix[i].clone();
+            decompose(isNumeric(matrix));
+        }
+    }
+
+    private void decompose(boolean numeric) {
+        int n = lu.length;
+        for(int k=0; k<n; k++) {
+            Budget.checkpoint();
+
+            int p = -1;
+            double max = 0;
+            for(int i=k; i<n; i++) {
+                if(lu[i][k].isZero()) continue;
+                if(!numeric) {
+                    p = i;
+                    break;
+                }
+                double abs = lu[i][k].abs().toDouble();
+                if(p < 0 || abs > max) {
+                    p = i;
+                    max = abs;
+                }
+            }
+            if(p < 0) {
+                // Nothing to eliminate in this column, U has a zero on the diagonal
+                singular = true;
+                continue;
+            }
+            swap(lu, p, k);
+
+            Number[] pivotRow = lu[k];
+            Number pivot = pivotRow[k];
+            int step = k;
+            ParallelRows.forEach(k+1, n, n - k, i -> {
+                Number[] row = lu[i];
+                if(row[step].isZero()) return;
+                Number factor = row[step].divide(pivot);
+                row[step] = factor;
+                for(int j=step+1; j<n; j++)
+                    row[j] = row[j].subtract(factor.multiply(pivotRow[j]));
+            });
+        }
+    }
+
+    private void decomposeDecimals() {
+        int n = decimals.length;
+        for(int k=0; k<n; k++) {
+            Budget.checkpoint();
+
+            int p = -1;
+            BigDecimal max = BigDecimal.ZERO;
+            for(int i=k; i<n; i++) {
+                BigDecimal abs = decimals[i][k].abs();
+                if(abs.compareTo(max) > 0) {
+                    p = i;
+                    max = abs;
+                }
+            }
+            if(p < 0) {
+                singular = true;
+                continue;
+            }
+            swap(decimals, p, k);
+
+            BigDecimal[] pivotRow = decimals[k];
+            BigDecimal pivot = pivotRow[k];
+            int step = k;
+            ParallelRows.forEach(k+1, n, n - k, i -> {
+                BigDecimal[] row = decimals[i];
+                if(row[step].signum() == 0) return;
+                BigDecimal factor = row[step].divide(pivot, context);
+                row[step] = factor;
+                for(int j=step+1; j<n; j++)
+                    if(pivotRow[j].signum() != 0)
+                        row[j] = row[j].subtract(factor.multiply(pivotRow[j], context), context);
+            });
+        }
+    }
+
+    private void swap(Object[] rows, int p, int k) {
+        if(p == k) return;
+        Object row = rows[p];
+        rows[p] = rows[k];
+        rows[k] = row;
+        int index = permutation[p];
+        permutation[p] = permutation[k];
+        permutation[k] = index;
+        oddPermutation = !oddPermutation;
+    }
+
+    private static boolean isImpreciseReal(Number[][] matrix) {
+        boolean imprecise = false;
+        for(Number[] row : matrix) {
+            for(Number x : row) {
+                if(!(x instanceof Rational r)) return false;
+                imprecise |= !r.precise;
+            }
+        }
+        return imprecise;
+    }
+
+    private static boolean isNumeric(Number[][] matrix) {
+        for(Number[] row : matrix)
+            for(Number x : row)
+                if(!(x instanceof SimpleNumber || x instanceof Complex)) return false;
+        return true;
+    }
+
+    private BigDecimal toDecimal(Rational x) {
+        if(x.d.equals(BigInteger.ONE))
+            return new BigDecimal(x.n);
+        return new BigDecimal(x.n).divide(new BigDecimal(x.d), context);
+    }
+
+    private static Number toNumber(BigDecimal x) {
+        return new Rational(x, 0, false, false);
+    }
+
+    /**
+     * Returns L and U as numbers, converting the decimals if needed.
+     */
+    private synchronized Number[][] lu() {
+        if(lu == null) {
+            int n = decimals.length;
+            Number[][] lu = new Number[n][n];
+            for(int i=0; i<n; i++) for(int j=0; j<n; j++)
+                lu[i][j] = toNumber(decimals[i][j]);
+            this.lu = lu;
+        }
+        return lu;
+    }
+
+
+    /**
+     * Returns the size of the decomposed matrix.
+     *
+     * @return The number of rows and columns
+     */
+    public int size() {
+        return permutation.length;
+    }
+
+    /**
+     * Returns whether the decomposed matrix is singular, that is it has no inverse.
+     *
+     * @return Whether the determinant is zero
+     */
+    public boolean isSingular() {
+        return singular;
+    }
+
+    /**
+     * Returns the determinant of the decomposed matrix, the product of the diagonal
+     * of U, negated for odd permutations.
+     *
+     * @return The determinant
+     */
+    public Number determinant() {
+        if(singular) return Number.ZERO();
+        Number det;
+        if(decimals != null) {
+            BigDecimal d = decimals[0][0];
+            for(int i=1; i<decimals.length; i++)
+                d = d.multiply(decimals[i][i], context);
+            det = toNumber(d);
+        }
+        else {
+            det = lu[0][0];
+            for(int i=1; i<lu.length; i++)
+                det = det.multiply(lu[i][i]);
+        }
+        return oddPermutation ? det.negate() : det;
+    }
+
+    /**
+     * Solves <code>AX = B</code> by forward and back substitution.
+     *
+     * @param b The rows of the right side, with as many rows as the decomposed matrix
+     * @return The rows of X
+     * @throws ArithmeticException If the decomposed matrix is singular
+     */
+    public Number[][] solve(Number[][] b) {
+        if(Arguments.checkNull(b, "b").length != permutation.length)
+            throw new IllegalArgumentException("Right side must have the same number of rows as the matrix");
+        if(singular)
+            throw new ArithmeticException("Matrix is singular");
+        int n = permutation.length, m = n == 0 ? 0 : b[0].length;
+
+        if(decimals != null && isReal(b)) {
+            BigDecimal[][] x = new BigDecimal[n][m];
+            for(int i=0; i<n; i++) for(int j=0; j<m; j++)
+                x[i][j] = toDecimal((Rational) b[permutation[i]][j]);
+            // Ly = Pb, then Ux = y, column by column of the right side in parallel
+            ParallelRows.forEach(0, m, n * n, j -> {
+                for(int i=0; i<n; i++) {
+                    BigDecimal sum = x[i][j];
+                    for(int k=0; k<i; k++)
+                        if(decimals[i][k].signum() != 0) sum = sum.subtract(decimals[i][k].multiply(x[k][j], context), context);
+                    x[i][j] = sum;
+                }
+                for(int i=n-1; i>=0; i--) {
+                    BigDecimal sum = x[i][j];
+                    for(int k=i+1; k<n; k++)
+                        if(decimals[i][k].signum() != 0) sum = sum.subtract(decimals[i][k].multiply(x[k][j], context), context);
+                    x[i][j] = sum.divide(decimals[i][i], context);
+                }
+            });
+            Number[][] result = new Number[n][m];
+            for(int i=0; i<n; i++) for(int j=0; j<m; j++)
+                result[i][j] = toNumber(x[i][j]);
+            return result;
+        }
+
+        Number[][] lu = lu();
+        Number[][] x = new Number[n][];
+        for(int i=0; i<n; i++)
+            x[i] = b[permutation[i]].clone();
+        ParallelRows.forEach(0, m, n * n, j -> {
+            for(int i=0; i<n; i++) {
+                Number sum = x[i][j];
+                for(int k=0; k<i; k++)
+                    if(!lu[i][k].isZero()) sum = sum.subtract(lu[i][k].multiply(x[k][j]));
+                x[i][j] = sum;
+            }
+            for(int i=n-1; i>=0; i--) {
+                Number sum = x[i][j];
+                for(int k=i+1; k<n; k++)
+                    if(!lu[i][k].isZero()) sum = sum.subtract(lu[i][k].multiply(x[k][j]));
+                x[i][j] = sum.divide(lu[i][i]);
+            }
+        });
+        return x;
+    }
+
+    private static boolean isReal(Number[][] b) {
+        for(Number[] row : b)
+            for(Number x : row)
+                if(!(x instanceof Rational)) return false;
+        return true;
+    }
+
+    /**
+     * Returns the inverse of the decomposed matrix, by solving <code>AX = I</code>.
+     *
+     * @return The rows of the inverse
+     * @throws ArithmeticException If the decomposed matrix is singular
+     */
+    public Number[][] inverse() {
+        int n = permutation.length;
+        Number[][] identity = new Number[n][n];
+        for(int i=0; i<n; i++) for(int j=0; j<n; j++)
+            identity[i][j] = i == j ? Number.ONE() : Number.ZERO();
+        return solve(identity);
+    }
+}
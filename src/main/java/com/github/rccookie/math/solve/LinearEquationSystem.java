@@ -1,5 +1,6 @@
 package com.github.rccookie.math.solve;
 
+import java.math.BigInteger;
 import java.util.Arrays;
 
 import com.github.rccookie.math.Matrix;
@@ -14,6 +15,12 @@ import org.jetbrains.annotations.Nullable;
 
 public final class LinearEquationSystem {
 
+    /**
+     * Minimum number of unknowns of exact square systems to solve modulo primes
+     * instead of by elimination.
+     */
+    static final int MULTI_MODULAR_THRESHOLD = 16;
+
     private final int unknowns;
     private final Number[][] rows;
 
@@ -24,7 +31,7 @@ public final class LinearEquationSystem {
         this.rows = new Number[rows.length][];
         for(int i=0; i<rows.length; i++) {
             this.rows[i] = Arguments.deepCheckNull(rows[i], "columns["+i+"]").clone();
-            if(rows[i].length != rows[1].length) throw new IllegalArgumentException("Rows have different number of elements");
+            if(rows[i].length != rows[0].length) throw new IllegalArgumentException("Rows have different number of elements");
         }
         if(rows[0].length == 0) throw new IllegalArgumentException("Rows cannot be empty");
         this.unknowns = Arguments.checkRange(unknowns, 1, rows[0].length + 1);
@@ -119,7 +126,7 @@ public final class LinearEquationSystem {
         int left = -1;
         for(Number[] row : rows) {
             int j = 0;
-            for(; j<=Math.min(left, unknowns); j++)
+            for(; j<=Math.min(left, unknowns-1); j++)
                 if(!row[j].isZero()) return false;
             while(j < unknowns && row[j].isZero()) j++;
             left = j;
@@ -176,6 +183,8 @@ public final class LinearEquationSystem {
 
     public LinearEquationSystem toEchelonForm() {
         if(isEchelonForm()) return this;
+        if(Bareiss.isExact(rows))
+            return eliminateFractionFree(false);
 
         LinearEquationSystem out = copy();
         int startI = 0;
@@ -213,6 +222,9 @@ public final class LinearEquationSystem {
     }
 
     public LinearEquationSystem toReducedEchelonForm() {
+        if(Bareiss.isExact(rows))
+            return isReducedEchelonForm() ? this : eliminateFractionFree(true);
+
         LinearEquationSystem echelon = toEchelonForm();
         if(echelon.isReducedEchelonForm(false)) return echelon;
 
@@ -245,6 +257,11 @@ public final class LinearEquationSystem {
     }
 
     public Result solve() {
+        if(rows.length == unknowns && unknowns >= MULTI_MODULAR_THRESHOLD && !isHomogenous() && Bareiss.isExact(rows)) {
+            Result result = solveMultiModular();
+            if(result != null) return result;
+        }
+
         LinearEquationSystem s = toReducedEchelonForm();
 
         Number[][] solutions = new Number[Math.max(1, rows[0].length - unknowns)][rows.length];
@@ -268,6 +285,39 @@ public final class LinearEquationSystem {
 
 
 
+    /**
+     * Transforms this system to (reduced) echelon form using the fraction-free
+     * elimination on the system scaled to integers. Requires all entries to be
+     * precise rationals.
+     */
+    private LinearEquationSystem eliminateFractionFree(boolean reduce) {
+        BigInteger[][] ints = Bareiss.toIntegerRows(rows);
+        Bareiss.eliminate(ints, unknowns, reduce);
+        return new LinearEquationSystem(true, unknowns, Bareiss.toRationalRows(ints, unknowns, reduce));
+    }
+
+    /**
+     * Solves this square system with {@link MultiModularSolver}, or returns
+     * <code>null</code> if it is singular. Requires all entries to be precise rationals.
+     */
+    private Result solveMultiModular() {
+        BigInteger[][] ints = Bareiss.toIntegerRows(rows);
+        int k = rows[0].length - unknowns;
+        BigInteger[][] a = new BigInteger[unknowns][], b = new BigInteger[unknowns][];
+        for(int i=0; i<unknowns; i++) {
+            a[i] = Arrays.copyOf(ints[i], unknowns);
+            b[i] = Arrays.copyOfRange(ints[i], unknowns, unknowns + k);
+        }
+        Number[][] x = MultiModularSolver.solve(a, b);
+        if(x == null) return null;
+
+        Number[][] solutions = new Number[k][unknowns];
+        for(int i=0; i<unknowns; i++)
+            for(int j=0; j<k; j++)
+                solutions[j][i] = x[i][j];
+        return new Result(solutions);
+    }
+
     private LinearEquationSystem copy() {
         return new LinearEquationSystem(true, unknowns, rows);
     }
@@ -0,0 +1,231 @@
+package com.github.rccookie.math.solve;
+
+import java.math.BigInteger;
+
+import com.github.rccookie.math.DoubleKernels;
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+
+/**
+ * Multiplication of matrices given as arrays of rows. The rows of the product are
+ * computed independently, in parallel for large matrices. Depending on the entries,
+ * one of three kernels is used:
+ * <ul>
+ *     <li>If all entries are imprecise and the current {@link Rational#getPrecision()
+ *     precision} does not exceed the precision of doubles, the product is computed
+ *     with doubles, in blocks that fit into the cache.</li>
+ *     <li>If all entries are rationals, each row of the left and each column of the
+ *     right matrix is scaled to integers with the least common multiple of its
+ *     denominators. Each entry of the product is then an integer dot product,
+ *     divided by the two scale factors, so the fraction is only reduced once per
+ *     entry instead of once per addition.</li>
+ *     <li>Otherwise, the entries are multiplied and added as numbers.</li>
+ * </ul>
+ */
+public final class MatrixMultiplication {
+
+    /**
+     * Maximum precision for which imprecise entries are multiplied as doubles, and
+     * stored as doubles by {@link com.github.rccookie.math.Matrix#compact()} and
+     * {@link com.github.rccookie.math.Vector#compact()}.
+     */
+    public static final int DOUBLE_PRECISION = 15;
+    /**
+     * Side length of the blocks of the double kernel. Three blocks of 64x64 doubles
+     * take 96 KiB, which fits into the L2 cache.
+     */
+    static final int BLOCK = 64;
+
+    /**
+     * Kinds of entries of a matrix, from the most general to the most specific.
+     */
+    private static final int GENERIC = 0, RATIONAL = 1, IMPRECISE = 2;
+
+    private MatrixMultiplication() { }
+
+
+    /**
+     * Multiplies the two given matrices.
+     *
+     * @param a The rows of the left matrix
+     * @param b The rows of the right matrix, with as many rows as the left matrix has columns
+     * @return The rows of the product
+     */
+    public static Number[][] multiply(Number[][] a, Number[][] b) {
+        if(a.length == 0 || b.length == 0)
+            return new Number[a.length][b.length == 0 ? 0 : b[0].length];
+        if(a[0].length != b.length)
+            throw new IllegalArgumentException("Left matrix must have as many columns as the right matrix has rows");
+
+        int kind = Math.min(kind(a), kind(b));
+        if(kind == IMPRECISE && Rational.getPrecision() <= DOUBLE_PRECISION) {
+            Number[][] product = multiplyDoubles(a, b);
+            if(product != null) return product;
+        }
+        if(kind >= RATIONAL)
+            return multiplyRationals(a, b);
+        return multiplyNumbers(a, b);
+    }
+
+    private static int kind(Number[][] m) {
+        boolean imprecise = true;
+        for(Number[] row : m) {
+            for(Number x : row) {
+                if(!(x instanceof Rational r)) return GENERIC;
+                imprecise &= !r.precise;
+            }
+        }
+        return imprecise ? IMPRECISE : RATIONAL;
+    }
+
+
+    private static Number[][] multiplyNumbers(Number[][] a, Number[][] b) {
+        int m = a.length, n = b.length, p = b[0].length;
+        Number[][] c = new Number[m][p];
+        ParallelRows.forEach(0, m, n * p, i -> {
+            Number[] row = a[i], result = c[i];
+            for(int j=0; j<p; j++) {
+                Number sum = row[0].multiply(b[0][j]);
+                for(int k=1; k<n; k++)
+                    sum = sum.add(row[k].multiply(b[k][j]));
+                result[j] = sum;
+            }
+        });
+        return c;
+    }
+
+
+    private static Number[][] multiplyRationals(Number[][] a, Number[][] b) {
+        int m = a.length, n = b.length, p = b[0].length;
+
+        BigInteger[] rowScales = new BigInteger[m];
+        boolean[] rowsPrecise = new boolean[m];
+        BigInteger[][] left = new BigInteger[m][n];
+        for(int i=0; i<m; i++) {
+            rowScales[i] = scale(a[i]);
+            rowsPrecise[i] = isPrecise(a[i]);
+            for(int k=0; k<n; k++)
+                left[i][k] = scaled((Rational) a[i][k], rowScales[i]);
+        }
+
+        // Store the right matrix column by column to compute dot products of arrays
+        BigInteger[] columnScales = new BigInteger[p];
+        boolean[] columnsPrecise = new boolean[p];
+        BigInteger[][] right = new BigInteger[p][n];
+        Number[] column = new Number[n];
+        for(int j=0; j<p; j++) {
+            for(int k=0; k<n; k++)
+                column[k] = b[k][j];
+            columnScales[j] = scale(column);
+            columnsPrecise[j] = isPrecise(column);
+            for(int k=0; k<n; k++)
+                right[j][k] = scaled((Rational) column[k], columnScales[j]);
+        }
+
+        Number[][] c = new Number[m][p];
+        ParallelRows.forEach(0, m, n * p, i -> {
+            BigInteger[] row = left[i];
+            for(int j=0; j<p; j++) {
+                BigInteger[] col = right[j];
+                BigInteger sum = BigInteger.ZERO;
+                for(int k=0; k<n; k++)
+                    if(row[k].signum() != 0 && col[k].signum() != 0)
+                        sum = sum.add(row[k].multiply(col[k]));
+                c[i][j] = new Rational(sum, rowScales[i].multiply(columnScales[j]), rowsPrecise[i] && columnsPrecise[j]);
+            }
+        });
+        return c;
+    }
+
+    private static BigInteger scale(Number[] rationals) {
+        BigInteger lcm = BigInteger.ONE;
+        for(Number x : rationals) {
+            BigInteger d = ((Rational) x).d;
+            if(!d.equals(BigInteger.ONE))
+                lcm = lcm.divide(lcm.gcd(d)).multiply(d);
+        }
+        return lcm;
+    }
+
+    private static BigInteger scaled(Rational x, BigInteger scale) {
+        return scale.equals(x.d) ? x.n : x.n.multiply(scale.divide(x.d));
+    }
+
+    private static boolean isPrecise(Number[] rationals) {
+        for(Number x : rationals)
+            if(!((Rational) x).precise) return false;
+        return true;
+    }
+
+
+    /**
+     * Multiplies the matrices with doubles, or returns <code>null</code> if an entry
+     * is out of the range of doubles.
+     */
+    private static Number[][] multiplyDoubles(Number[][] a, Number[][] b) {
+        int m = a.length, n = b.length, p = b[0].length;
+        double[] left = toDoubles(a), right = toDoubles(b);
+        if(left == null || right == null) return null;
+
+        double[] product = multiply(left, right, m, n, p);
+
+        Number[][] c = new Number[m][p];
+        for(int i=0; i<m; i++) {
+            for(int j=0; j<p; j++) {
+                double x = product[i * p + j];
+                if(!Double.isFinite(x)) return null;
+                c[i][j] = new Rational(x, false);
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Multiplies two matrices of doubles, stored row by row.
+     *
+     * @param left The entries of the left matrix
+     * @param right The entries of the right matrix
+     * @param m The number of rows of the left matrix
+     * @param n The number of columns of the left matrix, and rows of the right matrix
+     * @param p The number of columns of the right matrix
+     * @return The entries of the product, row by row
+     */
+    public static double[] multiply(double[] left, double[] right, int m, int n, int p) {
+        double[] product = new double[m * p];
+        // Each task computes a block of rows, accumulated over tiles of the inner
+        // dimension and the columns, so that the used tile of the right matrix stays
+        // in the cache while it is used for all rows of the block
+        int blocks = (m + BLOCK - 1) / BLOCK;
+        DoubleKernels kernels = DoubleKernels.get();
+        ParallelRows.forEach(0, blocks, (int) Math.min(Integer.MAX_VALUE, (long) BLOCK * n * p), block -> {
+            int i0 = block * BLOCK, i1 = Math.min(i0 + BLOCK, m);
+            for(int k0=0; k0<n; k0+=BLOCK) {
+                int k1 = Math.min(k0 + BLOCK, n);
+                for(int j0=0; j0<p; j0+=BLOCK) {
+                    int j1 = Math.min(j0 + BLOCK, p);
+                    for(int i=i0; i<i1; i++) {
+                        for(int k=k0; k<k1; k++) {
+                            double x = left[i * n + k];
+                            if(x != 0)
+                                kernels.axpy(x, right, k * p + j0, product, i * p + j0, j1 - j0);
+                        }
+                    }
+                }
+            }
+        });
+        return product;
+    }
+
+    private static double[] toDoubles(Number[][] m) {
+        int columns = m[0].length;
+        double[] values = new double[m.length * columns];
+        for(int i=0; i<m.length; i++) {
+            for(int j=0; j<columns; j++) {
+                double x = m[i][j].toDouble();
+                if(!Double.isFinite(x)) return null;
+                values[i * columns + j] = x;
+            }
+        }
+        return values;
+    }
+}
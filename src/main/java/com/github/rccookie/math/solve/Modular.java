@@ -0,0 +1,116 @@
+package com.github.rccookie.math.solve;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Arithmetic modulo primes below <code>2^31</code>, such that products of two residues
+ * fit into a long, and the rational reconstruction of results computed modulo a
+ * product of such primes.
+ */
+final class Modular {
+
+    private Modular() { }
+
+
+    /**
+     * Returns the residue of x modulo p.
+     */
+    static long reduce(BigInteger x, long p) {
+        return x.bitLength() < 63 ? Math.floorMod(x.longValue(), p) : x.mod(BigInteger.valueOf(p)).longValue();
+    }
+
+    /**
+     * Returns <code>x^e</code> modulo p.
+     */
+    static long pow(long x, long e, long p) {
+        long result = 1;
+        x %= p;
+        for(; e>0; e>>=1) {
+            if((e & 1) != 0) result = result * x % p;
+            x = x * x % p;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the inverse of x modulo p, using the extended euclidean algorithm. x
+     * must not be divisible by p.
+     */
+    static long inverse(long x, long p) {
+        long r0 = p, r1 = x, s0 = 0, s1 = 1;
+        while(r1 != 0) {
+            long q = r0 / r1, t = r0 - q * r1;
+            r0 = r1;
+            r1 = t;
+            t = s0 - q * s1;
+            s0 = s1;
+            s1 = t;
+        }
+        return Math.floorMod(s0, p);
+    }
+
+    /**
+     * Finds the fraction <code>u/v</code> with <code>|u|, v &lt;= bound</code> and
+     * <code>u = v·x</code> modulo the modulus, using the extended euclidean algorithm.
+     * The fraction is unique if <code>2·bound² &lt; modulus</code>, which holds for
+     * <code>bound = sqrt(modulus/2)</code>.
+     *
+     * @param x The residue, with <code>0 &lt;= x &lt; modulus</code>
+     * @return The numerator and the (positive) denominator, or <code>null</code> if
+     *         there is no such fraction
+     */
+    static BigInteger[] reconstruct(BigInteger x, BigInteger modulus, BigInteger bound) {
+        if(x.compareTo(bound) <= 0)
+            return new BigInteger[] { x, BigInteger.ONE };
+        BigInteger r0 = modulus, r1 = x, t0 = BigInteger.ZERO, t1 = BigInteger.ONE;
+        while(r1.compareTo(bound) > 0) {
+            BigInteger[] qr = r0.divideAndRemainder(r1);
+            r0 = r1;
+            r1 = qr[1];
+            BigInteger t = t0.subtract(qr[0].multiply(t1));
+            t0 = t1;
+            t1 = t;
+        }
+        if(t1.abs().compareTo(bound) > 0 || !r1.gcd(t1).equals(BigInteger.ONE))
+            return null;
+        return t1.signum() < 0 ? new BigInteger[] { r1.negate(), t1.negate() } : new BigInteger[] { r1, t1 };
+    }
+
+
+    /**
+     * The primes in an arithmetic sequence of candidates below <code>2^31</code>, from
+     * largest to smallest. Primes are only searched when needed.
+     */
+    static final class Primes {
+
+        private final List<Long> primes = new ArrayList<>();
+        private final long step;
+        /**
+         * The next candidate to test.
+         */
+        private long next;
+
+        /**
+         * Creates the sequence of primes among <code>first, first - step, first - 2·step, ...</code>.
+         */
+        Primes(long first, long step) {
+            this.next = first;
+            this.step = step;
+        }
+
+        /**
+         * Returns the prime with the given index, or 0 if the sequence has fewer primes.
+         */
+        synchronized long get(int index) {
+            while(primes.size() <= index) {
+                if(next < 3) return 0;
+                if(BigInteger.valueOf(next).isProbablePrime(40))
+                    primes.add(next);
+                next -= step;
+            }
+            return primes.get(index);
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.github.rccookie.math.solve;
+
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.math.expr.Budget;
+
+/**
+ * Solves square linear equation systems with integer coefficients exactly, without
+ * computing with growing integers. The system is solved modulo many primes below
+ * <code>2^31</code> with long arithmetic, in parallel for several primes. The
+ * solutions are combined with the chinese remainder theorem, and the rational
+ * solution is recovered from the combined residues by rational reconstruction.
+ *
+ * <p>By Hadamard's inequality, the numerators and denominators of the solution are at
+ * most the product H of the euclidean lengths of the rows, so that a modulus of
+ * <code>2H²</code> always suffices. Usually, much fewer primes are needed:
+ * after each round of primes the reconstruction is attempted, and the result is
+ * returned as soon as it satisfies the system.</p>
+ */
+final class MultiModularSolver {
+
+    /**
+     * Number of primes for which the system may be singular before it is considered
+     * singular over the rationals.
+     */
+    private static final int MAX_UNLUCKY_PRIMES = 3;
+    /**
+     * The primes below <code>2^31</code>, from largest to smallest.
+     */
+    private static final Modular.Primes PRIMES = new Modular.Primes((1L << 31) - 1, 2);
+
+    private MultiModularSolver() { }
+
+
+    /**
+     * Solves <code>AX = B</code>.
+     *
+     * @param a The square integer matrix A
+     * @param b The integer matrix B, with as many rows as A
+     * @return The rows of X, or <code>null</code> if A is singular
+     */
+    static Number[][] solve(BigInteger[][] a, BigInteger[][] b) {
+        int n = a.length, k = b[0].length;
+        int limit = 2 * hadamardBits(a, b) + 2 + 31;
+        int batch = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+
+        BigInteger modulus = BigInteger.ONE;
+        BigInteger[][] residues = null;
+        int unlucky = 0, nextPrime = 0, lastAttempt = 0;
+
+        while(modulus.bitLength() <= limit + 31) {
+            Budget.checkpoint();
+            long[] primes = new long[batch];
+            for(int i=0; i<batch; i++)
+                primes[i] = PRIMES.get(nextPrime++);
+
+            long[][][] solutions = new long[primes.length][][];
+            ParallelRows.forEach(0, primes.length, (int) Math.min(Integer.MAX_VALUE, (long) n * n * (n + k)),
+                    i -> solutions[i] = solve(a, b, primes[i]));
+
+            for(int i=0; i<primes.length; i++) {
+                if(solutions[i] == null) {
+                    // Either the prime divides the determinant, or the matrix is singular
+                    if(++unlucky == MAX_UNLUCKY_PRIMES) return null;
+                    continue;
+                }
+                if(residues == null) {
+                    residues = new BigInteger[n][k];
+                    for(int r=0; r<n; r++) for(int c=0; c<k; c++)
+                        residues[r][c] = BigInteger.valueOf(solutions[i][r][c]);
+                }
+                else combine(residues, modulus, solutions[i], primes[i]);
+                modulus = modulus.multiply(BigInteger.valueOf(primes[i]));
+            }
+
+            // Reconstruct only when the modulus grew significantly since the last attempt,
+            // so that the failed attempts take at most as long as the successful one
+            if(residues != null && (modulus.bitLength() >= 2 * lastAttempt || modulus.bitLength() > limit)) {
+                lastAttempt = modulus.bitLength();
+                Number[][] x = reconstruct(residues, modulus, a, b);
+                if(x != null) return x;
+            }
+        }
+        // Cannot happen for a non-singular matrix, the bound guarantees the reconstruction
+        return null;
+    }
+
+    /**
+     * Returns the number of bits of the Hadamard bound of all minors of the augmented
+     * matrix, the product of the lengths of its rows.
+     */
+    private static int hadamardBits(BigInteger[][] a, BigInteger[][] b) {
+        long bits = 0;
+        for(int i=0; i<a.length; i++) {
+            BigInteger sum = BigInteger.ZERO;
+            for(BigInteger x : a[i]) sum = sum.add(x.multiply(x));
+            for(BigInteger x : b[i]) sum = sum.add(x.multiply(x));
+            bits += sum.bitLength() / 2 + 1;
+        }
+        return (int) Math.min(Integer.MAX_VALUE / 4, bits);
+    }
+
+    /**
+     * Solves the system modulo the given prime with Gauss-Jordan elimination, or returns
+     * <code>null</code> if the matrix is singular modulo the prime.
+     */
+    private static long[][] solve(BigInteger[][] a, BigInteger[][] b, long p) {
+        int n = a.length, k = b[0].length, width = n + k;
+        long[][] m = new long[n][width];
+        for(int i=0; i<n; i++) {
+            for(int j=0; j<n; j++)
+                m[i][j] = Modular.reduce(a[i][j], p);
+            for(int j=0; j<k; j++)
+                m[i][n+j] = Modular.reduce(b[i][j], p);
+        }
+
+        for(int col=0; col<n; col++) {
+            if((col & 15) == 0) Budget.checkpoint();
+            int pivot = col;
+            while(pivot < n && m[pivot][col] == 0) pivot++;
+            if(pivot == n) return null;
+            long[] pivotRow = m[pivot];
+            m[pivot] = m[col];
+            m[col] = pivotRow;
+
+            long inverse = Modular.inverse(pivotRow[col], p);
+            for(int j=col; j<width; j++)
+                pivotRow[j] = pivotRow[j] * inverse % p;
+            for(int i=0; i<n; i++) {
+                long[] row = m[i];
+                long factor = row[col];
+                if(i == col || factor == 0) continue;
+                // row - factor * pivotRow, all terms non-negative and below 2^63
+                long negated = p - factor;
+                for(int j=col; j<width; j++)
+                    if(pivotRow[j] != 0)
+                        row[j] = (row[j] + negated * pivotRow[j]) % p;
+            }
+        }
+
+        long[][] x = new long[n][k];
+        for(int i=0; i<n; i++)
+            System.arraycopy(m[i], n, x[i], 0, k);
+        return x;
+    }
+
+    /**
+     * Updates the residues modulo the modulus to residues modulo <code>modulus·p</code>
+     * which are congruent to the given residues modulo p (Garner's algorithm).
+     */
+    private static void combine(BigInteger[][] residues, BigInteger modulus, long[][] x, long p) {
+        BigInteger bp = BigInteger.valueOf(p);
+        long modulusInverse = Modular.inverse(modulus.mod(bp).longValue(), p);
+        for(int i=0; i<residues.length; i++) {
+            for(int j=0; j<residues[i].length; j++) {
+                long current = residues[i][j].mod(bp).longValue();
+                long t = Math.floorMod(x[i][j] - current, p) * modulusInverse % p;
+                if(t != 0)
+                    residues[i][j] = residues[i][j].add(modulus.multiply(BigInteger.valueOf(t)));
+            }
+        }
+    }
+
+    /**
+     * Reconstructs the rational solution from the residues, and returns it if it
+     * satisfies the system, otherwise <code>null</code>.
+     */
+    private static Number[][] reconstruct(BigInteger[][] residues, BigInteger modulus, BigInteger[][] a, BigInteger[][] b) {
+        int n = residues.length, k = residues[0].length;
+        BigInteger bound = modulus.shiftRight(1).sqrt();
+
+        // All solutions share the determinant as denominator. Multiplying the residues
+        // with the denominators found so far makes most later denominators 1.
+        BigInteger denominator = BigInteger.ONE;
+        BigInteger[][] numerators = new BigInteger[n][k];
+        for(int i=0; i<n; i++) {
+            for(int j=0; j<k; j++) {
+                BigInteger[] fraction = Modular.reconstruct(residues[i][j].multiply(denominator).mod(modulus), modulus, bound);
+                if(fraction == null) return null;
+                // x[i][j] = fraction[0] / (fraction[1] * denominator)
+                if(!fraction[1].equals(BigInteger.ONE)) {
+                    for(int i2=0; i2<=i; i2++)
+                        for(int j2=0; j2<(i2 == i ? j : k); j2++)
+                            numerators[i2][j2] = numerators[i2][j2].multiply(fraction[1]);
+                    denominator = denominator.multiply(fraction[1]);
+                }
+                numerators[i][j] = fraction[0];
+            }
+        }
+
+        // Verify A·numerators = denominator·B
+        for(int r=0; r<n; r++) {
+            for(int c=0; c<k; c++) {
+                BigInteger sum = BigInteger.ZERO;
+                for(int j=0; j<n; j++)
+                    if(a[r][j].signum() != 0)
+                        sum = sum.add(a[r][j].multiply(numerators[j][c]));
+                if(!sum.equals(b[r][c].multiply(denominator))) return null;
+            }
+        }
+
+        Number[][] x = new Number[n][k];
+        for(int i=0; i<n; i++)
+            for(int j=0; j<k; j++)
+                x[i][j] = new Rational(numerators[i][j], denominator);
+        return x;
+    }
+}
@@ -0,0 +1,40 @@
+package com.github.rccookie.math.solve;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+import com.github.rccookie.math.expr.Parallel;
+
+/**
+ * Runs the row updates of an elimination step in parallel. The rows below (or above)
+ * the pivot row are updated independently of each other in each step, so large
+ * matrices distribute them over the common pool.
+ */
+final class ParallelRows {
+
+    /**
+     * Minimum number of entries updated in a step for which the rows are updated in parallel.
+     */
+    static final int THRESHOLD = 4096;
+
+    private ParallelRows() { }
+
+
+    /**
+     * Runs the given action for every row index in the given range. Each row may only
+     * be written by its own invocation.
+     *
+     * @param from The first row index, inclusive
+     * @param to The last row index, exclusive
+     * @param columns The number of entries updated per row
+     * @param action The row update to run
+     */
+    static void forEach(int from, int to, int columns, IntConsumer action) {
+        if((long) (to - from) * columns < THRESHOLD || to - from < 2 || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            for(int i=from; i<to; i++)
+                action.accept(i);
+            return;
+        }
+        Parallel.forEach(from, to, action);
+    }
+}
@@ -1,7 +1,9 @@
 package com.github.rccookie.math.solve;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -50,6 +52,51 @@ public interface Polynom extends Expression.Function {
 
     Polynom antiderivative(int indeterminant);
 
+    /**
+     * Evaluates the coefficients of this polynom once, for evaluating it many times
+     * (i.e. for many values or while searching roots).
+     *
+     * @param lookup The lookup to evaluate the coefficients with
+     * @return The polynom with evaluated coefficients
+     * @throws UnsupportedMathOperationException If the polynom has multiple indeterminants
+     */
+    default CompiledPolynom compile(SymbolLookup lookup) {
+        if(indeterminantCount() != 1)
+            throw new UnsupportedMathOperationException("Multi-indeterminant polynoms cannot be compiled");
+        Expression[] coefficients = coefficients();
+        Number[] values = new Number[coefficients.length];
+        for(int i=0; i<values.length; i++)
+            values[i] = coefficients[i].evaluate(lookup);
+        return new CompiledPolynom(values);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Polynoms in a single indeterminant with real coefficients are evaluated
+     * on doubles directly, see {@link CompiledPolynom#evaluateAll(double[])}.</p>
+     */
+    @Override
+    default double[] evaluateAll(SymbolLookup lookup, double[] inputs) {
+        if(indeterminantCount() == 1) {
+            CompiledPolynom compiled = compile(lookup);
+            if(compiled.isReal())
+                return compiled.evaluateAll(inputs);
+        }
+        return Function.super.evaluateAll(lookup, inputs);
+    }
+
+    /**
+     * Divides this polynom by the given polynom with remainder, such that
+     * <code>this = quotient * divisor + remainder</code>.
+     *
+     * @param divisor The polynom to divide by
+     * @return The quotient and the remainder, whose degree is less than the degree of the divisor
+     * @throws UnsupportedMathOperationException If one of the polynoms has multiple indeterminants
+     * @throws ArithmeticException If the divisor is zero
+     */
+    Polynom[] divideWithRemainder(Polynom divisor);
+
     default Polynom antiderivative() {
         Polynom antiderivative = this;
         for(int i=0, indCount=indeterminantCount(); i<indCount; i++)
@@ -151,56 +198,117 @@ public interface Polynom extends Expression.Function {
         String[] indeterminants = f.paramNames();
         if(indeterminants.length == 0) // Constant expression
             return new SimplePolynom(f.expr());
-        if(indeterminants.length != 1)
-            throw new UnsupportedMathOperationException("Multi-indeterminant polynoms not supported");
 
-        Map<Integer, Expression> coefficients = new HashMap<>();
-        parseSumComponent(f.expr(), lookup, indeterminants[0], coefficients);
+        Map<List<Integer>, Expression> coefficients = new HashMap<>();
+        parseSumComponent(f.expr(), lookup, indeterminants, coefficients);
+
+        if(indeterminants.length != 1) {
+            int[][] exponents = new int[coefficients.size()][];
+            Number[] coeffs = new Number[exponents.length];
+            int i = 0;
+            for(Map.Entry<List<Integer>, Expression> term : coefficients.entrySet()) {
+                exponents[i] = term.getKey().stream().mapToInt(e->e).toArray();
+                coeffs[i++] = term.getValue();
+            }
+            return SparsePolynom.of(indeterminants, exponents, coeffs);
+        }
 
-        int degree = coefficients.keySet().stream().mapToInt(i->i).max().orElse(-1);
+        int degree = coefficients.keySet().stream().mapToInt(e -> e.get(0)).max().orElse(-1);
         if(degree == -1) return new SimplePolynom(indeterminants[0]);
 
         Expression[] coeffs = new Expression[degree+1];
-        Arrays.setAll(coeffs, i -> coefficients.getOrDefault(i, Expression.ZERO()));
+        Arrays.setAll(coeffs, i -> coefficients.getOrDefault(List.of(i), Expression.ZERO()));
         return new SimplePolynom(indeterminants[0], coeffs);
     }
 
-    private static void parseSumComponent(Expression sum, SymbolLookup lookup, String indeterminant, Map<Integer, Expression> coefficients) {
+    /**
+     * Parses the summands of the given sum from left to right. Uses a stack instead
+     * of recursion, so long sums do not overflow the stack.
+     */
+    private static void parseSumComponent(Expression sum, SymbolLookup lookup, String[] indeterminants, Map<List<Integer>, Expression> coefficients) {
         // TODO: Make sum function analyzable and support sum expression
-        if(sum.name().equals("+")) {
-            parseSumComponent(((BinaryOperation) sum).a(), lookup, indeterminant, coefficients);
-            parseSumComponent(((BinaryOperation) sum).b(), lookup, indeterminant, coefficients);
+        Deque<Expression> pending = new ArrayDeque<>();
+        pending.push(sum);
+        while(!pending.isEmpty()) {
+            Expression x = pending.pop();
+            if(x.name().equals("+")) {
+                pending.push(((BinaryOperation) x).b());
+                pending.push(((BinaryOperation) x).a());
+            }
+            else parseProduct(x, lookup, indeterminants, coefficients);
         }
-        else parseProduct(sum, lookup, indeterminant, coefficients);
     }
 
-    private static void parseProduct(Expression product, SymbolLookup lookup, String indeterminant, Map<Integer, Expression> coefficients) {
+    private static void parseProduct(Expression product, SymbolLookup lookup, String[] indeterminants, Map<List<Integer>, Expression> coefficients) {
         List<Expression> factors = new ArrayList<>();
-        int exp = parseProductComponent(product, lookup, indeterminant, factors);
+        int[] exps = new int[indeterminants.length];
+        parseProductComponent(product, lookup, indeterminants, exps, factors);
+        List<Integer> exp = Arrays.stream(exps).boxed().toList();
         if(coefficients.containsKey(exp))
             factors.add(coefficients.get(exp));
         coefficients.put(exp, factors.stream().reduce(Expression::multiply).orElseGet(() -> Expression.of(Number.ONE())));
     }
 
-    private static int parseProductComponent(Expression product, SymbolLookup lookup, String indeterminant, List<Expression> factors) {
-        if(product.name().equals("*") || product.name().equals("implicit"))
-            return parseProductComponent(((BinaryOperation) product).a(), lookup, indeterminant, factors) +
-                   parseProductComponent(((BinaryOperation) product).b(), lookup, indeterminant, factors);
+    /**
+     * Adds the exponents of the indeterminants in the given product to exps, and
+     * collects all other factors, from left to right. Like sums, products are
+     * traversed using a stack.
+     */
+    private static void parseProductComponent(Expression product, SymbolLookup lookup, String[] indeterminants, int[] exps, List<Expression> factors) {
+        Deque<Expression> pending = new ArrayDeque<>();
+        pending.push(product);
+        while(!pending.isEmpty()) {
+            Expression x = pending.pop();
+            if(x.name().equals("*") || (x.name().equals("implicit") && !isFunctionCall(x, lookup))) {
+                pending.push(((BinaryOperation) x).b());
+                pending.push(((BinaryOperation) x).a());
+            }
+            else parseFactor(x, lookup, indeterminants, exps, factors);
+        }
+    }
 
-        if(product instanceof Symbol s && s.name().equals(indeterminant))
-            return 1;
+    private static void parseFactor(Expression product, SymbolLookup lookup, String[] indeterminants, int[] exps, List<Expression> factors) {
+        int index;
+        if(product instanceof Symbol s && (index = indexOf(indeterminants, s.name())) >= 0) {
+            exps[index]++;
+            return;
+        }
         if(product.name().equals("^") && ((BinaryOperation) product).a() instanceof Symbol s &&
-                s.name().equals(indeterminant)) {
+                (index = indexOf(indeterminants, s.name())) >= 0) {
             Number exp = ((BinaryOperation) product).b().evaluate(lookup);
             double dExp;
             if(!(exp instanceof SimpleNumber) || (dExp = exp.toDouble()) != (int) dExp || dExp < 0)
                 throw new MathExpressionSyntaxException("Illegal polynom expression: non-natural indeterminant exponent");
-            return (int) dExp;
+            exps[index] += (int) dExp;
+            return;
         }
-        if(containsIndeterminant(product, indeterminant))
-            throw new MathExpressionSyntaxException("Illegal polynom expression: indeterminant not allowed here");
+        for(String indeterminant : indeterminants)
+            if(containsIndeterminant(product, indeterminant))
+                throw new MathExpressionSyntaxException("Illegal polynom expression: indeterminant not allowed here");
         factors.add(product);
-        return 0;
+    }
+
+    private static int indexOf(String[] indeterminants, String name) {
+        for(int i=0; i<indeterminants.length; i++)
+            if(indeterminants[i].equals(name)) return i;
+        return -1;
+    }
+
+    /**
+     * Returns whether the given expression is an implicit operation that may call a
+     * function defined in the lookup, like <code>ln(x)</code> or <code>(x ln)(x)</code>,
+     * rather than being a multiplication.
+     */
+    private static boolean isFunctionCall(Expression expr, SymbolLookup lookup) {
+        return expr instanceof ImplicitOperation op && refersToFunction(op.a(), lookup);
+    }
+
+    private static boolean refersToFunction(Expression expr, SymbolLookup lookup) {
+        if(expr instanceof Symbol s)
+            return lookup.contains(s.name()) && lookup.get(s.name()) instanceof Function;
+        for(Expression operand : expr.operands())
+            if(refersToFunction(operand, lookup)) return true;
+        return false;
     }
 
     static boolean containsIndeterminant(Expression expr, String indeterminant) {
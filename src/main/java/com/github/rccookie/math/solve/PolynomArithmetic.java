@@ -0,0 +1,631 @@
+package com.github.rccookie.math.solve;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.github.rccookie.math.Complex;
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.math.SimpleNumber;
+import com.github.rccookie.math.expr.Budget;
+
+/**
+ * Dense arithmetic on the coefficients of polynoms in a single indeterminant, given
+ * in order of ascending power. All operations are exact.
+ *
+ * <p>Products of rational polynoms are computed on integer polynoms, by scaling both
+ * factors with the common denominator of their coefficients. Small products use the
+ * schoolbook method, medium ones Karatsuba's method with <code>O(n^1.58)</code>
+ * coefficient multiplications, and large ones a number theoretic transform modulo
+ * several primes, whose results are combined using the chinese remainder theorem.
+ * Complex polynoms are split into their real and imaginary part, and any other
+ * coefficients (i.e. symbolic ones) use the schoolbook method.</p>
+ *
+ * <p>Large divisions compute the inverse of the reversed divisor with Newton's
+ * iteration, so that the quotient is obtained with a few fast multiplications.</p>
+ */
+final class PolynomArithmetic {
+
+    /**
+     * Minimum length of both factors to use Karatsuba's method instead of the
+     * schoolbook method.
+     */
+    static final int KARATSUBA_THRESHOLD = 32;
+    /**
+     * Minimum length of both factors to use the number theoretic transform.
+     */
+    static final int NTT_THRESHOLD = 256;
+    /**
+     * Minimum length of the quotient to use Newton's iteration instead of long division.
+     */
+    static final int NEWTON_THRESHOLD = 32;
+
+    private PolynomArithmetic() { }
+
+
+    /**
+     * Returns the sum of the given polynoms.
+     */
+    static Number[] add(Number[] a, Number[] b) {
+        Number[] sum = resize(a, Math.max(a.length, b.length));
+        for(int i=0; i<b.length; i++)
+            sum[i] = sum[i].add(b[i]);
+        return sum;
+    }
+
+    /**
+     * Returns the difference of the given polynoms.
+     */
+    static Number[] subtract(Number[] a, Number[] b) {
+        Number[] difference = resize(a, Math.max(a.length, b.length));
+        for(int i=0; i<b.length; i++)
+            difference[i] = difference[i].subtract(b[i]);
+        return difference;
+    }
+
+    /**
+     * Returns the product of the given polynoms.
+     */
+    static Number[] multiply(Number[] a, Number[] b) {
+        if(isRational(a) && isRational(b))
+            return multiplyRational(a, b);
+        if(isComplex(a) && isComplex(b)) {
+            // Gauss' trick: three real products instead of four
+            Number[] ar = re(a), ai = im(a), br = re(b), bi = im(b);
+            Number[] rr = multiplyRational(ar, br), ii = multiplyRational(ai, bi);
+            Number[] mixed = subtract(subtract(multiplyRational(add(ar, ai), add(br, bi)), rr), ii);
+            Number[] product = new Number[rr.length];
+            for(int i=0; i<product.length; i++) {
+                SimpleNumber re = (SimpleNumber) rr[i].subtract(ii[i]), im = (SimpleNumber) mixed[i];
+                product[i] = im.isZero() ? re : new Complex(re, im);
+            }
+            return product;
+        }
+        Number[] product = new Number[a.length + b.length - 1];
+        for(int i=0; i<a.length; i++) {
+            Budget.checkpoint();
+            for(int j=0; j<b.length; j++) {
+                Number term = a[i].multiply(b[j]);
+                product[i+j] = product[i+j] == null ? term : product[i+j].add(term);
+            }
+        }
+        return product;
+    }
+
+    /**
+     * Divides a by b with remainder.
+     *
+     * @return The quotient and the remainder, whose degree is less than the degree of b
+     * @throws ArithmeticException If b is zero
+     */
+    static Number[][] divide(Number[] a, Number[] b) {
+        a = trim(a);
+        b = trim(b);
+        if(isZero(b))
+            throw new ArithmeticException("Division by zero");
+        if(a.length < b.length)
+            return new Number[][] { zeros(1), a };
+
+        int quotientLength = a.length - b.length + 1;
+        if(quotientLength >= NEWTON_THRESHOLD && isRational(a) && isRational(b)) {
+            Number[][] result = divideModular(a, b, quotientLength);
+            if(result != null) return result;
+        }
+        if(quotientLength >= NEWTON_THRESHOLD && (isRational(a) || isComplex(a)) && (isRational(b) || isComplex(b))) {
+            // The coefficients of the inverse grow quickly, but the multiplications are fast
+            Number[] quotient = reverse(multiply(reverse(a), inverse(reverse(b), quotientLength)), quotientLength);
+            Number[] remainder = subtract(a, multiply(b, quotient));
+            return new Number[][] { quotient, trim(resize(remainder, b.length - 1)) };
+        }
+
+        Number[] remainder = a.clone(), quotient = new Number[quotientLength];
+        Number lead = b[b.length - 1];
+        for(int i=quotientLength-1; i>=0; i--) {
+            Budget.checkpoint();
+            Number factor = remainder[i + b.length - 1].divide(lead);
+            quotient[i] = factor;
+            for(int j=0; j<b.length-1; j++)
+                remainder[i+j] = remainder[i+j].subtract(factor.multiply(b[j]));
+        }
+        return new Number[][] { quotient, trim(resize(remainder, b.length - 1)) };
+    }
+
+    /**
+     * Divides rational polynoms using Newton's iteration modulo several primes, where the
+     * coefficients don't grow and all multiplications use the number theoretic transform.
+     * The quotient is reconstructed from its residues, which succeeds if its coefficients
+     * are fractions with sufficiently small numerators and denominators, as is usually
+     * the case for exact divisions, and verified by multiplying it with the divisor.
+     *
+     * @return The quotient and the remainder, or <code>null</code> if the reconstruction failed
+     */
+    private static Number[][] divideModular(Number[] a, Number[] b, int quotientLength) {
+        if(2 * quotientLength - 1 > 1 << NttPrime.MAX_LOG_SIZE) return null;
+        BigInteger da = commonDenominator(a), db = commonDenominator(b);
+        BigInteger[] ia = scale(a, da), ib = scale(b, db);
+
+        // Only the highest coefficients determine the quotient
+        BigInteger[] revA = new BigInteger[quotientLength], revB = new BigInteger[Math.min(ib.length, quotientLength)];
+        for(int i=0; i<revA.length; i++)
+            revA[i] = ia[ia.length-1-i];
+        for(int i=0; i<revB.length; i++)
+            revB[i] = ib[ib.length-1-i];
+
+        // Numerator and denominator of each coefficient are assumed to be at most as large as the dividend
+        int bits = 2 * maxBitLength(ia) + 64;
+        List<NttPrime> primes = NttPrime.select(bits + 64);
+        if(primes == null) return null;
+        primes.removeIf(prime -> revB[0].mod(BigInteger.valueOf(prime.p)).signum() == 0);
+        BigInteger modulus = NttPrime.modulus(primes);
+        if(modulus.bitLength() <= bits) return null;
+
+        long[][] residues = new long[primes.size()][];
+        for(int k=0; k<residues.length; k++) {
+            Budget.checkpoint();
+            NttPrime prime = primes.get(k);
+            long[] revQ = prime.multiply(prime.reduce(revA, quotientLength), prime.inverse(prime.reduce(revB, revB.length), quotientLength), quotientLength);
+            long[] q = new long[quotientLength];
+            for(int i=0; i<quotientLength; i++)
+                q[i] = revQ[quotientLength-1-i];
+            residues[k] = q;
+        }
+        BigInteger[] signed = NttPrime.reconstruct(primes, residues, quotientLength);
+
+        BigInteger[] numerators = new BigInteger[quotientLength], denominators = new BigInteger[quotientLength];
+        BigInteger d = BigInteger.ONE, bound = modulus.shiftRight(1).sqrt();
+        for(int i=0; i<quotientLength; i++) {
+            BigInteger[] fraction = Modular.reconstruct(signed[i].signum() < 0 ? signed[i].add(modulus) : signed[i], modulus, bound);
+            if(fraction == null) return null;
+            numerators[i] = fraction[0];
+            denominators[i] = fraction[1];
+            d = d.divide(d.gcd(fraction[1])).multiply(fraction[1]);
+        }
+
+        // d·A = (d·Q)·B + d·R must hold with deg R < deg B
+        BigInteger[] dq = new BigInteger[quotientLength];
+        for(int i=0; i<quotientLength; i++)
+            dq[i] = numerators[i].multiply(d.divide(denominators[i]));
+        BigInteger[] product = multiply(dq, ib);
+        BigInteger[] remainder = new BigInteger[ia.length];
+        for(int i=0; i<ia.length; i++) {
+            remainder[i] = ia[i].multiply(d).subtract(product[i]);
+            if(i >= ib.length - 1 && remainder[i].signum() != 0) return null;
+        }
+
+        // a = A/da and b = B/db, so a = (Q·db/da)·b + R/da
+        boolean precise = isPrecise(a) && isPrecise(b);
+        BigInteger denominator = d.multiply(da);
+        Number[] quotient = new Number[quotientLength];
+        for(int i=0; i<quotientLength; i++)
+            quotient[i] = new Rational(dq[i].multiply(db), denominator, precise);
+        Number[] rest = new Number[Math.max(1, ib.length - 1)];
+        for(int i=0; i<rest.length; i++)
+            rest[i] = i < ib.length - 1 ? new Rational(remainder[i], denominator, precise) : Number.ZERO();
+        return new Number[][] { quotient, trim(rest) };
+    }
+
+    /**
+     * Returns the inverse of f modulo <code>x^n</code>, using Newton's iteration
+     * <code>g = g(2 - fg)</code>, which doubles the number of correct coefficients
+     * with every step.
+     */
+    private static Number[] inverse(Number[] f, int n) {
+        Number[] g = { f[0].invert() };
+        for(int k=1; k<n;) {
+            k = Math.min(2 * k, n);
+            Number[] e = resize(multiply(resize(f, Math.min(f.length, k)), g), k);
+            for(int i=0; i<k; i++)
+                e[i] = e[i].negate();
+            e[0] = e[0].add(Number.TWO());
+            g = resize(multiply(g, e), k);
+        }
+        return g;
+    }
+
+    /**
+     * Returns whether all coefficients of the given polynom are zero.
+     */
+    static boolean isZero(Number[] p) {
+        for(Number c : p)
+            if(!c.isZero()) return false;
+        return true;
+    }
+
+    /**
+     * Removes the zero coefficients of the highest powers, keeping at least one coefficient.
+     */
+    static Number[] trim(Number[] p) {
+        int length = p.length;
+        while(length > 1 && p[length-1].isZero()) length--;
+        return length == p.length ? p : Arrays.copyOf(p, length);
+    }
+
+
+    private static Number[] multiplyRational(Number[] a, Number[] b) {
+        BigInteger da = commonDenominator(a), db = commonDenominator(b);
+        BigInteger[] product = multiply(scale(a, da), scale(b, db));
+        BigInteger d = da.multiply(db);
+        boolean precise = isPrecise(a) && isPrecise(b);
+        Number[] result = new Number[product.length];
+        for(int i=0; i<result.length; i++)
+            result[i] = new Rational(product[i], d, precise);
+        return result;
+    }
+
+    /**
+     * Returns the product of the given integer polynoms.
+     */
+    static BigInteger[] multiply(BigInteger[] a, BigInteger[] b) {
+        int min = Math.min(a.length, b.length);
+        if(min < KARATSUBA_THRESHOLD)
+            return multiplySchoolbook(a, b);
+        if(min >= NTT_THRESHOLD) {
+            BigInteger[] product = multiplyNtt(a, b);
+            if(product != null) return product;
+        }
+        return multiplyKaratsuba(a, b);
+    }
+
+    private static BigInteger[] multiplySchoolbook(BigInteger[] a, BigInteger[] b) {
+        BigInteger[] product = new BigInteger[a.length + b.length - 1];
+        Arrays.fill(product, BigInteger.ZERO);
+        for(int i=0; i<a.length; i++) {
+            Budget.checkpoint();
+            if(a[i].signum() == 0) continue;
+            for(int j=0; j<b.length; j++)
+                product[i+j] = product[i+j].add(a[i].multiply(b[j]));
+        }
+        return product;
+    }
+
+    private static BigInteger[] multiplyKaratsuba(BigInteger[] a, BigInteger[] b) {
+        if(a.length < b.length) {
+            BigInteger[] t = a; a = b; b = t;
+        }
+        int half = (a.length + 1) / 2;
+        BigInteger[] product = new BigInteger[a.length + b.length - 1];
+        Arrays.fill(product, BigInteger.ZERO);
+
+        if(b.length <= half) {
+            // Unbalanced, multiply b with slices of a of the same length
+            for(int i=0; i<a.length; i+=b.length)
+                addShifted(product, multiply(Arrays.copyOfRange(a, i, Math.min(i + b.length, a.length)), b), i);
+            return product;
+        }
+
+        // (a1 x^h + a0)(b1 x^h + b0) = a1b1 x^2h + ((a0+a1)(b0+b1) - a0b0 - a1b1) x^h + a0b0
+        BigInteger[] a0 = Arrays.copyOf(a, half), a1 = Arrays.copyOfRange(a, half, a.length);
+        BigInteger[] b0 = Arrays.copyOf(b, half), b1 = Arrays.copyOfRange(b, half, b.length);
+        BigInteger[] low = multiply(a0, b0), high = multiply(a1, b1);
+        BigInteger[] mid = multiply(addInts(a0, a1), addInts(b0, b1));
+        for(int i=0; i<low.length; i++)
+            mid[i] = mid[i].subtract(low[i]);
+        for(int i=0; i<high.length; i++)
+            mid[i] = mid[i].subtract(high[i]);
+
+        addShifted(product, low, 0);
+        addShifted(product, mid, half);
+        addShifted(product, high, 2 * half);
+        return product;
+    }
+
+    /**
+     * Multiplies using the number theoretic transform modulo several primes, such that
+     * the product of the primes exceeds twice the largest possible coefficient.
+     *
+     * @return The product, or <code>null</code> if Karatsuba's method should be used instead
+     */
+    private static BigInteger[] multiplyNtt(BigInteger[] a, BigInteger[] b) {
+        int length = a.length + b.length - 1;
+        int size = Integer.highestOneBit(length - 1) << 1;
+        if(size > 1 << NttPrime.MAX_LOG_SIZE) return null;
+
+        // |c_k| <= min(len a, len b) * max|a| * max|b|, plus one bit for the sign
+        int bits = maxBitLength(a) + maxBitLength(b) + 33 - Integer.numberOfLeadingZeros(Math.min(a.length, b.length));
+        List<NttPrime> primes = NttPrime.select(bits);
+        // The reconstruction takes quadratic time in the number of primes, which
+        // outweighs the faster transform for few, but very large coefficients
+        if(primes == null || primes.size() > length / 32) return null;
+
+        long[][] residues = new long[primes.size()][];
+        for(int k=0; k<residues.length; k++) {
+            Budget.checkpoint();
+            NttPrime prime = primes.get(k);
+            long[] fa = prime.reduce(a, size), fb = prime.reduce(b, size);
+            prime.transform(fa, false);
+            prime.transform(fb, false);
+            for(int i=0; i<size; i++)
+                fa[i] = fa[i] * fb[i] % prime.p;
+            prime.transform(fa, true);
+            residues[k] = fa;
+        }
+        return NttPrime.reconstruct(primes, residues, length);
+    }
+
+    private static void addShifted(BigInteger[] target, BigInteger[] x, int shift) {
+        for(int i=0; i<x.length && i+shift<target.length; i++)
+            target[i+shift] = target[i+shift].add(x[i]);
+    }
+
+    private static BigInteger[] addInts(BigInteger[] a, BigInteger[] b) {
+        BigInteger[] sum = Arrays.copyOf(a, Math.max(a.length, b.length));
+        for(int i=0; i<sum.length; i++)
+            sum[i] = i >= a.length ? b[i] : i >= b.length ? a[i] : a[i].add(b[i]);
+        return sum;
+    }
+
+    private static int maxBitLength(BigInteger[] p) {
+        int bits = 0;
+        for(BigInteger c : p)
+            bits = Math.max(bits, c.bitLength());
+        return bits;
+    }
+
+    private static BigInteger commonDenominator(Number[] p) {
+        BigInteger d = BigInteger.ONE;
+        for(Number c : p) {
+            BigInteger cd = ((Rational) c).d;
+            d = d.divide(d.gcd(cd)).multiply(cd);
+        }
+        return d;
+    }
+
+    private static BigInteger[] scale(Number[] p, BigInteger d) {
+        BigInteger[] scaled = new BigInteger[p.length];
+        for(int i=0; i<p.length; i++) {
+            Rational r = (Rational) p[i];
+            scaled[i] = r.n.multiply(d.divide(r.d));
+        }
+        return scaled;
+    }
+
+    private static boolean isRational(Number[] p) {
+        for(Number c : p)
+            if(!(c instanceof Rational)) return false;
+        return true;
+    }
+
+    private static boolean isComplex(Number[] p) {
+        for(Number c : p)
+            if(!(c instanceof Rational || (c instanceof Complex z && z.re instanceof Rational && z.im instanceof Rational)))
+                return false;
+        return true;
+    }
+
+    private static boolean isPrecise(Number[] p) {
+        for(Number c : p)
+            if(!((Rational) c).precise) return false;
+        return true;
+    }
+
+    private static Number[] re(Number[] p) {
+        Number[] re = new Number[p.length];
+        for(int i=0; i<p.length; i++)
+            re[i] = p[i] instanceof Complex z ? z.re : p[i];
+        return re;
+    }
+
+    private static Number[] im(Number[] p) {
+        Number[] im = new Number[p.length];
+        for(int i=0; i<p.length; i++)
+            im[i] = p[i] instanceof Complex z ? z.im : Number.ZERO();
+        return im;
+    }
+
+    private static Number[] zeros(int length) {
+        Number[] zeros = new Number[length];
+        Arrays.fill(zeros, Number.ZERO());
+        return zeros;
+    }
+
+    private static Number[] resize(Number[] p, int length) {
+        Number[] resized = Arrays.copyOf(p, length);
+        for(int i=p.length; i<length; i++)
+            resized[i] = Number.ZERO();
+        return resized;
+    }
+
+    /**
+     * Returns the first n coefficients of p in reverse order, i.e. <code>x^(n-1) p(1/x)</code>.
+     */
+    private static Number[] reverse(Number[] p, int n) {
+        Number[] reversed = new Number[n];
+        for(int i=0; i<n; i++)
+            reversed[i] = n-1-i < p.length ? p[n-1-i] : Number.ZERO();
+        return reversed;
+    }
+
+    private static Number[] reverse(Number[] p) {
+        return reverse(p, p.length);
+    }
+
+
+    /**
+     * A prime of the form <code>c·2^k + 1</code>, which has roots of unity of every
+     * power of two order up to <code>2^k</code>, with the arithmetic for transforms
+     * modulo that prime. All primes are less than <code>2^31</code>, so that products
+     * of two residues fit into a long.
+     */
+    private static final class NttPrime {
+
+        /**
+         * Logarithm of the maximum transform size.
+         */
+        static final int MAX_LOG_SIZE = 20;
+
+        /**
+         * The primes of this form, from largest to smallest. There are about 200 such
+         * primes, which suffices for results with about 6000 bits per coefficient.
+         */
+        private static final Modular.Primes CANDIDATES = new Modular.Primes((((1L << (31 - MAX_LOG_SIZE)) - 1) << MAX_LOG_SIZE) + 1, 1L << MAX_LOG_SIZE);
+        /**
+         * The primes used so far, with their roots of unity.
+         */
+        private static final List<NttPrime> PRIMES = new ArrayList<>();
+
+        /**
+         * The prime.
+         */
+        final long p;
+        /**
+         * A root of unity of order <code>2^MAX_LOG_SIZE</code>.
+         */
+        private final long root;
+
+        private NttPrime(long p) {
+            this.p = p;
+            // A quadratic non-residue g has order divisible by 2^k, so g^c has order 2^k
+            long g = 2;
+            while(pow(g, (p - 1) / 2) != p - 1) g++;
+            root = pow(g, (p - 1) >> MAX_LOG_SIZE);
+        }
+
+        /**
+         * Returns enough primes for their product to exceed <code>2^bits</code>, or
+         * <code>null</code> if there are not enough primes. Primes are only searched
+         * when needed.
+         */
+        static synchronized List<NttPrime> select(int bits) {
+            List<NttPrime> selected = new ArrayList<>();
+            double total = 0;
+            for(int i=0; total <= bits; i++) {
+                if(i == PRIMES.size()) {
+                    long p = CANDIDATES.get(i);
+                    if(p == 0) return null;
+                    PRIMES.add(new NttPrime(p));
+                }
+                selected.add(PRIMES.get(i));
+                total += Math.log(PRIMES.get(i).p) / Math.log(2);
+            }
+            return selected;
+        }
+
+        /**
+         * Returns the product of all given primes.
+         */
+        static BigInteger modulus(List<NttPrime> primes) {
+            BigInteger modulus = BigInteger.ONE;
+            for(NttPrime prime : primes)
+                modulus = modulus.multiply(BigInteger.valueOf(prime.p));
+            return modulus;
+        }
+
+        /**
+         * Returns the first n coefficients of the product of the given polynoms modulo this prime.
+         */
+        long[] multiply(long[] a, long[] b, int n) {
+            int size = Integer.highestOneBit(Math.max(1, a.length + b.length - 2)) << 1;
+            long[] fa = Arrays.copyOf(a, size), fb = Arrays.copyOf(b, size);
+            transform(fa, false);
+            transform(fb, false);
+            for(int i=0; i<size; i++)
+                fa[i] = fa[i] * fb[i] % p;
+            transform(fa, true);
+            return Arrays.copyOf(fa, n);
+        }
+
+        /**
+         * Returns the inverse of f modulo <code>x^n</code> and this prime, using
+         * Newton's iteration. The lowest coefficient of f must not be zero.
+         */
+        long[] inverse(long[] f, int n) {
+            long[] g = { pow(f[0], p - 2) };
+            for(int k=1; k<n;) {
+                k = Math.min(2 * k, n);
+                long[] e = multiply(Arrays.copyOf(f, Math.min(f.length, k)), g, k);
+                for(int i=0; i<k; i++)
+                    e[i] = e[i] == 0 ? 0 : p - e[i];
+                e[0] = (e[0] + 2) % p;
+                g = multiply(g, e, k);
+            }
+            return g;
+        }
+
+        /**
+         * Returns the residues of the given coefficients, padded with zeros to the given size.
+         */
+        long[] reduce(BigInteger[] x, int size) {
+            long[] residues = new long[size];
+            for(int i=0; i<x.length; i++)
+                residues[i] = Modular.reduce(x[i], p);
+            return residues;
+        }
+
+        /**
+         * Transforms the given residues in place, using the iterative Cooley-Tukey
+         * algorithm. The length must be a power of two.
+         */
+        void transform(long[] a, boolean inverse) {
+            int n = a.length;
+            for(int i=1, j=0; i<n; i++) {
+                int bit = n >> 1;
+                for(; (j & bit) != 0; bit >>= 1) j ^= bit;
+                j ^= bit;
+                if(i < j) {
+                    long t = a[i]; a[i] = a[j]; a[j] = t;
+                }
+            }
+            for(int length=2; length<=n; length<<=1) {
+                long w = pow(root, (1L << MAX_LOG_SIZE) / length);
+                if(inverse) w = pow(w, p - 2);
+                int half = length >> 1;
+                long[] powers = new long[half];
+                powers[0] = 1;
+                for(int i=1; i<half; i++)
+                    powers[i] = powers[i-1] * w % p;
+                for(int i=0; i<n; i+=length) {
+                    for(int j=0; j<half; j++) {
+                        long u = a[i+j], v = a[i+j+half] * powers[j] % p;
+                        a[i+j] = u + v < p ? u + v : u + v - p;
+                        a[i+j+half] = u - v >= 0 ? u - v : u - v + p;
+                    }
+                }
+            }
+            if(inverse) {
+                long nInv = pow(n, p - 2);
+                for(int i=0; i<n; i++)
+                    a[i] = a[i] * nInv % p;
+            }
+        }
+
+        private long pow(long x, long e) {
+            return Modular.pow(x, e, p);
+        }
+
+        /**
+         * Reconstructs the signed coefficients from their residues modulo the given
+         * primes, using Garner's algorithm.
+         */
+        static BigInteger[] reconstruct(List<NttPrime> primes, long[][] residues, int length) {
+            int k = primes.size();
+            long[][] inverses = new long[k][k];
+            for(int i=0; i<k; i++) {
+                NttPrime pi = primes.get(i);
+                for(int j=0; j<i; j++)
+                    inverses[i][j] = pi.pow(primes.get(j).p, pi.p - 2);
+            }
+            BigInteger modulus = modulus(primes);
+            BigInteger halfModulus = modulus.shiftRight(1);
+
+            BigInteger[] result = new BigInteger[length];
+            long[] digits = new long[k];
+            for(int c=0; c<length; c++) {
+                if((c & 1023) == 0) Budget.checkpoint();
+                // Mixed radix digits: x = d0 + d1 p0 + d2 p0 p1 + ...
+                for(int i=0; i<k; i++) {
+                    long p = primes.get(i).p, d = residues[i][c];
+                    for(int j=0; j<i; j++)
+                        d = Math.floorMod(d - digits[j], p) * inverses[i][j] % p;
+                    digits[i] = d;
+                }
+                BigInteger x = BigInteger.valueOf(digits[k-1]);
+                for(int i=k-2; i>=0; i--)
+                    x = x.multiply(BigInteger.valueOf(primes.get(i).p)).add(BigInteger.valueOf(digits[i]));
+                result[c] = x.compareTo(halfModulus) > 0 ? x.subtract(modulus) : x;
+            }
+            return result;
+        }
+    }
+}
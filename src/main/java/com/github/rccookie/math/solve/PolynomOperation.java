@@ -0,0 +1,150 @@
+package com.github.rccookie.math.solve;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.expr.Expression;
+import com.github.rccookie.math.expr.SymbolLookup;
+import com.github.rccookie.math.rendering.RenderableExpression;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The result of an arithmetic operation on polynoms, which is again a polynom. It is
+ * the derived function of the operation, but evaluates and behaves like the resulting
+ * polynom, so it can be derived, integrated and operated on like any other polynom.
+ *
+ * @param operation The derived function of the operation
+ * @param polynom The polynom equivalent to the operation
+ */
+record PolynomOperation(Expression.BinaryFunctionOperation operation, Polynom polynom)
+        implements Polynom, Expression.BinaryFunctionOperation {
+
+    @Override
+    public String toString() {
+        return polynom.toString();
+    }
+
+    @Override
+    public RenderableExpression toRenderable() {
+        return polynom.toRenderable();
+    }
+
+    @Override
+    public Number evaluate(SymbolLookup lookup, Number params) {
+        return polynom.evaluate(lookup, params);
+    }
+
+    @Override
+    public Number[] evaluateAll(SymbolLookup lookup, Number[] inputs) {
+        return polynom.evaluateAll(lookup, inputs);
+    }
+
+    @Override
+    public double[] evaluateAll(SymbolLookup lookup, double[] inputs) {
+        return polynom.evaluateAll(lookup, inputs);
+    }
+
+    @Override
+    public Number evaluateHalf(SymbolLookup lookup, Number params, Number ea) {
+        return operation.evaluateHalf(lookup, params, ea);
+    }
+
+    @Override
+    public Function a() {
+        return operation.a();
+    }
+
+    @Override
+    public Expression b() {
+        return operation.b();
+    }
+
+    @Override
+    public String name() {
+        return polynom.name();
+    }
+
+    @Override
+    public Expression[] operands() {
+        return polynom.operands();
+    }
+
+    @Override
+    public int operandCount() {
+        return polynom.operandCount();
+    }
+
+    @Override
+    public Function simplify() {
+        return polynom.simplify();
+    }
+
+    @Override
+    public int degree(int indeterminant) {
+        return polynom.degree(indeterminant);
+    }
+
+    @Override
+    public Expression getCoefficient(int n) {
+        return polynom.getCoefficient(n);
+    }
+
+    @Override
+    public Expression[] coefficients() {
+        return polynom.coefficients();
+    }
+
+    @Override
+    public String[] indeterminants() {
+        return polynom.indeterminants();
+    }
+
+    @Override
+    public int indeterminantCount() {
+        return polynom.indeterminantCount();
+    }
+
+    @Override
+    public Polynom derivative(int indeterminant) {
+        return polynom.derivative(indeterminant);
+    }
+
+    @Override
+    public Polynom antiderivative(int indeterminant) {
+        return polynom.antiderivative(indeterminant);
+    }
+
+    @Override
+    public CompiledPolynom compile(SymbolLookup lookup) {
+        return polynom.compile(lookup);
+    }
+
+    @Override
+    public Polynom[] divideWithRemainder(Polynom divisor) {
+        return polynom.divideWithRemainder(divisor);
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation add(Number x) {
+        return polynom.add(x);
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation subtract(Number x) {
+        return polynom.subtract(x);
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation subtractFrom(Number x) {
+        return polynom.subtractFrom(x);
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation multiply(Number x) {
+        return polynom.multiply(x);
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation divide(Number x) {
+        return polynom.divide(x);
+    }
+}
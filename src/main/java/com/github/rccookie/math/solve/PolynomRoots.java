@@ -0,0 +1,412 @@
+package com.github.rccookie.math.solve;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+
+import com.github.rccookie.math.Complex;
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.math.SimpleNumber;
+import com.github.rccookie.math.expr.Budget;
+import com.github.rccookie.math.expr.Parallel;
+import com.github.rccookie.math.expr.UnsupportedMathOperationException;
+
+/**
+ * Finds all complex roots of a polynom simultaneously, using the Aberth-Ehrlich
+ * method. Every approximation takes a Newton step which is corrected by the
+ * repulsion of all other approximations, so that different approximations don't
+ * converge to the same root. The roots are first approximated with double precision,
+ * and then refined to the current {@link Rational#getPrecision() precision} using
+ * the same iteration, which converges cubically for simple roots.
+ *
+ * <p>The iterations of all roots are independent of each other within a step, so
+ * for high degrees they run in parallel.</p>
+ */
+public final class PolynomRoots {
+
+    /**
+     * Precision up to which the double precision approximations are sufficient.
+     */
+    private static final int DOUBLE_DIGITS = 15;
+
+    /**
+     * Maximum number of iterations of the double precision pass.
+     */
+    private static final int MAX_ITERATIONS = 500;
+
+    /**
+     * Maximum number of iterations at full precision.
+     */
+    private static final int MAX_REFINE_ITERATIONS = 100;
+
+    /**
+     * Minimum degree for which the roots are iterated in parallel.
+     */
+    private static final int PARALLEL_DEGREE = 64;
+
+    private PolynomRoots() { }
+
+
+    /**
+     * Finds all roots of the given polynom, including complex ones. Roots with
+     * multiplicity k are contained k times, and can only be approximated with about
+     * <code>1/k</code> of the precision.
+     *
+     * @param p The polynom to find the roots of
+     * @return The roots of p, sorted by real part and then imaginary part. Real roots
+     *         are returned as real numbers, all other roots as complex numbers
+     * @throws UnsupportedMathOperationException If the coefficients are not real or complex
+     * @throws ArithmeticException If p is zero
+     */
+    public static Number[] roots(CompiledPolynom p) {
+        int degree = p.degree();
+        while(degree > 0 && p.coefficient(degree).isZero()) degree--;
+        int zeros = 0;
+        while(zeros <= degree && p.coefficient(zeros).isZero()) zeros++;
+        if(zeros > degree)
+            throw new ArithmeticException("roots: every number is a root of the zero polynom");
+
+        Number[] roots = new Number[degree];
+        Arrays.fill(roots, 0, zeros, Number.ZERO());
+        int n = degree - zeros;
+        if(n == 0) return roots;
+
+        BigDecimal[] re = new BigDecimal[n + 1], im = new BigDecimal[n + 1];
+        boolean real = true;
+        for(int i=0; i<=n; i++) {
+            Number c = p.coefficient(zeros + i);
+            if(c instanceof SimpleNumber s) {
+                re[i] = s.toBigDecimal();
+                im[i] = BigDecimal.ZERO;
+            }
+            else if(c instanceof Complex z) {
+                re[i] = z.re.toBigDecimal();
+                im[i] = z.im.toBigDecimal();
+                real &= z.im.isZero();
+            }
+            else throw new UnsupportedMathOperationException("roots: coefficients must be real or complex numbers");
+        }
+
+        if(n == 1) // -c0/c1, exactly
+            roots[zeros] = p.coefficient(zeros).divide(p.coefficient(zeros + 1)).negate();
+        else {
+            double[][] approximations = approximate(re, im);
+            int precision = Rational.getPrecision();
+            if(precision <= DOUBLE_DIGITS) {
+                for(int i=0; i<n; i++)
+                    roots[zeros + i] = toNumber(new BigDecimal(approximations[0][i]), new BigDecimal(approximations[1][i]), new BigDecimal(approximations[2][i]), real, DOUBLE_DIGITS);
+            }
+            else {
+                BigDecimal[][] refined = refine(re, im, approximations, new MathContext(precision + 10));
+                for(int i=0; i<n; i++)
+                    roots[zeros + i] = toNumber(refined[0][i], refined[1][i], refined[2][i], real, precision);
+            }
+        }
+
+        Arrays.sort(roots, Comparator.<Number>comparingDouble(r -> re(r).toDouble()).thenComparingDouble(r -> im(r).toDouble()));
+        return roots;
+    }
+
+    /**
+     * Approximates all roots of the polynom with the given coefficients with double
+     * precision.
+     *
+     * @return The real parts and the imaginary parts of the approximations, and an
+     *         estimate of their errors
+     */
+    private static double[][] approximate(BigDecimal[] re, BigDecimal[] im) {
+        int n = re.length - 1;
+        double[] cr = new double[n + 1], ci = new double[n + 1], abs = new double[n + 1];
+        for(int i=0; i<=n; i++) {
+            cr[i] = re[i].doubleValue();
+            ci[i] = im[i].doubleValue();
+            abs[i] = Math.hypot(cr[i], ci[i]);
+            if(!Double.isFinite(abs[i]) || (abs[i] == 0 && (re[i].signum() != 0 || im[i].signum() != 0)))
+                throw new ArithmeticException("roots: coefficients exceed the range of double precision");
+        }
+
+        double[] zr = new double[n], zi = new double[n];
+        initialApproximations(abs, zr, zi);
+
+        boolean[] converged = new boolean[n];
+        double[] wr = new double[n], wi = new double[n], error = new double[n];
+        for(int iteration=0; iteration<MAX_ITERATIONS; iteration++) {
+            Budget.checkpoint();
+            forEach(n, i -> {
+                if(converged[i]) return;
+                double[] newton = newtonCorrection(cr, ci, abs, zr[i], zi[i]);
+                // The distance to a root of multiplicity k is about k times the Newton step
+                error[i] = 4 * Math.hypot(newton[0], newton[1]) + 4 * Math.ulp(Math.hypot(zr[i], zi[i]));
+                if(newton[2] != 0) {
+                    converged[i] = true;
+                    return;
+                }
+                // Aberth correction: w = N / (1 - N·Σ 1/(z_i - z_j))
+                double sr = 0, si = 0;
+                for(int j=0; j<n; j++) {
+                    if(j == i) continue;
+                    double dr = zr[i] - zr[j], di = zi[i] - zi[j], d = dr * dr + di * di;
+                    if(d == 0) continue;
+                    sr += dr / d;
+                    si -= di / d;
+                }
+                double nr = newton[0], ni = newton[1];
+                double denR = 1 - (nr * sr - ni * si), denI = -(nr * si + ni * sr), den = denR * denR + denI * denI;
+                if(den == 0) {
+                    wr[i] = nr;
+                    wi[i] = ni;
+                }
+                else {
+                    wr[i] = (nr * denR + ni * denI) / den;
+                    wi[i] = (ni * denR - nr * denI) / den;
+                }
+            });
+
+            boolean done = true;
+            for(int i=0; i<n; i++) {
+                if(converged[i]) continue;
+                zr[i] -= wr[i];
+                zi[i] -= wi[i];
+                if(!Double.isFinite(zr[i]) || !Double.isFinite(zi[i]))
+                    throw new ArithmeticException("roots: iteration diverged");
+                done = false;
+            }
+            if(done) break;
+        }
+        return new double[][] { zr, zi, error };
+    }
+
+    /**
+     * Computes the initial approximations from the upper convex hull of the points
+     * <code>(k, log|c_k|)</code>, the Newton polygon. Each of its edges from i to j
+     * corresponds to <code>j-i</code> roots of about the same modulus, which are
+     * placed evenly on a circle of that radius.
+     */
+    private static void initialApproximations(double[] abs, double[] zr, double[] zi) {
+        int n = abs.length - 1;
+        List<Integer> hull = new ArrayList<>();
+        for(int k=0; k<=n; k++) {
+            if(abs[k] == 0) continue;
+            while(hull.size() >= 2) {
+                int a = hull.get(hull.size() - 2), b = hull.get(hull.size() - 1);
+                // Remove b if it lies below the line from a to k
+                if((Math.log(abs[b]) - Math.log(abs[a])) * (k - a) <= (Math.log(abs[k]) - Math.log(abs[a])) * (b - a))
+                    hull.remove(hull.size() - 1);
+                else break;
+            }
+            hull.add(k);
+        }
+
+        int index = 0;
+        for(int h=0; h<hull.size()-1; h++) {
+            int a = hull.get(h), b = hull.get(h + 1), count = b - a;
+            double radius = Math.exp((Math.log(abs[a]) - Math.log(abs[b])) / count);
+            for(int k=0; k<count; k++, index++) {
+                // Offset the angles so that roots on different circles and on the axes are not hit exactly
+                double angle = 2 * Math.PI * k / count + 2 * Math.PI * h / n + 0.4;
+                zr[index] = radius * Math.cos(angle);
+                zi[index] = radius * Math.sin(angle);
+            }
+        }
+    }
+
+    /**
+     * Returns the Newton correction <code>p(z)/p'(z)</code>, followed by 1 if
+     * <code>p(z)</code> is zero within the rounding error of its evaluation. For
+     * <code>|z| > 1</code> the reversed polynom is evaluated at <code>1/z</code>
+     * instead, which avoids overflow for high degrees.
+     */
+    private static double[] newtonCorrection(double[] cr, double[] ci, double[] abs, double zr, double zi) {
+        int n = cr.length - 1;
+        double absZ = Math.hypot(zr, zi);
+        boolean reversed = absZ > 1;
+        double xr = zr, xi = zi, absX = absZ;
+        if(reversed) {
+            double d = zr * zr + zi * zi;
+            xr = zr / d;
+            xi = -zi / d;
+            absX = 1 / absZ;
+        }
+
+        int first = reversed ? 0 : n;
+        double pr = cr[first], pi = ci[first], dr = 0, di = 0, bound = abs[first];
+        for(int j=1; j<=n; j++) {
+            int k = reversed ? j : n - j;
+            double t = dr * xr - di * xi + pr;
+            di = dr * xi + di * xr + pi;
+            dr = t;
+            t = pr * xr - pi * xi + cr[k];
+            pi = pr * xi + pi * xr + ci[k];
+            pr = t;
+            bound = bound * absX + abs[k];
+        }
+        double small = Math.hypot(pr, pi) <= 4 * n * Math.ulp(bound) ? 1 : 0;
+        if(pr == 0 && pi == 0)
+            return new double[] { 0, 0, small };
+
+        if(!reversed) {
+            double d = dr * dr + di * di;
+            if(d == 0) return new double[] { zr * 1e-8, zi * 1e-8 + 1e-8, small };
+            return new double[] { (pr * dr + pi * di) / d, (pi * dr - pr * di) / d, small };
+        }
+        // p(z)/p'(z) = z / (n - x·r'(x)/r(x)) with x = 1/z
+        double d = pr * pr + pi * pi;
+        double qr = (dr * pr + di * pi) / d, qi = (di * pr - dr * pi) / d;
+        double denR = n - (xr * qr - xi * qi), denI = -(xr * qi + xi * qr), den = denR * denR + denI * denI;
+        if(den == 0) return new double[] { zr * 1e-8, zi * 1e-8 + 1e-8, small };
+        return new double[] { (zr * denR + zi * denI) / den, (zi * denR - zr * denI) / den, small };
+    }
+
+    /**
+     * Refines the given approximations of all roots to the given precision, using
+     * the Aberth iteration with big decimals. Approximations of multiple roots only
+     * converge linearly and are stopped once the corrections stop getting smaller.
+     *
+     * @return The real parts and the imaginary parts of the roots, and an estimate of their errors
+     */
+    private static BigDecimal[][] refine(BigDecimal[] cr, BigDecimal[] ci, double[][] approximations, MathContext context) {
+        int n = cr.length - 1;
+        BigDecimal[] zr = new BigDecimal[n], zi = new BigDecimal[n], error = new BigDecimal[n];
+        for(int i=0; i<n; i++) {
+            zr[i] = new BigDecimal(approximations[0][i]);
+            zi[i] = new BigDecimal(approximations[1][i]);
+            error[i] = new BigDecimal(approximations[2][i]);
+        }
+        BigDecimal tolerance = BigDecimal.ONE.movePointLeft(context.getPrecision() - 8);
+        BigDecimal epsilon = BigDecimal.ONE.movePointLeft(context.getPrecision());
+        MathContext rough = new MathContext(5);
+        BigDecimal[] abs = new BigDecimal[n + 1];
+        for(int k=0; k<=n; k++)
+            abs[k] = ci[k].signum() == 0 ? cr[k].abs() : cr[k].multiply(cr[k]).add(ci[k].multiply(ci[k])).sqrt(rough);
+
+        boolean[] converged = new boolean[n];
+        BigDecimal[] wr = new BigDecimal[n], wi = new BigDecimal[n], lastStep = new BigDecimal[n], estimate = new BigDecimal[n];
+        for(int iteration=0; iteration<MAX_REFINE_ITERATIONS; iteration++) {
+            Budget.checkpoint();
+            forEach(n, i -> {
+                if(converged[i]) return;
+                // Horner's scheme for p(z) and p'(z)
+                BigDecimal pr = cr[n], pi = ci[n], dr = BigDecimal.ZERO, di = BigDecimal.ZERO;
+                for(int k=n-1; k>=0; k--) {
+                    BigDecimal t = dr.multiply(zr[i], context).subtract(di.multiply(zi[i], context), context).add(pr, context);
+                    di = dr.multiply(zi[i], context).add(di.multiply(zr[i], context), context).add(pi, context);
+                    dr = t;
+                    t = pr.multiply(zr[i], context).subtract(pi.multiply(zi[i], context), context).add(cr[k], context);
+                    pi = pr.multiply(zi[i], context).add(pi.multiply(zr[i], context), context).add(ci[k], context);
+                    pr = t;
+                }
+                BigDecimal d = dr.multiply(dr, context).add(di.multiply(di, context), context);
+
+                // First order error bound: 4 max(|p(z)|, rounding error of p(z)) / |p'(z)|.
+                // Unlike the step size this also holds for multiple roots, where p(z) may
+                // evaluate to zero long before z is close to the root
+                BigDecimal bound = abs[n], absZ = zr[i].multiply(zr[i], context).add(zi[i].multiply(zi[i], context), context).sqrt(rough);
+                for(int k=n-1; k>=0; k--)
+                    bound = bound.multiply(absZ, rough).add(abs[k], rough);
+                BigDecimal residual = pr.abs().max(pi.abs()).max(bound.multiply(epsilon, rough));
+                BigDecimal derivative = dr.abs().max(di.abs());
+                estimate[i] = derivative.signum() == 0 ? null : residual.multiply(BigDecimal.valueOf(4)).divide(derivative, rough);
+
+                if((pr.signum() == 0 && pi.signum() == 0) || d.signum() == 0) {
+                    wr[i] = wi[i] = BigDecimal.ZERO;
+                    return;
+                }
+                BigDecimal nr = pr.multiply(dr, context).add(pi.multiply(di, context), context).divide(d, context);
+                BigDecimal ni = pi.multiply(dr, context).subtract(pr.multiply(di, context), context).divide(d, context);
+
+                BigDecimal sr = BigDecimal.ZERO, si = BigDecimal.ZERO;
+                for(int j=0; j<n; j++) {
+                    if(j == i) continue;
+                    BigDecimal xr = zr[i].subtract(zr[j], context), xi = zi[i].subtract(zi[j], context);
+                    BigDecimal x = xr.multiply(xr, context).add(xi.multiply(xi, context), context);
+                    if(x.signum() == 0) continue;
+                    sr = sr.add(xr.divide(x, context), context);
+                    si = si.subtract(xi.divide(x, context), context);
+                }
+                BigDecimal denR = BigDecimal.ONE.subtract(nr.multiply(sr, context).subtract(ni.multiply(si, context), context), context);
+                BigDecimal denI = nr.multiply(si, context).add(ni.multiply(sr, context), context).negate();
+                BigDecimal den = denR.multiply(denR, context).add(denI.multiply(denI, context), context);
+                if(den.signum() == 0) {
+                    wr[i] = nr;
+                    wi[i] = ni;
+                    return;
+                }
+                wr[i] = nr.multiply(denR, context).add(ni.multiply(denI, context), context).divide(den, context);
+                wi[i] = ni.multiply(denR, context).subtract(nr.multiply(denI, context), context).divide(den, context);
+            });
+
+            boolean done = true;
+            for(int i=0; i<n; i++) {
+                if(converged[i]) continue;
+                BigDecimal step = wr[i].abs().max(wi[i].abs());
+                if(lastStep[i] != null && step.compareTo(lastStep[i]) >= 0) {
+                    // No more progress, the precision is exhausted (i.e. for multiple roots)
+                    converged[i] = true;
+                    error[i] = max(lastStep[i].multiply(BigDecimal.valueOf(4)), estimate[i]);
+                    continue;
+                }
+                zr[i] = zr[i].subtract(wr[i], context);
+                zi[i] = zi[i].subtract(wi[i], context);
+                lastStep[i] = step;
+                BigDecimal scale = zr[i].abs().max(zi[i].abs()).max(BigDecimal.ONE);
+                BigDecimal accuracy = tolerance.multiply(scale);
+                error[i] = max(accuracy, estimate[i]);
+                if(step.compareTo(accuracy) <= 0)
+                    converged[i] = true;
+                else done = false;
+            }
+            if(done) break;
+        }
+        return new BigDecimal[][] { zr, zi, error };
+    }
+
+    /**
+     * Runs the given action for every index, in parallel for high degrees. Each index
+     * writes only its own results, so the order does not matter.
+     */
+    private static void forEach(int n, IntConsumer action) {
+        if(n < PARALLEL_DEGREE || ForkJoinPool.getCommonPoolParallelism() < 2) {
+            for(int i=0; i<n; i++)
+                action.accept(i);
+            return;
+        }
+        Parallel.forEach(0, n, action);
+    }
+
+    private static BigDecimal max(BigDecimal a, BigDecimal b) {
+        return b == null ? a : a.max(b);
+    }
+
+    /**
+     * Converts a root to a number, rounded to the digits that are correct according to
+     * the error estimate, but at most the given precision. Imaginary parts which are
+     * zero within the error are dropped if the polynom is real, since its roots are
+     * either real or pairs of conjugate complex numbers.
+     */
+    private static Number toNumber(BigDecimal re, BigDecimal im, BigDecimal error, boolean real, int precision) {
+        BigDecimal scale = re.abs().max(im.abs());
+        int digits = precision;
+        if(error.signum() != 0 && scale.signum() != 0) // Number of digits before the decimal point minus those of the error
+            digits = Math.max(1, Math.min(precision, (scale.precision() - scale.scale()) - (error.precision() - error.scale()) + 1));
+        MathContext context = new MathContext(digits);
+        if(im.signum() == 0 || (real && im.abs().compareTo(error.max(scale.movePointLeft(precision))) <= 0))
+            return new Rational(re.round(context), false);
+        if(re.abs().compareTo(error) <= 0 && real)
+            re = BigDecimal.ZERO;
+        return new Complex(new Rational(re.round(context), false), new Rational(im.round(context), false));
+    }
+
+    private static SimpleNumber re(Number x) {
+        return x instanceof Complex c ? c.re : (SimpleNumber) x;
+    }
+
+    private static SimpleNumber im(Number x) {
+        return x instanceof Complex c ? c.im : Number.ZERO();
+    }
+}
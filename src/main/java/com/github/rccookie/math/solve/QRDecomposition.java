@@ -0,0 +1,132 @@
+package com.github.rccookie.math.solve;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.math.expr.Budget;
+import com.github.rccookie.util.Arguments;
+
+/**
+ * The QR decomposition <code>A = QR</code> of a matrix with at least as many rows as
+ * columns, computed with the modified Gram-Schmidt process. The columns of Q are
+ * orthogonal, but not normalized, and R is upper triangular with ones on the diagonal.
+ * Normalizing the columns of Q would need square roots, so instead the squared norms
+ * of the columns are kept separately, which keeps the decomposition of exact matrices
+ * exact.
+ *
+ * <p>Imprecise rationals are exact fractions internally, so entries computed from
+ * imprecise ones are rounded to a few digits more than the current
+ * {@link Rational#getPrecision() precision} after every step, like floating point
+ * numbers. Precise entries are never rounded.</p>
+ */
+public final class QRDecomposition {
+
+    /**
+     * The columns of Q.
+     */
+    private final Number[][] q;
+    /**
+     * The squared norms of the columns of Q.
+     */
+    private final Number[] norms;
+    /**
+     * R above the diagonal, indexed as <code>r[row][column]</code>.
+     */
+    private final Number[][] r;
+    /**
+     * The number of rows of the decomposed matrix.
+     */
+    private final int rows;
+    /**
+     * The context to round imprecise entries with.
+     */
+    private final MathContext context;
+
+    /**
+     * Decomposes the given matrix.
+     *
+     * @param matrix The rows of the matrix, with at least as many rows as columns
+     * @throws ArithmeticException If the columns of the matrix are linearly dependent
+     */
+    public QRDecomposition(Number[][] matrix) {
+        rows = Arguments.checkNull(matrix, "matrix").length;
+        int n = rows == 0 ? 0 : matrix[0].length;
+        if(n > rows)
+            throw new IllegalArgumentException("Matrix must have at least as many rows as columns");
+        context = new MathContext(Rational.getPrecision() + 10);
+
+        q = new Number[n][rows];
+        for(int i=0; i<rows; i++)
+            for(int j=0; j<n; j++)
+                q[j][i] = matrix[i][j];
+        norms = new Number[n];
+        r = new Number[n][n];
+
+        for(int j=0; j<n; j++) {
+            Budget.checkpoint();
+            Number[] column = q[j];
+            norms[j] = round(dot(column, column));
+            if(norms[j].isZero())
+                throw new ArithmeticException("Columns of matrix are linearly dependent");
+
+            // Remove the component of the new direction from all following columns
+            int step = j;
+            ParallelRows.forEach(j+1, n, rows, k -> {
+                Number factor = round(dot(column, q[k]).divide(norms[step]));
+                r[step][k] = factor;
+                if(factor.isZero()) return;
+                Number[] other = q[k];
+                for(int i=0; i<rows; i++)
+                    other[i] = round(other[i].subtract(factor.multiply(column[i])));
+            });
+        }
+    }
+
+    private static Number dot(Number[] a, Number[] b) {
+        Number sum = a[0].multiply(b[0]);
+        for(int i=1; i<a.length; i++)
+            sum = sum.add(a[i].multiply(b[i]));
+        return sum;
+    }
+
+    private Number round(Number x) {
+        if(!(x instanceof Rational r) || r.precise || r.d.equals(BigInteger.ONE))
+            return x;
+        BigDecimal value = new BigDecimal(r.n).divide(new BigDecimal(r.d), context);
+        return new Rational(value, 0, false, false);
+    }
+
+
+    /**
+     * Returns the pseudo-inverse <code>R⁻¹ D⁻¹ Qᵀ</code> of the decomposed matrix,
+     * where D contains the squared norms of the columns of Q. It is the left inverse
+     * of the matrix, and its least squares solution operator.
+     *
+     * @return The rows of the pseudo-inverse
+     */
+    public Number[][] pseudoInverse() {
+        int n = q.length;
+        Number[][] x = new Number[n][];
+        // Back substitution with the unit upper triangular R, row by row from the bottom
+        for(int j=n-1; j>=0; j--) {
+            Budget.checkpoint();
+            Number[] row = new Number[rows];
+            for(int i=0; i<rows; i++)
+                row[i] = q[j][i].divide(norms[j]);
+            for(int k=j+1; k<n; k++) {
+                Number factor = r[j][k];
+                if(factor.isZero()) continue;
+                Number[] other = x[k];
+                for(int i=0; i<rows; i++)
+                    row[i] = row[i].subtract(factor.multiply(other[i]));
+            }
+            for(int i=0; i<rows; i++)
+                row[i] = round(row[i]);
+            x[j] = row;
+        }
+        return x;
+    }
+}
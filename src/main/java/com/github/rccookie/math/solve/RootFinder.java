@@ -0,0 +1,238 @@
+package com.github.rccookie.math.solve;
+
+import java.math.BigDecimal;
+import java.util.function.DoubleUnaryOperator;
+
+import com.github.rccookie.math.Dual;
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.Rational;
+import com.github.rccookie.math.SimpleNumber;
+import com.github.rccookie.math.expr.Budget;
+import com.github.rccookie.math.expr.Expression;
+import com.github.rccookie.math.expr.SymbolLookup;
+import com.github.rccookie.math.expr.UnsupportedMathOperationException;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Numeric root finding for arbitrary real functions. A root is first approximated
+ * to double precision, and then refined to the current {@link Rational#getPrecision() precision}
+ * using Newton's method. Newton's method roughly doubles the number of correct digits
+ * with every step, so only a few steps past double precision are needed. The derivatives
+ * are computed exactly using {@link Dual dual numbers}.
+ *
+ * <p>Polynoms with real coefficients are evaluated on doubles while approximating
+ * the root. There is no way to evaluate other functions on doubles, so they are
+ * evaluated on numbers and the results converted to doubles; only the refinement
+ * and its precision are saved for these.</p>
+ */
+public final class RootFinder {
+
+    /**
+     * Maximum number of iterations while approximating a root to double precision.
+     */
+    private static final int MAX_ITERATIONS = 200;
+
+    /**
+     * Maximum number of Newton steps at full precision.
+     */
+    private static final int MAX_REFINE_STEPS = 64;
+
+    private RootFinder() { }
+
+
+    /**
+     * Finds a root of the given function within the given interval. The function
+     * values at the interval bounds must have different signs (or be zero).
+     *
+     * @param lookup The lookup to evaluate the function with
+     * @param f The function to find a root of
+     * @param a The lower bound of the interval
+     * @param b The upper bound of the interval
+     * @return A root of f between a and b
+     * @throws ArithmeticException If the signs of f(a) and f(b) are equal
+     */
+    public static Number root(SymbolLookup lookup, Expression.Function f, Number a, Number b) {
+        double da = a.toDouble(lookup), db = b.toDouble(lookup);
+        double lo = Math.min(da, db), hi = Math.max(da, db);
+        CompiledPolynom compiled = compileReal(lookup, f);
+        double x = brent(compiled != null ? x1 -> checkDefined(compiled.evaluate(x1), x1)
+                                          : x1 -> checkDefined(f.evaluate(lookup, new Rational(x1, false)).toDouble(lookup), x1), lo, hi);
+        return refine(lookup, f, new Rational(x, false), lo, hi);
+    }
+
+    /**
+     * Finds a root of the given function using Newton's method, starting at the
+     * given position. The root found is usually the one closest to the start, but
+     * this is not guaranteed.
+     *
+     * @param lookup The lookup to evaluate the function with
+     * @param f The function to find a root of
+     * @param start The position to start at
+     * @return A root of f
+     * @throws ArithmeticException If Newton's method does not converge
+     */
+    public static Number root(SymbolLookup lookup, Expression.Function f, Number start) {
+        double x = start.toDouble(lookup);
+        CompiledPolynom compiled = compileReal(lookup, f);
+        CompiledPolynom compiledDerivative = compiled != null ? compileReal(lookup, ((Polynom) f).derivative()) : null;
+        for(int i=0;; i++) {
+            if(i == MAX_ITERATIONS)
+                throw new ArithmeticException("root: Newton's method did not converge");
+            Budget.checkpoint();
+            double value, derivative;
+            if(compiledDerivative != null) {
+                value = compiled.evaluate(x);
+                derivative = compiledDerivative.evaluate(x);
+            }
+            else {
+                Number[] fx = evaluateWithDerivative(lookup, f, new Rational(x, false));
+                value = fx[0].toDouble(lookup);
+                derivative = fx[1].toDouble(lookup);
+            }
+            if(value == 0) break;
+            if(derivative == 0)
+                throw new ArithmeticException("root: derivative is zero at " + x + ", try a different start");
+            double step = value / derivative;
+            x -= step;
+            if(!Double.isFinite(x))
+                throw new ArithmeticException("root: Newton's method diverged");
+            if(Math.abs(step) <= 4 * Math.ulp(x))
+                break;
+        }
+        return refine(lookup, f, new Rational(x, false), Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY);
+    }
+
+    /**
+     * Finds a root of the given function within the given interval with double
+     * precision, using Brent's method. Brent's method combines inverse quadratic
+     * interpolation and secant steps, which converge quickly for smooth functions,
+     * with bisection, which guarantees convergence.
+     *
+     * @param f The function to find a root of
+     * @param a One bound of the interval
+     * @param b The other bound of the interval
+     * @return A root of f between a and b
+     * @throws ArithmeticException If the signs of f(a) and f(b) are equal
+     */
+    public static double brent(DoubleUnaryOperator f, double a, double b) {
+        double fa = f.applyAsDouble(a), fb = f.applyAsDouble(b);
+        if(fa == 0) return a;
+        if(fb == 0) return b;
+        if(Math.signum(fa) == Math.signum(fb))
+            throw new ArithmeticException("root: f(a) and f(b) must have different signs");
+
+        double c = a, fc = fa, d = b - a, e = d;
+        for(int i=0; i<MAX_ITERATIONS; i++) {
+            Budget.checkpoint();
+            if(Math.signum(fb) == Math.signum(fc)) {
+                // Keep the root bracketed between b and c
+                c = a; fc = fa;
+                d = e = b - a;
+            }
+            if(Math.abs(fc) < Math.abs(fb)) {
+                // b is the best approximation
+                a = b; b = c; c = a;
+                fa = fb; fb = fc; fc = fa;
+            }
+            double tol = 2 * Math.ulp(b), m = (c - b) / 2;
+            if(Math.abs(m) <= tol || fb == 0)
+                return b;
+
+            if(Math.abs(e) >= tol && Math.abs(fa) > Math.abs(fb)) {
+                double p, q, s = fb / fa;
+                if(a == c) { // Secant
+                    p = 2 * m * s;
+                    q = 1 - s;
+                }
+                else { // Inverse quadratic interpolation
+                    double r = fb / fc;
+                    q = fa / fc;
+                    p = s * (2 * m * q * (q - r) - (b - a) * (r - 1));
+                    q = (q - 1) * (r - 1) * (s - 1);
+                }
+                if(p > 0) q = -q;
+                else p = -p;
+                if(2 * p < Math.min(3 * m * q - Math.abs(tol * q), Math.abs(e * q))) {
+                    e = d;
+                    d = p / q;
+                }
+                else d = e = m; // Interpolation failed, bisect
+            }
+            else d = e = m;
+
+            a = b;
+            fa = fb;
+            b += Math.abs(d) > tol ? d : Math.copySign(tol, m);
+            fb = f.applyAsDouble(b);
+        }
+        return b;
+    }
+
+    /**
+     * Refines an approximation of a root to the current precision using Newton's
+     * method. Stops early if a step would leave the given interval, or if the steps
+     * stop getting smaller, which happens when the precision is exhausted. Functions
+     * that cannot be differentiated (e.g. using the factorial) are not refined.
+     */
+    private static Number refine(SymbolLookup lookup, Expression.Function f, Rational x, double lo, double hi) {
+        BigDecimal tolerance = BigDecimal.ONE.movePointLeft(Rational.getPrecision());
+        BigDecimal lastStep = null;
+        for(int i=0; i<MAX_REFINE_STEPS; i++) {
+            Budget.checkpoint();
+            Number[] fx;
+            try {
+                fx = evaluateWithDerivative(lookup, f, x);
+            } catch(UnsupportedMathOperationException e) {
+                return x; // Not differentiable, keep double precision
+            }
+            if(fx[0].isZero() || fx[1].isZero())
+                return x;
+            if(!(fx[0].divide(fx[1]) instanceof SimpleNumber step))
+                throw new ArithmeticException("root: function is not real valued");
+
+            BigDecimal stepSize = step.toBigDecimal().abs();
+            if(lastStep != null && stepSize.compareTo(lastStep) >= 0)
+                return x;
+            Rational next = new Rational(x.subtract(step).toBigDecimal(), false);
+            double dNext = next.toDouble();
+            if(dNext < lo || dNext > hi)
+                return x;
+            x = next;
+            if(stepSize.compareTo(tolerance.multiply(x.toBigDecimal().abs().max(BigDecimal.ONE))) <= 0)
+                return x;
+            lastStep = stepSize;
+        }
+        return x;
+    }
+
+    /**
+     * Returns the given function compiled, if it is a polynom with real coefficients
+     * in a single indeterminant, which can be evaluated on doubles.
+     */
+    @Nullable
+    private static CompiledPolynom compileReal(SymbolLookup lookup, Expression.Function f) {
+        if(!(f instanceof Polynom p) || p.indeterminantCount() != 1)
+            return null;
+        CompiledPolynom compiled = p.compile(lookup);
+        return compiled.isReal() ? compiled : null;
+    }
+
+    private static double checkDefined(double fx, double x) {
+        if(Double.isNaN(fx))
+            throw new ArithmeticException("root: function is undefined at " + x);
+        return fx;
+    }
+
+    /**
+     * Returns the value and the derivative of f at x.
+     */
+    private static Number[] evaluateWithDerivative(SymbolLookup lookup, Expression.Function f, Rational x) {
+        Number result = f.evaluate(lookup, new Dual(x, Number.ONE()));
+        while(result instanceof Expression.Constant c)
+            result = c.value();
+        if(result instanceof Dual d)
+            return new Number[] { d.value, d.derivative };
+        return new Number[] { result, Number.ZERO() };
+    }
+}
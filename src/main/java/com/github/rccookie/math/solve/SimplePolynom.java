@@ -7,15 +7,26 @@ import java.util.function.UnaryOperator;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import com.github.rccookie.math.Complex;
+import com.github.rccookie.math.Dual;
 import com.github.rccookie.math.Number;
+import com.github.rccookie.math.SimpleNumber;
+import com.github.rccookie.math.expr.Budget;
 import com.github.rccookie.math.expr.Expression;
 import com.github.rccookie.math.expr.SymbolLookup;
+import com.github.rccookie.math.expr.UnsupportedMathOperationException;
 import com.github.rccookie.math.rendering.RenderableExpression;
 import com.github.rccookie.util.Arguments;
 
+import org.jetbrains.annotations.NotNull;
+
 import static com.github.rccookie.math.rendering.RenderableExpression.*;
 
-record SimplePolynom(String indeterminant, Expression... coefficients) implements Polynom {
+final class SimplePolynom implements Polynom {
+
+    private final String indeterminant;
+    private final Expression[] coefficients;
+    private final CompiledCache<CompiledPolynom> compiled;
 
     SimplePolynom(String indeterminant, Expression... coefficients) {
         this.indeterminant = Arguments.checkNull(indeterminant, "indeterminants");
@@ -25,30 +36,74 @@ record SimplePolynom(String indeterminant, Expression... coefficients) implement
         if(d < 0)
             this.coefficients = new Expression[] { Expression.ZERO() };
         else this.coefficients = Arrays.copyOf(coefficients, d+1);
+        compiled = new CompiledCache<>(this.coefficients, Polynom.super::compile);
     }
 
     SimplePolynom(Expression... coefficients) {
         this("x", coefficients);
     }
 
+    @Override
+    public boolean equals(Object obj) {
+        return obj instanceof SimplePolynom p && indeterminant.equals(p.indeterminant) && Arrays.equals(coefficients, p.coefficients);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * indeterminant.hashCode() + Arrays.hashCode(coefficients);
+    }
+
+    public String indeterminant() {
+        return indeterminant;
+    }
+
+    @Override
+    public Expression[] coefficients() {
+        return coefficients;
+    }
+
+    @Override
+    public CompiledPolynom compile(SymbolLookup lookup) {
+        return compiled.get(lookup);
+    }
+
     @Override
     public Number evaluate(SymbolLookup lookup, Number params) {
-        Number x;
+        return evaluate(lookup, compile(lookup), params);
+    }
+
+    private static Number evaluate(SymbolLookup lookup, CompiledPolynom compiled, Number params) {
         if(params instanceof Numbers n) {
             if(n.size() > 1) {
                 Expression[] results = new Expression[n.size()];
                 for(int i=0; i<results.length; i++)
-                    results[i] = Expression.of(evaluate(lookup, n.get(i)));
+                    results[i] = Expression.of(compiled.evaluate(n.evaluate(i, lookup)));
                 return Numbers.of(results);
             }
-            x = n.get(0);
+            return evaluate(compiled, n.evaluate(0, lookup));
+        }
+        return evaluate(compiled, Expression.evaluate(params, lookup));
+    }
+
+    private static Number evaluate(CompiledPolynom compiled, Number x) {
+        if(x instanceof Dual d && (d.value instanceof SimpleNumber || d.value instanceof Complex)) {
+            // Value and derivative in a single pass, without dual number arithmetic
+            Number[] values = compiled.evaluateWithDerivatives(d.value, 1);
+            if(values[0] instanceof SimpleNumber || values[0] instanceof Complex)
+                return new Dual(values[0], values[1].multiply(d.derivative));
         }
-        else x = Expression.evaluate(params, lookup);
+        return compiled.evaluate(x);
+    }
 
-        Number res = coefficients[0].evaluate(lookup);
-        for(int i=1; i<coefficients.length; i++)
-            res = res.add(coefficients[i].evaluate(lookup).multiply(x.raise(i)));
-        return res;
+    @Override
+    public Number[] evaluateAll(SymbolLookup lookup, Number[] inputs) {
+        CompiledPolynom compiled = compile(lookup);
+        Number[] results = new Number[inputs.length];
+        for(int i=0; i<inputs.length; i++) {
+            Budget.checkpoint();
+            results[i] = evaluate(lookup, compiled, inputs[i]);
+        }
+        return results;
     }
 
     @Override
@@ -86,7 +141,7 @@ record SimplePolynom(String indeterminant, Expression... coefficients) implement
         if(c.equals(Number.ZERO())) return null;
         String str = "";
         if(coeff == 0 || !c.equals(Number.ONE())) {
-            if(c instanceof Constant)
+            if(c instanceof Constant k && !(k.value() instanceof Complex))
                 str = c.toString();
             else str = "(" + c + ")";
         }
@@ -106,7 +161,7 @@ record SimplePolynom(String indeterminant, Expression... coefficients) implement
         RenderableExpression coefficient = null;
         if(coeff == 0 || !c.equals(Number.ONE())) {
             coefficient = c.toRenderable();
-            if(!(c instanceof Constant)) coefficient = par(coefficient);
+            if(!(c instanceof Constant k) || k.value() instanceof Complex) coefficient = par(coefficient);
         }
         if(coeff == 0) return coefficient == null ? num(1) : coefficient;
         if(coeff == 1) return coefficient == null ? RenderableExpression.name(indeterminant) : mult(coefficient, RenderableExpression.name(indeterminant));
@@ -132,7 +187,7 @@ record SimplePolynom(String indeterminant, Expression... coefficients) implement
     @Override
     public int degree(int indeterminant) {
         Arguments.checkRange(indeterminant, 0, 1);
-        return (coefficients.length == 1 && coefficients[0].equals(Number.ZERO())) ? 0 : coefficients.length + 1;
+        return (coefficients.length == 1 && coefficients[0].equals(Number.ZERO())) ? 0 : coefficients.length - 1;
     }
 
     @Override
@@ -175,53 +230,87 @@ record SimplePolynom(String indeterminant, Expression... coefficients) implement
     }
 
 
-//    @Override
-//    public @NotNull BinaryFunctionOperation add(Number x) {
-//        if(x instanceof Polynom p && p.indeterminantCount() == 1)
-//            return deriveLinear(p, Expression::add);
-//        if(x instanceof Expression e && Polynom.containsIndeterminant(e, indeterminant))
-//            return Polynom.super.add(x);
-//        Expression[] c = coefficients.clone();
-//        c[0] = c[0].add(x);
-//        return new SimplePolynom(c);
-//    }
-//
-//    @Override
-//    public @NotNull Expression subtract(Number x) {
-//        if(x instanceof Polynom p && p.indeterminantCount() == 1)
-//            return deriveLinear(p, Expression::subtract);
-//        if(x instanceof Expression e && Polynom.containsIndeterminant(e, indeterminant))
-//            return Polynom.super.subtract(x);
-//        Expression[] c = coefficients.clone();
-//        c[0] = c[0].subtract(x);
-//        return new SimplePolynom(c);
-//    }
-//
-//    @Override
-//    public @NotNull Expression subtractFrom(Number x) {
-//        if(x instanceof Polynom p && p.indeterminantCount() == 1)
-//            return deriveLinear(p, Expression::subtractFrom);
-//        if(x instanceof Expression e && Polynom.containsIndeterminant(e, indeterminant))
-//            return Polynom.super.subtractFrom(x);
-//        Expression[] c = coefficients.clone();
-//        c[0] = c[0].subtractFrom(x);
-//        return new SimplePolynom(c);
-//    }
-//
-//    @Override
-//    public @NotNull Expression multiply(Number x) {
-//        return Polynom.super.multiply(x);
-//    }
-//
-//    @Override
-//    public @NotNull Expression divide(Number x) {
-//        return Polynom.super.divide(x);
-//    }
-//
-//    @Override
-//    public @NotNull Expression divideOther(Number x) {
-//        return Polynom.super.divideOther(x);
-//    }
+    @Override
+    public Polynom[] divideWithRemainder(Polynom divisor) {
+        Number[] b = coefficientsOf(divisor);
+        if(b == null)
+            throw new UnsupportedMathOperationException("Multi-indeterminant polynoms not supported");
+        Number[][] qr = PolynomArithmetic.divide(values(), b);
+        return new Polynom[] { withCoefficients(qr[0]), withCoefficients(qr[1]) };
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation add(Number x) {
+        Number[] b = coefficientsOf(x);
+        if(b == null) return Polynom.super.add(x);
+        return new PolynomOperation(Polynom.super.add(x), withCoefficients(PolynomArithmetic.add(values(), b)));
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation subtract(Number x) {
+        Number[] b = coefficientsOf(x);
+        if(b == null) return Polynom.super.subtract(x);
+        return new PolynomOperation(Polynom.super.subtract(x), withCoefficients(PolynomArithmetic.subtract(values(), b)));
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation subtractFrom(Number x) {
+        Number[] b = coefficientsOf(x);
+        if(b == null) return Polynom.super.subtractFrom(x);
+        return new PolynomOperation(Polynom.super.subtractFrom(x), withCoefficients(PolynomArithmetic.subtract(b, values())));
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation multiply(Number x) {
+        Number[] b = coefficientsOf(x);
+        if(b == null) return Polynom.super.multiply(x);
+        return new PolynomOperation(Polynom.super.multiply(x), withCoefficients(PolynomArithmetic.multiply(values(), b)));
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation divide(Number x) {
+        Number[] b = coefficientsOf(x);
+        if(b != null && !PolynomArithmetic.isZero(b)) {
+            Number[][] qr = PolynomArithmetic.divide(values(), b);
+            // Only exact divisions result in a polynom
+            if(PolynomArithmetic.isZero(qr[1]))
+                return new PolynomOperation(Polynom.super.divide(x), withCoefficients(qr[0]));
+        }
+        return Polynom.super.divide(x);
+    }
+
+    /**
+     * Returns the coefficients of this polynom, evaluated if they are constant.
+     */
+    private Number[] values() {
+        return values(coefficients);
+    }
+
+    private static Number[] values(Expression[] coefficients) {
+        Number[] values = new Number[coefficients.length];
+        for(int i=0; i<values.length; i++)
+            values[i] = coefficients[i] instanceof Constant c ? c.value() : coefficients[i];
+        return values;
+    }
+
+    /**
+     * Returns the coefficients of the given polynom or constant, or <code>null</code>
+     * if x is neither a polynom in a single indeterminant nor a real or complex constant.
+     */
+    private static Number[] coefficientsOf(Number x) {
+        if(x instanceof Polynom p)
+            return p.indeterminantCount() == 1 ? values(p.coefficients()) : null;
+        if(x instanceof Constant c)
+            x = c.value();
+        return x instanceof SimpleNumber || x instanceof Complex ? new Number[] { x } : null;
+    }
+
+    private SimplePolynom withCoefficients(Number[] coefficients) {
+        Expression[] expressions = new Expression[coefficients.length];
+        for(int i=0; i<expressions.length; i++)
+            expressions[i] = Expression.of(coefficients[i]);
+        return new SimplePolynom(indeterminant, expressions);
+    }
 
 
 
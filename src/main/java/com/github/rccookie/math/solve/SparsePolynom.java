@@ -0,0 +1,575 @@
+package com.github.rccookie.math.solve;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.github.rccookie.math.Complex;
+import com.github.rccookie.math.Number;
+import com.github.rccookie.math.SimpleNumber;
+import com.github.rccookie.math.expr.Budget;
+import com.github.rccookie.math.expr.Expression;
+import com.github.rccookie.math.expr.MathEvaluationException;
+import com.github.rccookie.math.expr.SymbolLookup;
+import com.github.rccookie.math.expr.UnsupportedMathOperationException;
+import com.github.rccookie.math.rendering.RenderableExpression;
+import com.github.rccookie.util.Arguments;
+
+import org.jetbrains.annotations.NotNull;
+
+import static com.github.rccookie.math.rendering.RenderableExpression.*;
+
+/**
+ * A polynom in multiple indeterminants, which only stores its non-zero terms. The
+ * exponents of each term are packed into a single <code>long</code>, with the
+ * exponent of the first indeterminant in the highest bits. Comparing two packed
+ * monomials thus compares them lexicographically, and multiplying two monomials is a
+ * single addition. The terms are sorted by descending monomial, so sums are merges of
+ * sorted arrays and products are computed with a heap over the rows of the product
+ * (Johnson's algorithm), which never holds more than one pending term per term of the
+ * shorter factor.
+ *
+ * <p>The coefficients of the terms are returned by {@link #coefficients()} in that
+ * order.</p>
+ */
+final class SparsePolynom implements Polynom {
+
+    private final String[] indeterminants;
+    /**
+     * Number of bits per exponent in the packed monomials. The sign bit is never used,
+     * so that packed monomials can be compared as signed longs.
+     */
+    private final int bits;
+    /**
+     * The packed exponents of each term, in descending order.
+     */
+    private final long[] monomials;
+    /**
+     * The coefficient of each term, never zero.
+     */
+    private final Expression[] coefficients;
+    private final CompiledCache<CompiledSparsePolynom> compiled;
+
+    private SparsePolynom(String[] indeterminants, long[] monomials, Expression[] coefficients) {
+        this.indeterminants = indeterminants;
+        this.bits = bits(indeterminants.length);
+        this.monomials = monomials;
+        this.coefficients = coefficients;
+        compiled = new CompiledCache<>(coefficients, this::compileTerms);
+    }
+
+
+    /**
+     * Creates a polynom from the given terms, which may be in any order and contain
+     * the same monomial multiple times.
+     *
+     * @param indeterminants The names of the indeterminants
+     * @param exponents The exponent of each indeterminant, for each term
+     * @param coefficients The coefficient of each term
+     * @return The sum of the terms, as sparse polynom if there are multiple indeterminants
+     * @throws UnsupportedMathOperationException If an exponent is too large to be packed
+     */
+    static Polynom of(String[] indeterminants, int[][] exponents, Number[] coefficients) {
+        Arguments.checkRange(indeterminants.length, 1, null);
+        if(indeterminants.length == 1) {
+            int degree = Arrays.stream(exponents).mapToInt(e -> e[0]).max().orElse(0);
+            Number[] dense = new Number[degree + 1];
+            Arrays.fill(dense, Number.ZERO());
+            for(int i=0; i<exponents.length; i++)
+                dense[exponents[i][0]] = dense[exponents[i][0]].add(coefficients[i]);
+            return new SimplePolynom(indeterminants[0], expressions(dense));
+        }
+
+        int bits = bits(indeterminants.length);
+        long[] monomials = new long[exponents.length];
+        for(int i=0; i<monomials.length; i++)
+            monomials[i] = pack(exponents[i], bits);
+
+        // Sort descending and combine equal monomials
+        Integer[] order = IntStream.range(0, monomials.length).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, (i,j) -> Long.compare(monomials[j], monomials[i]));
+        long[] sortedMonomials = new long[monomials.length];
+        Number[] sortedCoefficients = new Number[monomials.length];
+        int count = 0;
+        for(int i : order) {
+            if(count != 0 && sortedMonomials[count-1] == monomials[i])
+                sortedCoefficients[count-1] = sortedCoefficients[count-1].add(coefficients[i]);
+            else {
+                sortedMonomials[count] = monomials[i];
+                sortedCoefficients[count++] = coefficients[i];
+            }
+        }
+        return withoutZeros(indeterminants, sortedMonomials, sortedCoefficients, count);
+    }
+
+    private static SparsePolynom withoutZeros(String[] indeterminants, long[] monomials, Number[] coefficients, int count) {
+        int nonZero = 0;
+        for(int i=0; i<count; i++) {
+            if(coefficients[i].isZero() || coefficients[i].equals(Number.ZERO())) continue;
+            monomials[nonZero] = monomials[i];
+            coefficients[nonZero++] = coefficients[i];
+        }
+        return new SparsePolynom(indeterminants, Arrays.copyOf(monomials, nonZero), expressions(Arrays.copyOf(coefficients, nonZero)));
+    }
+
+
+    @Override
+    public Number evaluate(SymbolLookup lookup, Number params) {
+        Number[] values = new Number[indeterminants.length];
+        if(params instanceof Numbers n) {
+            if(n.size() > values.length)
+                throw new MathEvaluationException("Too many arguments (" + n.size() + ") applied to operation, expected " + values.length);
+            for(int i=0; i<n.size(); i++)
+                values[i] = n.evaluate(i, lookup);
+        }
+        else values[0] = Expression.evaluate(params, lookup);
+        for(int i=0; i<values.length; i++)
+            if(values[i] == null) values[i] = SymbolLookup.UNSPECIFIED;
+        return compiled.get(lookup).evaluate(values);
+    }
+
+    @Override
+    public Number[] evaluateAll(SymbolLookup lookup, Number[] inputs) {
+        CompiledSparsePolynom compiled = this.compiled.get(lookup);
+        Number[] values = new Number[indeterminants.length];
+        Arrays.fill(values, SymbolLookup.UNSPECIFIED);
+        Number[] results = new Number[inputs.length];
+        for(int i=0; i<inputs.length; i++) {
+            Budget.checkpoint();
+            if(inputs[i] instanceof Numbers) {
+                // Spread over the indeterminants, like evaluate() does
+                results[i] = evaluate(lookup, inputs[i]);
+                continue;
+            }
+            values[0] = Expression.evaluate(inputs[i], lookup);
+            results[i] = compiled.evaluate(values);
+        }
+        return results;
+    }
+
+    /**
+     * Evaluates the coefficients of this polynom once, for evaluating it many times.
+     *
+     * @param lookup The lookup to evaluate the coefficients with
+     * @return The polynom with evaluated coefficients
+     */
+    private CompiledSparsePolynom compileTerms(SymbolLookup lookup) {
+        Number[] values = new Number[coefficients.length];
+        for(int i=0; i<values.length; i++)
+            values[i] = coefficients[i].evaluate(lookup);
+        return new CompiledSparsePolynom(indeterminants.length, bits, monomials, values);
+    }
+
+    @Override
+    public Function simplify() {
+        Number[] simplified = new Number[coefficients.length];
+        for(int i=0; i<simplified.length; i++)
+            simplified[i] = coefficients[i].simplify();
+        return withoutZeros(indeterminants, monomials.clone(), simplified, simplified.length);
+    }
+
+    @Override
+    public String toString() {
+        String params = '(' + String.join(",", indeterminants) + ") -> ";
+        if(monomials.length == 0)
+            return params + "0";
+        return params + IntStream.range(0, monomials.length)
+                .mapToObj(this::termToString)
+                .collect(Collectors.joining(" + "));
+    }
+
+    @Override
+    public RenderableExpression toRenderable() {
+        RenderableExpression params = list(Arrays.stream(indeterminants).map(RenderableExpression::name).toArray(RenderableExpression[]::new));
+        if(monomials.length == 0)
+            return infix(arrow(true, false), params, num(0));
+        return infix(arrow(true, false), params, IntStream.range(0, monomials.length)
+                .mapToObj(this::renderTerm)
+                .reduce(RenderableExpression::plus).get());
+    }
+
+    private String termToString(int term) {
+        Expression c = coefficients[term];
+        StringBuilder str = new StringBuilder();
+        if(monomials[term] == 0 || !c.equals(Number.ONE())) {
+            if(c instanceof Constant k && !(k.value() instanceof Complex))
+                str.append(c);
+            else str.append('(').append(c).append(')');
+        }
+        for(int i=0; i<indeterminants.length; i++) {
+            int exp = exponent(monomials[term], i);
+            if(exp == 0) continue;
+            if(!str.isEmpty()) str.append('·');
+            str.append(indeterminants[i]);
+            if(exp == 2) str.append('²');
+            else if(exp == 3) str.append('³');
+            else if(exp != 1) str.append('^').append(exp);
+        }
+        return str.toString();
+    }
+
+    private RenderableExpression renderTerm(int term) {
+        Expression c = coefficients[term];
+        RenderableExpression rendered = null;
+        if(monomials[term] == 0 || !c.equals(Number.ONE())) {
+            rendered = c.toRenderable();
+            if(!(c instanceof Constant k) || k.value() instanceof Complex) rendered = par(rendered);
+        }
+        for(int i=0; i<indeterminants.length; i++) {
+            int exp = exponent(monomials[term], i);
+            if(exp == 0) continue;
+            RenderableExpression factor = RenderableExpression.name(indeterminants[i]);
+            if(exp != 1) factor = pow(factor, num(exp));
+            rendered = rendered == null ? factor : mult(rendered, factor);
+        }
+        return rendered;
+    }
+
+    @Override
+    public int operandCount() {
+        return indeterminants.length + monomials.length;
+    }
+
+    @Override
+    public Expression[] operands() {
+        Expression[] operands = new Expression[indeterminants.length + monomials.length];
+        for(int i=0; i<indeterminants.length; i++)
+            operands[i] = Symbol.of(indeterminants[i]);
+        for(int i=0; i<monomials.length; i++) {
+            Number operand = coefficients[i];
+            for(int j=0; j<indeterminants.length; j++) {
+                int exp = exponent(monomials[i], j);
+                if(exp != 0) operand = operand.multiply(operands[j].raise(exp));
+            }
+            operands[i + indeterminants.length] = Expression.of(operand);
+        }
+        return operands;
+    }
+
+    @Override
+    public int degree(int indeterminant) {
+        Arguments.checkRange(indeterminant, 0, indeterminants.length);
+        int degree = 0;
+        for(long m : monomials)
+            degree = Math.max(degree, exponent(m, indeterminant));
+        return degree;
+    }
+
+    /**
+     * Returns the total degree of this polynom, that is the maximum sum of the
+     * exponents of any term.
+     */
+    @Override
+    public int degree() {
+        int degree = 0;
+        for(long m : monomials) {
+            int d = 0;
+            for(int i=0; i<indeterminants.length; i++)
+                d += exponent(m, i);
+            degree = Math.max(degree, d);
+        }
+        return degree;
+    }
+
+    @Override
+    public Expression getCoefficient(int n) {
+        Arguments.checkRange(n, 0, null);
+        return n < coefficients.length ? coefficients[n] : Expression.ZERO();
+    }
+
+    @Override
+    public Expression[] coefficients() {
+        return coefficients.clone();
+    }
+
+    @Override
+    public String[] indeterminants() {
+        return indeterminants.clone();
+    }
+
+    @Override
+    public int indeterminantCount() {
+        return indeterminants.length;
+    }
+
+    @Override
+    public Polynom derivative(int indeterminant) {
+        Arguments.checkRange(indeterminant, 0, indeterminants.length);
+        long unit = 1L << shift(indeterminant);
+        // Terms keep their order, since all remaining terms lose the same exponent
+        long[] monomials = new long[this.monomials.length];
+        Expression[] coefficients = new Expression[this.coefficients.length];
+        int count = 0;
+        for(int i=0; i<this.monomials.length; i++) {
+            int exp = exponent(this.monomials[i], indeterminant);
+            if(exp == 0) continue;
+            monomials[count] = this.monomials[i] - unit;
+            coefficients[count++] = (Expression) this.coefficients[i].multiply(exp);
+        }
+        return new SparsePolynom(indeterminants, Arrays.copyOf(monomials, count), Arrays.copyOf(coefficients, count));
+    }
+
+    @Override
+    public Polynom antiderivative(int indeterminant) {
+        Arguments.checkRange(indeterminant, 0, indeterminants.length);
+        checkExponent(degree(indeterminant) + 1);
+        long unit = 1L << shift(indeterminant);
+        long[] monomials = new long[this.monomials.length];
+        Expression[] coefficients = new Expression[this.coefficients.length];
+        for(int i=0; i<monomials.length; i++) {
+            monomials[i] = this.monomials[i] + unit;
+            coefficients[i] = (Expression) this.coefficients[i].divide(exponent(this.monomials[i], indeterminant) + 1);
+        }
+        return new SparsePolynom(indeterminants, monomials, coefficients);
+    }
+
+    /**
+     * Integrates this polynom in the given indeterminant from a to b. The result is a
+     * polynom in the remaining indeterminants.
+     */
+    @Override
+    public Number integrate(int indeterminant, SymbolLookup lookup, Number a, Number b, int n) {
+        SparsePolynom antiderivative = (SparsePolynom) antiderivative(indeterminant, n);
+        Number[] upper = antiderivative.values(), lower = upper.clone();
+        Number valueA = Expression.evaluate(a, lookup), valueB = Expression.evaluate(b, lookup);
+        for(int i=0; i<upper.length; i++) {
+            int exp = exponent(antiderivative.monomials[i], indeterminant);
+            upper[i] = upper[i].multiply(valueB.raise(exp));
+            lower[i] = lower[i].multiply(valueA.raise(exp)).negate();
+        }
+
+        String[] remaining = new String[indeterminants.length - 1];
+        for(int i=0, j=0; i<indeterminants.length; i++)
+            if(i != indeterminant) remaining[j++] = indeterminants[i];
+        int[][] exponents = new int[2 * upper.length][];
+        for(int i=0; i<upper.length; i++) {
+            int[] exps = new int[remaining.length];
+            for(int j=0, k=0; j<indeterminants.length; j++)
+                if(j != indeterminant) exps[k++] = exponent(antiderivative.monomials[i], j);
+            exponents[2*i] = exponents[2*i+1] = exps;
+        }
+        Number[] coefficients = new Number[exponents.length];
+        for(int i=0; i<upper.length; i++) {
+            coefficients[2*i] = upper[i];
+            coefficients[2*i+1] = lower[i];
+        }
+        return of(remaining, exponents, coefficients).simplify();
+    }
+
+    @Override
+    public Polynom[] divideWithRemainder(Polynom divisor) {
+        throw new UnsupportedMathOperationException("Multi-indeterminant polynoms not supported");
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation add(Number x) {
+        SparsePolynom b = termsOf(x);
+        if(b == null) return Polynom.super.add(x);
+        return new PolynomOperation(Polynom.super.add(x), merge(b, false));
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation subtract(Number x) {
+        SparsePolynom b = termsOf(x);
+        if(b == null) return Polynom.super.subtract(x);
+        return new PolynomOperation(Polynom.super.subtract(x), merge(b, true));
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation subtractFrom(Number x) {
+        SparsePolynom b = termsOf(x);
+        if(b == null) return Polynom.super.subtractFrom(x);
+        return new PolynomOperation(Polynom.super.subtractFrom(x), b.merge(this, true));
+    }
+
+    @Override
+    public @NotNull BinaryFunctionOperation multiply(Number x) {
+        SparsePolynom b = termsOf(x);
+        if(b == null) return Polynom.super.multiply(x);
+        return new PolynomOperation(Polynom.super.multiply(x), multiply(b));
+    }
+
+    /**
+     * Returns the sum or difference of this and the given polynom, by merging their
+     * sorted terms.
+     */
+    private SparsePolynom merge(SparsePolynom b, boolean subtract) {
+        Number[] ac = values(), bc = b.values();
+        long[] monomials = new long[this.monomials.length + b.monomials.length];
+        Number[] coefficients = new Number[monomials.length];
+        int i = 0, j = 0, count = 0;
+        while(i < ac.length || j < bc.length) {
+            if(j == bc.length || (i < ac.length && this.monomials[i] > b.monomials[j])) {
+                monomials[count] = this.monomials[i];
+                coefficients[count++] = ac[i++];
+            }
+            else if(i == ac.length || this.monomials[i] < b.monomials[j]) {
+                monomials[count] = b.monomials[j];
+                coefficients[count++] = subtract ? bc[j++].negate() : bc[j++];
+            }
+            else {
+                monomials[count] = this.monomials[i];
+                coefficients[count++] = subtract ? ac[i++].subtract(bc[j++]) : ac[i++].add(bc[j++]);
+            }
+        }
+        return withoutZeros(indeterminants, monomials, coefficients, count);
+    }
+
+    /**
+     * Returns the product of this and the given polynom. The product of each term of
+     * the shorter factor with all terms of the other factor forms a sorted row; the
+     * heap always holds the next term of each row, so that the terms of the product
+     * are generated in descending order and can be combined right away.
+     */
+    private SparsePolynom multiply(SparsePolynom b) {
+        SparsePolynom a = this;
+        if(a.monomials.length > b.monomials.length) {
+            a = b;
+            b = this;
+        }
+        if(a.monomials.length == 0)
+            return a;
+        for(int i=0; i<indeterminants.length; i++)
+            checkExponent(a.degree(i) + b.degree(i));
+
+        Number[] ac = a.values(), bc = b.values();
+        long[] am = a.monomials, bm = b.monomials;
+
+        // Binary max heap of rows, keyed by the monomial of their next term
+        int rows = am.length;
+        long[] keys = new long[rows];
+        int[] row = new int[rows], column = new int[rows];
+        int size = 0;
+        for(int i=0; i<rows; i++) {
+            keys[size] = am[i] + bm[0];
+            row[size] = i;
+            column[size] = 0;
+            siftUp(keys, row, column, size++);
+        }
+
+        long[] monomials = new long[Math.max(16, am.length + bm.length)];
+        Number[] coefficients = new Number[monomials.length];
+        int count = 0;
+        while(size != 0) {
+            if((count & 0xFF) == 0) Budget.checkpoint();
+            long monomial = keys[0];
+            Number coefficient = null;
+            // Pop all terms with the current monomial
+            while(size != 0 && keys[0] == monomial) {
+                int i = row[0], j = column[0];
+                Number term = ac[i].multiply(bc[j]);
+                coefficient = coefficient == null ? term : coefficient.add(term);
+                if(++j < bm.length) {
+                    keys[0] = am[i] + bm[j];
+                    column[0] = j;
+                }
+                else {
+                    size--;
+                    keys[0] = keys[size];
+                    row[0] = row[size];
+                    column[0] = column[size];
+                }
+                siftDown(keys, row, column, size);
+            }
+            if(count == monomials.length) {
+                monomials = Arrays.copyOf(monomials, 2 * count);
+                coefficients = Arrays.copyOf(coefficients, 2 * count);
+            }
+            monomials[count] = monomial;
+            coefficients[count++] = coefficient;
+        }
+        return withoutZeros(indeterminants, monomials, coefficients, count);
+    }
+
+    private static void siftUp(long[] keys, int[] row, int[] column, int index) {
+        while(index > 0) {
+            int parent = (index - 1) >> 1;
+            if(keys[parent] >= keys[index]) return;
+            swap(keys, row, column, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] keys, int[] row, int[] column, int size) {
+        int index = 0;
+        while(true) {
+            int child = 2 * index + 1;
+            if(child >= size) return;
+            if(child + 1 < size && keys[child + 1] > keys[child]) child++;
+            if(keys[index] >= keys[child]) return;
+            swap(keys, row, column, index, child);
+            index = child;
+        }
+    }
+
+    private static void swap(long[] keys, int[] row, int[] column, int i, int j) {
+        long k = keys[i]; keys[i] = keys[j]; keys[j] = k;
+        int r = row[i]; row[i] = row[j]; row[j] = r;
+        int c = column[i]; column[i] = column[j]; column[j] = c;
+    }
+
+    /**
+     * Returns the coefficients of this polynom, evaluated if they are constant.
+     */
+    private Number[] values() {
+        Number[] values = new Number[coefficients.length];
+        for(int i=0; i<values.length; i++)
+            values[i] = coefficients[i] instanceof Constant c ? c.value() : coefficients[i];
+        return values;
+    }
+
+    /**
+     * Returns the given polynom or constant as sparse polynom in the indeterminants of
+     * this polynom, or <code>null</code> if x is neither a polynom in the same
+     * indeterminants nor a real or complex constant.
+     */
+    private SparsePolynom termsOf(Number x) {
+        if(x instanceof PolynomOperation p)
+            x = p.polynom();
+        if(x instanceof SparsePolynom p)
+            return Arrays.equals(indeterminants, p.indeterminants) ? p : null;
+        if(x instanceof Constant c)
+            x = c.value();
+        if(!(x instanceof SimpleNumber || x instanceof Complex))
+            return null;
+        return withoutZeros(indeterminants, new long[] { 0 }, new Number[] { x }, 1);
+    }
+
+    private void checkExponent(int exponent) {
+        if(exponent > mask(bits))
+            throw new UnsupportedMathOperationException("Polynom exponents too large for " + indeterminants.length + " indeterminants");
+    }
+
+    private int shift(int indeterminant) {
+        return bits * (indeterminants.length - 1 - indeterminant);
+    }
+
+    private int exponent(long monomial, int indeterminant) {
+        return (int) ((monomial >>> shift(indeterminant)) & mask(bits));
+    }
+
+    static int bits(int indeterminantCount) {
+        return 63 / indeterminantCount;
+    }
+
+    static long mask(int bits) {
+        return (1L << bits) - 1;
+    }
+
+    private static long pack(int[] exponents, int bits) {
+        long monomial = 0;
+        for(int exp : exponents) {
+            if(exp > mask(bits))
+                throw new UnsupportedMathOperationException("Polynom exponents too large for " + exponents.length + " indeterminants");
+            monomial = (monomial << bits) | exp;
+        }
+        return monomial;
+    }
+
+    private static Expression[] expressions(Number[] values) {
+        Expression[] expressions = new Expression[values.length];
+        for(int i=0; i<values.length; i++)
+            expressions[i] = Expression.of(values[i]);
+        return expressions;
+    }
+}
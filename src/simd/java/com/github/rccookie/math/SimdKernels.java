@@ -0,0 +1,96 @@
+package com.github.rccookie.math;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Loops using the incubating vector API, which compiles to SIMD instructions of the
+ * widest size the CPU supports. The remaining elements which do not fill a whole
+ * vector are processed one by one. Only loaded by {@link DoubleKernels} if the module
+ * is available.
+ *
+ * <p>This class is only compiled with the <code>simd</code> profile, so that the
+ * regular build does not depend on the incubator module. Products and sums are
+ * rounded separately, as in {@link ScalarKernels}, so that element-wise results do
+ * not depend on the kernels used; only the order of the sums in {@link #dot} differs.</p>
+ *
+ * <p>Note that <code>DoubleVector</code> refers to the vector API type in this file,
+ * not to {@link com.github.rccookie.math.DoubleVector}.</p>
+ */
+final class SimdKernels extends DoubleKernels {
+
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    public double dot(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        int i = 0, bound = SPECIES.loopBound(length);
+        double sum = 0;
+        if(bound != 0) {
+            DoubleVector acc = DoubleVector.zero(SPECIES);
+            for(; i<bound; i+=SPECIES.length()) {
+                DoubleVector x = DoubleVector.fromArray(SPECIES, a, aOffset + i);
+                DoubleVector y = DoubleVector.fromArray(SPECIES, b, bOffset + i);
+                acc = acc.add(x.mul(y));
+            }
+            sum = acc.reduceLanes(VectorOperators.ADD);
+        }
+        for(; i<length; i++)
+            sum += a[aOffset + i] * b[bOffset + i];
+        return sum;
+    }
+
+    @Override
+    public void axpy(double alpha, double[] x, int xOffset, double[] y, int yOffset, int length) {
+        int i = 0, bound = SPECIES.loopBound(length);
+        DoubleVector factor = DoubleVector.broadcast(SPECIES, alpha);
+        for(; i<bound; i+=SPECIES.length()) {
+            DoubleVector vx = DoubleVector.fromArray(SPECIES, x, xOffset + i);
+            DoubleVector vy = DoubleVector.fromArray(SPECIES, y, yOffset + i);
+            vy.add(vx.mul(factor)).intoArray(y, yOffset + i);
+        }
+        for(; i<length; i++)
+            y[yOffset + i] += alpha * x[xOffset + i];
+    }
+
+    @Override
+    public void apply(Operation op, double[] a, double[] b, double[] result) {
+        int i = 0, bound = SPECIES.loopBound(result.length);
+        for(; i<bound; i+=SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, a, i);
+            DoubleVector y = DoubleVector.fromArray(SPECIES, b, i);
+            (switch(op) {
+                case ADD -> x.add(y);
+                case SUBTRACT -> x.sub(y);
+                case SUBTRACT_FROM -> y.sub(x);
+                case MULTIPLY -> x.mul(y);
+                case DIVIDE -> x.div(y);
+            }).intoArray(result, i);
+        }
+        for(; i<result.length; i++)
+            result[i] = op.apply(a[i], b[i]);
+    }
+
+    @Override
+    public void apply(Operation op, double[] a, double b, double[] result) {
+        int i = 0, bound = SPECIES.loopBound(result.length);
+        DoubleVector y = DoubleVector.broadcast(SPECIES, b);
+        for(; i<bound; i+=SPECIES.length()) {
+            DoubleVector x = DoubleVector.fromArray(SPECIES, a, i);
+            (switch(op) {
+                case ADD -> x.add(y);
+                case SUBTRACT -> x.sub(y);
+                case SUBTRACT_FROM -> y.sub(x);
+                case MULTIPLY -> x.mul(y);
+                case DIVIDE -> x.div(y);
+            }).intoArray(result, i);
+        }
+        for(; i<result.length; i++)
+            result[i] = op.apply(a[i], b);
+    }
+}